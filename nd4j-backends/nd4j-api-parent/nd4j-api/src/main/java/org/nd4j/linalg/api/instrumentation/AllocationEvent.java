@@ -0,0 +1,22 @@
+package org.nd4j.linalg.api.instrumentation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+
+import java.io.Serializable;
+
+/**
+ * Single sampled allocation or release, as kept in ring buffer of recent events
+ */
+@Data
+@AllArgsConstructor
+public class AllocationEvent implements Serializable {
+    private long timestamp;
+    private String site;
+    private DataBuffer.Type dataType;
+    private long bytes;
+    private String status;
+    // id of tracked buffer
+    private String id;
+}
@@ -0,0 +1,62 @@
+package org.nd4j.linalg.api.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of allocations for single allocation site or data type
+ */
+public class AllocationStats {
+    private final AtomicLong allocatedBytes = new AtomicLong(0);
+    private final AtomicLong allocatedCount = new AtomicLong(0);
+    private final AtomicLong liveBytes = new AtomicLong(0);
+    private final AtomicLong liveCount = new AtomicLong(0);
+
+    protected void allocated(long bytes, long count) {
+        allocatedBytes.addAndGet(bytes);
+        allocatedCount.addAndGet(count);
+    }
+
+    protected void acquired(long bytes, long count) {
+        liveBytes.addAndGet(bytes);
+        liveCount.addAndGet(count);
+    }
+
+    protected void released(long bytes, long count) {
+        liveBytes.addAndGet(-bytes);
+        liveCount.addAndGet(-count);
+    }
+
+    /**
+     * This method returns number of bytes allocated so far, including released ones
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * This method returns number of allocations so far, including released ones
+     */
+    public long getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    /**
+     * This method returns number of bytes in allocations that weren't released yet
+     */
+    public long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    /**
+     * This method returns number of allocations that weren't released yet
+     */
+    public long getLiveCount() {
+        return liveCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AllocationStats{liveBytes=" + liveBytes.get() + ", liveCount=" + liveCount.get()
+                        + ", allocatedBytes=" + allocatedBytes.get() + ", allocatedCount=" + allocatedCount.get() + "}";
+    }
+}
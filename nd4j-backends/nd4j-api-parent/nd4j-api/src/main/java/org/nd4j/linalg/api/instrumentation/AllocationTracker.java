@@ -0,0 +1,484 @@
+package org.nd4j.linalg.api.instrumentation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sampling allocation tracker: keeps running totals of live off-heap bytes per allocation site and per data type.
+ *
+ * Allocations are sampled by size: buffer of N bytes is tracked with probability N / samplingInterval (buffers larger
+ * than sampling interval are always tracked), and every tracked buffer accounts for samplingInterval bytes, so
+ * totals stay unbiased while stack traces are captured for small fraction of allocations only. Sampling decision
+ * is derived from buffer identity, so buffer logged several times (i.e. as buffer and as array) is tracked once.
+ * Sampling interval of 0 tracks every buffer.
+ *
+ * Tracked buffers are released once they become unreachable (off-heap memory is freed along with DataBuffer),
+ * or when they're explicitly logged as {@link Instrumentation#DESTROYED}. Buffers attached to workspaces aren't
+ * tracked: their memory belongs to workspace.
+ *
+ * Per-type allocated totals are exact, while live totals and all per-site numbers are estimates. All of them are
+ * plain counters, so summaries are O(1). Recent sampled events are kept in fixed-size ring buffer.
+ *
+ * Each tracked buffer gets sequential id, reported in log entries. Ids of released buffers are kept in bounded set
+ * of ring buffer size, so {@link #isDestroyed(String)} reports recent releases only.
+ */
+@Slf4j
+public class AllocationTracker implements Instrumentation {
+    public static final long DEFAULT_SAMPLING_INTERVAL = 512L * 1024L;
+    public static final int DEFAULT_RING_SIZE = 4096;
+    public static final int DEFAULT_MAX_SITES = 4096;
+
+    public static final String RELEASED = "released";
+    public static final String OTHER_SITE = "<other>";
+    public static final String UNKNOWN_SITE = "<unknown>";
+
+    private static final int DRAIN_BATCH = 64;
+
+    private volatile long samplingInterval;
+    private final int maxSites;
+    private volatile String[] ignoredPackages = {"java.", "sun.", "org.nd4j.linalg.api.", "org.nd4j.linalg.factory.",
+                    "org.nd4j.linalg.cpu.", "org.nd4j.linalg.jcublas.", "org.nd4j.jita.", "org.nd4j.linalg.memory.",
+                    "org.nd4j.linalg.cache."};
+
+    private final AllocationStats total = new AllocationStats();
+    private final Map<DataBuffer.Type, AllocationStats> types = new EnumMap<>(DataBuffer.Type.class);
+    private final ConcurrentHashMap<String, AllocationStats> sites = new ConcurrentHashMap<>();
+    private final AtomicLong arrays = new AtomicLong(0);
+    private final AtomicLong ids = new AtomicLong(0);
+
+    private final ReferenceQueue<DataBuffer> queue = new ReferenceQueue<>();
+    private final ConcurrentHashMap<TrackedBuffer, TrackedBuffer> tracked = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<AllocationEvent> ring;
+    private final AtomicLong ringCursor = new AtomicLong(0);
+    private final Map<String, Boolean> destroyedIds;
+
+    public AllocationTracker() {
+        this(DEFAULT_SAMPLING_INTERVAL, DEFAULT_RING_SIZE, DEFAULT_MAX_SITES);
+    }
+
+    /**
+     * @param samplingInterval average number of bytes between sampled allocations, 0 to track all allocations
+     * @param ringSize         number of recent events to keep
+     * @param maxSites         max number of distinct allocation sites, further sites are accounted as "<other>"
+     */
+    public AllocationTracker(long samplingInterval, int ringSize, int maxSites) {
+        if (ringSize < 1 || maxSites < 1)
+            throw new IllegalArgumentException("Ring size and number of sites should be positive");
+
+        setSamplingInterval(samplingInterval);
+        this.maxSites = maxSites;
+        this.ring = new AtomicReferenceArray<>(ringSize);
+
+        final int maxDestroyedIds = ringSize;
+        this.destroyedIds = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxDestroyedIds;
+            }
+        });
+
+        for (DataBuffer.Type type : DataBuffer.Type.values())
+            types.put(type, new AllocationStats());
+    }
+
+    public void setSamplingInterval(long samplingInterval) {
+        if (samplingInterval < 0)
+            throw new IllegalArgumentException("Sampling interval can't be negative");
+
+        this.samplingInterval = samplingInterval;
+    }
+
+    public long getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * This method sets package prefixes skipped while looking for allocation site in stack trace
+     */
+    public void setIgnoredPackages(String... prefixes) {
+        this.ignoredPackages = prefixes.clone();
+    }
+
+    @Override
+    public void log(INDArray toLog, String status) {
+        if (toLog == null)
+            return;
+
+        arrays.incrementAndGet();
+        // array itself doesn't own off-heap memory, its buffer does
+        process(toLog.data(), status, false);
+    }
+
+    @Override
+    public void log(DataBuffer buffer, String status) {
+        process(buffer, status, true);
+    }
+
+    @Override
+    public void log(INDArray toLog) {
+        log(toLog, CREATED);
+    }
+
+    @Override
+    public void log(DataBuffer buffer) {
+        log(buffer, CREATED);
+    }
+
+    private void process(DataBuffer buffer, String status, boolean countAllocation) {
+        if (buffer == null)
+            return;
+
+        drain(DRAIN_BATCH);
+
+        DataBuffer root = buffer.originalDataBuffer() != null ? buffer.originalDataBuffer() : buffer;
+        if (root.isAttached())
+            return;
+
+        if (DESTROYED.equals(status)) {
+            TrackedBuffer reference = tracked.get(new TrackedBuffer(root));
+            if (reference != null)
+                release(reference, DESTROYED);
+            return;
+        }
+
+        long bytes = root.length() * root.getElementSize();
+
+        // views don't allocate anything
+        if (countAllocation && root == buffer) {
+            total.allocated(bytes, 1);
+            types.get(root.dataType()).allocated(bytes, 1);
+        }
+
+        track(root, bytes, status);
+    }
+
+    private void track(DataBuffer root, long bytes, String status) {
+        long interval = samplingInterval;
+        long weightBytes = bytes;
+        long weightCount = 1;
+
+        if (interval > 0 && bytes < interval) {
+            double probability = bytes / (double) interval;
+            if (uniform(System.identityHashCode(root)) >= probability)
+                return;
+
+            weightBytes = interval;
+            weightCount = Math.max(1, Math.round(1.0 / probability));
+        }
+
+        // duplicates are rare, since only sampled buffers get here, so site is resolved before insertion
+        StackTraceElement site = siteOf(new Throwable().getStackTrace());
+        String siteName = site == null ? UNKNOWN_SITE : site.toString();
+
+        TrackedBuffer reference = new TrackedBuffer(root, queue, String.valueOf(ids.incrementAndGet()), weightBytes,
+                        weightCount, site, siteName, statsForSite(siteName));
+        if (tracked.putIfAbsent(reference, reference) != null) {
+            // already tracked, i.e. logged as buffer first, and as array later
+            reference.clear();
+            return;
+        }
+
+        reference.stats.allocated(weightBytes, weightCount);
+        reference.stats.acquired(weightBytes, weightCount);
+        types.get(reference.dataType).acquired(weightBytes, weightCount);
+        total.acquired(weightBytes, weightCount);
+
+        record(new AllocationEvent(reference.timestamp, reference.siteName, reference.dataType, bytes, status,
+                        reference.id));
+    }
+
+    private void release(TrackedBuffer reference, String status) {
+        if (tracked.remove(reference) == null)
+            return;
+
+        reference.clear();
+        destroyedIds.put(reference.id, Boolean.TRUE);
+
+        reference.stats.released(reference.weightBytes, reference.weightCount);
+        types.get(reference.dataType).released(reference.weightBytes, reference.weightCount);
+        total.released(reference.weightBytes, reference.weightCount);
+
+        record(new AllocationEvent(System.currentTimeMillis(), reference.siteName, reference.dataType,
+                        reference.bytes, status, reference.id));
+    }
+
+    /**
+     * This method processes up to given number of buffers that became unreachable
+     */
+    private void drain(int limit) {
+        for (int i = 0; i < limit; i++) {
+            Reference<? extends DataBuffer> reference = queue.poll();
+            if (reference == null)
+                return;
+
+            release((TrackedBuffer) reference, RELEASED);
+        }
+    }
+
+    /**
+     * This method processes all buffers that became unreachable so far
+     */
+    public void drain() {
+        drain(Integer.MAX_VALUE);
+    }
+
+    private AllocationStats statsForSite(String site) {
+        AllocationStats stats = sites.get(site);
+        if (stats != null)
+            return stats;
+
+        if (sites.size() >= maxSites)
+            site = OTHER_SITE;
+
+        stats = new AllocationStats();
+        AllocationStats existing = sites.putIfAbsent(site, stats);
+        return existing == null ? stats : existing;
+    }
+
+    protected StackTraceElement siteOf(StackTraceElement[] trace) {
+        String[] prefixes = ignoredPackages;
+        for (StackTraceElement element : trace) {
+            boolean ignored = false;
+            for (String prefix : prefixes) {
+                if (element.getClassName().startsWith(prefix)) {
+                    ignored = true;
+                    break;
+                }
+            }
+
+            if (!ignored)
+                return element;
+        }
+
+        return null;
+    }
+
+    private void record(AllocationEvent event) {
+        int index = (int) (ringCursor.getAndIncrement() % ring.length());
+        ring.set(index, event);
+    }
+
+    /**
+     * This method maps identity hash to [0, 1)
+     */
+    private static double uniform(int hash) {
+        int h = hash * 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h >>> 8) / (double) (1 << 24);
+    }
+
+    /**
+     * This method returns estimated number of bytes in live allocations
+     */
+    public long getLiveBytes() {
+        return total.getLiveBytes();
+    }
+
+    /**
+     * This method returns estimated number of live allocations
+     */
+    public long getLiveCount() {
+        return total.getLiveCount();
+    }
+
+    /**
+     * This method returns estimated number of bytes in live allocations of given data type
+     */
+    public long getLiveBytes(DataBuffer.Type type) {
+        return types.get(type).getLiveBytes();
+    }
+
+    /**
+     * This method returns total number of bytes allocated so far
+     */
+    public long getAllocatedBytes() {
+        return total.getAllocatedBytes();
+    }
+
+    /**
+     * This method returns number of logged arrays
+     */
+    public long getNumberOfArrays() {
+        return arrays.get();
+    }
+
+    /**
+     * This method returns number of currently tracked (sampled) buffers
+     */
+    public int getNumberOfTrackedBuffers() {
+        return tracked.size();
+    }
+
+    public AllocationStats getTotalStats() {
+        return total;
+    }
+
+    public Map<DataBuffer.Type, AllocationStats> getTypeStats() {
+        return Collections.unmodifiableMap(types);
+    }
+
+    public Map<String, AllocationStats> getSiteStats() {
+        return Collections.unmodifiableMap(sites);
+    }
+
+    /**
+     * This method returns up to n allocation sites with the most live bytes, in descending order
+     */
+    public Map<String, AllocationStats> getTopSites(int n) {
+        List<Map.Entry<String, AllocationStats>> entries = new ArrayList<>(sites.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, AllocationStats>>() {
+            @Override
+            public int compare(Map.Entry<String, AllocationStats> o1, Map.Entry<String, AllocationStats> o2) {
+                return Long.compare(o2.getValue().getLiveBytes(), o1.getValue().getLiveBytes());
+            }
+        });
+
+        Map<String, AllocationStats> result = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size() && i < n; i++)
+            result.put(entries.get(i).getKey(), entries.get(i).getValue());
+
+        return result;
+    }
+
+    /**
+     * This method returns recent sampled events, oldest first
+     */
+    public List<AllocationEvent> getRecentEvents() {
+        long end = ringCursor.get();
+        long start = Math.max(0, end - ring.length());
+
+        List<AllocationEvent> events = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            AllocationEvent event = ring.get((int) (i % ring.length()));
+            if (event != null)
+                events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * This method returns entries for tracked buffers that are still alive.
+     *
+     * PLEASE NOTE: This method iterates over all tracked buffers, use getLiveBytes()/getLiveCount() for monitoring
+     */
+    @Override
+    public Collection<LogEntry> getStillAlive() {
+        drain();
+
+        List<LogEntry> result = new ArrayList<>();
+        for (TrackedBuffer reference : tracked.keySet()) {
+            if (reference.get() != null)
+                result.add(entryOf(reference.id, reference.timestamp, reference.dataType, reference.bytes,
+                                reference.site, CREATED));
+        }
+        return result;
+    }
+
+    /**
+     * This method returns entries for recently released buffers, as kept in ring buffer of recent events
+     */
+    @Override
+    public Collection<LogEntry> getDestroyed() {
+        drain();
+
+        List<LogEntry> result = new ArrayList<>();
+        for (AllocationEvent event : getRecentEvents()) {
+            if (!CREATED.equals(event.getStatus()))
+                result.add(entryOf(event.getId(), event.getTimestamp(), event.getDataType(), event.getBytes(), null,
+                                event.getStatus()));
+        }
+        return result;
+    }
+
+    /**
+     * This method returns true if buffer with given id was released recently.
+     *
+     * PLEASE NOTE: only last ringSize releases are remembered, so this method returns false for buffers released
+     * long ago, as well as for unknown ids and buffers that weren't sampled
+     *
+     * @param id id of tracked buffer, as reported in log entries
+     */
+    @Override
+    public boolean isDestroyed(String id) {
+        if (id == null)
+            return false;
+
+        drain();
+        return destroyedIds.containsKey(id);
+    }
+
+    private static LogEntry entryOf(String id, long timestamp, DataBuffer.Type type, long bytes, StackTraceElement site,
+                    String status) {
+        LogEntry entry = new LogEntry();
+        entry.setId(id);
+        entry.setTimestamp(timestamp);
+        entry.setDataType(type.name().toLowerCase());
+        entry.setLength(bytes);
+        entry.setStatus(status);
+        if (site != null)
+            entry.setStackTraceElements(new StackTraceElement[] {site});
+        return entry;
+    }
+
+    /**
+     * Weak reference to tracked buffer. Equality is based on buffer identity, so it can be looked up by buffer
+     */
+    private static class TrackedBuffer extends WeakReference<DataBuffer> {
+        private final int hash;
+        private final String id;
+        private final DataBuffer.Type dataType;
+        private final long bytes;
+        private final long weightBytes;
+        private final long weightCount;
+        private final long timestamp;
+        private final StackTraceElement site;
+        private final String siteName;
+        private final AllocationStats stats;
+
+        // lookup key
+        private TrackedBuffer(DataBuffer buffer) {
+            this(buffer, null, null, 0, 0, null, null, null);
+        }
+
+        private TrackedBuffer(DataBuffer buffer, ReferenceQueue<DataBuffer> queue, String id, long weightBytes,
+                        long weightCount, StackTraceElement site, String siteName, AllocationStats stats) {
+            super(buffer, queue);
+            this.hash = System.identityHashCode(buffer);
+            this.id = id;
+            this.dataType = buffer.dataType();
+            this.bytes = buffer.length() * buffer.getElementSize();
+            this.weightBytes = weightBytes;
+            this.weightCount = weightCount;
+            this.timestamp = System.currentTimeMillis();
+            this.site = site;
+            this.siteName = siteName;
+            this.stats = stats;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof TrackedBuffer))
+                return false;
+
+            DataBuffer buffer = get();
+            return buffer != null && buffer == ((TrackedBuffer) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -30,8 +30,11 @@ import java.util.concurrent.ExecutorService;
 /**
  * Collects log entries in memory
  *
+ * PLEASE NOTE: This implementation keeps every log entry, so it grows without bound. Use {@link AllocationTracker} instead.
+ *
  * @author Adam Gibson
  */
+@Deprecated
 public class InMemoryInstrumentation implements Instrumentation {
     private List<LogEntry> entries = Collections.synchronizedList(new ArrayList<LogEntry>());
     private List<DataBufferLogEntry> dataBufferLogEntries =
@@ -417,6 +417,8 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().processOpCall(op, tadBuffers);
                 break;
+            case LATENCY:
+                break;
             case DISABLED:
             default:
                 return 0L;
@@ -486,6 +488,8 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().processOpCall(op);
                 break;
+            case LATENCY:
+                break;
             case SCOPE_PANIC:
                 checkForWorkspaces(op);
                 return 0L;
@@ -507,6 +511,8 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().processOpCall(op);
                 break;
+            case LATENCY:
+                break;
             case SCOPE_PANIC:
                 checkForWorkspaces(op);
                 return 0L;
@@ -523,6 +529,10 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case ALL:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
                 OpProfiler.getInstance().timeOpCall(op, timeStart);
+                OpProfiler.getInstance().recordLatency(op, timeStart);
+                break;
+            case LATENCY:
+                OpProfiler.getInstance().recordLatency(op, timeStart);
                 break;
             case METHODS:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
@@ -552,6 +562,10 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case ALL:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
                 OpProfiler.getInstance().timeOpCall(op, timeStart);
+                OpProfiler.getInstance().recordLatency(op, timeStart);
+                break;
+            case LATENCY:
+                OpProfiler.getInstance().recordLatency(op, timeStart);
                 break;
             case METHODS:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
@@ -54,6 +54,7 @@ public interface OpExecutioner {
         ALL,
         SCOPE_PANIC,
         BANDWIDTH,
+        LATENCY,
     }
 
     /**
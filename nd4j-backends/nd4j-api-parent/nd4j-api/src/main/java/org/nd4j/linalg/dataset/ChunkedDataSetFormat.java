@@ -0,0 +1,509 @@
+package org.nd4j.linalg.dataset;
+
+import lombok.NonNull;
+import org.bytedeco.javacpp.BytePointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.BasicNDArrayCompressor;
+import org.nd4j.linalg.compression.CompressedDataBuffer;
+import org.nd4j.linalg.compression.CompressionDescriptor;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Versioned, chunked binary container for {@link DataSet} and {@link MultiDataSet}.
+ *
+ * Unlike DataSet.save()/MultiDataSet.save(), which stream every array through Nd4j.write(), this format keeps a
+ * table of per-array offsets in the header, and stores raw array data in separate 64-byte aligned chunks.
+ * That allows to load only some of the arrays (i.e. features only, or masks only), or only a range of rows,
+ * without touching the rest of the file. Each chunk can optionally be compressed via {@link BasicNDArrayCompressor}.
+ *
+ * File layout (header values are written with java DataOutput, i.e. big-endian):
+ * <pre>
+ * magic        8 bytes   "ND4JCHNK"
+ * version      int
+ * kind         byte      0 - DataSet, 1 - MultiDataSet
+ * byteOrder    byte      byte order of array data: 0 - little endian, 1 - big endian
+ * counts       4 x int   number of arrays for features, labels, features masks, labels masks (nulls included)
+ * numEntries   int
+ * entries      numEntries x [role byte, index int, dataType byte, rank int, shape ints, compression UTF,
+ *                            offset long, storedBytes long]
+ * data         array chunks, each starts at 64-byte aligned offset
+ * </pre>
+ *
+ * Uncompressed arrays are stored in 'c' order, so any range of rows is a contiguous region of the file.
+ * Data is written and read with FileChannel directly from/to DataBuffer memory, without intermediate copies.
+ */
+public class ChunkedDataSetFormat {
+    public static final int VERSION = 1;
+
+    protected static final byte[] MAGIC = new byte[] {'N', 'D', '4', 'J', 'C', 'H', 'N', 'K'};
+    protected static final int ALIGNMENT = 64;
+
+    protected static final byte KIND_DATASET = 0;
+    protected static final byte KIND_MULTIDATASET = 1;
+
+    public enum Component {
+        FEATURES, LABELS, FEATURES_MASK, LABELS_MASK
+    }
+
+    protected ChunkedDataSetFormat() {
+        //
+    }
+
+    /**
+     * This method checks, if given file was written in this format
+     *
+     * @param file file to check
+     * @return true if file starts with chunked format magic
+     */
+    public static boolean isChunkedFormat(@NonNull File file) {
+        if (!file.isFile() || file.length() < MAGIC.length)
+            return false;
+
+        byte[] magic = new byte[MAGIC.length];
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+            dis.readFully(magic);
+        } catch (IOException e) {
+            return false;
+        }
+
+        return Arrays.equals(MAGIC, magic);
+    }
+
+    public static void save(@NonNull DataSet dataSet, @NonNull File file) throws IOException {
+        save(dataSet, file, Collections.<Component, String>emptyMap());
+    }
+
+    /**
+     * @param compression compression algorithm to be applied to all arrays, or null for no compression
+     */
+    public static void save(@NonNull DataSet dataSet, @NonNull File file, String compression) throws IOException {
+        save(dataSet, file, allComponents(compression));
+    }
+
+    /**
+     * @param compression per-component compression algorithms. Components not in this map are stored uncompressed.
+     */
+    public static void save(@NonNull DataSet dataSet, @NonNull File file, @NonNull Map<Component, String> compression)
+                    throws IOException {
+        INDArray[][] arrays = new INDArray[][] {{dataSet.getFeatures()}, {dataSet.getLabels()},
+                        {dataSet.getFeaturesMaskArray()}, {dataSet.getLabelsMaskArray()}};
+
+        write(KIND_DATASET, arrays, file, compression);
+    }
+
+    public static void save(@NonNull org.nd4j.linalg.dataset.api.MultiDataSet dataSet, @NonNull File file)
+                    throws IOException {
+        save(dataSet, file, Collections.<Component, String>emptyMap());
+    }
+
+    /**
+     * @param compression compression algorithm to be applied to all arrays, or null for no compression
+     */
+    public static void save(@NonNull org.nd4j.linalg.dataset.api.MultiDataSet dataSet, @NonNull File file,
+                    String compression) throws IOException {
+        save(dataSet, file, allComponents(compression));
+    }
+
+    /**
+     * @param compression per-component compression algorithms. Components not in this map are stored uncompressed.
+     */
+    public static void save(@NonNull org.nd4j.linalg.dataset.api.MultiDataSet dataSet, @NonNull File file,
+                    @NonNull Map<Component, String> compression) throws IOException {
+        INDArray[][] arrays = new INDArray[][] {dataSet.getFeatures(), dataSet.getLabels(),
+                        dataSet.getFeaturesMaskArrays(), dataSet.getLabelsMaskArrays()};
+
+        write(KIND_MULTIDATASET, arrays, file, compression);
+    }
+
+    /**
+     * This method loads DataSet from file
+     *
+     * @param components components to load. If none specified, all components are loaded.
+     */
+    public static DataSet loadDataSet(@NonNull File file, Component... components) throws IOException {
+        return loadDataSet(file, 0, Integer.MAX_VALUE, components);
+    }
+
+    /**
+     * This method loads specified range of rows (examples) from file
+     *
+     * @param fromRow    first row to load, inclusive
+     * @param toRow      last row to load, exclusive
+     * @param components components to load. If none specified, all components are loaded.
+     */
+    public static DataSet loadDataSet(@NonNull File file, int fromRow, int toRow, Component... components)
+                    throws IOException {
+        INDArray[][] arrays = read(file, KIND_DATASET, fromRow, toRow, components);
+
+        return new DataSet(first(arrays[0]), first(arrays[1]), first(arrays[2]), first(arrays[3]));
+    }
+
+    /**
+     * This method loads MultiDataSet from file
+     *
+     * @param components components to load. If none specified, all components are loaded.
+     */
+    public static MultiDataSet loadMultiDataSet(@NonNull File file, Component... components) throws IOException {
+        return loadMultiDataSet(file, 0, Integer.MAX_VALUE, components);
+    }
+
+    /**
+     * This method loads specified range of rows (examples) from file
+     *
+     * @param fromRow    first row to load, inclusive
+     * @param toRow      last row to load, exclusive
+     * @param components components to load. If none specified, all components are loaded.
+     */
+    public static MultiDataSet loadMultiDataSet(@NonNull File file, int fromRow, int toRow, Component... components)
+                    throws IOException {
+        INDArray[][] arrays = read(file, KIND_MULTIDATASET, fromRow, toRow, components);
+
+        return new MultiDataSet(arrays[0], arrays[1], arrays[2], arrays[3]);
+    }
+
+    private static INDArray first(INDArray[] arrays) {
+        return arrays == null || arrays.length == 0 ? null : arrays[0];
+    }
+
+    private static Map<Component, String> allComponents(String compression) {
+        Map<Component, String> map = new EnumMap<>(Component.class);
+        if (compression != null)
+            for (Component component : Component.values())
+                map.put(component, compression);
+
+        return map;
+    }
+
+    private static long align(long position) {
+        long rem = position % ALIGNMENT;
+        return rem == 0 ? position : position + ALIGNMENT - rem;
+    }
+
+    /**
+     * This method returns ByteBuffer covering first {@code bytes} bytes of given DataBuffer memory.
+     *
+     * PLEASE NOTE: returned ByteBuffer doesn't keep DataBuffer alive, so caller has to hold reference to DataBuffer
+     * for as long as ByteBuffer is used
+     */
+    protected static ByteBuffer asByteBuffer(DataBuffer buffer, long bytes) {
+        checkChunkSize(bytes);
+
+        BytePointer pointer = new BytePointer(buffer.addressPointer());
+        pointer.position(0);
+        pointer.capacity(bytes);
+        pointer.limit(bytes);
+
+        return pointer.asByteBuffer().order(ByteOrder.nativeOrder());
+    }
+
+
+    private static void checkChunkSize(long bytes) {
+        if (bytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Chunk of " + bytes + " bytes can't be stored: chunks above "
+                            + Integer.MAX_VALUE + " bytes aren't supported");
+    }
+
+    protected static void write(byte kind, INDArray[][] arrays, File file, Map<Component, String> compression)
+                    throws IOException {
+        Nd4j.getExecutioner().commit();
+
+        List<Chunk> chunks = new ArrayList<>();
+        int[] counts = new int[arrays.length];
+        for (int role = 0; role < arrays.length; role++) {
+            if (arrays[role] == null)
+                continue;
+
+            counts[role] = arrays[role].length;
+            for (int index = 0; index < arrays[role].length; index++) {
+                INDArray array = arrays[role][index];
+                if (array == null)
+                    continue;
+
+                chunks.add(new Chunk(role, index, array, compression.get(Component.values()[role])));
+            }
+        }
+
+        // header has fixed size for given set of chunks, so first pass is used only to compute offsets
+        byte[] header = header(kind, counts, chunks);
+        long position = align(header.length);
+        for (Chunk chunk : chunks) {
+            chunk.offset = position;
+            position = align(position + chunk.storedBytes);
+        }
+        header = header(kind, counts, chunks);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(header), 0);
+
+            for (Chunk chunk : chunks) {
+                long offset = chunk.offset;
+                if (chunk.descriptor != null)
+                    offset += writeFully(channel, chunk.descriptor.toByteBuffer(), offset);
+
+                // view is created only here, while chunk holds reference to its buffer
+                writeFully(channel, asByteBuffer(chunk.buffer, chunk.dataBytes), offset);
+            }
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining())
+            written += channel.write(buffer, position + written);
+
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long read = 0;
+        while (buffer.hasRemaining()) {
+            int r = channel.read(buffer, position + read);
+            if (r < 0)
+                throw new EOFException("Unexpected end of chunked DataSet file");
+            read += r;
+        }
+    }
+
+    private static byte[] header(byte kind, int[] counts, List<Chunk> chunks) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(bos)) {
+            dos.write(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeByte(kind);
+            dos.writeByte(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1);
+            for (int count : counts)
+                dos.writeInt(count);
+
+            dos.writeInt(chunks.size());
+            for (Chunk chunk : chunks) {
+                dos.writeByte(chunk.role);
+                dos.writeInt(chunk.index);
+                dos.writeByte(chunk.dataType.ordinal());
+                dos.writeInt(chunk.shape.length);
+                for (int dim : chunk.shape)
+                    dos.writeInt(dim);
+                dos.writeUTF(chunk.compression == null ? "" : chunk.compression);
+                dos.writeLong(chunk.offset);
+                dos.writeLong(chunk.storedBytes);
+            }
+        }
+
+        return bos.toByteArray();
+    }
+
+    protected static INDArray[][] read(File file, byte expectedKind, int fromRow, int toRow, Component... components)
+                    throws IOException {
+        Set<Component> selected = components == null || components.length == 0
+                        ? EnumSet.allOf(Component.class) : EnumSet.copyOf(Arrays.asList(components));
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            DataInputStream dis = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+
+            byte[] magic = new byte[MAGIC.length];
+            dis.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IllegalStateException("File [" + file + "] isn't chunked DataSet file");
+
+            int version = dis.readInt();
+            if (version > VERSION)
+                throw new IllegalStateException("Unsupported chunked DataSet format version: " + version);
+
+            byte kind = dis.readByte();
+            if (kind != expectedKind)
+                throw new IllegalStateException("File [" + file + "] contains "
+                                + (kind == KIND_DATASET ? "DataSet" : "MultiDataSet"));
+
+            ByteOrder order = dis.readByte() == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+
+            INDArray[][] result = new INDArray[Component.values().length][];
+            for (int role = 0; role < result.length; role++) {
+                int count = dis.readInt();
+                if (count > 0 && selected.contains(Component.values()[role]))
+                    result[role] = new INDArray[count];
+            }
+
+            int numEntries = dis.readInt();
+            List<Chunk> chunks = new ArrayList<>(numEntries);
+            for (int e = 0; e < numEntries; e++) {
+                Chunk chunk = new Chunk();
+                chunk.role = dis.readByte();
+                chunk.index = dis.readInt();
+                chunk.dataType = DataBuffer.Type.values()[dis.readByte()];
+                chunk.shape = new int[dis.readInt()];
+                for (int i = 0; i < chunk.shape.length; i++)
+                    chunk.shape[i] = dis.readInt();
+                String compression = dis.readUTF();
+                chunk.compression = compression.isEmpty() ? null : compression;
+                chunk.offset = dis.readLong();
+                chunk.storedBytes = dis.readLong();
+                chunks.add(chunk);
+            }
+
+            // header is fully parsed at this point, so channel is used only for positional reads below
+            for (Chunk chunk : chunks) {
+                if (result[chunk.role] == null)
+                    continue;
+
+                result[chunk.role][chunk.index] = chunk.compression == null
+                                ? readRaw(channel, chunk, order, fromRow, toRow)
+                                : readCompressed(channel, chunk, fromRow, toRow);
+            }
+
+            return result;
+        }
+    }
+
+    private static INDArray readRaw(FileChannel channel, Chunk chunk, ByteOrder order, int fromRow, int toRow)
+                    throws IOException {
+        int rows = chunk.shape[0];
+        int from = Math.max(0, Math.min(fromRow, rows));
+        int to = Math.max(from, Math.min(toRow, rows));
+        if (from == 0 && to == rows) {
+            from = 0;
+        } else if (to == from) {
+            throw new IllegalArgumentException("Empty row range requested: [" + fromRow + ", " + toRow + ")");
+        }
+
+        int[] shape = chunk.shape.clone();
+        shape[0] = to - from;
+
+        int elementSize = Nd4j.sizeOfDataType(chunk.dataType);
+        long rowBytes = (ArrayUtil.prodLong(chunk.shape) / rows) * elementSize;
+
+        // array is allocated via regular factory, so current workspace is respected
+        INDArray array = Nd4j.createUninitialized(shape, 'c');
+        if (array.data().dataType() != chunk.dataType)
+            throw new IllegalStateException("Stored data type [" + chunk.dataType
+                            + "] doesn't match current data type [" + array.data().dataType() + "]");
+
+        ByteBuffer target = asByteBuffer(array.data(), rowBytes * shape[0]);
+        readFully(channel, target, chunk.offset + rowBytes * from);
+
+        if (order != ByteOrder.nativeOrder())
+            swapByteOrder(asByteBuffer(array.data(), rowBytes * shape[0]), chunk.dataType, order);
+
+        Nd4j.getAffinityManager().tagLocation(array, AffinityManager.Location.HOST);
+
+        return array;
+    }
+
+    private static INDArray readCompressed(FileChannel channel, Chunk chunk, int fromRow, int toRow)
+                    throws IOException {
+        ByteBuffer descriptorBuffer = ByteBuffer.allocateDirect(CompressionDescriptor.COMPRESSION_BYTE_BUFFER_LENGTH)
+                        .order(ByteOrder.nativeOrder());
+        readFully(channel, descriptorBuffer, chunk.offset);
+        descriptorBuffer.rewind();
+        CompressionDescriptor descriptor = CompressionDescriptor.fromByteBuffer(descriptorBuffer);
+
+        ByteBuffer compressed = ByteBuffer.allocateDirect((int) descriptor.getCompressedLength())
+                        .order(ByteOrder.nativeOrder());
+        readFully(channel, compressed, chunk.offset + CompressionDescriptor.COMPRESSION_BYTE_BUFFER_LENGTH);
+        compressed.rewind();
+
+        DataBuffer buffer = BasicNDArrayCompressor.getInstance()
+                        .decompress(new CompressedDataBuffer(new BytePointer(compressed), descriptor));
+
+        INDArray array = Nd4j.create(buffer, chunk.shape, Nd4j.getStrides(chunk.shape, 'c'), 0, 'c');
+
+        int rows = chunk.shape[0];
+        int from = Math.max(0, Math.min(fromRow, rows));
+        int to = Math.max(from, Math.min(toRow, rows));
+        if (from == 0 && to == rows)
+            return array;
+
+        if (to == from)
+            throw new IllegalArgumentException("Empty row range requested: [" + fromRow + ", " + toRow + ")");
+
+        // compressed chunks can't be read partially, so we take view over decompressed data
+        int[] shape = chunk.shape.clone();
+        shape[0] = to - from;
+        long rowLength = ArrayUtil.prodLong(chunk.shape) / rows;
+
+        return Nd4j.create(buffer, shape, Nd4j.getStrides(shape, 'c'), from * rowLength, 'c').dup('c');
+    }
+
+    private static void swapByteOrder(ByteBuffer buffer, DataBuffer.Type dataType, ByteOrder stored) {
+        ByteBuffer src = buffer.duplicate().order(stored);
+        ByteBuffer dst = buffer.duplicate().order(ByteOrder.nativeOrder());
+        switch (dataType) {
+            case DOUBLE:
+                for (int i = 0; i < buffer.limit() / 8; i++)
+                    dst.putDouble(i * 8, src.getDouble(i * 8));
+                break;
+            case HALF:
+                for (int i = 0; i < buffer.limit() / 2; i++)
+                    dst.putShort(i * 2, src.getShort(i * 2));
+                break;
+            case FLOAT:
+            case INT:
+            default:
+                for (int i = 0; i < buffer.limit() / 4; i++)
+                    dst.putInt(i * 4, src.getInt(i * 4));
+                break;
+        }
+    }
+
+
+    protected static class Chunk {
+        protected int role;
+        protected int index;
+        protected DataBuffer.Type dataType;
+        protected int[] shape;
+        protected String compression;
+        protected long offset;
+        protected long storedBytes;
+
+        // buffer with data to be written, it's referenced here to stay alive until chunk is written
+        protected transient DataBuffer buffer;
+        protected transient long dataBytes;
+        protected transient CompressionDescriptor descriptor;
+
+        protected Chunk() {
+            //
+        }
+
+        protected Chunk(int role, int index, INDArray array, String compression) {
+            this.role = role;
+            this.index = index;
+            this.shape = array.shape();
+
+            // we want dense 'c' ordered data, so rows are contiguous on disk
+            if (array.isView() || array.ordering() != 'c'
+                            || !Arrays.equals(array.stride(), Nd4j.getStrides(array.shape(), 'c')))
+                array = array.dup('c');
+
+            Nd4j.getAffinityManager().ensureLocation(array, AffinityManager.Location.HOST);
+
+            if (compression != null) {
+                INDArray compressed = BasicNDArrayCompressor.getInstance().compress(array, compression);
+                CompressedDataBuffer buffer = (CompressedDataBuffer) compressed.data();
+
+                this.compression = compression.toUpperCase();
+                this.dataType = array.data().dataType();
+                this.descriptor = buffer.getCompressionDescriptor();
+                this.buffer = buffer;
+                this.dataBytes = descriptor.getCompressedLength();
+                this.storedBytes = CompressionDescriptor.COMPRESSION_BYTE_BUFFER_LENGTH + descriptor.getCompressedLength();
+            } else {
+                this.dataType = array.data().dataType();
+                this.buffer = array.data();
+                this.dataBytes = array.lengthLong() * array.data().getElementSize();
+                this.storedBytes = dataBytes;
+            }
+
+            checkChunkSize(dataBytes);
+        }
+    }
+}
@@ -200,11 +200,16 @@ public class DataSet implements org.nd4j.linalg.dataset.api.DataSet {
         INDArray featuresMaskOut;
         INDArray labelsMaskOut;
 
-        Pair<INDArray, INDArray> fp = DataSetUtil.mergeFeatures(featuresToMerge, featuresMasksToMerge);
+        // output shapes are precomputed, so each array is allocated once, and slices are copied in parallel
+        Pair<INDArray, INDArray> fp = anyFeaturesPreset
+                        ? DataSetUtil.mergePreallocated(featuresToMerge, featuresMasksToMerge, true)
+                        : new Pair<INDArray, INDArray>(null, null);
         featuresOut = fp.getFirst();
         featuresMaskOut = fp.getSecond();
 
-        Pair<INDArray, INDArray> lp = DataSetUtil.mergeLabels(labelsToMerge, labelsMasksToMerge);
+        Pair<INDArray, INDArray> lp = anyLabelsPreset
+                        ? DataSetUtil.mergePreallocated(labelsToMerge, labelsMasksToMerge, true)
+                        : new Pair<INDArray, INDArray>(null, null);
         labelsOut = lp.getFirst();
         labelsMaskOut = lp.getSecond();
 
@@ -273,6 +278,19 @@ public class DataSet implements org.nd4j.linalg.dataset.api.DataSet {
 
     @Override
     public void load(File from) {
+        if (ChunkedDataSetFormat.isChunkedFormat(from)) {
+            try {
+                DataSet loaded = ChunkedDataSetFormat.loadDataSet(from);
+                features = loaded.features;
+                labels = loaded.labels;
+                featuresMask = loaded.featuresMask;
+                labelsMask = loaded.labelsMask;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+
         try (FileInputStream fis = new FileInputStream(from);
                         BufferedInputStream bis = new BufferedInputStream(fis, 1024 * 1024)) {
             load(bis);
@@ -266,6 +266,15 @@ public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
 
     @Override
     public void load(File from) throws IOException {
+        if (ChunkedDataSetFormat.isChunkedFormat(from)) {
+            MultiDataSet loaded = ChunkedDataSetFormat.loadMultiDataSet(from);
+            this.features = loaded.features;
+            this.labels = loaded.labels;
+            this.featuresMaskArrays = loaded.featuresMaskArrays;
+            this.labelsMaskArrays = loaded.labelsMaskArrays;
+            return;
+        }
+
         load(new FileInputStream(from));
     }
 
@@ -428,7 +437,9 @@ public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
 
         boolean needFeaturesMasks = false;
         for (i = 0; i < nInArrays; i++) {
-            Pair<INDArray, INDArray> pair = DataSetUtil.mergeFeatures(features, featuresMasks, i); //merge(features, featuresMasks, i);
+            Pair<INDArray[], INDArray[]> column = DataSetUtil.selectColumnFromMDSData(features, featuresMasks, i);
+            Pair<INDArray, INDArray> pair =
+                            DataSetUtil.mergePreallocated(column.getFirst(), column.getSecond(), true);
             mergedFeatures[i] = pair.getFirst();
             mergedFeaturesMasks[i] = pair.getSecond();
             if (mergedFeaturesMasks[i] != null)
@@ -439,7 +450,9 @@ public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
 
         boolean needLabelsMasks = false;
         for (i = 0; i < nOutArrays; i++) {
-            Pair<INDArray, INDArray> pair = DataSetUtil.mergeLabels(labels, labelsMasks, i);
+            Pair<INDArray[], INDArray[]> column = DataSetUtil.selectColumnFromMDSData(labels, labelsMasks, i);
+            Pair<INDArray, INDArray> pair =
+                            DataSetUtil.mergePreallocated(column.getFirst(), column.getSecond(), true);
             mergedLabels[i] = pair.getFirst();
             mergedLabelsMasks[i] = pair.getSecond();
             if (mergedLabelsMasks[i] != null)
@@ -597,11 +610,13 @@ public class MultiDataSet implements org.nd4j.linalg.dataset.api.MultiDataSet {
 
             if (featuresMaskArrays != null)
                 for (int e = 0; e < featuresMaskArrays.length; e++)
-                    featuresMaskArrays[e] = featuresMaskArrays[e].migrate();
+                    if (featuresMaskArrays[e] != null)
+                        featuresMaskArrays[e] = featuresMaskArrays[e].migrate();
 
             if (labelsMaskArrays != null)
                 for (int e = 0; e < labelsMaskArrays.length; e++)
-                    labelsMaskArrays[e] = labelsMaskArrays[e].migrate();
+                    if (labelsMaskArrays[e] != null)
+                        labelsMaskArrays[e] = labelsMaskArrays[e].migrate();
         }
     }
 
@@ -0,0 +1,294 @@
+package org.nd4j.linalg.dataset;
+
+import lombok.NonNull;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.*;
+
+/**
+ * DataSetIterator performing external (out-of-core) shuffling over a directory of saved DataSets,
+ * i.e. files written via DataSet.save() or {@link ChunkedDataSetFormat}.
+ *
+ * Shuffling is done in three steps:
+ * 1) files are visited in random order, new order for each epoch
+ * 2) examples from loaded files are placed into bounded shuffle buffer, and next example is picked from random
+ *    position of this buffer
+ * 3) picked examples are merged into minibatches of requested size
+ *
+ * Memory use is bounded by shuffle buffer size, plus single file that's being consumed at the moment.
+ * Bigger buffer gives results closer to uniform shuffle.
+ *
+ * PLEASE NOTE: totalExamples()/numExamples() have to know size of each file. Files that weren't loaded by
+ * iteration yet are loaded once to count their examples, so first call may take a while for big datasets.
+ */
+public class ShuffledFileDataSetIterator implements DataSetIterator {
+    public static final int DEFAULT_BUFFER_SIZE = 10000;
+
+    private final List<File> files;
+    private final int batchSize;
+    private final int bufferSize;
+    private final Random random;
+
+    private final List<File> order = new ArrayList<>();
+    private final ArrayList<DataSet> buffer;
+    private final LinkedList<DataSet> pending = new LinkedList<>();
+    private int fileIdx = 0;
+    private int cursor = 0;
+    private List<String> labels;
+    // metadata of the first file, used to answer size queries without loading everything
+    private boolean inspected = false;
+    private int inputColumns = 0;
+    private int totalOutcomes = 0;
+    // number of examples in each file loaded so far, files are loaded for counting only if they weren't seen yet
+    private final Map<File, Integer> exampleCounts = new HashMap<>();
+    private int totalExamples = -1;
+    private DataSetPreProcessor dataSetPreProcessor;
+
+    public ShuffledFileDataSetIterator(@NonNull File rootDir, int batchSize) {
+        this(rootDir, batchSize, DEFAULT_BUFFER_SIZE, System.currentTimeMillis());
+    }
+
+    public ShuffledFileDataSetIterator(@NonNull File rootDir, int batchSize, int bufferSize, long seed) {
+        this(rootDir, null, batchSize, bufferSize, seed);
+    }
+
+    /**
+     * @param rootDir    directory with saved DataSets
+     * @param filter     optional filter for files within rootDir. If null, all regular files are used
+     * @param batchSize  number of examples in each returned DataSet. Last DataSet in epoch may be smaller
+     * @param bufferSize maximal number of examples held in shuffle buffer
+     * @param seed       random seed, used for file order and example selection
+     */
+    public ShuffledFileDataSetIterator(@NonNull File rootDir, FileFilter filter, int batchSize, int bufferSize,
+                    long seed) {
+        this(listFiles(rootDir, filter), batchSize, bufferSize, seed);
+    }
+
+    /**
+     * @param files      files with saved DataSets
+     * @param batchSize  number of examples in each returned DataSet. Last DataSet in epoch may be smaller
+     * @param bufferSize maximal number of examples held in shuffle buffer
+     * @param seed       random seed, used for file order and example selection
+     */
+    public ShuffledFileDataSetIterator(@NonNull Collection<File> files, int batchSize, int bufferSize, long seed) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size should be positive");
+
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Shuffle buffer size should be positive");
+
+        this.files = new ArrayList<>(files);
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.random = new Random(seed);
+        this.buffer = new ArrayList<>(Math.min(bufferSize, 65536));
+
+        reset();
+    }
+
+    private static List<File> listFiles(File rootDir, final FileFilter filter) {
+        if (!rootDir.isDirectory())
+            throw new IllegalArgumentException("Path [" + rootDir + "] isn't a directory");
+
+        File[] list = rootDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && !file.isHidden() && (filter == null || filter.accept(file));
+            }
+        });
+
+        List<File> result = new ArrayList<>(Arrays.asList(list));
+
+        // sorting, so for given seed order doesn't depend on file system
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * This method loads first non-empty file once, to get array sizes and label names
+     */
+    private void inspect() {
+        if (inspected)
+            return;
+
+        inspected = true;
+        for (File file : files) {
+            DataSet ds = load(file);
+            if (ds.isEmpty())
+                continue;
+
+            inputColumns = ds.getFeatures().size(1);
+            totalOutcomes = ds.getLabels() == null ? 0 : ds.getLabels().size(1);
+            if (labels == null && ds.getLabelNamesList() != null && !ds.getLabelNamesList().isEmpty())
+                labels = ds.getLabelNamesList();
+
+            return;
+        }
+    }
+
+    private DataSet load(File file) {
+        DataSet ds = new DataSet();
+        ds.load(file);
+        exampleCounts.put(file, ds.isEmpty() ? 0 : ds.numExamples());
+        return ds;
+    }
+
+    /**
+     * This method fills shuffle buffer, loading next files if required
+     */
+    private void fill() {
+        while (buffer.size() < bufferSize) {
+            if (pending.isEmpty()) {
+                if (fileIdx >= order.size())
+                    return;
+
+                DataSet ds = load(order.get(fileIdx++));
+                if (ds.isEmpty())
+                    continue;
+
+                if (labels == null && ds.getLabelNamesList() != null && !ds.getLabelNamesList().isEmpty())
+                    labels = ds.getLabelNamesList();
+
+                pending.addAll(ds.asList());
+            }
+
+            // examples are detached from original batch, so buffer never keeps whole files alive
+            buffer.add(pending.removeFirst().copy());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public DataSet next() {
+        return next(batchSize);
+    }
+
+    @Override
+    public DataSet next(int num) {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        List<DataSet> examples = new ArrayList<>(num);
+        while (examples.size() < num) {
+            fill();
+            if (buffer.isEmpty())
+                break;
+
+            // swap-remove: picking random element from buffer is O(1)
+            int idx = random.nextInt(buffer.size());
+            int last = buffer.size() - 1;
+            examples.add(buffer.get(idx));
+            buffer.set(idx, buffer.get(last));
+            buffer.remove(last);
+        }
+
+        cursor += examples.size();
+
+        DataSet ret = DataSet.merge(examples);
+        if (dataSetPreProcessor != null)
+            dataSetPreProcessor.preProcess(ret);
+
+        return ret;
+    }
+
+    @Override
+    public int totalExamples() {
+        if (totalExamples < 0) {
+            int total = 0;
+            for (File file : files) {
+                // only number of examples is needed here, so loaded file isn't kept
+                if (!exampleCounts.containsKey(file))
+                    load(file);
+
+                total += exampleCounts.get(file);
+            }
+
+            totalExamples = total;
+        }
+
+        return totalExamples;
+    }
+
+    @Override
+    public int inputColumns() {
+        inspect();
+        return inputColumns;
+    }
+
+    @Override
+    public int totalOutcomes() {
+        inspect();
+        return totalOutcomes;
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return true;
+    }
+
+    /**
+     * Resets iterator. Files will be visited in new random order.
+     */
+    @Override
+    public void reset() {
+        buffer.clear();
+        pending.clear();
+        fileIdx = 0;
+        cursor = 0;
+
+        order.clear();
+        order.addAll(files);
+        Collections.shuffle(order, random);
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public int cursor() {
+        return cursor;
+    }
+
+    @Override
+    public int numExamples() {
+        return totalExamples();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.dataSetPreProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return dataSetPreProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        if (labels == null)
+            inspect();
+
+        return labels;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -4,20 +4,31 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.primitives.Pair;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastMulOp;
 import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.INDArrayIndex;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Created by susaneraly on 9/20/16.
  */
 @Slf4j
 public class DataSetUtil {
+    /**
+     * Merges with fewer elements in total than this value are done in the calling thread
+     */
+    public static final long PARALLEL_MERGE_THRESHOLD = 65536;
+
     public static INDArray tailor2d(@NonNull DataSet dataSet, boolean areFeatures) {
         return tailor2d(areFeatures ? dataSet.getFeatures() : dataSet.getLabels(),
                         areFeatures ? dataSet.getFeaturesMaskArray() : dataSet.getLabelsMaskArray());
@@ -244,7 +255,15 @@ public class DataSetUtil {
         return mergeLabels(p.getFirst(), p.getSecond());
     }
 
-    private static Pair<INDArray[], INDArray[]> selectColumnFromMDSData(@NonNull INDArray[][] arrays,
+    /**
+     * This method selects arrays and masks at given index from MultiDataSet arrays, i.e. features 0 of every
+     * MultiDataSet being merged
+     *
+     * @param arrays   arrays of each MultiDataSet
+     * @param masks    masks of each MultiDataSet. May be null, or contain nulls
+     * @param inOutIdx index of input/output to select
+     */
+    public static Pair<INDArray[], INDArray[]> selectColumnFromMDSData(@NonNull INDArray[][] arrays,
                     INDArray[][] masks, int inOutIdx) {
         INDArray[] a = new INDArray[arrays.length];
         INDArray[] m = new INDArray[a.length];
@@ -536,4 +555,197 @@ public class DataSetUtil {
 
         return new Pair<>(out, outMask);
     }
+
+    /**
+     * Merge the specified arrays and masks (i.e., concatenate the examples) in a single pass.
+     *
+     * Unlike {@link #mergeFeatures(INDArray[], INDArray[])} and {@link #mergeLabels(INDArray[], INDArray[])}, final
+     * shapes are computed upfront, so merged array and mask are allocated exactly once, and every input slice,
+     * its padding and its part of the mask are written by one task. Tasks run in parallel for large merges.
+     * Semantics of padding and masks are the same as for mergeFeatures()/mergeLabels().
+     *
+     * @param arrays       Arrays to merge. Ranks 2 to 4 are supported
+     * @param masks        Mask arrays to merge. May be null, or contain nulls
+     * @param useWorkspace if true, results are allocated in current workspace (if any). Otherwise they are detached
+     * @return Merged arrays and mask. Mask may be null
+     */
+    public static Pair<INDArray, INDArray> mergePreallocated(@NonNull INDArray[] arrays, INDArray[] masks,
+                    boolean useWorkspace) {
+        int rank = arrays[0].rank();
+        if (rank < 2 || rank > 4)
+            throw new ND4JIllegalStateException("Cannot merge examples: rank must be in range 2 to 4 inclusive."
+                            + " First example shape: " + Arrays.toString(arrays[0].shape()));
+
+        // first pass: validation and output shapes, nothing is allocated here
+        int[] shape = arrays[0].shape().clone();
+        int[] rowOffsets = new int[arrays.length];
+        int totalExamples = 0;
+        boolean lengthsDiffer = false;
+        INDArray firstMask = null;
+        for (int i = 0; i < arrays.length; i++) {
+            int[] thisShape = arrays[i].shape();
+            if (thisShape.length != rank)
+                throw new IllegalStateException("Cannot merge arrays with different ranks: data[0].shape = "
+                                + Arrays.toString(arrays[0].shape()) + ", data[" + i + "].shape = "
+                                + Arrays.toString(thisShape));
+
+            for (int j = 1; j < rank; j++) {
+                if (rank == 3 && j == 2) {
+                    lengthsDiffer |= thisShape[2] != shape[2];
+                    shape[2] = Math.max(shape[2], thisShape[2]);
+                } else if (thisShape[j] != shape[j]) {
+                    throw new IllegalStateException("Cannot merge arrays with different shape (other than # examples"
+                                    + (rank == 3 ? " and time series length" : "") + "): data[0].shape = "
+                                    + Arrays.toString(arrays[0].shape()) + ", data[" + i + "].shape = "
+                                    + Arrays.toString(thisShape));
+                }
+            }
+
+            if (masks != null && i < masks.length && masks[i] != null) {
+                if (firstMask == null)
+                    firstMask = masks[i];
+                else if (masks[i].rank() != firstMask.rank())
+                    throw new IllegalStateException("Cannot merge masks with different ranks: " + firstMask.rank()
+                                    + " vs " + masks[i].rank());
+            }
+
+            rowOffsets[i] = totalExamples;
+            totalExamples += thisShape[0];
+        }
+        shape[0] = totalExamples;
+
+        if (rank == 4 && firstMask != null && firstMask.rank() != 2)
+            throw new UnsupportedOperationException("Cannot merged 4d arrays with masks that are not rank 2."
+                            + " Got mask array with rank: " + firstMask.rank());
+
+        int[] maskShape = null;
+        if (rank == 3) {
+            if (firstMask != null && firstMask.rank() == 3) {
+                maskShape = shape.clone();
+            } else if (firstMask != null && firstMask.rank() != 2) {
+                throw new UnsupportedOperationException("Cannot merge time series with mask rank " + firstMask.rank());
+            } else if (firstMask != null || lengthsDiffer) {
+                maskShape = new int[] {totalExamples, shape[2]};
+            }
+        } else if (firstMask != null) {
+            maskShape = new int[] {totalExamples, firstMask.size(1)};
+        }
+
+        final INDArray out;
+        final INDArray outMask;
+        if (useWorkspace) {
+            out = Nd4j.createUninitialized(shape, Nd4j.order());
+            outMask = maskShape == null ? null : Nd4j.createUninitialized(maskShape, Nd4j.order());
+        } else {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                out = Nd4j.createUninitialized(shape, Nd4j.order());
+                outMask = maskShape == null ? null : Nd4j.createUninitialized(maskShape, Nd4j.order());
+            }
+        }
+
+        // second pass: each task copies its slices, zeroes padding and fills its rows of the mask
+        ForkJoinPool pool = ExecutorServiceProvider.getForkJoinPool();
+        int numTasks = Math.min(arrays.length, pool.getParallelism());
+        if (numTasks < 2 || out.lengthLong() < PARALLEL_MERGE_THRESHOLD) {
+            mergeSlices(arrays, masks, rowOffsets, out, outMask, 0, arrays.length);
+        } else {
+            Nd4j.getExecutioner().commit();
+
+            // tasks are forked within the pool if we're in it already, so join() helps instead of blocking worker
+            boolean inPool = ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool;
+            final Integer deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(numTasks);
+            int perTask = (arrays.length + numTasks - 1) / numTasks;
+            for (int start = perTask; start < arrays.length; start += perTask) {
+                final int from = start;
+                final int to = Math.min(arrays.length, start + perTask);
+                final INDArray[] a = arrays;
+                final INDArray[] m = masks;
+                final int[] offsets = rowOffsets;
+                ForkJoinTask<?> task = ForkJoinTask.adapt(new Runnable() {
+                    @Override
+                    public void run() {
+                        Nd4j.getAffinityManager().attachThreadToDevice(Thread.currentThread(), deviceId);
+                        mergeSlices(a, m, offsets, out, outMask, from, to);
+                        Nd4j.getExecutioner().commit();
+                    }
+                });
+
+                if (inPool)
+                    task.fork();
+                else
+                    pool.execute(task);
+
+                tasks.add(task);
+            }
+
+            // first slice is merged by calling thread
+            mergeSlices(arrays, masks, rowOffsets, out, outMask, 0, Math.min(arrays.length, perTask));
+            Nd4j.getExecutioner().commit();
+
+            for (ForkJoinTask<?> task : tasks)
+                task.join();
+        }
+
+        return new Pair<>(out, outMask);
+    }
+
+    private static void mergeSlices(INDArray[] arrays, INDArray[] masks, int[] rowOffsets, INDArray out,
+                    INDArray outMask, int from, int to) {
+        int rank = out.rank();
+        int maxLength = rank == 3 ? out.size(2) : 0;
+
+        for (int i = from; i < to; i++) {
+            INDArray array = arrays[i];
+            INDArray mask = masks != null && i < masks.length ? masks[i] : null;
+            INDArrayIndex rows = NDArrayIndex.interval(rowOffsets[i], rowOffsets[i] + array.size(0));
+
+            if (rank != 3) {
+                INDArrayIndex[] indices = new INDArrayIndex[rank];
+                indices[0] = rows;
+                for (int j = 1; j < rank; j++)
+                    indices[j] = NDArrayIndex.all();
+                out.get(indices).assign(array);
+
+                if (outMask != null) {
+                    INDArray maskRows = outMask.get(rows, NDArrayIndex.all());
+                    if (mask == null)
+                        maskRows.assign(1.0);
+                    else
+                        maskRows.assign(mask);
+                }
+                continue;
+            }
+
+            int length = array.size(2);
+            out.get(rows, NDArrayIndex.all(), NDArrayIndex.interval(0, length)).assign(array);
+            if (length < maxLength)
+                out.get(rows, NDArrayIndex.all(), NDArrayIndex.interval(length, maxLength)).assign(0.0);
+
+            if (outMask == null)
+                continue;
+
+            if (outMask.rank() == 3) {
+                // per-output masking: null mask means "all present" within original length
+                INDArray present = outMask.get(rows, NDArrayIndex.all(), NDArrayIndex.interval(0, length));
+                if (mask == null)
+                    present.assign(1.0);
+                else
+                    present.assign(mask);
+
+                if (length < maxLength)
+                    outMask.get(rows, NDArrayIndex.all(), NDArrayIndex.interval(length, maxLength)).assign(0.0);
+            } else {
+                int maskLength = mask == null ? length : mask.size(1);
+                INDArray present = outMask.get(rows, NDArrayIndex.interval(0, maskLength));
+                if (mask == null)
+                    present.assign(1.0);
+                else
+                    present.assign(mask);
+
+                if (maskLength < maxLength)
+                    outMask.get(rows, NDArrayIndex.interval(maskLength, maxLength)).assign(0.0);
+            }
+        }
+    }
 }
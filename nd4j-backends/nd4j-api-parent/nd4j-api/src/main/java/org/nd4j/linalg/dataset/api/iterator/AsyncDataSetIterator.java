@@ -0,0 +1,172 @@
+package org.nd4j.linalg.dataset.api.iterator;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+
+import java.util.List;
+
+/**
+ * Async prefetching wrapper for {@link DataSetIterator}.
+ *
+ * Batches are fetched and preprocessed by background threads, and stored into a rotating pool of workspaces.
+ * Typical usage:
+ * <pre>
+ * AsyncDataSetIterator iter = new AsyncDataSetIterator(source, 8, 2, true);
+ * while (iter.hasNext()) {
+ *     DataSet ds = iter.next();
+ *     // ds is valid until next call to iter.next()
+ * }
+ * </pre>
+ *
+ * PLEASE NOTE: if more then one producer thread is used, backing iterator is still accessed by one thread at a time,
+ * only preprocessing and migration into workspace run in parallel. Original order of batches is preserved.
+ */
+@Slf4j
+public class AsyncDataSetIterator extends BaseAsyncIterator<DataSet> implements DataSetIterator {
+
+    private final DataSetIterator backedIterator;
+    private volatile DataSetPreProcessor preProcessor;
+
+    public AsyncDataSetIterator(@NonNull DataSetIterator iterator) {
+        this(iterator, DEFAULT_QUEUE_SIZE);
+    }
+
+    public AsyncDataSetIterator(@NonNull DataSetIterator iterator, int queueSize) {
+        this(iterator, queueSize, 1, true);
+    }
+
+    /**
+     * @param iterator      backing iterator
+     * @param queueSize     number of batches to prefetch
+     * @param numThreads    number of producer threads
+     * @param useWorkspaces if true, batches will be migrated into pool of reusable workspaces
+     */
+    public AsyncDataSetIterator(@NonNull DataSetIterator iterator, int queueSize, int numThreads,
+                    boolean useWorkspaces) {
+        super(queueSize, numThreads, useWorkspaces);
+        this.backedIterator = iterator;
+
+        if (!iterator.asyncSupported())
+            log.warn("Backing iterator [{}] reports it doesn't support async prefetch",
+                            iterator.getClass().getSimpleName());
+    }
+
+    @Override
+    protected boolean backingHasNext() {
+        return backedIterator.hasNext();
+    }
+
+    @Override
+    protected DataSet backingNext() {
+        return backedIterator.next();
+    }
+
+    @Override
+    protected void backingReset() {
+        backedIterator.reset();
+    }
+
+    @Override
+    protected Object preProcess(DataSet batch) {
+        DataSetPreProcessor current = preProcessor;
+        if (current != null)
+            current.preProcess(batch);
+
+        return current;
+    }
+
+    @Override
+    protected Object currentPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    protected long footprint(DataSet batch) {
+        return batch.getMemoryFootprint();
+    }
+
+    @Override
+    protected void migrate(DataSet batch) {
+        batch.migrate();
+    }
+
+    /**
+     * This method returns next num examples straight from backing iterator, bypassing prefetch.
+     *
+     * PLEASE NOTE: batches are prefetched in backing iterator's batch size, so this method can be used only before
+     * first hasNext()/next() call, or right after reset(). Otherwise prefetched batches would be skipped.
+     */
+    @Override
+    public DataSet next(int num) {
+        checkNotPrefetched();
+
+        synchronized (backingLock) {
+            return backedIterator.next(num);
+        }
+    }
+
+    @Override
+    public int totalExamples() {
+        return backedIterator.totalExamples();
+    }
+
+    @Override
+    public int inputColumns() {
+        return backedIterator.inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return backedIterator.totalOutcomes();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return backedIterator.resetSupported();
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        if (!resetSupported())
+            throw new UnsupportedOperationException("Backing iterator doesn't support reset");
+
+        restart();
+    }
+
+    @Override
+    public int batch() {
+        return backedIterator.batch();
+    }
+
+    @Override
+    public int cursor() {
+        return backedIterator.cursor();
+    }
+
+    @Override
+    public int numExamples() {
+        return backedIterator.numExamples();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return backedIterator.getLabels();
+    }
+}
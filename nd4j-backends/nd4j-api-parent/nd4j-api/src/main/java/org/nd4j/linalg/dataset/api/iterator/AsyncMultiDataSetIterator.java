@@ -0,0 +1,125 @@
+package org.nd4j.linalg.dataset.api.iterator;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+
+/**
+ * Async prefetching wrapper for {@link MultiDataSetIterator}.
+ *
+ * Batches are fetched and preprocessed by background threads, and stored into a rotating pool of workspaces.
+ * See {@link AsyncDataSetIterator} for details.
+ */
+@Slf4j
+public class AsyncMultiDataSetIterator extends BaseAsyncIterator<MultiDataSet> implements MultiDataSetIterator {
+
+    private final MultiDataSetIterator backedIterator;
+    private volatile MultiDataSetPreProcessor preProcessor;
+
+    public AsyncMultiDataSetIterator(@NonNull MultiDataSetIterator iterator) {
+        this(iterator, DEFAULT_QUEUE_SIZE);
+    }
+
+    public AsyncMultiDataSetIterator(@NonNull MultiDataSetIterator iterator, int queueSize) {
+        this(iterator, queueSize, 1, true);
+    }
+
+    /**
+     * @param iterator      backing iterator
+     * @param queueSize     number of batches to prefetch
+     * @param numThreads    number of producer threads
+     * @param useWorkspaces if true, batches will be migrated into pool of reusable workspaces
+     */
+    public AsyncMultiDataSetIterator(@NonNull MultiDataSetIterator iterator, int queueSize, int numThreads,
+                    boolean useWorkspaces) {
+        super(queueSize, numThreads, useWorkspaces);
+        this.backedIterator = iterator;
+
+        if (!iterator.asyncSupported())
+            log.warn("Backing iterator [{}] reports it doesn't support async prefetch",
+                            iterator.getClass().getSimpleName());
+    }
+
+    @Override
+    protected boolean backingHasNext() {
+        return backedIterator.hasNext();
+    }
+
+    @Override
+    protected MultiDataSet backingNext() {
+        return backedIterator.next();
+    }
+
+    @Override
+    protected void backingReset() {
+        backedIterator.reset();
+    }
+
+    @Override
+    protected Object preProcess(MultiDataSet batch) {
+        MultiDataSetPreProcessor current = preProcessor;
+        if (current != null)
+            current.preProcess(batch);
+
+        return current;
+    }
+
+    @Override
+    protected Object currentPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    protected long footprint(MultiDataSet batch) {
+        return batch.getMemoryFootprint();
+    }
+
+    @Override
+    protected void migrate(MultiDataSet batch) {
+        batch.migrate();
+    }
+
+    /**
+     * This method returns next num examples straight from backing iterator, bypassing prefetch.
+     *
+     * PLEASE NOTE: batches are prefetched in backing iterator's batch size, so this method can be used only before
+     * first hasNext()/next() call, or right after reset(). Otherwise prefetched batches would be skipped.
+     */
+    @Override
+    public MultiDataSet next(int num) {
+        checkNotPrefetched();
+
+        synchronized (backingLock) {
+            return backedIterator.next(num);
+        }
+    }
+
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public MultiDataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return backedIterator.resetSupported();
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        if (!resetSupported())
+            throw new UnsupportedOperationException("Backing iterator doesn't support reset");
+
+        restart();
+    }
+}
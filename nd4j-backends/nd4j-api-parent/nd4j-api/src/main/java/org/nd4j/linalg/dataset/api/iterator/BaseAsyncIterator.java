@@ -0,0 +1,526 @@
+package org.nd4j.linalg.dataset.api.iterator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared machinery for asynchronous prefetching iterators.
+ *
+ * Batches are fetched from the backing iterator by one or more background producer threads, preprocessed there,
+ * and handed over to the consumer through a bounded queue. Optionally each batch is migrated into one of a rotating
+ * pool of circular workspaces, so once the pool has learned the batch size no new off-heap memory is allocated
+ * for prefetched batches.
+ *
+ * PLEASE NOTE: if workspaces are used, batch returned by next() is valid only until the following next() or reset()
+ * call. Use detach() on the batch if you need to keep it for longer.
+ */
+@Slf4j
+public abstract class BaseAsyncIterator<T> {
+    public static final int DEFAULT_QUEUE_SIZE = 8;
+
+    // extra bytes reserved in every slot, to cover 8-byte alignment of each array within workspace
+    protected static final long RESERVE_BYTES = 8 * 1024L;
+    protected static final double OVERALLOCATION = 0.3;
+    protected static final long POLL_TIMEOUT = 10L;
+
+    protected final int queueSize;
+    protected final int numThreads;
+    protected final boolean useWorkspaces;
+    protected final Integer deviceId;
+    protected final String uuid = UUID.randomUUID().toString();
+
+    protected final Object backingLock = new Object();
+
+    protected BlockingQueue<Prefetched> buffer;
+    protected BlockingQueue<WorkspaceSlot> freeSlots;
+    protected List<WorkspaceSlot> slots;
+    protected List<ProducerThread> producers;
+    protected Map<Long, Prefetched> reorderBuffer = new HashMap<>();
+
+    protected volatile boolean shouldWork = false;
+    protected final AtomicInteger activeProducers = new AtomicInteger(0);
+    protected long fetchSequence = 0;
+    protected long expectedSequence = 0;
+    protected Prefetched nextElement;
+    protected Prefetched lastReturned;
+    protected boolean terminated = false;
+
+    protected final AtomicLong maxFootprint = new AtomicLong(0);
+    protected final AtomicLong consumerWaitTime = new AtomicLong(0);
+    protected final AtomicLong consumerWaits = new AtomicLong(0);
+    protected final AtomicLong batchesConsumed = new AtomicLong(0);
+    protected final AtomicLong slotReallocations = new AtomicLong(0);
+
+    protected BaseAsyncIterator(int queueSize, int numThreads, boolean useWorkspaces) {
+        if (queueSize < 1)
+            throw new IllegalArgumentException("Queue size should be positive value");
+
+        if (numThreads < 1)
+            throw new IllegalArgumentException("Number of producer threads should be positive value");
+
+        this.queueSize = queueSize;
+        this.numThreads = numThreads;
+        this.useWorkspaces = useWorkspaces;
+        this.deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+
+        this.buffer = new LinkedBlockingQueue<>(queueSize);
+
+        if (useWorkspaces) {
+            // every producer holds one slot, consumer holds last returned batch, plus one more batch fetched by hasNext()
+            int numSlots = queueSize + numThreads + 2;
+            this.slots = new ArrayList<>(numSlots);
+            this.freeSlots = new LinkedBlockingQueue<>();
+            for (int e = 0; e < numSlots; e++) {
+                WorkspaceSlot slot = new WorkspaceSlot("ASYNC_ITER_" + uuid + "_" + e);
+                slots.add(slot);
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    protected abstract boolean backingHasNext();
+
+    protected abstract T backingNext();
+
+    protected abstract void backingReset();
+
+    /**
+     * This method applies current preprocessor (if any) to the given batch
+     *
+     * @return preprocessor that was applied, or null
+     */
+    protected abstract Object preProcess(T batch);
+
+    /**
+     * This method returns current preprocessor, or null
+     */
+    protected abstract Object currentPreProcessor();
+
+    protected abstract long footprint(T batch);
+
+    protected abstract void migrate(T batch);
+
+
+    protected void startProducers() {
+        shouldWork = true;
+        terminated = false;
+        fetchSequence = 0;
+        expectedSequence = 0;
+
+        producers = new ArrayList<>(numThreads);
+        activeProducers.set(numThreads);
+        for (int e = 0; e < numThreads; e++) {
+            ProducerThread thread = new ProducerThread(e);
+            producers.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * This method stops all producer threads and returns all prefetched batches back to the pool
+     */
+    protected void stopProducers() {
+        shouldWork = false;
+
+        if (producers != null) {
+            for (ProducerThread thread : producers) {
+                while (thread.isAlive()) {
+                    drainBuffer();
+                    try {
+                        thread.join(POLL_TIMEOUT);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+            producers = null;
+        }
+
+        drainBuffer();
+
+        release(nextElement);
+        nextElement = null;
+
+        release(lastReturned);
+        lastReturned = null;
+
+        for (Prefetched item : reorderBuffer.values())
+            release(item);
+        reorderBuffer.clear();
+    }
+
+    protected void drainBuffer() {
+        Prefetched item;
+        while ((item = buffer.poll()) != null)
+            release(item);
+    }
+
+    protected void release(Prefetched item) {
+        if (item != null && item.slot != null) {
+            freeSlots.add(item.slot);
+            item.slot = null;
+        }
+    }
+
+    /**
+     * This method resets backing iterator and restarts prefetch from the beginning
+     */
+    protected void restart() {
+        stopProducers();
+        terminated = false;
+
+        synchronized (backingLock) {
+            backingReset();
+        }
+    }
+
+    /**
+     * This method checks that nothing is prefetched yet, so backing iterator can be used directly without skipping
+     * batches, i.e. for next(int) calls
+     */
+    protected void checkNotPrefetched() {
+        if (producers != null || nextElement != null)
+            throw new UnsupportedOperationException(
+                            "next(int) can't be used once prefetch has started, call reset() first");
+    }
+
+    /**
+     * This method stops background threads and releases workspaces used by this iterator.
+     * Iterator will restart prefetching on the next hasNext() call.
+     */
+    public void shutdown() {
+        stopProducers();
+
+        if (slots != null)
+            for (WorkspaceSlot slot : slots)
+                slot.destroy();
+    }
+
+    public boolean hasNext() {
+        if (nextElement != null)
+            return true;
+
+        if (terminated)
+            return false;
+
+        if (producers == null)
+            startProducers();
+
+        long time = 0;
+        try {
+            while (true) {
+                Prefetched item = reorderBuffer.remove(expectedSequence);
+
+                if (item == null) {
+                    item = buffer.poll();
+
+                    if (item == null) {
+                        if (time == 0)
+                            time = System.nanoTime();
+
+                        item = buffer.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                    }
+
+                    if (item == null) {
+                        // producers put their last batch before leaving, so empty buffer here means end of data
+                        if (activeProducers.get() == 0 && buffer.isEmpty()) {
+                            terminated = true;
+                            return false;
+                        }
+
+                        continue;
+                    }
+
+                    if (item.sequence != expectedSequence) {
+                        reorderBuffer.put(item.sequence, item);
+                        continue;
+                    }
+                }
+
+                expectedSequence++;
+                nextElement = item;
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            if (time > 0) {
+                consumerWaitTime.addAndGet(System.nanoTime() - time);
+                consumerWaits.incrementAndGet();
+            }
+        }
+    }
+
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        Prefetched item = nextElement;
+        nextElement = null;
+
+        // previous batch isn't used by consumer anymore, so its slot can be reused
+        release(lastReturned);
+        lastReturned = item;
+
+        if (item.throwable != null) {
+            terminated = true;
+            throw new RuntimeException("Exception caught in producer thread", item.throwable);
+        }
+
+        // batches fetched before preprocessor was set still have to be preprocessed
+        if (item.preProcessor == null && currentPreProcessor() != null)
+            preProcess(item.batch);
+
+        batchesConsumed.incrementAndGet();
+
+        return item.batch;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * This method returns number of batches currently waiting in the prefetch queue
+     */
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueSize;
+    }
+
+    /**
+     * This method returns total time in nanoseconds consumer spent waiting for batches
+     */
+    public long getConsumerWaitTime() {
+        return consumerWaitTime.get();
+    }
+
+    /**
+     * This method returns number of next()/hasNext() calls that had to wait for producer
+     */
+    public long getNumberOfConsumerWaits() {
+        return consumerWaits.get();
+    }
+
+    public long getNumberOfBatchesConsumed() {
+        return batchesConsumed.get();
+    }
+
+    /**
+     * This method returns number of times workspace slots were reallocated to fit larger batches
+     */
+    public long getNumberOfSlotReallocations() {
+        return slotReallocations.get();
+    }
+
+    /**
+     * This method returns total number of bytes allocated for workspace pool
+     */
+    public long getWorkspacePoolSize() {
+        long size = 0;
+        if (slots != null)
+            for (WorkspaceSlot slot : slots)
+                size += slot.capacity;
+
+        return size;
+    }
+
+
+    protected class Prefetched {
+        protected final long sequence;
+        protected final T batch;
+        protected final Object preProcessor;
+        protected final Throwable throwable;
+        protected WorkspaceSlot slot;
+
+        protected Prefetched(long sequence, T batch, Object preProcessor, Throwable throwable, WorkspaceSlot slot) {
+            this.sequence = sequence;
+            this.batch = batch;
+            this.preProcessor = preProcessor;
+            this.throwable = throwable;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Single element of workspace pool. Holds exactly one batch at a time.
+     */
+    protected class WorkspaceSlot {
+        protected final String id;
+        protected MemoryWorkspace workspace;
+        protected volatile long capacity;
+
+        protected WorkspaceSlot(String id) {
+            this.id = id;
+        }
+
+        protected void ensureCapacity(long required) {
+            if (workspace != null && capacity >= required)
+                return;
+
+            if (workspace != null) {
+                workspace.destroyWorkspace();
+                slotReallocations.incrementAndGet();
+            }
+
+            long size = (long) (required * (1.0 + OVERALLOCATION));
+            size += 8 - (size % 8);
+
+            // circular workspace isn't subject to scope validation, so batch stays usable after producer left it
+            WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(size)
+                            .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE)
+                            .policyReset(ResetPolicy.ENDOFBUFFER_REACHED).policySpill(SpillPolicy.EXTERNAL)
+                            .build();
+
+            workspace = Nd4j.getWorkspaceManager().createNewWorkspace(configuration, id, deviceId);
+            capacity = size;
+        }
+
+        protected void store(T batch) {
+            long required = footprint(batch) + RESERVE_BYTES;
+
+            long max;
+            do {
+                max = maxFootprint.get();
+            } while (required > max && !maxFootprint.compareAndSet(max, required));
+
+            ensureCapacity(Math.max(required, maxFootprint.get()));
+
+            try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                // previous batch from this slot is released already, so we start from the beginning of the buffer
+                if (ws instanceof Nd4jWorkspace)
+                    ((Nd4jWorkspace) ws).reset();
+
+                migrate(batch);
+            }
+        }
+
+        protected void destroy() {
+            if (workspace != null) {
+                workspace.destroyWorkspace();
+                workspace = null;
+                capacity = 0;
+            }
+        }
+    }
+
+    protected class ProducerThread extends Thread {
+
+        protected ProducerThread(int threadId) {
+            setName("AsyncIterator producer " + threadId + " [" + uuid + "]");
+            setDaemon(true);
+            Nd4j.getAffinityManager().attachThreadToDevice(this, deviceId);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (shouldWork) {
+                    WorkspaceSlot slot = null;
+                    if (useWorkspaces) {
+                        slot = acquireSlot();
+                        if (slot == null)
+                            break;
+                    }
+
+                    long sequence;
+                    T batch;
+                    Throwable throwable = null;
+                    Object preProcessor = null;
+
+                    synchronized (backingLock) {
+                        if (!shouldWork || !backingHasNext()) {
+                            if (slot != null)
+                                freeSlots.add(slot);
+                            break;
+                        }
+
+                        sequence = fetchSequence++;
+                        try {
+                            batch = backingNext();
+                        } catch (Throwable t) {
+                            batch = null;
+                            throwable = t;
+                        }
+                    }
+
+                    if (throwable == null) {
+                        try {
+                            preProcessor = preProcess(batch);
+
+                            if (slot != null)
+                                slot.store(batch);
+                        } catch (Throwable t) {
+                            throwable = t;
+                        }
+                    }
+
+                    if (!put(new Prefetched(sequence, batch, preProcessor, throwable, slot)))
+                        break;
+
+                    if (throwable != null) {
+                        log.error("Producer thread failed", throwable);
+                        break;
+                    }
+                }
+            } finally {
+                activeProducers.decrementAndGet();
+            }
+        }
+
+        protected WorkspaceSlot acquireSlot() {
+            try {
+                while (shouldWork) {
+                    WorkspaceSlot slot = freeSlots.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (slot != null)
+                        return slot;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return null;
+        }
+
+        protected boolean put(Prefetched item) {
+            try {
+                while (shouldWork) {
+                    if (buffer.offer(item, POLL_TIMEOUT, TimeUnit.MILLISECONDS))
+                        return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            // iterator is being reset, so this batch won't be consumed
+            if (item.slot != null)
+                freeSlots.add(item.slot);
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package org.nd4j.linalg.dataset.api.iterator.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.bytedeco.javacpp.BytePointer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * DataSetCache implementation backed by a few large append-only segment files.
+ *
+ * Raw array data is written into segments with positional FileChannel writes, and an index of offsets is kept in
+ * memory and persisted next to segments. On get() each array is memory-mapped in copy-on-write mode and wrapped as
+ * DataBuffer directly, so no deserialization copy is made: repeated epochs are served from page cache.
+ *
+ * PLEASE NOTE: in-place modifications of returned DataSets are private to the caller, and never written back.
+ * PLEASE NOTE: putting the same key twice appends new data, space used by previous entry isn't reclaimed.
+ * PLEASE NOTE: arrays larger than single mapping (2GB) are read in segments into host memory, so they aren't
+ * zero-copy, and arrays above Integer.MAX_VALUE elements aren't supported.
+ */
+@Slf4j
+public class MappedDataSetCache implements DataSetCache, Closeable {
+    public static final long DEFAULT_SEGMENT_SIZE = 1024L * 1024L * 1024L;
+    // single java mapping can't exceed Integer.MAX_VALUE bytes
+    public static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE - 7;
+    protected static final long COPY_SEGMENT_SIZE = 1L << 30;
+
+    protected static final int ALIGNMENT = 64;
+    protected static final String INDEX_FILE = "mapped-cache-index.bin";
+    protected static final String SEGMENT_FORMAT = "mapped-cache-segment-%05d.bin";
+
+    protected static final int FEATURES = 0;
+    protected static final int LABELS = 1;
+    protected static final int FEATURES_MASK = 2;
+    protected static final int LABELS_MASK = 3;
+
+    private final File cacheDirectory;
+    private final long segmentSize;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final List<RandomAccessFile> segments = new CopyOnWriteArrayList<>();
+    private DataOutputStream indexStream;
+    private long writePosition = 0;
+    // arrays above this size are copied segment by segment instead of being mapped
+    protected long maxMappingSize = MAX_MAPPING_SIZE;
+
+    public MappedDataSetCache(File cacheDirectory) {
+        this(cacheDirectory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedDataSetCache(Path cacheDirectory) {
+        this(cacheDirectory.toFile());
+    }
+
+    public MappedDataSetCache(String cacheDirectory) {
+        this(new File(cacheDirectory));
+    }
+
+    /**
+     * @param cacheDirectory directory to keep segments and index in. Existing cache in this directory is reused.
+     * @param segmentSize    preferred size of single segment file, in bytes
+     */
+    public MappedDataSetCache(File cacheDirectory, long segmentSize) {
+        if (cacheDirectory.exists() && !cacheDirectory.isDirectory()) {
+            throw new IllegalArgumentException("can't use path " + cacheDirectory + " as file cache directory "
+                            + "because it already exists, but is not a directory");
+        }
+
+        if (segmentSize < ALIGNMENT)
+            throw new IllegalArgumentException("Segment size should be at least " + ALIGNMENT + " bytes");
+
+        this.cacheDirectory = cacheDirectory;
+        this.segmentSize = segmentSize;
+
+        if (!cacheDirectory.exists() && !cacheDirectory.mkdirs())
+            throw new IllegalStateException("ERROR: cannot create cache directory: " + cacheDirectory);
+
+        try {
+            openExisting();
+            indexStream = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(new File(cacheDirectory, INDEX_FILE), true)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private File segmentFile(int segment) {
+        return new File(cacheDirectory, String.format(SEGMENT_FORMAT, segment));
+    }
+
+    private File namespaceFile(String namespace) {
+        String filename = String.format("%s-complete.txt", namespace);
+        return new File(cacheDirectory, filename);
+    }
+
+    private void openExisting() throws IOException {
+        for (int segment = 0; segmentFile(segment).exists(); segment++)
+            segments.add(new RandomAccessFile(segmentFile(segment), "rw"));
+
+        if (!segments.isEmpty())
+            writePosition = align(segments.get(segments.size() - 1).length());
+
+        File indexFile = new File(cacheDirectory, INDEX_FILE);
+        if (!indexFile.exists())
+            return;
+
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            while (true) {
+                Entry entry;
+                try {
+                    entry = Entry.read(dis);
+                } catch (EOFException e) {
+                    // index is appended after data, so truncated tail only means last put wasn't completed
+                    break;
+                }
+
+                if (entry.segment < segments.size())
+                    index.put(entry.key, entry);
+            }
+        }
+
+        log.debug("Reopened mapped cache at [{}]: {} segments, {} entries", cacheDirectory, segments.size(),
+                        index.size());
+    }
+
+    @Override
+    public boolean isComplete(String namespace) {
+        return namespaceFile(namespace).exists();
+    }
+
+    @Override
+    public void setComplete(String namespace, boolean value) {
+        File file = namespaceFile(namespace);
+        if (value) {
+            if (!file.exists()) {
+                try {
+                    file.createNewFile();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        } else {
+            if (file.exists()) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    public DataSet get(String key) {
+        Entry entry = index.get(key);
+        if (entry == null)
+            return null;
+
+        INDArray[] arrays = new INDArray[4];
+        try {
+            FileChannel channel = segments.get(entry.segment).getChannel();
+            for (ArrayEntry array : entry.arrays)
+                arrays[array.slot] = map(channel, array);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return new DataSet(arrays[FEATURES], arrays[LABELS], arrays[FEATURES_MASK], arrays[LABELS_MASK]);
+    }
+
+    private INDArray map(FileChannel channel, ArrayEntry array) throws IOException {
+        if (array.length > Integer.MAX_VALUE)
+            throw new ND4JIllegalStateException("Array of " + array.length + " elements can't be loaded: arrays above "
+                            + Integer.MAX_VALUE + " elements aren't supported");
+
+        int elementSize = Nd4j.sizeOfDataType(array.dataType);
+        long bytes = array.length * elementSize;
+
+        DataBuffer buffer;
+        if (bytes <= maxMappingSize) {
+            // private mapping: caller can modify arrays in place, without touching the file or other readers
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.PRIVATE, array.offset, bytes);
+            mapped.order(ByteOrder.nativeOrder());
+
+            // pointer created from direct buffer keeps reference to it, so mapping lives as long as DataBuffer
+            buffer = Nd4j.createBuffer(mapped, array.dataType, (int) array.length);
+        } else {
+            // array doesn't fit into single mapping, so it's copied into host buffer segment by segment
+            buffer = allocateDetached(array.dataType, array.length);
+            BytePointer target = new BytePointer(buffer.addressPointer());
+            target.capacity(bytes);
+
+            long segment = segmentSize(elementSize);
+            for (long done = 0; done < bytes; done += segment) {
+                long length = Math.min(segment, bytes - done);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, array.offset + done, length);
+                target.position(done).limit(done + length);
+                target.asByteBuffer().put(mapped);
+            }
+        }
+
+        return Nd4j.create(buffer, array.shape, array.stride, 0, array.order);
+    }
+
+    private long segmentSize(int elementSize) {
+        long segment = Math.min(maxMappingSize, COPY_SEGMENT_SIZE);
+        return Math.max(elementSize, segment - segment % elementSize);
+    }
+
+    private static DataBuffer allocateDetached(DataBuffer.Type type, long length) {
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            switch (type) {
+                case DOUBLE:
+                    return Nd4j.getDataBufferFactory().createDouble(length, false);
+                case FLOAT:
+                    return Nd4j.getDataBufferFactory().createFloat(length, false);
+                case HALF:
+                    return Nd4j.getDataBufferFactory().createHalf(length, false);
+                case INT:
+                    return Nd4j.getDataBufferFactory().createInt(length, false);
+                default:
+                    throw new UnsupportedOperationException("Data type " + type + " isn't supported");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, DataSet dataSet) {
+        INDArray[] arrays = new INDArray[] {dataSet.getFeatures(), dataSet.getLabels(),
+                        dataSet.getFeaturesMaskArray(), dataSet.getLabelsMaskArray()};
+
+        // making sure all arrays are dense, and their data is available on host side
+        Nd4j.getExecutioner().commit();
+
+        long required = 0;
+        for (int e = 0; e < arrays.length; e++) {
+            if (arrays[e] == null)
+                continue;
+
+            if (arrays[e].lengthLong() > Integer.MAX_VALUE)
+                throw new ND4JIllegalStateException("Array of " + arrays[e].lengthLong()
+                                + " elements can't be cached: arrays above " + Integer.MAX_VALUE
+                                + " elements aren't supported");
+
+            if (arrays[e].isView())
+                arrays[e] = arrays[e].dup(arrays[e].ordering());
+
+            Nd4j.getAffinityManager().ensureLocation(arrays[e], AffinityManager.Location.HOST);
+            required += align(arrays[e].lengthLong() * arrays[e].data().getElementSize());
+        }
+
+        try {
+            if (segments.isEmpty() || (writePosition > 0 && writePosition + required > segmentSize)) {
+                segments.add(new RandomAccessFile(segmentFile(segments.size()), "rw"));
+                writePosition = 0;
+            }
+
+            int segment = segments.size() - 1;
+            FileChannel channel = segments.get(segment).getChannel();
+
+            List<ArrayEntry> entries = new ArrayList<>();
+            for (int e = 0; e < arrays.length; e++) {
+                INDArray array = arrays[e];
+                if (array == null)
+                    continue;
+
+                long bytes = array.lengthLong() * array.data().getElementSize();
+                BytePointer source = new BytePointer(array.data().addressPointer());
+                source.capacity(bytes);
+
+                // data is written in segments, since single ByteBuffer can't address more than 2GB
+                long offset = writePosition;
+                long chunk = segmentSize(array.data().getElementSize());
+                for (long done = 0; done < bytes; done += chunk) {
+                    source.position(done).limit(done + Math.min(chunk, bytes - done));
+                    ByteBuffer data = source.asByteBuffer();
+                    while (data.hasRemaining())
+                        offset += channel.write(data, offset);
+                }
+
+                entries.add(new ArrayEntry(e, array.data().dataType(), array.ordering(), array.shape(), array.stride(),
+                                writePosition, array.lengthLong()));
+                writePosition = align(offset);
+            }
+
+            Entry entry = new Entry(key, segment, entries);
+
+            // index record goes after data, so it never points to incomplete batch
+            entry.write(indexStream);
+            indexStream.flush();
+
+            if (index.put(key, entry) != null)
+                log.debug("Key [{}] was overwritten in mapped data set cache", key);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long align(long position) {
+        long rem = position % ALIGNMENT;
+        return rem == 0 ? position : position + ALIGNMENT - rem;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * This method returns total number of bytes stored in all segments
+     */
+    public long getStoredBytes() {
+        long bytes = 0;
+        try {
+            for (RandomAccessFile segment : segments)
+                bytes += segment.length();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return bytes;
+    }
+
+    public int getNumberOfSegments() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        indexStream.close();
+
+        for (RandomAccessFile segment : segments)
+            segment.close();
+
+        segments.clear();
+        index.clear();
+    }
+
+
+    protected static class ArrayEntry {
+        protected final int slot;
+        protected final DataBuffer.Type dataType;
+        protected final char order;
+        protected final int[] shape;
+        protected final int[] stride;
+        protected final long offset;
+        protected final long length;
+
+        protected ArrayEntry(int slot, DataBuffer.Type dataType, char order, int[] shape, int[] stride, long offset,
+                        long length) {
+            this.slot = slot;
+            this.dataType = dataType;
+            this.order = order;
+            this.shape = shape;
+            this.stride = stride;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    protected static class Entry {
+        protected final String key;
+        protected final int segment;
+        protected final List<ArrayEntry> arrays;
+
+        protected Entry(String key, int segment, List<ArrayEntry> arrays) {
+            this.key = key;
+            this.segment = segment;
+            this.arrays = arrays;
+        }
+
+        protected void write(DataOutputStream dos) throws IOException {
+            dos.writeUTF(key);
+            dos.writeInt(segment);
+            dos.writeInt(arrays.size());
+            for (ArrayEntry array : arrays) {
+                dos.writeInt(array.slot);
+                dos.writeInt(array.dataType.ordinal());
+                dos.writeChar(array.order);
+                dos.writeInt(array.shape.length);
+                for (int dim : array.shape)
+                    dos.writeInt(dim);
+                for (int stride : array.stride)
+                    dos.writeInt(stride);
+                dos.writeLong(array.offset);
+                dos.writeLong(array.length);
+            }
+        }
+
+        protected static Entry read(DataInputStream dis) throws IOException {
+            String key = dis.readUTF();
+            int segment = dis.readInt();
+            int numArrays = dis.readInt();
+            List<ArrayEntry> arrays = new ArrayList<>(numArrays);
+            for (int e = 0; e < numArrays; e++) {
+                int slot = dis.readInt();
+                DataBuffer.Type dataType = DataBuffer.Type.values()[dis.readInt()];
+                char order = dis.readChar();
+                int[] shape = new int[dis.readInt()];
+                for (int i = 0; i < shape.length; i++)
+                    shape[i] = dis.readInt();
+                int[] stride = new int[shape.length];
+                for (int i = 0; i < stride.length; i++)
+                    stride[i] = dis.readInt();
+                long offset = dis.readLong();
+                long length = dis.readLong();
+                arrays.add(new ArrayEntry(slot, dataType, order, shape, stride, offset, length));
+            }
+
+            return new Entry(key, segment, arrays);
+        }
+    }
+}
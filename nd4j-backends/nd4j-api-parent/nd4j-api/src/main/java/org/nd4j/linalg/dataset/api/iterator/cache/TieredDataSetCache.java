@@ -0,0 +1,366 @@
+package org.nd4j.linalg.dataset.api.iterator.cache;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.BasicNDArrayCompressor;
+import org.nd4j.linalg.compression.CompressedDataBuffer;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded in-memory DataSetCache, with spill to file tier.
+ *
+ * Hot tier keeps DataSets as-is, up to given number of bytes, measured as actual size of their DataBuffers.
+ * Once budget is exceeded, entries are evicted using LRU or LFU policy. Evicted entries are either kept compressed
+ * in memory (if compressed tier budget is positive), or demoted to file tier. Entries read from lower tiers are
+ * promoted back into hot tier.
+ *
+ * PLEASE NOTE: each get() returns independent copy of cached data, so callers can safely modify it.
+ */
+@Slf4j
+public class TieredDataSetCache implements DataSetCache {
+
+    public enum EvictionPolicy {
+        /**
+         * Least recently used entry is evicted first
+         */
+        LRU,
+
+        /**
+         * Least frequently used entry is evicted first, ties are resolved as LRU
+         */
+        LFU,
+    }
+
+    public static final String DEFAULT_COMPRESSION = "GZIP";
+
+    private final DataSetCache fileCache;
+    private final long maxBytes;
+    private final long maxCompressedBytes;
+    private final String compressionAlgorithm;
+    private final EvictionPolicy policy;
+
+    // access-ordered maps, so iteration always starts from least recently used entry
+    private final LinkedHashMap<String, Entry> hotTier = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> compressedTier = new LinkedHashMap<>(16, 0.75f, true);
+
+    // keys that have up-to-date copy in file tier
+    private final Set<String> onDisk = new HashSet<>();
+    private final Set<String> completeNamespaces = new HashSet<>();
+
+    private long hotBytes = 0;
+    private long compressedBytes = 0;
+
+    private long hits = 0;
+    private long compressedHits = 0;
+    private long fileHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long demotions = 0;
+
+    public TieredDataSetCache(@NonNull File cacheDirectory, long maxBytes) {
+        this(new InFileDataSetCache(cacheDirectory), maxBytes, EvictionPolicy.LRU);
+    }
+
+    public TieredDataSetCache(@NonNull DataSetCache fileCache, long maxBytes, @NonNull EvictionPolicy policy) {
+        this(fileCache, maxBytes, policy, 0, DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param fileCache            cache used as lowest tier, i.e. {@link InFileDataSetCache} or {@link MappedDataSetCache}
+     * @param maxBytes             memory budget for uncompressed entries, in bytes
+     * @param policy               eviction policy
+     * @param maxCompressedBytes   memory budget for compressed entries, in bytes. 0 disables compressed tier.
+     * @param compressionAlgorithm algorithm to be used via {@link BasicNDArrayCompressor}
+     */
+    public TieredDataSetCache(@NonNull DataSetCache fileCache, long maxBytes, @NonNull EvictionPolicy policy,
+                    long maxCompressedBytes, @NonNull String compressionAlgorithm) {
+        if (maxBytes < 0 || maxCompressedBytes < 0)
+            throw new IllegalArgumentException("Memory budgets can't be negative");
+
+        this.fileCache = fileCache;
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.maxCompressedBytes = maxCompressedBytes;
+        this.compressionAlgorithm = compressionAlgorithm;
+    }
+
+    @Override
+    public synchronized boolean isComplete(String namespace) {
+        return completeNamespaces.contains(namespace) || fileCache.isComplete(namespace);
+    }
+
+    @Override
+    public synchronized void setComplete(String namespace, boolean value) {
+        if (value) {
+            completeNamespaces.add(namespace);
+        } else {
+            completeNamespaces.remove(namespace);
+        }
+
+        fileCache.setComplete(namespace, value);
+    }
+
+    @Override
+    public synchronized DataSet get(String key) {
+        Entry entry = hotTier.get(key);
+        if (entry != null) {
+            hits++;
+            entry.frequency++;
+            return entry.dataSet.copy();
+        }
+
+        entry = compressedTier.remove(key);
+        if (entry != null) {
+            compressedHits++;
+            compressedBytes -= entry.bytes;
+
+            DataSet dataSet = decompress(entry.dataSet);
+            store(key, dataSet, entry.frequency + 1);
+            return dataSet.copy();
+        }
+
+        if (onDisk.contains(key) || fileCache.contains(key)) {
+            DataSet dataSet = fileCache.get(key);
+            if (dataSet != null) {
+                fileHits++;
+                onDisk.add(key);
+                store(key, dataSet, 1);
+                return dataSet.copy();
+            }
+        }
+
+        misses++;
+        return null;
+    }
+
+    @Override
+    public synchronized void put(String key, DataSet dataSet) {
+        remove(key);
+
+        // existing file copy is outdated now
+        onDisk.remove(key);
+
+        store(key, dataSet.copy(), 1);
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return hotTier.containsKey(key) || compressedTier.containsKey(key) || onDisk.contains(key)
+                        || fileCache.contains(key);
+    }
+
+    private void remove(String key) {
+        Entry entry = hotTier.remove(key);
+        if (entry != null)
+            hotBytes -= entry.bytes;
+
+        entry = compressedTier.remove(key);
+        if (entry != null)
+            compressedBytes -= entry.bytes;
+    }
+
+    private void store(String key, DataSet dataSet, long frequency) {
+        Entry entry = new Entry(key, dataSet, sizeOf(dataSet), frequency);
+
+        hotTier.put(key, entry);
+        hotBytes += entry.bytes;
+
+        while (hotBytes > maxBytes && !hotTier.isEmpty()) {
+            Entry victim = pickVictim(hotTier);
+            hotTier.remove(victim.key);
+            hotBytes -= victim.bytes;
+            evictions++;
+
+            demote(victim);
+        }
+    }
+
+    private void demote(Entry entry) {
+        if (maxCompressedBytes > 0 && entry.bytes > 0) {
+            DataSet compressed = compress(entry.dataSet);
+            Entry packed = new Entry(entry.key, compressed, sizeOf(compressed), entry.frequency);
+
+            if (packed.bytes <= maxCompressedBytes) {
+                compressedTier.put(entry.key, packed);
+                compressedBytes += packed.bytes;
+
+                while (compressedBytes > maxCompressedBytes) {
+                    Entry victim = pickVictim(compressedTier);
+                    compressedTier.remove(victim.key);
+                    compressedBytes -= victim.bytes;
+
+                    writeToFile(victim.key, decompress(victim.dataSet));
+                }
+
+                return;
+            }
+        }
+
+        writeToFile(entry.key, entry.dataSet);
+    }
+
+    private void writeToFile(String key, DataSet dataSet) {
+        // file tier copy is still valid, so we can just drop this entry
+        if (onDisk.contains(key))
+            return;
+
+        fileCache.put(key, dataSet);
+        onDisk.add(key);
+        demotions++;
+    }
+
+    private Entry pickVictim(LinkedHashMap<String, Entry> tier) {
+        Iterator<Entry> iterator = tier.values().iterator();
+        Entry victim = iterator.next();
+
+        if (policy == EvictionPolicy.LFU) {
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.frequency < victim.frequency)
+                    victim = entry;
+            }
+        }
+
+        return victim;
+    }
+
+    private DataSet compress(DataSet dataSet) {
+        BasicNDArrayCompressor compressor = BasicNDArrayCompressor.getInstance();
+        return new DataSet(compress(compressor, dataSet.getFeatures()), compress(compressor, dataSet.getLabels()),
+                        compress(compressor, dataSet.getFeaturesMaskArray()),
+                        compress(compressor, dataSet.getLabelsMaskArray()));
+    }
+
+    private INDArray compress(BasicNDArrayCompressor compressor, INDArray array) {
+        return array == null ? null : compressor.compress(array, compressionAlgorithm);
+    }
+
+    private static DataSet decompress(DataSet dataSet) {
+        BasicNDArrayCompressor compressor = BasicNDArrayCompressor.getInstance();
+        return new DataSet(decompress(compressor, dataSet.getFeatures()),
+                        decompress(compressor, dataSet.getLabels()),
+                        decompress(compressor, dataSet.getFeaturesMaskArray()),
+                        decompress(compressor, dataSet.getLabelsMaskArray()));
+    }
+
+    private static INDArray decompress(BasicNDArrayCompressor compressor, INDArray array) {
+        return array == null ? null : compressor.decompress(array);
+    }
+
+    private static long sizeOf(DataSet dataSet) {
+        return sizeOf(dataSet.getFeatures()) + sizeOf(dataSet.getLabels()) + sizeOf(dataSet.getFeaturesMaskArray())
+                        + sizeOf(dataSet.getLabelsMaskArray());
+    }
+
+    private static long sizeOf(INDArray array) {
+        if (array == null)
+            return 0;
+
+        DataBuffer buffer = array.data();
+        if (buffer instanceof CompressedDataBuffer)
+            return ((CompressedDataBuffer) buffer).getCompressionDescriptor().getCompressedLength();
+
+        return buffer.length() * buffer.getElementSize();
+    }
+
+    /**
+     * This method returns number of bytes used by uncompressed in-memory entries
+     */
+    public synchronized long getCachedBytes() {
+        return hotBytes;
+    }
+
+    /**
+     * This method returns number of bytes used by compressed in-memory entries
+     */
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public synchronized int getNumberOfCachedEntries() {
+        return hotTier.size();
+    }
+
+    public synchronized int getNumberOfCompressedEntries() {
+        return compressedTier.size();
+    }
+
+    /**
+     * This method returns number of get() calls served from uncompressed memory tier
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * This method returns number of get() calls served from compressed memory tier
+     */
+    public synchronized long getCompressedHits() {
+        return compressedHits;
+    }
+
+    /**
+     * This method returns number of get() calls served from file tier
+     */
+    public synchronized long getFileHits() {
+        return fileHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * This method returns number of entries evicted from uncompressed memory tier
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * This method returns number of entries written to file tier due to eviction
+     */
+    public synchronized long getDemotions() {
+        return demotions;
+    }
+
+    /**
+     * This method returns fraction of get() calls served from memory, either compressed or not
+     */
+    public synchronized double getMemoryHitRate() {
+        long total = hits + compressedHits + fileHits + misses;
+        return total == 0 ? 0.0 : (double) (hits + compressedHits) / total;
+    }
+
+    public synchronized void resetStatistics() {
+        hits = 0;
+        compressedHits = 0;
+        fileHits = 0;
+        misses = 0;
+        evictions = 0;
+        demotions = 0;
+    }
+
+    private static class Entry {
+        private final String key;
+        private final DataSet dataSet;
+        private final long bytes;
+        private long frequency;
+
+        private Entry(String key, DataSet dataSet, long bytes, long frequency) {
+            this.key = key;
+            this.dataSet = dataSet;
+            this.bytes = bytes;
+            this.frequency = frequency;
+        }
+    }
+}
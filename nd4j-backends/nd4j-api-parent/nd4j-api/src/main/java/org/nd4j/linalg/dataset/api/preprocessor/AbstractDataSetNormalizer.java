@@ -9,6 +9,9 @@ import org.nd4j.linalg.dataset.api.DataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.preprocessor.stats.NormalizerStats;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Abstract base class for normalizers
  * that act upon {@link DataSet} instances
@@ -102,6 +105,69 @@ public abstract class AbstractDataSetNormalizer<S extends NormalizerStats> exten
         iterator.reset();
     }
 
+    /**
+     * Fit the given model using multiple threads. Iterator is shared by all threads, so only calls to
+     * hasNext()/next() are serialized, and statistics are collected in parallel.
+     *
+     * @param iterator   for the data to iterate over
+     * @param numThreads number of threads to use
+     */
+    public void fit(@NonNull DataSetIterator iterator, int numThreads) {
+        // iterator is reset before use by fit(List, int)
+        fit(Collections.singletonList(iterator), numThreads);
+        iterator.reset();
+    }
+
+    /**
+     * Fit the given model over several iterators (i.e. one per file) using multiple threads.
+     * Partial statistics collected by each thread are merged at the end.
+     *
+     * @param iterators  iterators for the data to iterate over. Iterators supporting reset are reset before use
+     * @param numThreads number of threads to use
+     */
+    public void fit(@NonNull List<? extends DataSetIterator> iterators, int numThreads) {
+        for (DataSetIterator iterator : iterators)
+            if (iterator.resetSupported())
+                iterator.reset();
+
+        NormalizerStats.Builder[] builders = new ParallelStatsCollector<DataSet, NormalizerStats.Builder[]>() {
+            @Override
+            protected NormalizerStats.Builder[] newPartial() {
+                return new NormalizerStats.Builder[] {newBuilder(), newBuilder()};
+            }
+
+            @Override
+            protected void consume(NormalizerStats.Builder[] partial, DataSet item) {
+                partial[0].addFeatures(item);
+                if (fitLabels) {
+                    partial[1].addLabels(item);
+                }
+            }
+
+            @Override
+            protected void merge(NormalizerStats.Builder[] target, NormalizerStats.Builder[] other) {
+                ((NormalizerStats.MergeableBuilder) target[0]).merge(other[0]);
+                ((NormalizerStats.MergeableBuilder) target[1]).merge(other[1]);
+            }
+
+            @Override
+            protected DataSet detach(DataSet item) {
+                return new org.nd4j.linalg.dataset.DataSet(dup(item.getFeatures()), dup(item.getLabels()),
+                                dup(item.getFeaturesMaskArray()), dup(item.getLabelsMaskArray()));
+            }
+
+            @Override
+            protected boolean isMergeable() {
+                return newBuilder() instanceof NormalizerStats.MergeableBuilder;
+            }
+        }.collect(iterators, numThreads);
+
+        featureStats = (S) builders[0].build();
+        if (fitLabels) {
+            labelStats = (S) builders[1].build();
+        }
+    }
+
     protected abstract S.Builder newBuilder();
 
     /**
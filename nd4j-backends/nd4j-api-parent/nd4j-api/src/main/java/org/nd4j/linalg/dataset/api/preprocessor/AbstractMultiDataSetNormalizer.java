@@ -9,6 +9,7 @@ import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 import org.nd4j.linalg.dataset.api.preprocessor.stats.NormalizerStats;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -114,6 +115,88 @@ public abstract class AbstractMultiDataSetNormalizer<S extends NormalizerStats>
         }
     }
 
+    /**
+     * Fit an iterator using multiple threads. Iterator is shared by all threads, so only calls to
+     * hasNext()/next() are serialized, and statistics are collected in parallel.
+     *
+     * @param iterator   for the data to iterate over
+     * @param numThreads number of threads to use
+     */
+    public void fit(@NonNull MultiDataSetIterator iterator, int numThreads) {
+        // iterator is reset before use by fit(List, int)
+        fit(Collections.singletonList(iterator), numThreads);
+        iterator.reset();
+    }
+
+    /**
+     * Fit several iterators (i.e. one per file) using multiple threads.
+     * Partial statistics collected by each thread are merged at the end.
+     *
+     * @param iterators  iterators for the data to iterate over. Iterators supporting reset are reset before use
+     * @param numThreads number of threads to use
+     */
+    public void fit(@NonNull List<? extends MultiDataSetIterator> iterators, int numThreads) {
+        for (MultiDataSetIterator iterator : iterators)
+            if (iterator.resetSupported())
+                iterator.reset();
+
+        PartialStats stats = new ParallelStatsCollector<MultiDataSet, PartialStats>() {
+            @Override
+            protected PartialStats newPartial() {
+                return new PartialStats();
+            }
+
+            @Override
+            protected void consume(PartialStats partial, MultiDataSet item) {
+                fitPartial(item, partial.features, partial.labels);
+            }
+
+            @Override
+            protected void merge(PartialStats target, PartialStats other) {
+                mergeBuilders(target.features, other.features);
+                mergeBuilders(target.labels, other.labels);
+            }
+
+            @Override
+            protected MultiDataSet detach(MultiDataSet item) {
+                return new org.nd4j.linalg.dataset.MultiDataSet(dup(item.getFeatures()), dup(item.getLabels()),
+                                dup(item.getFeaturesMaskArrays()), dup(item.getLabelsMaskArrays()));
+            }
+
+            @Override
+            protected boolean isMergeable() {
+                return newBuilder() instanceof NormalizerStats.MergeableBuilder;
+            }
+        }.collect(iterators, numThreads);
+
+        featureStats = buildList(stats.features);
+        if (isFitLabel()) {
+            labelStats = buildList(stats.labels);
+        }
+    }
+
+    /**
+     * Statistics builders of a single worker thread in parallel fit
+     */
+    private class PartialStats {
+        private final List<S.Builder> features = new ArrayList<>();
+        private final List<S.Builder> labels = new ArrayList<>();
+    }
+
+    private void mergeBuilders(List<S.Builder> target, List<S.Builder> other) {
+        if (other.isEmpty())
+            return;
+
+        if (target.isEmpty()) {
+            target.addAll(other);
+            return;
+        }
+
+        for (int i = 0; i < target.size(); i++) {
+            ((NormalizerStats.MergeableBuilder) target.get(i)).merge(other.get(i));
+        }
+    }
+
     private List<S> buildList(@NonNull List<S.Builder> builders) {
         List<S> result = new ArrayList<>(builders.size());
         for (S.Builder builder : builders) {
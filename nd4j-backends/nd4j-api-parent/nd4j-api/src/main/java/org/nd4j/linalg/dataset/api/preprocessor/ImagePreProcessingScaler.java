@@ -1,5 +1,6 @@
 package org.nd4j.linalg.dataset.api.preprocessor;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.DataSet;
@@ -18,7 +19,9 @@ import org.nd4j.linalg.dataset.api.preprocessor.serializer.NormalizerType;
 @Slf4j
 public class ImagePreProcessingScaler implements DataNormalization {
 
+    @Getter
     private double minRange, maxRange;
+    @Getter
     private double maxPixelVal;
     private int maxBits;
 
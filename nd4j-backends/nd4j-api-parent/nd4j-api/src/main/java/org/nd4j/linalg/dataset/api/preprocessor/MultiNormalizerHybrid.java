@@ -11,7 +11,10 @@ import org.nd4j.linalg.dataset.api.preprocessor.serializer.NormalizerType;
 import org.nd4j.linalg.dataset.api.preprocessor.stats.NormalizerStats;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -250,6 +253,96 @@ public class MultiNormalizerHybrid extends AbstractNormalizer implements MultiDa
         outputStats = buildAllStats(outputStatsBuilders);
     }
 
+    /**
+     * Iterates over a dataset using multiple threads, accumulating statistics for normalization.
+     * Iterator is shared by all threads, so only calls to hasNext()/next() are serialized.
+     *
+     * @param iterator   the iterator to use for collecting statistics
+     * @param numThreads number of threads to use
+     */
+    public void fit(@NonNull MultiDataSetIterator iterator, int numThreads) {
+        // iterator is reset before use by fit(List, int)
+        fit(Collections.singletonList(iterator), numThreads);
+        iterator.reset();
+    }
+
+    /**
+     * Iterates over several iterators (i.e. one per file) using multiple threads, accumulating statistics for
+     * normalization. Partial statistics collected by each thread are merged at the end.
+     *
+     * @param iterators  iterators to use for collecting statistics. Iterators supporting reset are reset before use
+     * @param numThreads number of threads to use
+     */
+    public void fit(@NonNull List<? extends MultiDataSetIterator> iterators, int numThreads) {
+        for (MultiDataSetIterator iterator : iterators)
+            if (iterator.resetSupported())
+                iterator.reset();
+
+        List<Map<Integer, NormalizerStats.Builder>> builders =
+                        new ParallelStatsCollector<MultiDataSet, List<Map<Integer, NormalizerStats.Builder>>>() {
+                            @Override
+                            protected List<Map<Integer, NormalizerStats.Builder>> newPartial() {
+                                List<Map<Integer, NormalizerStats.Builder>> partial = new ArrayList<>(2);
+                                partial.add(new HashMap<Integer, NormalizerStats.Builder>());
+                                partial.add(new HashMap<Integer, NormalizerStats.Builder>());
+                                return partial;
+                            }
+
+                            @Override
+                            protected void consume(List<Map<Integer, NormalizerStats.Builder>> partial,
+                                            MultiDataSet item) {
+                                fitPartial(item, partial.get(0), partial.get(1));
+                            }
+
+                            @Override
+                            protected void merge(List<Map<Integer, NormalizerStats.Builder>> target,
+                                            List<Map<Integer, NormalizerStats.Builder>> other) {
+                                mergeBuilders(target.get(0), other.get(0));
+                                mergeBuilders(target.get(1), other.get(1));
+                            }
+
+                            @Override
+                            protected MultiDataSet detach(MultiDataSet item) {
+                                return new org.nd4j.linalg.dataset.MultiDataSet(dup(item.getFeatures()),
+                                                dup(item.getLabels()), dup(item.getFeaturesMaskArrays()),
+                                                dup(item.getLabelsMaskArrays()));
+                            }
+
+                            @Override
+                            protected boolean isMergeable() {
+                                return allMergeable(globalInputStrategy, perInputStrategies)
+                                                && allMergeable(globalOutputStrategy, perOutputStrategies);
+                            }
+                        }.collect(iterators, numThreads);
+
+        inputStats = buildAllStats(builders.get(0));
+        outputStats = buildAllStats(builders.get(1));
+    }
+
+    private static boolean allMergeable(NormalizerStrategy globalStrategy,
+                    Map<Integer, NormalizerStrategy> perArrayStrategies) {
+        if (globalStrategy != null && !(globalStrategy.newStatsBuilder() instanceof NormalizerStats.MergeableBuilder))
+            return false;
+
+        for (NormalizerStrategy strategy : perArrayStrategies.values())
+            if (!(strategy.newStatsBuilder() instanceof NormalizerStats.MergeableBuilder))
+                return false;
+
+        return true;
+    }
+
+    private void mergeBuilders(Map<Integer, NormalizerStats.Builder> target,
+                    Map<Integer, NormalizerStats.Builder> other) {
+        for (Map.Entry<Integer, NormalizerStats.Builder> entry : other.entrySet()) {
+            NormalizerStats.Builder builder = target.get(entry.getKey());
+            if (builder == null) {
+                target.put(entry.getKey(), entry.getValue());
+            } else {
+                ((NormalizerStats.MergeableBuilder) builder).merge(entry.getValue());
+            }
+        }
+    }
+
     private void fitPartial(MultiDataSet dataSet, Map<Integer, NormalizerStats.Builder> inputStatsBuilders,
                     Map<Integer, NormalizerStats.Builder> outputStatsBuilders) {
         ensureStatsBuilders(inputStatsBuilders, globalInputStrategy, perInputStrategies, dataSet.numFeatureArrays());
@@ -0,0 +1,153 @@
+package org.nd4j.linalg.dataset.api.preprocessor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Helper for multi-threaded normalizer fit.
+ *
+ * Each worker thread accumulates its own partial statistics. Worker starts on its own source, and moves to other
+ * sources once it's exhausted, so with single source all workers share it, and with many sources (i.e. one iterator
+ * per file) they're read independently. Only hasNext()/next() calls, and detaching of fetched item, are synchronized
+ * on the source, statistics are computed concurrently. Partial statistics are merged once all sources are exhausted.
+ *
+ * PLEASE NOTE: items are detached from the source before lock is released, since iterators are allowed to reuse
+ * arrays of returned items on next call. If partial statistics can't be merged, items are consumed sequentially
+ * by calling thread instead.
+ *
+ * @param <T> type of items provided by sources
+ * @param <P> type of partial statistics
+ */
+@Slf4j
+abstract class ParallelStatsCollector<T, P> {
+
+    /**
+     * This method creates new empty partial statistics for a worker
+     */
+    protected abstract P newPartial();
+
+    /**
+     * This method adds single item to worker's partial statistics
+     */
+    protected abstract void consume(P partial, T item);
+
+    /**
+     * This method merges partial statistics of one worker into another
+     */
+    protected abstract void merge(P target, P other);
+
+    /**
+     * This method returns copy of given item, which isn't affected by following calls to the source
+     */
+    protected abstract T detach(T item);
+
+    /**
+     * This method checks, if partial statistics can be merged. Default implementation returns true.
+     */
+    protected boolean isMergeable() {
+        return true;
+    }
+
+    protected static INDArray dup(INDArray array) {
+        return array == null ? null : array.dup();
+    }
+
+    protected static INDArray[] dup(INDArray[] arrays) {
+        if (arrays == null)
+            return null;
+
+        INDArray[] result = new INDArray[arrays.length];
+        for (int i = 0; i < arrays.length; i++)
+            result[i] = dup(arrays[i]);
+
+        return result;
+    }
+
+    public P collect(final List<? extends Iterator<? extends T>> sources, int numThreads) {
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("At least one source is required");
+
+        if (numThreads < 1)
+            throw new IllegalArgumentException("Number of threads should be positive");
+
+        if (numThreads > 1 && !isMergeable()) {
+            log.warn("Statistics builders don't implement MergeableBuilder, falling back to single-threaded fit");
+            numThreads = 1;
+        }
+
+        if (numThreads == 1) {
+            // item is consumed before next one is requested, so there's no need to detach it
+            P partial = newPartial();
+            for (Iterator<? extends T> source : sources)
+                while (source.hasNext())
+                    consume(partial, source.next());
+
+            return partial;
+        }
+
+        final Integer deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final List<P> partials = new ArrayList<>(numThreads);
+        List<Thread> threads = new ArrayList<>(numThreads);
+
+        for (int t = 0; t < numThreads; t++) {
+            final int first = t % sources.size();
+            final P partial = newPartial();
+            partials.add(partial);
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Nd4j.getAffinityManager().attachThreadToDevice(Thread.currentThread(), deviceId);
+                    try {
+                        for (int s = 0; s < sources.size() && error.get() == null; s++) {
+                            Iterator<? extends T> source = sources.get((first + s) % sources.size());
+                            while (error.get() == null) {
+                                T item;
+                                synchronized (source) {
+                                    if (!source.hasNext())
+                                        break;
+
+                                    item = detach(source.next());
+                                }
+
+                                consume(partial, item);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            }, "NormalizerFit-" + t);
+
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        try {
+            for (Thread thread : threads)
+                thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        if (error.get() != null)
+            throw new RuntimeException("Parallel fit failed", error.get());
+
+        P result = partials.get(0);
+        for (int t = 1; t < partials.size(); t++)
+            merge(result, partials.get(t));
+
+        log.debug("Collected statistics from {} sources using {} threads", sources.size(), numThreads);
+
+        return result;
+    }
+}
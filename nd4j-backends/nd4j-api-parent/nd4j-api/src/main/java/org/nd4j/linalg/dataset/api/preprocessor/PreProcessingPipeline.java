@@ -0,0 +1,500 @@
+package org.nd4j.linalg.dataset.api.preprocessor;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastAddOp;
+import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastMulOp;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.DataSetUtil;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.DistributionStats;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.MinMaxStats;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.BooleanIndexing;
+import org.nd4j.linalg.indexing.conditions.Conditions;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * DataSetPreProcessor that applies a chain of preprocessing steps in place, fusing them where possible.
+ *
+ * Standardization, min-max scaling, image scaling and plain scale/shift steps are all per-feature affine transforms,
+ * so any sequence of them collapses into single {@code x * scale + shift} transform. Coefficients are combined once,
+ * when pipeline is built, and each batch is then processed with at most two native ops per array (multiply and add,
+ * broadcast along dimension 1 if needed), no matter how many steps were fused. Any other DataSetPreProcessor added
+ * to the pipeline is applied as-is, and splits fused steps around it.
+ *
+ * Normalizers set masked values to zero, while plain scale/shift steps don't. If batch has mask, masking is applied
+ * once after fused transform, unless some step that doesn't preserve zeros (i.e. ImagePreProcessingScaler with
+ * non-zero minRange) follows masked one. In that case fused steps are applied in a few parts, with masking after
+ * each part that needs it, so result is the same as if steps were applied one by one.
+ *
+ * Time spent in each stage is tracked per batch. Fused steps are reported as a single stage.
+ *
+ * PLEASE NOTE: normalizers are converted into coefficients at build time, so pipeline has to be rebuilt if
+ * they are fit again.
+ */
+@Slf4j
+public class PreProcessingPipeline implements DataSetPreProcessor {
+    private static final long serialVersionUID = -4120451339018839218L;
+
+    private final List<Stage> stages;
+    private final AtomicLongArray totalTimes;
+    private final AtomicLong batches = new AtomicLong(0);
+    private volatile long[] lastTimes;
+
+    protected PreProcessingPipeline(@NonNull List<Stage> stages) {
+        this.stages = stages;
+        this.totalTimes = new AtomicLongArray(stages.size());
+        this.lastTimes = new long[stages.size()];
+    }
+
+    @Override
+    public void preProcess(DataSet toPreProcess) {
+        long[] times = new long[stages.size()];
+        for (int i = 0; i < stages.size(); i++) {
+            long time = System.nanoTime();
+            stages.get(i).apply(toPreProcess);
+
+            // ops can be executed asynchronously, so we wait for them to get meaningful timings
+            Nd4j.getExecutioner().commit();
+
+            times[i] = System.nanoTime() - time;
+            totalTimes.addAndGet(i, times[i]);
+        }
+
+        lastTimes = times;
+        batches.incrementAndGet();
+    }
+
+    public int getNumberOfStages() {
+        return stages.size();
+    }
+
+    /**
+     * This method returns names of pipeline stages, in order of execution
+     */
+    public List<String> getStageNames() {
+        List<String> names = new ArrayList<>(stages.size());
+        for (Stage stage : stages)
+            names.add(stage.getName());
+
+        return names;
+    }
+
+    /**
+     * This method returns time spent in each stage for last processed batch, in nanoseconds
+     */
+    public long[] getLastStageTimes() {
+        return lastTimes.clone();
+    }
+
+    /**
+     * This method returns average time spent in each stage per batch, in nanoseconds
+     */
+    public double[] getAverageStageTimes() {
+        long numBatches = batches.get();
+        double[] result = new double[stages.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = numBatches == 0 ? 0.0 : (double) totalTimes.get(i) / numBatches;
+
+        return result;
+    }
+
+    public long getNumberOfBatches() {
+        return batches.get();
+    }
+
+    public void resetStatistics() {
+        for (int i = 0; i < stages.size(); i++)
+            totalTimes.set(i, 0);
+
+        batches.set(0);
+        lastTimes = new long[stages.size()];
+    }
+
+
+    protected interface Stage extends Serializable {
+        String getName();
+
+        void apply(DataSet dataSet);
+    }
+
+    /**
+     * Stage wrapping arbitrary DataSetPreProcessor
+     */
+    protected static class PreProcessorStage implements Stage {
+        private final DataSetPreProcessor preProcessor;
+
+        protected PreProcessorStage(DataSetPreProcessor preProcessor) {
+            this.preProcessor = preProcessor;
+        }
+
+        @Override
+        public String getName() {
+            return preProcessor.getClass().getSimpleName();
+        }
+
+        @Override
+        public void apply(DataSet dataSet) {
+            preProcessor.preProcess(dataSet);
+        }
+    }
+
+    /**
+     * Stage applying combined affine transforms to features and labels
+     */
+    protected static class FusedStage implements Stage {
+        private final String name;
+        private final AffineChain features;
+        private final AffineChain labels;
+
+        protected FusedStage(String name, AffineChain features, AffineChain labels) {
+            this.name = name;
+            this.features = features;
+            this.labels = labels;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void apply(DataSet dataSet) {
+            if (features != null && dataSet.getFeatures() != null)
+                features.apply(dataSet.getFeatures(), dataSet.getFeaturesMaskArray());
+
+            if (labels != null && dataSet.getLabels() != null)
+                labels.apply(dataSet.getLabels(), dataSet.getLabelsMaskArray());
+        }
+    }
+
+    /**
+     * Sequence of affine transforms, some of which set masked values to zero.
+     *
+     * Transforms are combined into single transform for unmasked arrays. For masked arrays they are combined into
+     * parts, split after masked transform that is followed by transform that doesn't preserve zeros, since masking
+     * can't be postponed past such transform.
+     */
+    protected static class AffineChain implements Serializable {
+        private Affine combined;
+        private final List<Affine> parts = new ArrayList<>();
+        private final List<Boolean> masked = new ArrayList<>();
+
+        protected void append(Affine affine, boolean mask) {
+            combined = combined == null ? affine : combined.then(affine);
+
+            int last = parts.size() - 1;
+            if (last < 0 || (masked.get(last) && !affine.preservesZeros())) {
+                parts.add(affine);
+                masked.add(mask);
+            } else {
+                // masked values stay zero, so masking can be applied after this transform as well
+                parts.set(last, parts.get(last).then(affine));
+                masked.set(last, masked.get(last) || mask);
+            }
+        }
+
+        protected void apply(INDArray array, INDArray mask) {
+            if (mask == null) {
+                combined.apply(array);
+                return;
+            }
+
+            for (int i = 0; i < parts.size(); i++) {
+                parts.get(i).apply(array);
+                if (masked.get(i))
+                    DataSetUtil.setMaskedValuesToZero(array, mask);
+            }
+        }
+    }
+
+    /**
+     * Per-feature affine transform: {@code x * scale + shift}. Each coefficient is either scalar, or row vector
+     */
+    protected static class Affine implements Serializable {
+        private final INDArray scale;
+        private final double scalarScale;
+        private final INDArray shift;
+        private final double scalarShift;
+
+        protected Affine(INDArray scale, double scalarScale, INDArray shift, double scalarShift) {
+            this.scale = scale;
+            this.scalarScale = scalarScale;
+            this.shift = shift;
+            this.scalarShift = scalarShift;
+        }
+
+        protected static Affine scalar(double scale, double shift) {
+            return new Affine(null, scale, null, shift);
+        }
+
+        protected static Affine vector(INDArray scale, INDArray shift) {
+            return new Affine(scale, 1.0, shift, 0.0);
+        }
+
+        /**
+         * This method returns true if zeros are mapped to zeros by this transform
+         */
+        protected boolean preservesZeros() {
+            if (shift == null)
+                return scalarShift == 0.0;
+
+            return shift.maxNumber().doubleValue() == 0.0 && shift.minNumber().doubleValue() == 0.0;
+        }
+
+        /**
+         * This method returns transform equivalent to applying this transform, and then given one
+         */
+        protected Affine then(Affine next) {
+            // (x * s1 + b1) * s2 + b2 = x * (s1 * s2) + (b1 * s2 + b2)
+            INDArray newScale = mul(scale, scalarScale, next.scale, next.scalarScale);
+            double newScalarScale = newScale == null ? scalarScale * next.scalarScale : 1.0;
+
+            INDArray shiftTimesScale = mul(shift, scalarShift, next.scale, next.scalarScale);
+            INDArray newShift;
+            double newScalarShift;
+            if (shiftTimesScale == null && next.shift == null) {
+                newShift = null;
+                newScalarShift = scalarShift * next.scalarScale + next.scalarShift;
+            } else if (shiftTimesScale == null) {
+                newShift = next.shift.add(scalarShift * next.scalarScale);
+                newScalarShift = 0.0;
+            } else {
+                newShift = next.shift == null ? shiftTimesScale.addi(next.scalarShift)
+                                : shiftTimesScale.addi(next.shift);
+                newScalarShift = 0.0;
+            }
+
+            return new Affine(newScale, newScalarScale, newShift, newScalarShift);
+        }
+
+        private static INDArray mul(INDArray a, double scalarA, INDArray b, double scalarB) {
+            if (a == null && b == null)
+                return null;
+            if (a == null)
+                return b.mul(scalarA);
+            if (b == null)
+                return a.mul(scalarB);
+
+            return a.mul(b);
+        }
+
+        protected void apply(INDArray array) {
+            if (scale != null) {
+                if (array.rank() <= 2)
+                    array.muliRowVector(scale);
+                else
+                    Nd4j.getExecutioner().execAndReturn(new BroadcastMulOp(array, scale, array, 1));
+            } else if (scalarScale != 1.0) {
+                array.muli(scalarScale);
+            }
+
+            if (shift != null) {
+                if (array.rank() <= 2)
+                    array.addiRowVector(shift);
+                else
+                    Nd4j.getExecutioner().execAndReturn(new BroadcastAddOp(array, shift, array, 1));
+            } else if (scalarShift != 0.0) {
+                array.addi(scalarShift);
+            }
+        }
+    }
+
+
+    public static class Builder {
+        private final List<Stage> stages = new ArrayList<>();
+
+        private AffineChain features;
+        private AffineChain labels;
+        private final List<String> fused = new ArrayList<>();
+
+        /**
+         * Add preprocessor to the pipeline. NormalizerStandardize, NormalizerMinMaxScaler and
+         * ImagePreProcessingScaler are fused with neighbouring steps, any other preprocessor is applied as-is.
+         */
+        public Builder add(@NonNull DataSetPreProcessor preProcessor) {
+            if (preProcessor instanceof NormalizerStandardize) {
+                NormalizerStandardize normalizer = (NormalizerStandardize) preProcessor;
+                try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                    appendFeatures(standardization(normalizer.getMean(), normalizer.getStd()), true);
+                    if (normalizer.isFitLabel())
+                        appendLabels(standardization(normalizer.getLabelMean(), normalizer.getLabelStd()), true);
+                }
+                fused.add(preProcessor.getClass().getSimpleName());
+            } else if (preProcessor instanceof NormalizerMinMaxScaler) {
+                NormalizerMinMaxScaler normalizer = (NormalizerMinMaxScaler) preProcessor;
+                try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                    appendFeatures(minMaxScaling(normalizer.getMin(), normalizer.getMax(), normalizer.getTargetMin(),
+                                    normalizer.getTargetMax()), true);
+                    if (normalizer.isFitLabel())
+                        appendLabels(minMaxScaling(normalizer.getLabelMin(), normalizer.getLabelMax(),
+                                        normalizer.getTargetMin(), normalizer.getTargetMax()), true);
+                }
+                fused.add(preProcessor.getClass().getSimpleName());
+            } else if (preProcessor instanceof ImagePreProcessingScaler) {
+                ImagePreProcessingScaler scaler = (ImagePreProcessingScaler) preProcessor;
+                double range = scaler.getMaxRange() - scaler.getMinRange();
+                appendFeatures(Affine.scalar(range / scaler.getMaxPixelVal(), scaler.getMinRange()), false);
+                fused.add(preProcessor.getClass().getSimpleName());
+            } else {
+                flush();
+                stages.add(new PreProcessorStage(preProcessor));
+            }
+
+            return this;
+        }
+
+        /**
+         * Standardize features using given statistics
+         */
+        public Builder standardize(@NonNull DistributionStats stats) {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                appendFeatures(standardization(stats.getMean(), stats.getStd()), true);
+            }
+            fused.add("standardize");
+            return this;
+        }
+
+        /**
+         * Standardize labels using given statistics
+         */
+        public Builder standardizeLabels(@NonNull DistributionStats stats) {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                appendLabels(standardization(stats.getMean(), stats.getStd()), true);
+            }
+            fused.add("standardizeLabels");
+            return this;
+        }
+
+        /**
+         * Scale features into [targetMin, targetMax] range using given statistics
+         */
+        public Builder minMax(@NonNull MinMaxStats stats, double targetMin, double targetMax) {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                appendFeatures(minMaxScaling(stats.getLower(), stats.getUpper(), targetMin, targetMax), true);
+            }
+            fused.add("minMax");
+            return this;
+        }
+
+        /**
+         * Scale labels into [targetMin, targetMax] range using given statistics
+         */
+        public Builder minMaxLabels(@NonNull MinMaxStats stats, double targetMin, double targetMax) {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                appendLabels(minMaxScaling(stats.getLower(), stats.getUpper(), targetMin, targetMax), true);
+            }
+            fused.add("minMaxLabels");
+            return this;
+        }
+
+        /**
+         * Apply {@code x * scale + shift} to features
+         */
+        public Builder affine(double scale, double shift) {
+            appendFeatures(Affine.scalar(scale, shift), false);
+            fused.add("affine");
+            return this;
+        }
+
+        /**
+         * Apply {@code x * scale + shift} to labels
+         */
+        public Builder affineLabels(double scale, double shift) {
+            appendLabels(Affine.scalar(scale, shift), false);
+            fused.add("affineLabels");
+            return this;
+        }
+
+        /**
+         * Apply per-feature {@code x * scale + shift} to features
+         *
+         * @param scale row vector of per-feature scales
+         * @param shift row vector of per-feature shifts
+         */
+        public Builder affine(@NonNull INDArray scale, @NonNull INDArray shift) {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                appendFeatures(Affine.vector(scale.dup(), shift.dup()), false);
+            }
+            fused.add("affine");
+            return this;
+        }
+
+        /**
+         * Apply per-feature {@code x * scale + shift} to labels
+         *
+         * @param scale row vector of per-label scales
+         * @param shift row vector of per-label shifts
+         */
+        public Builder affineLabels(@NonNull INDArray scale, @NonNull INDArray shift) {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                appendLabels(Affine.vector(scale.dup(), shift.dup()), false);
+            }
+            fused.add("affineLabels");
+            return this;
+        }
+
+        private static Affine standardization(INDArray mean, INDArray std) {
+            // the same as StandardizeStrategy: zero std is replaced by one
+            INDArray filteredStd = std.dup();
+            BooleanIndexing.replaceWhere(filteredStd, 1.0, Conditions.equals(0));
+
+            // (x - mean) / std = x * (1 / std) - mean / std
+            INDArray scale = filteredStd.rdiv(1.0);
+            return Affine.vector(scale, mean.mul(scale).negi());
+        }
+
+        private static Affine minMaxScaling(INDArray lower, INDArray upper, double targetMin, double targetMax) {
+            // ((x - lower) / range) * (max - min) + min = x * ((max - min) / range) + (min - lower * scale)
+            INDArray scale = upper.sub(lower).rdivi(targetMax - targetMin);
+            return Affine.vector(scale, lower.mul(scale).rsubi(targetMin));
+        }
+
+        private void appendFeatures(Affine affine, boolean masked) {
+            if (features == null)
+                features = new AffineChain();
+
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                features.append(affine, masked);
+            }
+        }
+
+        private void appendLabels(Affine affine, boolean masked) {
+            if (labels == null)
+                labels = new AffineChain();
+
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                labels.append(affine, masked);
+            }
+        }
+
+        private void flush() {
+            if (fused.isEmpty())
+                return;
+
+            String name = fused.size() == 1 ? fused.get(0) : "fused" + fused;
+            stages.add(new FusedStage(name, features, labels));
+
+            features = null;
+            labels = null;
+            fused.clear();
+        }
+
+        public PreProcessingPipeline build() {
+            flush();
+            if (stages.isEmpty())
+                log.warn("Empty preprocessing pipeline was built");
+
+            return new PreProcessingPipeline(Collections.unmodifiableList(new ArrayList<>(stages)));
+        }
+    }
+}
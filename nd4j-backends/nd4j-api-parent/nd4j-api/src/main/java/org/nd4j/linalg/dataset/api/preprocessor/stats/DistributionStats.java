@@ -68,8 +68,8 @@ public class DistributionStats implements NormalizerStats {
      * DynamicCustomOpsBuilder class that can incrementally update a running mean and variance in order to create statistics for a
      * large set of data
      */
-    public static class Builder implements NormalizerStats.Builder<DistributionStats> {
-        private int runningCount = 0;
+    public static class Builder implements NormalizerStats.MergeableBuilder<DistributionStats> {
+        private long runningCount = 0;
         private INDArray runningMean;
         private INDArray runningVariance;
 
@@ -104,7 +104,7 @@ public class DistributionStats implements NormalizerStats {
             }
             INDArray mean = data.mean(0);
             INDArray variance = data.var(false, 0);
-            int count = data.size(0);
+            long count = data.size(0);
 
             if (runningMean == null) {
                 // First batch
@@ -124,7 +124,7 @@ public class DistributionStats implements NormalizerStats {
                 INDArray mB = variance.muli(count);
                 runningVariance.muli(runningCount).addiRowVector(mB)
                                 .addiRowVector(deltaSquared
-                                                .muli((float) (runningCount * count) / (runningCount + count)))
+                                                .muli((double) runningCount * count / (runningCount + count)))
                                 .divi(runningCount + count);
 
                 // Update running count
@@ -138,6 +138,43 @@ public class DistributionStats implements NormalizerStats {
             return this;
         }
 
+        /**
+         * Merge running mean and variance of another builder into this one, using pairwise combination from
+         * https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm
+         *
+         * @param other builder to merge from. It is not modified
+         */
+        @Override
+        public Builder merge(@NonNull NormalizerStats.Builder<DistributionStats> other) {
+            if (!(other instanceof Builder))
+                throw new IllegalArgumentException("Can't merge " + other.getClass().getSimpleName()
+                                + " into DistributionStats.Builder");
+
+            Builder o = (Builder) other;
+            if (o.runningMean == null)
+                return this;
+
+            if (runningMean == null) {
+                runningMean = o.runningMean.dup();
+                runningVariance = o.runningVariance.dup();
+                runningCount = o.runningCount;
+                return this;
+            }
+
+            long total = runningCount + o.runningCount;
+            double weightA = (double) runningCount / total;
+            double weightB = (double) o.runningCount / total;
+
+            // weights are applied separately to avoid overflow of count products on large data
+            INDArray delta = o.runningMean.sub(runningMean);
+            runningVariance.muli(weightA).addi(o.runningVariance.mul(weightB))
+                            .addi(delta.mul(delta).muli(weightA * weightB));
+            runningMean.addi(delta.muli(weightB));
+            runningCount = total;
+
+            return this;
+        }
+
         /**
          * Create a DistributionStats object from the data ingested so far. Can be used multiple times when updating
          * online.
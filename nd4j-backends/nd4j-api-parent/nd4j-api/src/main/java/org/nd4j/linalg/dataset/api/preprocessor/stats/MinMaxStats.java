@@ -71,7 +71,7 @@ public class MinMaxStats implements NormalizerStats {
      * DynamicCustomOpsBuilder class that can incrementally update a running lower and upper bound in order to create statistics for a
      * large set of data
      */
-    public static class Builder implements NormalizerStats.Builder<MinMaxStats> {
+    public static class Builder implements NormalizerStats.MergeableBuilder<MinMaxStats> {
         private INDArray runningLower;
         private INDArray runningUpper;
 
@@ -124,6 +124,32 @@ public class MinMaxStats implements NormalizerStats {
             return this;
         }
 
+        /**
+         * Merge running bounds of another builder into this one
+         *
+         * @param other builder to merge from. It is not modified
+         */
+        @Override
+        public MinMaxStats.Builder merge(@NonNull NormalizerStats.Builder<MinMaxStats> other) {
+            if (!(other instanceof MinMaxStats.Builder))
+                throw new IllegalArgumentException("Can't merge " + other.getClass().getSimpleName()
+                                + " into MinMaxStats.Builder");
+
+            MinMaxStats.Builder o = (MinMaxStats.Builder) other;
+            if (o.runningLower == null)
+                return this;
+
+            if (runningLower == null) {
+                runningLower = o.runningLower.dup();
+                runningUpper = o.runningUpper.dup();
+            } else {
+                Transforms.min(runningLower, o.runningLower, false);
+                Transforms.max(runningUpper, o.runningUpper, false);
+            }
+
+            return this;
+        }
+
         /**
          * Create a DistributionStats object from the data ingested so far. Can be used multiple times when updating
          * online.
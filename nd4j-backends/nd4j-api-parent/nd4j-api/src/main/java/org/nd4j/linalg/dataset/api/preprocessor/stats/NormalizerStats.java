@@ -34,4 +34,19 @@ public interface NormalizerStats extends Serializable {
          */
         S build();
     }
+
+    /**
+     * Builder, which partial statistics can be combined. Builders implementing it can be used for multi-threaded fit,
+     * other builders are fitted sequentially.
+     */
+    interface MergeableBuilder<S extends NormalizerStats> extends Builder<S> {
+        /**
+         * Merge statistics accumulated by another builder of the same type into this one.
+         * Result is the same as if all data added to other builder was added to this builder instead, so partial
+         * statistics can be collected in parallel and combined afterwards.
+         *
+         * @param other builder to merge from. It is not modified
+         */
+        MergeableBuilder<S> merge(Builder<S> other);
+    }
 }
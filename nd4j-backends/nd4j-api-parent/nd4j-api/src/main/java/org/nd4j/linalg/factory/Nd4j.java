@@ -47,7 +47,7 @@ import org.nd4j.linalg.api.complex.IComplexNDArray;
 import org.nd4j.linalg.api.complex.IComplexNumber;
 import org.nd4j.linalg.api.concurrency.AffinityManager;
 import org.nd4j.linalg.api.concurrency.BasicAffinityManager;
-import org.nd4j.linalg.api.instrumentation.InMemoryInstrumentation;
+import org.nd4j.linalg.api.instrumentation.AllocationTracker;
 import org.nd4j.linalg.api.instrumentation.Instrumentation;
 import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
 import org.nd4j.linalg.api.ndarray.*;
@@ -6379,7 +6379,7 @@ public class Nd4j {
 
 
             instrumentationClazz = (Class<? extends Instrumentation>) Class
-                    .forName(pp.toString(INSTRUMENTATION_CLASS, InMemoryInstrumentation.class.getName()));
+                    .forName(pp.toString(INSTRUMENTATION_CLASS, AllocationTracker.class.getName()));
 
             opFactoryClazz = (Class<? extends OpFactory>) Class
                     .forName(pp.toString(OP_FACTORY, DefaultOpFactory.class.getName()));
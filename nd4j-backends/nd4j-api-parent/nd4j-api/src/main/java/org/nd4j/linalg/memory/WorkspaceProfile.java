@@ -0,0 +1,199 @@
+package org.nd4j.linalg.memory;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Small local profile file with learned workspace sizes, kept per workspace id.
+ *
+ * Workspaces with learnable size record their max cycle allocations here, and read them back on creation,
+ * so after JVM restart they're allocated with learned size right away, instead of repeating learning phase.
+ * Profile is plain properties file, rewritten atomically some time after any learned size grows. Writes happen on
+ * background thread, and on JVM shutdown, so workspaces never wait for disk I/O.
+ */
+@Slf4j
+public class WorkspaceProfile {
+    public static final long FLUSH_DELAY_MS = 1000L;
+
+    private static final Map<String, WorkspaceProfile> profiles = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService flusher =
+                    Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "Workspace profile saver");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
+    private final File file;
+    private final Map<String, Long> sizes = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    public WorkspaceProfile(@NonNull File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * This method returns profile stored in given file. All workspaces using the same file share single instance
+     */
+    public static WorkspaceProfile forPath(@NonNull String path) {
+        String key = new File(path).getAbsolutePath();
+        WorkspaceProfile profile = profiles.get(key);
+        if (profile == null) {
+            synchronized (profiles) {
+                profile = profiles.get(key);
+                if (profile == null) {
+                    profile = new WorkspaceProfile(new File(key));
+                    profiles.put(key, profile);
+
+                    final WorkspaceProfile saved = profile;
+                    Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            saved.flush();
+                        }
+                    }, "Workspace profile saver"));
+                }
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * This method returns learned size for given workspace id, or 0 if there's no such workspace in profile
+     */
+    public long getLearnedSize(@NonNull String workspaceId) {
+        Long size = sizes.get(workspaceId);
+        return size == null ? 0L : size;
+    }
+
+    /**
+     * This method records learned size for given workspace id. Only in-memory profile is updated here, file is
+     * written later by background thread, and only if size has grown
+     *
+     * @return true if profile was updated
+     */
+    public boolean update(@NonNull String workspaceId, long size) {
+        Long current = sizes.get(workspaceId);
+        if (current != null && current >= size)
+            return false;
+
+        synchronized (this) {
+            current = sizes.get(workspaceId);
+            if (current != null && current >= size)
+                return false;
+
+            sizes.put(workspaceId, size);
+            dirty = true;
+        }
+
+        scheduleFlush();
+        return true;
+    }
+
+    private void scheduleFlush() {
+        // updates within flush delay are coalesced into single write
+        if (!flushScheduled.compareAndSet(false, true))
+            return;
+
+        flusher.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flushScheduled.set(false);
+                flush();
+            }
+        }, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method writes profile to disk right away, if it has unsaved changes
+     */
+    public synchronized void flush() {
+        if (dirty)
+            save();
+    }
+
+    /**
+     * This method removes all learned sizes, and deletes profile file
+     */
+    public synchronized void clear() {
+        sizes.clear();
+        dirty = false;
+        if (file.exists() && !file.delete())
+            log.warn("Unable to delete workspace profile [{}]", file.getAbsolutePath());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    protected synchronized void load() {
+        if (!file.exists())
+            return;
+
+        Properties properties = new Properties();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            properties.load(is);
+        } catch (IOException e) {
+            log.warn("Unable to read workspace profile [{}]: {}", file.getAbsolutePath(), e.getMessage());
+            return;
+        }
+
+        for (String id : properties.stringPropertyNames()) {
+            try {
+                sizes.put(id, Long.parseLong(properties.getProperty(id).trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Skipping malformed entry [{}] in workspace profile [{}]", id, file.getAbsolutePath());
+            }
+        }
+
+        log.debug("Loaded {} learned workspace sizes from [{}]", sizes.size(), file.getAbsolutePath());
+    }
+
+    /**
+     * This method writes profile to disk. Temporary file is renamed over profile, so readers never see partial file
+     */
+    public synchronized void save() {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> e : sizes.entrySet())
+            properties.setProperty(e.getKey(), String.valueOf(e.getValue()));
+
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists())
+                parent.mkdirs();
+
+            File tmp = new File(file.getAbsolutePath() + ".tmp");
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(tmp))) {
+                properties.store(os, "ND4J learned workspace sizes, in bytes");
+            }
+
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // some file systems can't do atomic moves
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Unable to save workspace profile [{}]: {}", file.getAbsolutePath(), e.getMessage());
+        }
+    }
+}
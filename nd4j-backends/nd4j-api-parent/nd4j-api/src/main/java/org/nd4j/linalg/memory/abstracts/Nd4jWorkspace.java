@@ -16,12 +16,15 @@ import org.nd4j.linalg.api.memory.pointers.PointersPair;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.memory.MemoryManager;
+import org.nd4j.linalg.memory.WorkspaceProfile;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
@@ -48,6 +51,9 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
     protected static final long SAFETY_OFFSET = 1024L;
 
+    // size of single write used to zero-fill memory-mapped files
+    protected static final int PREALLOCATION_CHUNK = 4 * 1024 * 1024;
+
     @Getter
     protected String id;
 
@@ -110,6 +116,12 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
     protected AtomicLong generationId = new AtomicLong(0);
 
+    // optional persisted learned size, shared across JVM restarts
+    protected WorkspaceProfile profile;
+
+    // number of consecutive cycles with spills above threshold
+    protected AtomicInteger spillingCycles = new AtomicInteger(0);
+
     // this memory manager implementation will be used to allocate real memory for this workspace
 
     public Nd4jWorkspace(@NonNull WorkspaceConfiguration configuration) {
@@ -127,6 +139,24 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
         // and actual workspace allocation
         currentSize.set(workspaceConfiguration.getInitialSize());
 
+        // if this workspace has learned its size in previous runs - we start with that size, skipping learning phase
+        boolean learnedBefore = false;
+        if (configuration.getProfilePath() != null && configuration.getPolicyLearning() != LearningPolicy.NONE
+                        && configuration.getPolicyLocation() != LocationPolicy.MMAP) {
+            profile = WorkspaceProfile.forPath(configuration.getProfilePath());
+
+            long learned = profile.getLearnedSize(workspaceId);
+            if (configuration.getMaxSize() > 0)
+                learned = Math.min(learned, configuration.getMaxSize());
+
+            if (learned > currentSize.get()) {
+                log.debug("Workspace [{}]: using learned size of {} bytes", workspaceId, learned);
+                // only learned cycle size is restored, actual size is derived from it the same way as after learning phase
+                maxCycle.set(learned);
+                learnedBefore = true;
+            }
+        }
+
         if (workspaceConfiguration.getPolicyReset() == ResetPolicy.ENDOFBUFFER_REACHED)
             workspaceType = Type.CIRCULAR;
         else
@@ -147,39 +177,49 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
         // validate mmap option
         if (configuration.getPolicyLocation() == LocationPolicy.MMAP) {
+            long length = alignLength(configuration.getInitialSize(), configuration.getMmapAlignment());
+
             // file path should be either non-null
             if (configuration.getTempFilePath() != null) {
                     tempFile = new File(configuration.getTempFilePath());
 
-                    if (tempFile.length() == 0 || tempFile.length() < configuration.getInitialSize()) {
-                        if (configuration.getInitialSize() > 0) {
+                    // existing file that's long enough is mapped as is, mmapReuseFile only matters for shorter files
+                    if (tempFile.length() == 0 || tempFile.length() < length) {
+                        if (length > 0) {
                             try {
-                                fillFile(tempFile, configuration.getInitialSize());
+                                preallocateFile(tempFile, length, configuration.isMmapSparse(),
+                                                configuration.isMmapReuseFile());
                             } catch (Exception e) {
                                 throw new RuntimeException(e);
                             }
                         } else {
                             throw new ND4JIllegalStateException("Memory-mapped file should have positive length.");
                         }
-                    } else {
-                        configuration.setInitialSize(tempFile.length());
                     }
-            } else if (configuration.getInitialSize() > 0) {
+            } else if (length > 0) {
                 try {
                     tempFile = File.createTempFile("workspace", "tempMMAP");
                     tempFile.deleteOnExit();
 
-                    // fill temp file with zeroes, up to initialSize bytes
-                    fillFile(tempFile, configuration.getInitialSize());
+                    // preallocate temp file, up to initialSize bytes
+                    preallocateFile(tempFile, length, configuration.isMmapSparse(), false);
 
                 } catch (Exception e) {
                     throw new RuntimeException(e);
                 }
             } else
                 throw new ND4JIllegalStateException("MMAP target file path should be non-null or workspace initialSize should be >0 for temp file");
+
+            // workspace always spans whole mapped file
+            configuration.setInitialSize(tempFile.length());
+            currentSize.set(tempFile.length());
         }
 
-        init();
+        // overallocation, circular headroom and block size for alignment are applied there, followed by init() call
+        if (learnedBefore)
+            initializeWorkspace();
+        else
+            init();
     }
 
     @Override
@@ -187,21 +227,61 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
         return this.workspaceType;
     }
 
+    /**
+     * This method zero-fills given file up to specified length, replacing its previous contents
+     */
     public static void fillFile(File file, long length) throws Exception {
-        byte[] buffer = new byte[16384];
-        for (int i = 0; i < buffer.length; i++) {
-            buffer[i] = (byte) 0;
-        }
+        preallocateFile(file, length, false, false);
+    }
+
+    /**
+     * This method preallocates file of given length, to be used as backing file for memory-mapped workspace.
+     *
+     * PLEASE NOTE: sparse files are created instantly, since disk blocks are allocated by file system on first write.
+     * But if disk runs out of space later, writes into mapped memory will crash JVM. Zero-filled files reserve disk space upfront.
+     *
+     * @param file file to be preallocated
+     * @param length desired file length, in bytes
+     * @param sparse if true, file is just extended to desired length. Otherwise missing part is explicitly zero-filled
+     * @param keepContents if true, existing file contents are kept and file is only extended. Otherwise file is truncated first
+     */
+    public static void preallocateFile(@NonNull File file, long length, boolean sparse, boolean keepContents)
+                    throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (!keepContents)
+                raf.setLength(0);
+
+            long position = raf.length();
+            if (position >= length)
+                return;
+
+            if (sparse) {
+                raf.setLength(length);
+                return;
+            }
 
-        try (FileOutputStream fos = new FileOutputStream(file); BufferedOutputStream bos = new BufferedOutputStream(fos)) {
-            long written = 0;
-            while (written < length) {
-                fos.write(buffer);
-                written += buffer.length;
+            // large positional writes from single direct buffer, instead of small stream writes
+            FileChannel channel = raf.getChannel();
+            ByteBuffer zeroes = ByteBuffer.allocateDirect((int) Math.min(PREALLOCATION_CHUNK, length - position));
+            while (position < length) {
+                zeroes.clear();
+                zeroes.limit((int) Math.min(zeroes.capacity(), length - position));
+                while (zeroes.hasRemaining())
+                    position += channel.write(zeroes, position);
             }
         }
     }
 
+    /**
+     * This method rounds length up to nearest multiple of alignment, i.e. huge page size
+     */
+    protected static long alignLength(long length, long alignment) {
+        if (alignment <= 0 || length <= 0 || length % alignment == 0)
+            return length;
+
+        return (length / alignment + 1) * alignment;
+    }
+
     @Override
     public long getGenerationId() {
         return generationId.get();
@@ -608,8 +688,14 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
             maxCycle.set(cycleAllocations.get());
         }
 
+        if (profile != null && maxCycle.get() > 0)
+            profile.update(id, maxCycle.get());
+
+        // workspace is resized at most once per cycle, so learning below is skipped if spills caused resize already
+        boolean adapted = workspaceConfiguration.getSpillThreshold() > 0 && adaptToSpills();
+
         // checking, if we should reallocate this workspace to higher amount of memory
-        if (workspaceConfiguration.getPolicyLearning() != LearningPolicy.NONE && maxCycle.get() > 0) {
+        if (workspaceConfiguration.getPolicyLearning() != LearningPolicy.NONE && maxCycle.get() > 0 && !adapted) {
             //log.info("Delayed workspace {}, device_{} initialization starts...", id, Nd4j.getAffinityManager().getDeviceForCurrentThread());
 
             // if we're going to resize - we're probably safe to purge spilled allocations
@@ -677,6 +763,58 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
         cycleAllocations.set(0);
     }
 
+    /**
+     * This method grows workspace, once spilled (or pinned) allocations stay above configured threshold
+     * for configured number of cycles. Works regardless of SpillPolicy, but respects maxSize.
+     *
+     * @return true if workspace was resized, or resize was scheduled for circular workspace
+     */
+    protected boolean adaptToSpills() {
+        long size = currentSize.get();
+        if (size == 0 || trimmedMode.get())
+            return false;
+
+        boolean circular = workspaceConfiguration.getPolicyReset() == ResetPolicy.ENDOFBUFFER_REACHED;
+        long overflow = circular ? pinnedAllocationsSize.get() : spilledAllocationsSize.get();
+
+        if (overflow <= size * workspaceConfiguration.getSpillThreshold()) {
+            spillingCycles.set(0);
+            return false;
+        }
+
+        if (spillingCycles.incrementAndGet() < workspaceConfiguration.getCyclesBeforeAdaptation())
+            return false;
+
+        spillingCycles.set(0);
+
+        long target = Math.max(maxCycle.get(), size + overflow);
+        if (workspaceConfiguration.getMaxSize() > 0)
+            target = Math.min(target, workspaceConfiguration.getMaxSize());
+
+        if (target <= size)
+            return false;
+
+        log.debug("Workspace [{}]: {} bytes spilled over {} bytes, growing to {} bytes", id, overflow, size, target);
+
+        maxCycle.set(target);
+        if (profile != null)
+            profile.update(id, target);
+
+        if (circular) {
+            // circular workspace can't be reallocated right away, so we reuse trimmed mode: reallocation happens 2 steps later
+            trimmedMode.set(true);
+            trimmedStep.set(stepsCount.get());
+        } else {
+            // scope is closed, so spilled allocations are safe to purge along with workspace itself
+            destroyWorkspace(true);
+            isOver.set(false);
+            currentSize.set(target);
+            init();
+        }
+
+        return true;
+    }
+
     protected abstract void clearPinnedAllocations(boolean extended);
 
     protected abstract void clearExternalAllocations();
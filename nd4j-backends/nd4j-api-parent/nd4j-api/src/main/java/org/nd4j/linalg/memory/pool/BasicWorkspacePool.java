@@ -0,0 +1,245 @@
+package org.nd4j.linalg.memory.pool;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+import org.nd4j.linalg.profiler.metrics.MetricsSource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.nd4j.linalg.profiler.metrics.Nd4jMetricsSource.labels;
+
+/**
+ * Basic WorkspacePool implementation.
+ *
+ * Idle workspaces are kept per device, bucketed by power of 2 of their learned size, so borrower gets workspace
+ * that already fits its demand. Workspaces keep their off-heap memory while idle, and aren't tied to any thread:
+ * the same workspace can be borrowed by any thread, i.e. by any carrier thread of an elastic pool.
+ *
+ * PLEASE NOTE: workspaces borrowed from pool are attached to borrowing thread only until released, so
+ * arrays allocated in them shouldn't be used after release, same as with any other workspace after its scope is closed
+ */
+@Slf4j
+public class BasicWorkspacePool implements WorkspacePool, MetricsSource {
+    public static final int DEFAULT_MAX_IDLE = 64;
+
+    @Getter
+    protected final String poolId;
+    @Getter
+    protected final WorkspaceConfiguration configuration;
+    protected final int maxIdle;
+
+    // deviceId -> bucket -> idle workspaces, most recently used first
+    protected final Map<Integer, ConcurrentSkipListMap<Integer, ConcurrentLinkedDeque<Nd4jWorkspace>>> idle =
+                    new ConcurrentHashMap<>();
+    protected final Map<MemoryWorkspace, Boolean> borrowed = new ConcurrentHashMap<>();
+
+    protected final AtomicInteger idleCount = new AtomicInteger(0);
+    protected final AtomicLong counter = new AtomicLong(0);
+    protected final AtomicLong borrows = new AtomicLong(0);
+    protected final AtomicLong reuses = new AtomicLong(0);
+    protected final AtomicLong destroyed = new AtomicLong(0);
+
+    public BasicWorkspacePool(@NonNull WorkspaceConfiguration configuration, @NonNull String poolId) {
+        this(configuration, poolId, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * @param configuration configuration used for all workspaces of this pool
+     * @param poolId id prefix for workspaces of this pool
+     * @param maxIdle max number of idle workspaces kept in pool. Workspaces released above this limit are destroyed
+     */
+    public BasicWorkspacePool(@NonNull WorkspaceConfiguration configuration, @NonNull String poolId, int maxIdle) {
+        if (maxIdle < 0)
+            throw new ND4JIllegalStateException("maxIdle can't be negative");
+
+        this.configuration = configuration;
+        this.poolId = poolId;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * This method returns bucket for given number of bytes: floor(log2(bytes))
+     */
+    protected static int bucketOf(long bytes) {
+        return bytes <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(bytes);
+    }
+
+    @Override
+    public MemoryWorkspace borrow() {
+        return borrow(0);
+    }
+
+    @Override
+    public MemoryWorkspace borrow(long expectedBytes) {
+        MemoryWorkspaceManager manager = Nd4j.getWorkspaceManager();
+        Nd4jWorkspace workspace = poll(Nd4j.getAffinityManager().getDeviceForCurrentThread(), expectedBytes);
+
+        if (workspace == null) {
+            // createNewWorkspace attaches workspace to current thread on its own
+            workspace = (Nd4jWorkspace) manager.createNewWorkspace(configuration,
+                            poolId + "_" + counter.incrementAndGet());
+        } else {
+            reuses.incrementAndGet();
+            manager.setWorkspaceForCurrentThread(workspace, workspace.getId());
+        }
+
+        borrowed.put(workspace, Boolean.TRUE);
+        borrows.incrementAndGet();
+
+        return workspace;
+    }
+
+    @Override
+    public MemoryWorkspace borrowAndActivate() {
+        return borrow().notifyScopeEntered();
+    }
+
+    protected Nd4jWorkspace poll(int deviceId, long expectedBytes) {
+        ConcurrentSkipListMap<Integer, ConcurrentLinkedDeque<Nd4jWorkspace>> buckets = idle.get(deviceId);
+        if (buckets == null || idleCount.get() == 0)
+            return null;
+
+        Nd4jWorkspace workspace;
+        if (expectedBytes > 0) {
+            // smallest bucket that fits demand goes first, then larger ones, and smaller ones only as last resort
+            int bucket = bucketOf(expectedBytes);
+            workspace = poll(buckets.tailMap(bucket, true));
+            if (workspace == null)
+                workspace = poll(buckets.headMap(bucket, false).descendingMap());
+        } else {
+            // without hint we prefer largest workspaces, they're least likely to spill
+            workspace = poll(buckets.descendingMap());
+        }
+
+        return workspace;
+    }
+
+    protected Nd4jWorkspace poll(Map<Integer, ConcurrentLinkedDeque<Nd4jWorkspace>> buckets) {
+        for (ConcurrentLinkedDeque<Nd4jWorkspace> deque : buckets.values()) {
+            Nd4jWorkspace workspace = deque.pollFirst();
+            if (workspace != null) {
+                idleCount.decrementAndGet();
+                return workspace;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void release(@NonNull MemoryWorkspace workspace) {
+        if (borrowed.remove(workspace) == null)
+            throw new ND4JIllegalStateException("Workspace [" + workspace.getId()
+                            + "] doesn't belong to pool [" + poolId + "], or was released already");
+
+        if (workspace.isScopeActive())
+            workspace.close();
+
+        // detaching workspace from current thread
+        MemoryWorkspaceManager manager = Nd4j.getWorkspaceManager();
+        if (manager.checkIfWorkspaceExists(workspace.getId()))
+            manager.destroyWorkspace(workspace);
+
+        Nd4jWorkspace ws = (Nd4jWorkspace) workspace;
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            destroy(ws);
+            return;
+        }
+
+        // workspace could have learned new size while borrowed, so bucket is picked on every release
+        int bucket = bucketOf(Math.max(ws.getCurrentSize(), ws.getMaxCycleAllocations()));
+        dequeFor(ws.getDeviceId(), bucket).offerFirst(ws);
+    }
+
+    protected ConcurrentLinkedDeque<Nd4jWorkspace> dequeFor(int deviceId, int bucket) {
+        ConcurrentSkipListMap<Integer, ConcurrentLinkedDeque<Nd4jWorkspace>> buckets = idle.get(deviceId);
+        if (buckets == null) {
+            synchronized (idle) {
+                buckets = idle.get(deviceId);
+                if (buckets == null) {
+                    buckets = new ConcurrentSkipListMap<>();
+                    idle.put(deviceId, buckets);
+                }
+            }
+        }
+
+        ConcurrentLinkedDeque<Nd4jWorkspace> deque = buckets.get(bucket);
+        if (deque == null) {
+            ConcurrentLinkedDeque<Nd4jWorkspace> created = new ConcurrentLinkedDeque<>();
+            deque = buckets.putIfAbsent(bucket, created);
+            if (deque == null)
+                deque = created;
+        }
+
+        return deque;
+    }
+
+    protected void destroy(Nd4jWorkspace workspace) {
+        workspace.destroyWorkspace(true);
+        destroyed.incrementAndGet();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return Math.max(0, idleCount.get());
+    }
+
+    @Override
+    public int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    @Override
+    public void clear() {
+        for (ConcurrentSkipListMap<Integer, ConcurrentLinkedDeque<Nd4jWorkspace>> buckets : idle.values()) {
+            Nd4jWorkspace workspace;
+            while ((workspace = poll(buckets)) != null)
+                destroy(workspace);
+        }
+    }
+
+    /**
+     * This method returns total size of idle workspaces, in bytes
+     */
+    public long getIdleBytes() {
+        long bytes = 0;
+        for (ConcurrentSkipListMap<Integer, ConcurrentLinkedDeque<Nd4jWorkspace>> buckets : idle.values())
+            for (ConcurrentLinkedDeque<Nd4jWorkspace> deque : buckets.values())
+                for (Nd4jWorkspace workspace : deque)
+                    bytes += workspace.getCurrentSize();
+
+        return bytes;
+    }
+
+    @Override
+    public void collectMetrics(MetricsCollector collector) {
+        Map<String, String> labels = labels("pool", poolId);
+
+        collector.gauge("nd4j_workspace_pool_idle", "Number of idle workspaces in pool", labels, getIdleCount());
+        collector.gauge("nd4j_workspace_pool_idle_bytes", "Memory held by idle workspaces in pool", labels,
+                        getIdleBytes());
+        collector.gauge("nd4j_workspace_pool_borrowed", "Number of workspaces borrowed from pool", labels,
+                        getBorrowedCount());
+        collector.counter("nd4j_workspace_pool_borrows_total", "Number of borrows from pool", labels, borrows.get());
+        collector.counter("nd4j_workspace_pool_reuses_total", "Number of borrows served by idle workspace", labels,
+                        reuses.get());
+        collector.counter("nd4j_workspace_pool_created_total", "Number of workspaces created by pool", labels,
+                        counter.get());
+        collector.counter("nd4j_workspace_pool_destroyed_total", "Number of workspaces destroyed by pool", labels,
+                        destroyed.get());
+    }
+}
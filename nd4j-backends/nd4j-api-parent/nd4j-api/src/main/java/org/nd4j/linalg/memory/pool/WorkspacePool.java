@@ -0,0 +1,64 @@
+package org.nd4j.linalg.memory.pool;
+
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+
+/**
+ * This interface describes pool of workspaces shared between threads.
+ *
+ * Instead of creating workspace per thread, short-lived threads borrow workspace from pool, use it, and return it back,
+ * so memory learned by workspaces survives threads themselves.
+ */
+public interface WorkspacePool {
+
+    /**
+     * This method borrows idle workspace from pool, or creates new one, and attaches it to current thread
+     *
+     * @return
+     */
+    MemoryWorkspace borrow();
+
+    /**
+     * This method borrows idle workspace with learned size closest to given demand, or creates new one,
+     * and attaches it to current thread
+     *
+     * @param expectedBytes expected number of bytes allocated per cycle, 0 if unknown
+     * @return
+     */
+    MemoryWorkspace borrow(long expectedBytes);
+
+    /**
+     * This method borrows workspace and opens its scope
+     *
+     * @return
+     */
+    MemoryWorkspace borrowAndActivate();
+
+    /**
+     * This method returns workspace back to pool, and detaches it from current thread.
+     * If workspace scope is still open, it's closed first.
+     *
+     * PLEASE NOTE: workspace should be released by the same thread that borrowed it
+     *
+     * @param workspace
+     */
+    void release(MemoryWorkspace workspace);
+
+    /**
+     * This method returns number of idle workspaces in this pool
+     *
+     * @return
+     */
+    int getIdleCount();
+
+    /**
+     * This method returns number of workspaces currently borrowed from this pool
+     *
+     * @return
+     */
+    int getBorrowedCount();
+
+    /**
+     * This method destroys all idle workspaces
+     */
+    void clear();
+}
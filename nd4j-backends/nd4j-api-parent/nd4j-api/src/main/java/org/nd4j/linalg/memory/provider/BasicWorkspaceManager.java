@@ -330,6 +330,22 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
         return new ArrayList<>(backingMap.get().values());
     }
 
+    /**
+     * This method returns all workspaces that are still alive, across all threads.
+     *
+     * PLEASE NOTE: Workspaces belong to their threads, so this method is meant for monitoring purposes only
+     * @return
+     */
+    public List<MemoryWorkspace> getAllWorkspaces() {
+        List<MemoryWorkspace> workspaces = new ArrayList<>(referenceMap.size());
+        for (Nd4jWorkspace.GarbageWorkspaceReference reference : referenceMap.values()) {
+            MemoryWorkspace workspace = reference.get();
+            if (workspace != null)
+                workspaces.add(workspace);
+        }
+        return workspaces;
+    }
+
     @Override
     public boolean anyWorkspaceActiveForCurrentThread(){
         ensureThreadExistense();
@@ -1,48 +1,459 @@
 package org.nd4j.linalg.memory.stash;
 
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.BasicNDArrayCompressor;
+import org.nd4j.linalg.compression.CompressedDataBuffer;
+import org.nd4j.linalg.compression.CompressionDescriptor;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
 
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Tiered Stash implementation.
+ *
+ * Entries are kept as plain arrays until per-device hot budget is exceeded. Then least recently used entries are
+ * compressed via BasicNDArrayCompressor, and once compressed budget is exceeded as well, least recently used
+ * compressed entries are spilled to memory-mapped files. Any entry is restored on get(), or in background via prefetch().
+ *
+ * PLEASE NOTE: arrays are copied on put(), and arrays returned by get() are shared with stash,
+ * so they shouldn't be modified in place.
+ *
  * @author raver119@gmail.com
  */
-public abstract class BasicStash<T extends Object> implements Stash<T> {
-    protected Map<T, INDArray> stash = new ConcurrentHashMap<>();
+@Slf4j
+public class BasicStash<T extends Object> implements Stash<T> {
+    // max size of single mapped region used for spilling
+    protected static final long MAPPING_CHUNK = 1L << 30;
 
-    protected BasicStash() {
+    @Getter
+    protected final StashConfiguration configuration;
 
+    // access-ordered, so iteration starts from least recently used entry
+    protected final LinkedHashMap<T, StashEntry> stash = new LinkedHashMap<>(16, 0.75f, true);
+
+    protected final Map<Integer, AtomicLong> hotBytes = new ConcurrentHashMap<>();
+    protected final AtomicLong compressedBytes = new AtomicLong(0);
+    protected final AtomicLong spilledBytes = new AtomicLong(0);
+
+    protected volatile ExecutorService prefetcher;
+
+    public BasicStash() {
+        this(StashConfiguration.builder().build());
+    }
+
+    public BasicStash(@NonNull StashConfiguration configuration) {
+        this.configuration = configuration;
     }
 
     @Override
     public boolean checkIfExists(T key) {
-        /*
-            Just checkin'
-         */
-        return false;
+        synchronized (stash) {
+            return stash.containsKey(key);
+        }
     }
 
     @Override
-    public void put(T key, INDArray object) {
-        /*
-            Basically we want to get DataBuffer here, and store it here together with shape
-            Special case here is GPU: we want to synchronize HOST memory, and store only HOST memory.
-         */
+    public void put(@NonNull T key, @NonNull INDArray object) {
+        StashEntry entry;
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+            entry = new StashEntry(object.dup(object.ordering()));
+        }
+
+        StashEntry previous;
+        synchronized (stash) {
+            previous = stash.put(key, entry);
+        }
+
+        if (previous != null)
+            release(previous);
+
+        hotBytesFor(entry.deviceId).addAndGet(entry.originalBytes);
+        enforceBudgets();
     }
 
     @Override
     public INDArray get(T key) {
-        /*
-            We want to restore INDArray here, In case of GPU backend - we want to ensure data is replicated to device.
-         */
-        return null;
+        StashEntry entry;
+        synchronized (stash) {
+            entry = stash.get(key);
+        }
+
+        if (entry == null)
+            return null;
+
+        INDArray array = restore(entry);
+        enforceBudgets();
+
+        return array;
+    }
+
+    @Override
+    public void remove(T key) {
+        StashEntry entry;
+        synchronized (stash) {
+            entry = stash.remove(key);
+        }
+
+        if (entry != null)
+            release(entry);
+    }
+
+    @Override
+    public void prefetch(@NonNull Collection<T> keys) {
+        final List<StashEntry> entries = new ArrayList<>(keys.size());
+        synchronized (stash) {
+            for (T key : keys) {
+                StashEntry entry = stash.get(key);
+                if (entry != null && entry.tier != StashTier.HOT)
+                    entries.add(entry);
+            }
+        }
+
+        if (entries.isEmpty())
+            return;
+
+        getPrefetcher().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (StashEntry entry : entries)
+                        restore(entry);
+
+                    enforceBudgets();
+                } catch (Exception e) {
+                    log.warn("Stash prefetch failed: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Override
+    public StashTier getTier(T key) {
+        StashEntry entry;
+        synchronized (stash) {
+            entry = stash.get(key);
+        }
+
+        return entry == null ? null : entry.tier;
+    }
+
+    @Override
+    public int size() {
+        synchronized (stash) {
+            return stash.size();
+        }
     }
 
     @Override
     public void purge() {
-        /*
-            We want to purge all stored stuff here.
-         */
+        List<StashEntry> entries;
+        synchronized (stash) {
+            entries = new ArrayList<>(stash.values());
+            stash.clear();
+        }
+
+        for (StashEntry entry : entries)
+            release(entry);
+    }
+
+    /**
+     * This method returns number of bytes kept as uncompressed arrays on given device
+     */
+    public long getHotBytes(int deviceId) {
+        AtomicLong bytes = hotBytes.get(deviceId);
+        return bytes == null ? 0L : bytes.get();
+    }
+
+    /**
+     * This method returns number of bytes kept as compressed buffers
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * This method returns number of bytes spilled to disk
+     */
+    public long getSpilledBytes() {
+        return spilledBytes.get();
+    }
+
+    /**
+     * This method shuts down prefetch threads, if any. Stash is still usable after this call
+     */
+    public void shutdown() {
+        ExecutorService executor = prefetcher;
+        prefetcher = null;
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    protected AtomicLong hotBytesFor(int deviceId) {
+        AtomicLong bytes = hotBytes.get(deviceId);
+        if (bytes == null) {
+            synchronized (hotBytes) {
+                bytes = hotBytes.get(deviceId);
+                if (bytes == null) {
+                    bytes = new AtomicLong(0);
+                    hotBytes.put(deviceId, bytes);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    protected ExecutorService getPrefetcher() {
+        if (prefetcher == null) {
+            synchronized (this) {
+                if (prefetcher == null) {
+                    final AtomicInteger counter = new AtomicInteger(0);
+                    prefetcher = Executors.newFixedThreadPool(Math.max(1, configuration.getPrefetchThreads()),
+                                    new ThreadFactory() {
+                                        @Override
+                                        public Thread newThread(Runnable r) {
+                                            Thread thread = new Thread(r, "Stash prefetch thread " + counter.incrementAndGet());
+                                            thread.setDaemon(true);
+                                            return thread;
+                                        }
+                                    });
+                }
+            }
+        }
+        return prefetcher;
+    }
+
+    /**
+     * This method moves least recently used entries to colder tiers, until all budgets are met.
+     * Most recently used entry is never moved, so get() always leaves its result hot.
+     */
+    protected void enforceBudgets() {
+        long hotBudget = configuration.getHotBudget();
+        long compressedBudget = configuration.getCompressedBudget();
+
+        boolean hotExceeded = false;
+        if (hotBudget > 0)
+            for (AtomicLong bytes : hotBytes.values())
+                if (bytes.get() > hotBudget)
+                    hotExceeded = true;
+
+        boolean compressedExceeded = compressedBudget > 0 && compressedBytes.get() > compressedBudget;
+        if (!hotExceeded && !compressedExceeded)
+            return;
+
+        List<StashEntry> entries;
+        synchronized (stash) {
+            entries = new ArrayList<>(stash.values());
+        }
+
+        int last = entries.size() - 1;
+
+        if (hotExceeded) {
+            for (int e = 0; e < last; e++) {
+                StashEntry entry = entries.get(e);
+                if (entry.tier == StashTier.HOT && hotBytesFor(entry.deviceId).get() > hotBudget)
+                    compress(entry);
+            }
+        }
+
+        if (compressedBudget > 0) {
+            for (int e = 0; e < last && compressedBytes.get() > compressedBudget; e++) {
+                StashEntry entry = entries.get(e);
+                if (entry.tier == StashTier.COMPRESSED)
+                    spill(entry);
+            }
+        }
+    }
+
+    protected INDArray restore(StashEntry entry) {
+        synchronized (entry) {
+            if (entry.released)
+                return null;
+
+            if (entry.tier == StashTier.DISK)
+                load(entry);
+
+            if (entry.tier == StashTier.COMPRESSED)
+                decompress(entry);
+
+            return entry.array;
+        }
+    }
+
+    protected void compress(StashEntry entry) {
+        synchronized (entry) {
+            if (entry.released || entry.tier != StashTier.HOT)
+                return;
+
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                Nd4j.getExecutioner().commit();
+                entry.compressed = (CompressedDataBuffer) BasicNDArrayCompressor.getInstance()
+                                .compress(entry.array.data(), configuration.getCompressionAlgorithm());
+            }
+
+            entry.array = null;
+            entry.tier = StashTier.COMPRESSED;
+
+            hotBytesFor(entry.deviceId).addAndGet(-entry.originalBytes);
+            compressedBytes.addAndGet(entry.compressedBytes());
+        }
+    }
+
+    protected void decompress(StashEntry entry) {
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+            DataBuffer buffer = BasicNDArrayCompressor.getInstance().decompress(entry.compressed);
+            entry.array = Nd4j.create(buffer, entry.shape, entry.stride, 0, entry.order);
+        }
+
+        compressedBytes.addAndGet(-entry.compressedBytes());
+        entry.compressed = null;
+        entry.tier = StashTier.HOT;
+
+        hotBytesFor(entry.deviceId).addAndGet(entry.originalBytes);
+    }
+
+    protected void spill(StashEntry entry) {
+        synchronized (entry) {
+            if (entry.released || entry.tier != StashTier.COMPRESSED)
+                return;
+
+            long length = entry.compressedBytes();
+            File file = null;
+            try {
+                String directory = configuration.getSpillDirectory();
+                file = File.createTempFile("stash", ".bin",
+                                directory == null ? null : new File(directory));
+                file.deleteOnExit();
+
+                BytePointer pointer = new BytePointer(entry.compressed.addressPointer());
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+                    for (long offset = 0; offset < length; offset += MAPPING_CHUNK) {
+                        long size = Math.min(MAPPING_CHUNK, length - offset);
+                        channel.map(FileChannel.MapMode.READ_WRITE, offset, size)
+                                        .put(view(pointer, offset, size));
+                    }
+                }
+            } catch (IOException e) {
+                if (file != null)
+                    file.delete();
+
+                // entry just stays compressed in memory
+                log.warn("Unable to spill stash entry to disk: {}", e.getMessage());
+                return;
+            }
+
+            entry.file = file;
+            entry.descriptor = entry.compressed.getCompressionDescriptor();
+            entry.compressed = null;
+            entry.tier = StashTier.DISK;
+
+            compressedBytes.addAndGet(-length);
+            spilledBytes.addAndGet(length);
+        }
+    }
+
+    protected void load(StashEntry entry) {
+        long length = entry.descriptor.getCompressedLength();
+        BytePointer pointer = new BytePointer(length);
+
+        try (RandomAccessFile raf = new RandomAccessFile(entry.file, "r"); FileChannel channel = raf.getChannel()) {
+            for (long offset = 0; offset < length; offset += MAPPING_CHUNK) {
+                long size = Math.min(MAPPING_CHUNK, length - offset);
+                view(pointer, offset, size).put(channel.map(FileChannel.MapMode.READ_ONLY, offset, size));
+            }
+        } catch (IOException e) {
+            throw new ND4JIllegalStateException("Unable to load stash entry from [" + entry.file.getAbsolutePath() + "]", e);
+        }
+
+        entry.compressed = new CompressedDataBuffer(pointer, entry.descriptor);
+        deleteFile(entry);
+        entry.tier = StashTier.COMPRESSED;
+
+        spilledBytes.addAndGet(-length);
+        compressedBytes.addAndGet(length);
+    }
+
+    protected static ByteBuffer view(BytePointer pointer, long offset, long size) {
+        return new BytePointer(pointer).position(offset).limit(offset + size).asByteBuffer();
+    }
+
+    protected void release(StashEntry entry) {
+        synchronized (entry) {
+            if (entry.released)
+                return;
+
+            switch (entry.tier) {
+                case HOT:
+                    hotBytesFor(entry.deviceId).addAndGet(-entry.originalBytes);
+                    break;
+                case COMPRESSED:
+                    compressedBytes.addAndGet(-entry.compressedBytes());
+                    break;
+                case DISK:
+                    spilledBytes.addAndGet(-entry.descriptor.getCompressedLength());
+                    deleteFile(entry);
+                    break;
+            }
+
+            entry.array = null;
+            entry.compressed = null;
+            entry.released = true;
+        }
+    }
+
+    protected void deleteFile(StashEntry entry) {
+        if (entry.file != null && !entry.file.delete())
+            log.warn("Unable to delete stash file [{}]", entry.file.getAbsolutePath());
+
+        entry.file = null;
+        entry.descriptor = null;
+    }
+
+    protected static class StashEntry {
+        protected final int[] shape;
+        protected final int[] stride;
+        protected final char order;
+        protected final int deviceId;
+        protected final long originalBytes;
+
+        protected volatile StashTier tier = StashTier.HOT;
+        protected volatile boolean released = false;
+
+        protected INDArray array;
+        protected CompressedDataBuffer compressed;
+        protected File file;
+        protected CompressionDescriptor descriptor;
+
+        protected StashEntry(INDArray array) {
+            Integer device = Nd4j.getAffinityManager().getDeviceForArray(array);
+
+            this.array = array;
+            this.shape = array.shape();
+            this.stride = array.stride();
+            this.order = array.ordering();
+            this.deviceId = device == null ? 0 : device;
+            this.originalBytes = array.lengthLong() * array.data().getElementSize();
+        }
+
+        protected long compressedBytes() {
+            return compressed.getCompressionDescriptor().getCompressedLength();
+        }
     }
 }
@@ -1,22 +1,66 @@
 package org.nd4j.linalg.memory.stash;
 
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author raver119@gmail.com
  */
 public class BasicStashManager implements StashManager {
+    protected final Map<Object, Stash<?>> stashes = new ConcurrentHashMap<>();
+    protected final StashConfiguration defaultConfiguration;
+
+    public BasicStashManager() {
+        this(StashConfiguration.builder().build());
+    }
+
+    public BasicStashManager(@NonNull StashConfiguration defaultConfiguration) {
+        this.defaultConfiguration = defaultConfiguration;
+    }
 
     @Override
-    public <T> boolean checkIfStashExists(T stashId) {
-        return false;
+    public <T> boolean checkIfStashExists(@NonNull T stashId) {
+        return stashes.containsKey(stashId);
     }
 
     @Override
-    public <T> Stash<T> getStash(T stashId) {
-        return null;
+    @SuppressWarnings("unchecked")
+    public <T> Stash<T> getStash(@NonNull T stashId) {
+        return (Stash<T>) stashes.get(stashId);
     }
 
     @Override
     public <T> Stash<T> createStashIfNotExists(T stashId) {
-        return null;
+        return createStashIfNotExists(stashId, defaultConfiguration);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Stash<T> createStashIfNotExists(@NonNull T stashId, @NonNull StashConfiguration configuration) {
+        Stash<T> stash = (Stash<T>) stashes.get(stashId);
+        if (stash == null) {
+            synchronized (stashes) {
+                stash = (Stash<T>) stashes.get(stashId);
+                if (stash == null) {
+                    stash = new BasicStash<>(configuration);
+                    stashes.put(stashId, stash);
+                }
+            }
+        }
+
+        return stash;
+    }
+
+    @Override
+    public <T> void destroyStash(@NonNull T stashId) {
+        Stash<?> stash = stashes.remove(stashId);
+        if (stash == null)
+            return;
+
+        stash.purge();
+        if (stash instanceof BasicStash)
+            ((BasicStash<?>) stash).shutdown();
     }
 }
@@ -2,6 +2,8 @@ package org.nd4j.linalg.memory.stash;
 
 import org.nd4j.linalg.api.ndarray.INDArray;
 
+import java.util.Collection;
+
 /**
  * This interface describe short-living storage, with pre-defined life time.
  *
@@ -11,9 +13,51 @@ public interface Stash<T extends Object> {
 
     boolean checkIfExists(T key);
 
+    /**
+     * This method stores copy of given array under given key, replacing previous entry, if any
+     *
+     * @param key
+     * @param object
+     */
     void put(T key, INDArray object);
 
+    /**
+     * This method returns array stored under given key, restoring it from colder tiers if needed.
+     * Returns null if there's no such key
+     *
+     * @param key
+     * @return
+     */
     INDArray get(T key);
 
+    /**
+     * This method removes entry with given key, releasing all its resources
+     *
+     * @param key
+     */
+    void remove(T key);
+
+    /**
+     * This method hints that arrays with given keys will be needed soon, so they're restored asynchronously
+     *
+     * @param keys
+     */
+    void prefetch(Collection<T> keys);
+
+    /**
+     * This method returns tier of entry with given key, or null if there's no such key
+     *
+     * @param key
+     * @return
+     */
+    StashTier getTier(T key);
+
+    /**
+     * This method returns number of entries in this stash
+     *
+     * @return
+     */
+    int size();
+
     void purge();
 }
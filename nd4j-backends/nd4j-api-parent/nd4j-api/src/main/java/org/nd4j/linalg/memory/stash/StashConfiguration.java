@@ -0,0 +1,45 @@
+package org.nd4j.linalg.memory.stash;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * This class is configuration bean for Stash.
+ * It defines memory budgets of Stash tiers, and the way cold entries are compressed and spilled.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StashConfiguration implements Serializable {
+    /**
+     * Max number of bytes kept as uncompressed arrays, per device. Least recently used entries above this
+     * budget are compressed. 0 means no limit
+     */
+    @Builder.Default protected long hotBudget = 0;
+
+    /**
+     * Max number of bytes kept as compressed buffers. Least recently used entries above this budget are spilled to disk.
+     * 0 means no limit
+     */
+    @Builder.Default protected long compressedBudget = 0;
+
+    /**
+     * Compression algorithm used for cold entries, as registered in BasicNDArrayCompressor. NOOP disables compression
+     */
+    @Builder.Default protected String compressionAlgorithm = "GZIP";
+
+    /**
+     * Directory for spilled entries. If null, java.io.tmpdir is used
+     */
+    @Builder.Default protected String spillDirectory = null;
+
+    /**
+     * Number of threads used for asynchronous prefetch
+     */
+    @Builder.Default protected int prefetchThreads = 1;
+}
@@ -0,0 +1,19 @@
+package org.nd4j.linalg.memory.stash;
+
+/**
+ * Storage tiers of Stash entries, from fastest to slowest
+ */
+public enum StashTier {
+    /**
+     * Plain uncompressed array, ready to use
+     */
+    HOT,
+    /**
+     * Compressed off-heap buffer
+     */
+    COMPRESSED,
+    /**
+     * Compressed buffer spilled to memory-mapped file
+     */
+    DISK,
+}
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.*;
+import org.nd4j.linalg.profiler.data.LatencyAggregator;
 import org.nd4j.linalg.profiler.data.StackAggregator;
 import org.nd4j.linalg.profiler.data.StringAggregator;
 import org.nd4j.linalg.profiler.data.StringCounter;
@@ -58,6 +59,9 @@ public class OpProfiler {
 
     @Getter
     private StringCounter matchingCounter = new StringCounter();
+
+    @Getter
+    private LatencyAggregator latencyAggregator = new LatencyAggregator();
     @Getter
     private StringCounter matchingCounterDetailed = new StringCounter();
     @Getter
@@ -140,6 +144,8 @@ public class OpProfiler {
         blasAggregator.reset();
         blasOrderCounter.reset();
 
+        latencyAggregator.reset();
+
         orderCounter.reset();
         listeners.clear();
     }
@@ -361,6 +367,25 @@ public class OpProfiler {
         }
     }
 
+    /**
+     * This method records op latency into per-op and per-shape-class histograms.
+     * It's cheap enough to be used for every op call: no allocations after first call for given op and shape class.
+     */
+    public void recordLatency(Op op, long startTime) {
+        long currentTime = System.nanoTime() - startTime;
+        latencyAggregator.record(op.opName(), LatencyAggregator.shapeClassOf(op.x()), currentTime);
+    }
+
+    /**
+     * This method records op latency into per-op and per-shape-class histograms.
+     * Shape class is derived from the first input argument
+     */
+    public void recordLatency(CustomOp op, long startTime) {
+        long currentTime = System.nanoTime() - startTime;
+        INDArray input = op.numInputArguments() > 0 ? op.getInputArgument(0) : null;
+        latencyAggregator.record(op.opName(), LatencyAggregator.shapeClassOf(input), currentTime);
+    }
+
     /**
      * This method tracks blasCalls
      */
@@ -421,6 +446,9 @@ public class OpProfiler {
         log.info("--- Time spent for long Op calls statistics: ---");
         System.out.println(longAggergator.asPercentageString());
         System.out.println();
+        log.info("--- Op latency percentiles: ---");
+        System.out.println(latencyAggregator.asString());
+        System.out.println();
         log.info("--- Time spent within methods: ---");
         methodsAggregator.renderTree(true);
         System.out.println();
@@ -0,0 +1,156 @@
+package org.nd4j.linalg.profiler.data;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.profiler.data.primitives.LatencyHistogram;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Aggregator of op latencies, kept per op name, and per shape class within each op.
+ *
+ * Shape class groups arrays by rank and by power of 2 of their length, so ops on similar-sized arrays share
+ * single histogram. After first call for given op and shape class from given thread, recording is allocation-free
+ * and lock-free.
+ */
+public class LatencyAggregator {
+    public static final int MAX_RANK = 32;
+    private static final int LENGTH_CLASSES = 64;
+
+    private final ConcurrentHashMap<String, OpLatency> ops = new ConcurrentHashMap<>();
+
+    /**
+     * This method returns shape class for given array: rank * 64 + floor(log2(length))
+     */
+    public static int shapeClassOf(INDArray array) {
+        if (array == null)
+            return 0;
+
+        int rank = Math.min(array.rank(), MAX_RANK);
+        long length = Math.max(1, array.lengthLong());
+        return rank * LENGTH_CLASSES + 63 - Long.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * This method returns human-readable description of shape class
+     */
+    public static String describeShapeClass(int shapeClass) {
+        int rank = shapeClass / LENGTH_CLASSES;
+        int log2 = shapeClass % LENGTH_CLASSES;
+        return "rank " + rank + ", length [" + (1L << log2) + ".." + ((1L << (log2 + 1)) - 1) + "]";
+    }
+
+    public void record(String opName, int shapeClass, long nanos) {
+        OpLatency latency = ops.get(opName);
+        if (latency == null) {
+            OpLatency created = new OpLatency();
+            latency = ops.putIfAbsent(opName, created);
+            if (latency == null)
+                latency = created;
+        }
+
+        latency.total.record(nanos);
+        latency.getOrCreate(shapeClass).record(nanos);
+    }
+
+    /**
+     * This method returns names of all ops with recorded latencies
+     */
+    public Set<String> getOpNames() {
+        return new TreeSet<>(ops.keySet());
+    }
+
+    /**
+     * This method returns latency histogram for all calls of given op, or null if op wasn't recorded
+     */
+    public LatencyHistogram getHistogram(String opName) {
+        OpLatency latency = ops.get(opName);
+        return latency == null ? null : latency.total;
+    }
+
+    /**
+     * This method returns latency histograms of given op, per shape class
+     */
+    public Map<Integer, LatencyHistogram> getShapeClassHistograms(String opName) {
+        Map<Integer, LatencyHistogram> result = new TreeMap<>();
+        OpLatency latency = ops.get(opName);
+        if (latency == null)
+            return result;
+
+        for (int i = 0; i < latency.byShapeClass.length(); i++) {
+            LatencyHistogram histogram = latency.byShapeClass.get(i);
+            if (histogram != null)
+                result.put(i, histogram);
+        }
+
+        return result;
+    }
+
+    /**
+     * This method forgets all recorded ops, so op names aren't reported after reset until they're recorded again.
+     *
+     * PLEASE NOTE: calls being recorded concurrently with reset may be lost
+     */
+    public void reset() {
+        ops.clear();
+    }
+
+    public String asString() {
+        StringBuilder builder = new StringBuilder();
+
+        // histograms merge per-thread buckets on each read, so each histogram is merged once, into snapshot
+        final Map<String, LatencyHistogram.Snapshot> totals = new HashMap<>();
+        for (Map.Entry<String, OpLatency> e : ops.entrySet())
+            totals.put(e.getKey(), e.getValue().total.snapshot());
+
+        List<String> names = new ArrayList<>(totals.keySet());
+        Collections.sort(names, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return Long.compare(totals.get(o2).getSum(), totals.get(o1).getSum());
+            }
+        });
+
+        for (String name : names) {
+            LatencyHistogram.Snapshot total = totals.get(name);
+            if (total.getCount() == 0)
+                continue;
+
+            append(builder.append(name).append("  >>> "), total);
+
+            for (Map.Entry<Integer, LatencyHistogram> e : getShapeClassHistograms(name).entrySet()) {
+                LatencyHistogram.Snapshot snapshot = e.getValue().snapshot();
+                if (snapshot.getCount() == 0)
+                    continue;
+
+                append(builder.append("    ").append(describeShapeClass(e.getKey())).append("  >>> "), snapshot);
+            }
+        }
+
+        builder.append("\n");
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, LatencyHistogram.Snapshot histogram) {
+        builder.append(histogram.getCount()).append(" calls; ").append("p50: ").append(histogram.getPercentile(50.0))
+                        .append(" ns; ").append("p99: ").append(histogram.getPercentile(99.0)).append(" ns; ")
+                        .append("p999: ").append(histogram.getPercentile(99.9)).append(" ns; ").append("Max: ")
+                        .append(histogram.getMaximum()).append(" ns;\n");
+    }
+
+    private static class OpLatency {
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final AtomicReferenceArray<LatencyHistogram> byShapeClass =
+                        new AtomicReferenceArray<>((MAX_RANK + 1) * LENGTH_CLASSES);
+
+        private LatencyHistogram getOrCreate(int shapeClass) {
+            LatencyHistogram histogram = byShapeClass.get(shapeClass);
+            if (histogram == null) {
+                byShapeClass.compareAndSet(shapeClass, null, new LatencyHistogram());
+                histogram = byShapeClass.get(shapeClass);
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.nd4j.linalg.profiler.data.primitives;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Log-linear histogram of latencies, in the spirit of HdrHistogram.
+ *
+ * Values are grouped by power of 2, and each power of 2 is split into 32 linear sub-buckets, so any recorded value
+ * is reported with relative error below 1/32 (~3%).
+ *
+ * Each recording thread gets its own set of buckets, which only that thread writes to, so recording doesn't contend
+ * with other threads: no atomic read-modify-write operations are involved. Buckets are allocated lazily, one page of
+ * 32 sub-buckets per power of 2, so each thread only pays for the range of values it actually records, and
+ * recording is allocation-free once that range is covered. Buckets of finished threads are folded into shared
+ * buckets on next read.
+ *
+ * Readers merge buckets of all threads, so reads are way more expensive than recording. Use {@link #snapshot()}
+ * to read several values out of single merge.
+ *
+ * PLEASE NOTE: values read while other threads are recording are approximate
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_PAGES = 64 - SUB_BUCKET_BITS + 1;
+    private static final int NUM_BUCKETS = NUM_PAGES * SUB_BUCKETS;
+
+    private final ThreadLocal<Recorder> recorder = new ThreadLocal<>();
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+    // reset() bumps epoch, and each thread clears its own buckets once it sees new epoch
+    private volatile long epoch = 0;
+
+    // values of finished threads, and values merged via add()
+    private final Buckets counts = new Buckets();
+    private final AtomicLong sum = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * This method records single value. Negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        Recorder r = recorder.get();
+        if (r == null) {
+            r = new Recorder(Thread.currentThread(), epoch);
+            recorder.set(r);
+            recorders.add(r);
+        } else if (r.epoch != epoch) {
+            r.clear(epoch);
+        }
+
+        r.record(bucketOf(value), value);
+    }
+
+    protected static int bucketOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * This method returns highest value that falls into given bucket
+     */
+    protected static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long lowest = ((long) (SUB_BUCKETS + subBucket)) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * This method merges buckets of all threads into snapshot, which can be read any number of times
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        long current = epoch;
+
+        for (Recorder r : recorders) {
+            Thread owner = r.owner.get();
+            boolean finished = owner == null || !owner.isAlive();
+            if (finished) {
+                // thread won't write anymore, so its buckets are moved to shared ones
+                recorders.remove(r);
+                if (r.epoch == current)
+                    r.addTo(counts, sum, max);
+            } else if (r.epoch == current) {
+                snapshot.add(r.counts, r.sum.get(), r.max.get());
+            }
+        }
+
+        snapshot.add(counts, sum.get(), max.get());
+        return snapshot;
+    }
+
+    /**
+     * This method returns value at given percentile, i.e. 50.0 for median or 99.9 for p999
+     */
+    public long getPercentile(double percentile) {
+        return snapshot().getPercentile(percentile);
+    }
+
+    public long getCount() {
+        return snapshot().getCount();
+    }
+
+    public long getSum() {
+        return snapshot().getSum();
+    }
+
+    public long getMaximum() {
+        return snapshot().getMaximum();
+    }
+
+    public long getAverage() {
+        return snapshot().getAverage();
+    }
+
+    /**
+     * This method adds all values recorded in other histogram into this one
+     */
+    public void add(LatencyHistogram other) {
+        Snapshot snapshot = other.snapshot();
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long c = snapshot.counts[i];
+            if (c > 0)
+                counts.page(i >>> SUB_BUCKET_BITS).addAndGet(i & (SUB_BUCKETS - 1), c);
+        }
+
+        sum.addAndGet(snapshot.sum);
+        updateMax(max, snapshot.max);
+    }
+
+    public void reset() {
+        epoch++;
+
+        counts.clear();
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+            current = max.get();
+    }
+
+    /**
+     * Buckets split into pages of SUB_BUCKETS each, allocated on first use
+     */
+    private static class Buckets {
+        private final AtomicReferenceArray<AtomicLongArray> pages = new AtomicReferenceArray<>(NUM_PAGES);
+
+        private AtomicLongArray page(int page) {
+            AtomicLongArray result = pages.get(page);
+            if (result == null) {
+                pages.compareAndSet(page, null, new AtomicLongArray(SUB_BUCKETS));
+                result = pages.get(page);
+            }
+            return result;
+        }
+
+        private void clear() {
+            for (int p = 0; p < NUM_PAGES; p++) {
+                AtomicLongArray page = pages.get(p);
+                if (page != null)
+                    for (int i = 0; i < SUB_BUCKETS; i++)
+                        page.lazySet(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Buckets of single thread. Written by owner thread only, with ordered stores instead of atomic updates
+     */
+    private static class Recorder {
+        private final WeakReference<Thread> owner;
+        private final Buckets counts = new Buckets();
+        private final AtomicLong sum = new AtomicLong(0);
+        private final AtomicLong max = new AtomicLong(0);
+        private volatile long epoch;
+
+        private Recorder(Thread owner, long epoch) {
+            this.owner = new WeakReference<>(owner);
+            this.epoch = epoch;
+        }
+
+        private void record(int bucket, long value) {
+            AtomicLongArray page = counts.page(bucket >>> SUB_BUCKET_BITS);
+            int index = bucket & (SUB_BUCKETS - 1);
+            page.lazySet(index, page.get(index) + 1);
+            sum.lazySet(sum.get() + value);
+            if (value > max.get())
+                max.lazySet(value);
+        }
+
+        private void clear(long epoch) {
+            counts.clear();
+
+            sum.lazySet(0);
+            max.lazySet(0);
+            this.epoch = epoch;
+        }
+
+        private void addTo(Buckets targetCounts, AtomicLong targetSum, AtomicLong targetMax) {
+            for (int p = 0; p < NUM_PAGES; p++) {
+                AtomicLongArray page = counts.pages.get(p);
+                if (page == null)
+                    continue;
+
+                for (int i = 0; i < SUB_BUCKETS; i++) {
+                    long c = page.get(i);
+                    if (c > 0)
+                        targetCounts.page(p).addAndGet(i, c);
+                }
+            }
+
+            targetSum.addAndGet(sum.get());
+            updateMax(targetMax, max.get());
+        }
+    }
+
+    /**
+     * Merged values of histogram at some point in time
+     */
+    public static class Snapshot {
+        private final long[] counts = new long[NUM_BUCKETS];
+        private long count = 0;
+        private long sum = 0;
+        private long max = 0;
+
+        private void add(Buckets buckets, long sum, long max) {
+            for (int p = 0; p < NUM_PAGES; p++) {
+                AtomicLongArray page = buckets.pages.get(p);
+                if (page == null)
+                    continue;
+
+                for (int i = 0; i < SUB_BUCKETS; i++) {
+                    long c = page.get(i);
+                    counts[p * SUB_BUCKETS + i] += c;
+                    count += c;
+                }
+            }
+
+            this.sum += sum;
+            this.max = Math.max(this.max, max);
+        }
+
+        /**
+         * This method returns value at given percentile, i.e. 50.0 for median or 99.9 for p999
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0)
+                return 0;
+
+            long target = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+            long seen = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= target)
+                    return Math.min(highestValueOf(i), max);
+            }
+
+            return max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMaximum() {
+            return max;
+        }
+
+        public long getAverage() {
+            return count == 0 ? 0 : sum / count;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Basic MetricsRegistry implementation: keeps sources, and collects their values into list of samples
+ */
+@Slf4j
+public abstract class BaseMetricsRegistry implements MetricsRegistry {
+    protected final List<MetricsSource> sources = new CopyOnWriteArrayList<>();
+
+    /**
+     * This method registers sources for nd4j runtime internals: workspaces, caches, op profiler and bandwidth tracker
+     */
+    public BaseMetricsRegistry withDefaultSources() {
+        register(new Nd4jMetricsSource());
+        return this;
+    }
+
+    @Override
+    public void register(@NonNull MetricsSource source) {
+        if (!sources.contains(source))
+            sources.add(source);
+    }
+
+    @Override
+    public void unregister(@NonNull MetricsSource source) {
+        sources.remove(source);
+    }
+
+    @Override
+    public List<MetricsSource> getSources() {
+        return Collections.unmodifiableList(sources);
+    }
+
+    @Override
+    public List<MetricSample> scrape() {
+        final List<MetricSample> samples = new ArrayList<>();
+        MetricsCollector collector = new MetricsCollector() {
+            @Override
+            public void gauge(String name, String help, Map<String, String> labels, double value) {
+                samples.add(new MetricSample(name, MetricType.GAUGE, help, labels, value));
+            }
+
+            @Override
+            public void counter(String name, String help, Map<String, String> labels, double value) {
+                samples.add(new MetricSample(name, MetricType.COUNTER, help, labels, value));
+            }
+
+            @Override
+            public void summary(String name, String help, Map<String, String> labels, Map<Double, Double> quantiles,
+                            long count, double sum) {
+                for (Map.Entry<Double, Double> e : quantiles.entrySet()) {
+                    Map<String, String> quantileLabels = new LinkedHashMap<>(labels);
+                    quantileLabels.put("quantile", String.valueOf(e.getKey()));
+                    samples.add(new MetricSample(name, MetricType.SUMMARY, help, quantileLabels, e.getValue(), name));
+                }
+
+                samples.add(new MetricSample(name + "_sum", MetricType.SUMMARY, help, labels, sum, name));
+                samples.add(new MetricSample(name + "_count", MetricType.SUMMARY, help, labels, count, name));
+            }
+        };
+
+        for (MetricsSource source : sources) {
+            try {
+                source.collectMetrics(collector);
+            } catch (Exception e) {
+                // single broken source shouldn't break whole scrape
+                log.warn("Metrics source [{}] failed: {}", source.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+
+        return samples;
+    }
+}
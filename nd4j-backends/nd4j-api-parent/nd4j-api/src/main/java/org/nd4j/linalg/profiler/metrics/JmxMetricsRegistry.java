@@ -0,0 +1,164 @@
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * MetricsRegistry that publishes collected metrics as read-only attributes of single dynamic MBean.
+ *
+ * Each metric/labels combination becomes one attribute, named like {@code nd4j_cache_hits_total{cache=tad}}.
+ * Values are collected from sources on attribute reads, so there's no background polling. Single scrape is reused
+ * for reads within scrape TTL (1 second by default), so JMX console reading many attributes doesn't scrape all
+ * sources for each of them.
+ */
+@Slf4j
+public class JmxMetricsRegistry extends BaseMetricsRegistry implements DynamicMBean {
+    public static final String DEFAULT_OBJECT_NAME = "org.nd4j:type=Metrics";
+    public static final long DEFAULT_SCRAPE_TTL_MS = 1000;
+
+    private ObjectName objectName;
+    private volatile long scrapeTtl = DEFAULT_SCRAPE_TTL_MS;
+    // last scrape, and time it was taken at
+    private Map<String, MetricSample> lastScrape;
+    private long lastScrapeTime;
+
+    /**
+     * This method registers this registry in platform MBeanServer, under default object name
+     */
+    public synchronized void registerMBean() {
+        registerMBean(DEFAULT_OBJECT_NAME);
+    }
+
+    /**
+     * This method registers this registry in platform MBeanServer, under given object name
+     */
+    public synchronized void registerMBean(String name) {
+        if (objectName != null)
+            throw new IllegalStateException("MBean is already registered as [" + objectName + "]");
+
+        try {
+            ObjectName on = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+            objectName = on;
+        } catch (JMException e) {
+            throw new RuntimeException("Unable to register metrics MBean [" + name + "]", e);
+        }
+    }
+
+    /**
+     * This method removes this registry from platform MBeanServer, if it was registered
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            log.warn("Unable to unregister metrics MBean [{}]: {}", objectName, e.getMessage());
+        }
+        objectName = null;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    protected static String attributeName(MetricSample sample) {
+        if (sample.getLabels() == null || sample.getLabels().isEmpty())
+            return sample.getName();
+
+        StringBuilder builder = new StringBuilder(sample.getName()).append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> label : sample.getLabels().entrySet()) {
+            if (!first)
+                builder.append(',');
+            builder.append(label.getKey()).append('=').append(label.getValue());
+            first = false;
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * This method sets time in milliseconds for which single scrape is reused for attribute reads. 0 means every read
+     * scrapes all sources
+     */
+    public void setScrapeTtl(long milliseconds) {
+        if (milliseconds < 0)
+            throw new IllegalArgumentException("Scrape TTL can't be negative");
+
+        this.scrapeTtl = milliseconds;
+    }
+
+    public long getScrapeTtl() {
+        return scrapeTtl;
+    }
+
+    protected synchronized Map<String, MetricSample> scrapeByAttribute() {
+        long now = System.currentTimeMillis();
+        if (lastScrape != null && now - lastScrapeTime < scrapeTtl)
+            return lastScrape;
+
+        Map<String, MetricSample> result = new LinkedHashMap<>();
+        for (MetricSample sample : scrape())
+            result.put(attributeName(sample), sample);
+
+        lastScrape = result;
+        lastScrapeTime = now;
+        return result;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        MetricSample sample = scrapeByAttribute().get(attribute);
+        if (sample == null)
+            throw new AttributeNotFoundException("Unknown metric: " + attribute);
+
+        return sample.getValue();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        // single scrape for all requested attributes
+        Map<String, MetricSample> samples = scrapeByAttribute();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            MetricSample sample = samples.get(attribute);
+            if (sample != null)
+                list.add(new Attribute(attribute, sample.getValue()));
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "No operations available");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, MetricSample> samples = scrapeByAttribute();
+        List<MBeanAttributeInfo> attributes = new ArrayList<>(samples.size());
+        for (Map.Entry<String, MetricSample> e : samples.entrySet()) {
+            String help = e.getValue().getHelp() == null ? e.getKey() : e.getValue().getHelp();
+            attributes.add(new MBeanAttributeInfo(e.getKey(), "double", help + " (" + e.getValue().getType() + ")",
+                            true, false, false));
+        }
+
+        return new MBeanInfo(getClass().getName(), "ND4J runtime metrics",
+                        attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, null, null);
+    }
+}
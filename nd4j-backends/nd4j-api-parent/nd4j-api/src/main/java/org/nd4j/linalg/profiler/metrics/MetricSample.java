@@ -0,0 +1,25 @@
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Single value of single metric, as collected during scrape
+ */
+@Data
+@AllArgsConstructor
+public class MetricSample {
+    private String name;
+    private MetricType type;
+    private String help;
+    private Map<String, String> labels;
+    private double value;
+    // metric this sample belongs to, differs from name for _sum and _count samples of summary
+    private String family;
+
+    public MetricSample(String name, MetricType type, String help, Map<String, String> labels, double value) {
+        this(name, type, help, labels, value, name);
+    }
+}
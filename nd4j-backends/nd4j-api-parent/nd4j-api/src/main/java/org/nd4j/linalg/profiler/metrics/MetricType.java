@@ -0,0 +1,5 @@
+package org.nd4j.linalg.profiler.metrics;
+
+public enum MetricType {
+    GAUGE, COUNTER, SUMMARY,
+}
@@ -0,0 +1,42 @@
+package org.nd4j.linalg.profiler.metrics;
+
+import java.util.Map;
+
+/**
+ * Receiver of metric values, filled by {@link MetricsSource} instances on each scrape
+ */
+public interface MetricsCollector {
+
+    /**
+     * This method accepts value that can go up and down, i.e. memory use
+     *
+     * @param name   metric name, i.e. nd4j_workspace_current_bytes
+     * @param help   short description of the metric
+     * @param labels metric labels, can be empty
+     * @param value  current value
+     */
+    void gauge(String name, String help, Map<String, String> labels, double value);
+
+    /**
+     * This method accepts monotonically increasing value, i.e. number of cache hits
+     *
+     * @param name   metric name, by convention ending with _total
+     * @param help   short description of the metric
+     * @param labels metric labels, can be empty
+     * @param value  current value
+     */
+    void counter(String name, String help, Map<String, String> labels, double value);
+
+    /**
+     * This method accepts quantiles of observed values, along with number and sum of observations, i.e. latencies
+     *
+     * @param name      metric name, i.e. nd4j_op_latency_nanoseconds
+     * @param help      short description of the metric
+     * @param labels    metric labels, can be empty
+     * @param quantiles values at given quantiles, keyed by quantile, i.e. 0.99
+     * @param count     number of observations
+     * @param sum       sum of observed values
+     */
+    void summary(String name, String help, Map<String, String> labels, Map<Double, Double> quantiles, long count,
+                    double sum);
+}
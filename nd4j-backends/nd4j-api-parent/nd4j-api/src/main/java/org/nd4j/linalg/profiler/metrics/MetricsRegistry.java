@@ -0,0 +1,30 @@
+package org.nd4j.linalg.profiler.metrics;
+
+import java.util.List;
+
+/**
+ * Registry of metrics sources. Implementations decide how collected metrics are published, i.e. via JMX or
+ * Prometheus text format
+ */
+public interface MetricsRegistry {
+
+    /**
+     * This method adds source to this registry
+     */
+    void register(MetricsSource source);
+
+    /**
+     * This method removes source from this registry
+     */
+    void unregister(MetricsSource source);
+
+    /**
+     * This method returns all sources registered in this registry
+     */
+    List<MetricsSource> getSources();
+
+    /**
+     * This method collects current values of all registered sources
+     */
+    List<MetricSample> scrape();
+}
@@ -0,0 +1,12 @@
+package org.nd4j.linalg.profiler.metrics;
+
+/**
+ * Source of metrics. Values are read only when registry is scraped, so sources add no cost to the code they observe
+ */
+public interface MetricsSource {
+
+    /**
+     * This method reports current values of all metrics of this source into given collector
+     */
+    void collectMetrics(MetricsCollector collector);
+}
@@ -0,0 +1,133 @@
+package org.nd4j.linalg.profiler.metrics;
+
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
+import org.nd4j.linalg.api.ops.performance.PerformanceTracker;
+import org.nd4j.linalg.cache.TADManager;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.memory.MemcpyDirection;
+import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
+import org.nd4j.linalg.memory.provider.BasicWorkspaceManager;
+import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.data.LatencyAggregator;
+import org.nd4j.linalg.profiler.data.primitives.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MetricsSource for nd4j runtime internals:
+ * - workspaces of all threads: current, spilled and pinned sizes
+ * - TAD, shape info and constant caches: size in bytes, plus hits/misses if cache implementation reports them
+ * - OpProfiler: number of op invocations, and latency percentiles per op
+ * - PerformanceTracker: memory bandwidth per device and direction
+ *
+ * Backend components that implement MetricsSource themselves (i.e. caches) are asked to report their own metrics.
+ */
+public class Nd4jMetricsSource implements MetricsSource {
+
+    /**
+     * This method builds labels map out of key/value pairs
+     */
+    public static Map<String, String> labels(String... keysAndValues) {
+        if (keysAndValues.length == 0)
+            return Collections.emptyMap();
+
+        if (keysAndValues.length % 2 != 0)
+            throw new IllegalArgumentException("Labels should be given as key/value pairs");
+
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+            labels.put(keysAndValues[i], keysAndValues[i + 1]);
+        return labels;
+    }
+
+    @Override
+    public void collectMetrics(MetricsCollector collector) {
+        collectWorkspaces(collector);
+        collectCaches(collector);
+        collectOps(collector);
+        collectBandwidth(collector);
+    }
+
+    protected void collectWorkspaces(MetricsCollector collector) {
+        MemoryWorkspaceManager manager = Nd4j.getWorkspaceManager();
+        if (!(manager instanceof BasicWorkspaceManager))
+            return;
+
+        for (MemoryWorkspace workspace : ((BasicWorkspaceManager) manager).getAllWorkspaces()) {
+            if (!(workspace instanceof Nd4jWorkspace))
+                continue;
+
+            Nd4jWorkspace ws = (Nd4jWorkspace) workspace;
+            Map<String, String> labels = labels("workspace", ws.getId(), "thread", String.valueOf(ws.getThreadId()));
+
+            collector.gauge("nd4j_workspace_current_bytes", "Size of workspace memory block", labels,
+                            ws.getCurrentSize());
+            collector.gauge("nd4j_workspace_spilled_bytes", "Memory allocated outside of workspace block", labels,
+                            ws.getSpilledSize());
+            collector.gauge("nd4j_workspace_pinned_bytes", "Memory in pinned allocations of workspace", labels,
+                            ws.getPinnedSize());
+            collector.gauge("nd4j_workspace_spilled_allocations", "Number of spilled allocations", labels,
+                            ws.getNumberOfExternalAllocations());
+            collector.gauge("nd4j_workspace_pinned_allocations", "Number of pinned allocations", labels,
+                            ws.getNumberOfPinnedAllocations());
+            collector.counter("nd4j_workspace_cycles_total", "Number of workspace cycles", labels,
+                            ws.getCyclesCount());
+        }
+    }
+
+    protected void collectCaches(MetricsCollector collector) {
+        TADManager tadManager = Nd4j.getExecutioner().getTADManager();
+        if (tadManager != null)
+            collectCache(collector, tadManager, "tad", tadManager.getCachedBytes());
+
+        collectCache(collector, Nd4j.getShapeInfoProvider(), "shape", Nd4j.getShapeInfoProvider().getCachedBytes());
+        collectCache(collector, Nd4j.getConstantHandler(), "constant", Nd4j.getConstantHandler().getCachedBytes());
+    }
+
+    private static void collectCache(MetricsCollector collector, Object cache, String name, long cachedBytes) {
+        if (cache instanceof MetricsSource)
+            ((MetricsSource) cache).collectMetrics(collector);
+        else
+            collector.gauge("nd4j_cache_bytes", "Memory used by cache", labels("cache", name), cachedBytes);
+    }
+
+    protected void collectOps(MetricsCollector collector) {
+        OpProfiler profiler = OpProfiler.getInstance();
+        collector.counter("nd4j_op_invocations_total", "Number of op invocations seen by OpProfiler",
+                        labels(), profiler.getInvocationsCount());
+
+        LatencyAggregator latencies = profiler.getLatencyAggregator();
+        for (String op : latencies.getOpNames()) {
+            LatencyHistogram total = latencies.getHistogram(op);
+            if (total == null)
+                continue;
+
+            // single merge of per-thread buckets for all values reported below
+            LatencyHistogram.Snapshot histogram = total.snapshot();
+            if (histogram.getCount() == 0)
+                continue;
+
+            Map<Double, Double> quantiles = new LinkedHashMap<>();
+            quantiles.put(0.5, (double) histogram.getPercentile(50.0));
+            quantiles.put(0.99, (double) histogram.getPercentile(99.0));
+            quantiles.put(0.999, (double) histogram.getPercentile(99.9));
+
+            collector.summary("nd4j_op_latency_nanoseconds", "Op latency", labels("op", op), quantiles,
+                            histogram.getCount(), histogram.getSum());
+        }
+    }
+
+    protected void collectBandwidth(MetricsCollector collector) {
+        Map<Integer, Map<MemcpyDirection, Long>> bandwidth = PerformanceTracker.getInstance().getCurrentBandwidth();
+        for (Map.Entry<Integer, Map<MemcpyDirection, Long>> device : bandwidth.entrySet()) {
+            for (Map.Entry<MemcpyDirection, Long> e : device.getValue().entrySet()) {
+                collector.gauge("nd4j_memory_bandwidth_bytes_per_microsecond", "Average memory bandwidth",
+                                labels("device", String.valueOf(device.getKey()), "direction", e.getKey().name()),
+                                e.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.nd4j.linalg.profiler.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * MetricsRegistry that renders collected metrics in Prometheus text exposition format (version 0.0.4).
+ *
+ * This class doesn't open any ports: output of {@link #scrapeAsString()} is supposed to be served by whatever
+ * HTTP endpoint application already has.
+ */
+public class PrometheusMetricsRegistry extends BaseMetricsRegistry {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * This method returns current values of all metrics, in Prometheus text format
+     */
+    public String scrapeAsString() {
+        StringBuilder builder = new StringBuilder();
+        render(scrape(), builder);
+        return builder.toString();
+    }
+
+    /**
+     * This method writes current values of all metrics into given writer, in Prometheus text format
+     */
+    public void scrape(Writer writer) throws IOException {
+        writer.write(scrapeAsString());
+        writer.flush();
+    }
+
+    protected static void render(List<MetricSample> samples, StringBuilder builder) {
+        // Prometheus expects all samples of given metric to be grouped together, including _sum/_count of summary
+        Map<String, List<MetricSample>> families = new LinkedHashMap<>();
+        for (MetricSample sample : samples) {
+            List<MetricSample> family = families.get(sample.getFamily());
+            if (family == null) {
+                family = new ArrayList<>();
+                families.put(sample.getFamily(), family);
+            }
+            family.add(sample);
+        }
+
+        for (Map.Entry<String, List<MetricSample>> e : families.entrySet()) {
+            MetricSample first = e.getValue().get(0);
+            String name = sanitizeName(e.getKey());
+
+            if (first.getHelp() != null)
+                builder.append("# HELP ").append(name).append(' ').append(escapeHelp(first.getHelp())).append('\n');
+            builder.append("# TYPE ").append(name).append(' ').append(typeOf(first.getType())).append('\n');
+
+            for (MetricSample sample : e.getValue()) {
+                builder.append(sanitizeName(sample.getName()));
+                if (sample.getLabels() != null && !sample.getLabels().isEmpty()) {
+                    builder.append('{');
+                    boolean firstLabel = true;
+                    for (Map.Entry<String, String> label : sample.getLabels().entrySet()) {
+                        if (!firstLabel)
+                            builder.append(',');
+                        builder.append(sanitizeName(label.getKey())).append("=\"")
+                                        .append(escapeLabel(label.getValue())).append('"');
+                        firstLabel = false;
+                    }
+                    builder.append('}');
+                }
+                builder.append(' ').append(formatValue(sample.getValue())).append('\n');
+            }
+        }
+    }
+
+    protected static String typeOf(MetricType type) {
+        switch (type) {
+            case COUNTER:
+                return "counter";
+            case SUMMARY:
+                return "summary";
+            default:
+                return "gauge";
+        }
+    }
+
+    protected static String sanitizeName(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                            || (i > 0 && c >= '0' && c <= '9');
+            builder.append(valid ? c : '_');
+        }
+        return builder.toString();
+    }
+
+    protected static String escapeLabel(String value) {
+        if (value == null)
+            return "";
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    protected static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    protected static String formatValue(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,62 @@
+package org.nd4j.linalg.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter for hot paths updated by many threads at once.
+ *
+ * Updates go to one of several cells, picked by thread id, and each cell sits on its own cache line, so concurrent
+ * updates from different threads don't contend. Reads sum all cells, so they're more expensive than updates.
+ *
+ * PLEASE NOTE: sum isn't an atomic snapshot if counter is being updated concurrently
+ */
+public class StripedCounter {
+    // 8 longs = 64 bytes, so neighbour cells never share cache line
+    private static final int PADDING = 8;
+    private static final int MAX_STRIPES = 64;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedCounter() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() * 2 && stripes < MAX_STRIPES)
+            stripes <<= 1;
+
+        this.mask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+    }
+
+    private int cell() {
+        long id = Thread.currentThread().getId();
+        // thread ids are sequential, so they're spread over cells as is
+        return (int) (id & mask) * PADDING;
+    }
+
+    public void increment() {
+        cells.getAndIncrement(cell());
+    }
+
+    public void add(long value) {
+        cells.getAndAdd(cell(), value);
+    }
+
+    /**
+     * This method returns sum of all updates since creation or last reset
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING)
+            sum += cells.get(i);
+
+        return sum;
+    }
+
+    /**
+     * This method resets counter to 0. Updates made concurrently with reset may be lost
+     */
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING)
+            cells.set(i, 0L);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.bytedeco.javacpp.BytePointer;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.compression.CompressedDataBuffer;
@@ -14,6 +15,7 @@ import org.nd4j.linalg.primitives.Pair;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
@@ -23,6 +25,16 @@ import java.nio.channels.WritableByteChannel;
  */
 @Slf4j
 public class BinarySerde {
+    /**
+     * Max number of bytes mapped at once. Data above this size can't be wrapped by single mapping,
+     * so it's copied segment by segment instead
+     */
+    public static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE - 7;
+
+    /**
+     * Segment size used for copying through mappings: 1GB
+     */
+    protected static final long SEGMENT_SIZE = 1L << 30;
 
 
     /**
@@ -281,6 +293,253 @@ public class BinarySerde {
     }
 
 
+    /**
+     * Read an ndarray from disk, previously written via writeArrayToDisk() or writeArrayToDiskMapped(),
+     * using copy-on-write memory mapping: changes made to returned array are never written back to file.
+     *
+     * @param readFrom file to read from
+     * @return array backed by memory-mapped file
+     * @throws IOException
+     */
+    public static INDArray readFromDiskMapped(File readFrom) throws IOException {
+        return readFromDiskMapped(readFrom, FileChannel.MapMode.PRIVATE);
+    }
+
+    /**
+     * Read an ndarray from disk, previously written via writeArrayToDisk() or writeArrayToDiskMapped(),
+     * with DataBuffer backed directly by memory-mapped file. No data is read until it's actually accessed, and
+     * pages are loaded by OS on demand.
+     *
+     * Supported modes are:
+     * READ_ONLY - array memory is read-only. Array MUST NOT be modified: any in-place op will crash JVM
+     * PRIVATE - copy-on-write: array can be modified, but changes are never written back to file
+     * READ_WRITE - changes made to array are written back to file
+     *
+     * Arrays with data larger than {@link #MAX_MAPPING_SIZE} can't be wrapped by single mapping, since nd4j
+     * arrays require contiguous memory. Such files are mapped in segments, and copied into single host buffer
+     * (mode is ignored in this case). Compressed arrays are read via readFromDisk().
+     *
+     * @param readFrom file to read from
+     * @param mode     mapping mode
+     * @return array backed by memory-mapped file
+     * @throws IOException
+     */
+    public static INDArray readFromDiskMapped(File readFrom, FileChannel.MapMode mode) throws IOException {
+        return readFromDiskMapped(readFrom, mode, MAX_MAPPING_SIZE);
+    }
+
+    protected static INDArray readFromDiskMapped(File readFrom, FileChannel.MapMode mode, long maxMappingSize)
+                    throws IOException {
+        String access = mode == FileChannel.MapMode.READ_WRITE ? "rw" : "r";
+        try (RandomAccessFile file = new RandomAccessFile(readFrom, access)) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder());
+            readFully(channel, header, 0);
+            header.flip();
+
+            int rank = header.getInt();
+            if (rank < 0 || rank > 32)
+                throw new IllegalStateException("Found rank " + rank + ". Corrupt serialization?");
+
+            DataBuffer.Type type = DataBuffer.Type.values()[header.getInt()];
+            if (type == DataBuffer.Type.COMPRESSED)
+                return readFromDisk(readFrom);
+
+            int shapeInfoLength = Shape.shapeInfoLength(rank);
+            ByteBuffer shapeInfo = ByteBuffer.allocate(shapeInfoLength * 4).order(ByteOrder.nativeOrder());
+            readFully(channel, shapeInfo, 8);
+            shapeInfo.flip();
+
+            int[] shapeInfoInts = new int[shapeInfoLength];
+            for (int i = 0; i < shapeInfoLength; i++)
+                shapeInfoInts[i] = shapeInfo.getInt();
+            DataBuffer shapeBuff = Nd4j.createBufferDetached(shapeInfoInts);
+
+            long dataOffset = 8 + shapeInfoLength * 4;
+            long length = Shape.length(shapeBuff);
+            int elementSize = elementSize(type);
+            long dataBytes = length * elementSize;
+            if (dataOffset + dataBytes > channel.size())
+                throw new IllegalStateException("File [" + readFrom + "] is truncated: expected "
+                                + (dataOffset + dataBytes) + " bytes, but has " + channel.size());
+
+            DataBuffer buffer;
+            if (dataBytes <= maxMappingSize) {
+                MappedByteBuffer mapped = channel.map(mode, dataOffset, dataBytes);
+                mapped.order(ByteOrder.nativeOrder());
+
+                // pointer created from direct buffer keeps reference to it, so mapping lives as long as DataBuffer
+                buffer = Nd4j.createBuffer(mapped, type, (int) length);
+            } else {
+                buffer = allocateDetached(type, length);
+                BytePointer target = new BytePointer(buffer.addressPointer());
+                target.capacity(dataBytes);
+
+                long segment = segmentSize(maxMappingSize, elementSize);
+                for (long done = 0; done < dataBytes; done += segment) {
+                    long bytes = Math.min(segment, dataBytes - done);
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + done, bytes);
+                    target.position(done).limit(done + bytes);
+                    target.asByteBuffer().put(mapped);
+                }
+                log.debug("Array of {} bytes was read from [{}] in segments of {} bytes", dataBytes, readFrom,
+                                segment);
+            }
+
+            return Nd4j.createArrayFromShapeBuffer(buffer, shapeBuff);
+        }
+    }
+
+    /**
+     * Write an ndarray to disk in binary format, compatible with readFromDisk(). File is preallocated to
+     * its final size, and data is copied directly into memory-mapped file, segment by segment, so no intermediate
+     * buffer is allocated and arrays above 2GB are supported.
+     *
+     * @param arr     the array to write. Compressed arrays are written via writeArrayToDisk()
+     * @param toWrite the file to write to
+     * @throws IOException
+     */
+    public static void writeArrayToDiskMapped(INDArray arr, File toWrite) throws IOException {
+        writeArrayToDiskMapped(arr, toWrite, MAX_MAPPING_SIZE);
+    }
+
+    protected static void writeArrayToDiskMapped(INDArray arr, File toWrite, long maxMappingSize)
+                    throws IOException {
+        if (arr.isCompressed()) {
+            writeArrayToDisk(arr, toWrite);
+            return;
+        }
+
+        if (arr.isView())
+            arr = arr.dup();
+
+        Nd4j.getExecutioner().commit();
+        Nd4j.getAffinityManager().ensureLocation(arr, AffinityManager.Location.HOST);
+
+        int elementSize = arr.data().getElementSize();
+        long dataBytes = arr.length() * elementSize;
+        ByteBuffer header = headerFor(arr.rank(), arr.data().dataType(), arr.shapeInfoDataBuffer());
+
+        try (RandomAccessFile file = new RandomAccessFile(toWrite, "rw")) {
+            FileChannel channel = file.getChannel();
+            long dataOffset = header.remaining();
+
+            // preallocating file to its final size
+            file.setLength(dataOffset + dataBytes);
+            while (header.hasRemaining())
+                channel.write(header, dataOffset - header.remaining());
+
+            BytePointer source = new BytePointer(arr.data().addressPointer());
+            source.capacity(dataBytes);
+
+            long segment = segmentSize(maxMappingSize, elementSize);
+            for (long done = 0; done < dataBytes; done += segment) {
+                long bytes = Math.min(segment, dataBytes - done);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset + done, bytes);
+                source.position(done).limit(done + bytes);
+                mapped.put(source.asByteBuffer());
+            }
+        }
+    }
+
+    /**
+     * This method preallocates file for array of given shape and data type, in binary format compatible with
+     * readFromDisk(), and returns 'c' ordered array backed by this file, mapped in READ_WRITE mode. Array is zero
+     * initialized, and everything written into it goes directly to the file, so the file can be filled in place.
+     *
+     * @param toWrite the file to create. Existing file will be overwritten
+     * @param type    data type of the array
+     * @param shape   shape of the array
+     * @return array backed by memory-mapped file
+     * @throws IOException
+     */
+    public static INDArray createMappedArray(File toWrite, DataBuffer.Type type, int... shape) throws IOException {
+        if (type == DataBuffer.Type.COMPRESSED)
+            throw new IllegalArgumentException("Compressed arrays can't be mapped");
+
+        Pair<DataBuffer, int[]> shapeInfo = Nd4j.getShapeInfoProvider().createShapeInformation(shape, 'c');
+        long length = Shape.length(shapeInfo.getFirst());
+        long dataBytes = length * elementSize(type);
+        if (dataBytes > MAX_MAPPING_SIZE)
+            throw new IllegalArgumentException("Array of " + dataBytes + " bytes exceeds max mapping size of "
+                            + MAX_MAPPING_SIZE + " bytes");
+
+        ByteBuffer header = headerFor(shape.length, type, shapeInfo.getFirst());
+
+        try (RandomAccessFile file = new RandomAccessFile(toWrite, "rw")) {
+            FileChannel channel = file.getChannel();
+            long dataOffset = header.remaining();
+
+            file.setLength(0);
+            file.setLength(dataOffset + dataBytes);
+            while (header.hasRemaining())
+                channel.write(header, dataOffset - header.remaining());
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset, dataBytes);
+            mapped.order(ByteOrder.nativeOrder());
+
+            DataBuffer buffer = Nd4j.createBuffer(mapped, type, (int) length);
+            return Nd4j.createArrayFromShapeBuffer(buffer, shapeInfo);
+        }
+    }
+
+    private static ByteBuffer headerFor(int rank, DataBuffer.Type type, DataBuffer shapeInfo) {
+        ByteBuffer shapeBuffer = shapeInfo.pointer().asByteBuffer().order(ByteOrder.nativeOrder());
+        ByteBuffer header = ByteBuffer.allocate(8 + shapeBuffer.limit()).order(ByteOrder.nativeOrder());
+        header.putInt(rank);
+        header.putInt(type.ordinal());
+        header.put(shapeBuffer);
+        header.flip();
+        return header;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new EOFException("Unexpected end of file");
+            position += read;
+        }
+    }
+
+    private static long segmentSize(long maxMappingSize, int elementSize) {
+        long segment = Math.min(maxMappingSize, SEGMENT_SIZE);
+        return Math.max(elementSize, segment - segment % elementSize);
+    }
+
+    private static int elementSize(DataBuffer.Type type) {
+        switch (type) {
+            case DOUBLE:
+            case LONG:
+                return 8;
+            case HALF:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * This method allocates uninitialized buffer of given type and length, outside of any workspace
+     */
+    public static DataBuffer allocateDetached(DataBuffer.Type type, long length) {
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            switch (type) {
+                case DOUBLE:
+                    return Nd4j.getDataBufferFactory().createDouble(length, false);
+                case FLOAT:
+                    return Nd4j.getDataBufferFactory().createFloat(length, false);
+                case HALF:
+                    return Nd4j.getDataBufferFactory().createHalf(length, false);
+                case INT:
+                    return Nd4j.getDataBufferFactory().createInt(length, false);
+                default:
+                    throw new UnsupportedOperationException("Data type " + type + " isn't supported");
+            }
+        }
+    }
+
+
     /**
      * This method returns shape databuffer from saved earlier file
      *
@@ -10,26 +10,32 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.cache.ConstantHandler;
 import org.nd4j.linalg.cache.TADManager;
 import org.nd4j.linalg.cache.TadDescriptor;
+import org.nd4j.linalg.cpu.nativecpu.cache.BoundedCache;
 import org.nd4j.linalg.primitives.Pair;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+import org.nd4j.linalg.profiler.metrics.MetricsSource;
 import org.nd4j.nativeblas.LongPointerWrapper;
 import org.nd4j.nativeblas.NativeOps;
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.List;
 
 /**
+ * TADManager implementation for CPU backend.
+ *
+ * TAD shapes and offsets are cached in bounded LRU cache, limited both by number of entries and by size in bytes,
+ * so long-running processes working with many different shapes keep cache hot for recently used shapes.
+ *
  * @author raver119@gmail.com
  */
-public class CpuTADManager implements TADManager {
-    private Map<TadDescriptor, Pair<DataBuffer, DataBuffer>> cache = new ConcurrentHashMap<>();
+public class CpuTADManager implements TADManager, MetricsSource {
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024L * 1024L;
+
+    private final BoundedCache<TadDescriptor, Pair<DataBuffer, DataBuffer>> cache =
+                    new BoundedCache<>(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
     private NativeOps nativeOps;
     private ConstantHandler constantHandler;
-    private AtomicLong bytes = new AtomicLong(0);
-    private AtomicInteger counter = new AtomicInteger(0);
-    private static final int MAX_ENTRIES = 100;
 
     public CpuTADManager() {
         //
@@ -45,7 +51,17 @@ public class CpuTADManager implements TADManager {
      */
     @Override
     public void purgeBuffers() {
-        cache = new ConcurrentHashMap<>();
+        cache.clear();
+    }
+
+    /**
+     * This method changes bounds of TAD cache
+     *
+     * @param maxEntries max number of cached TADs
+     * @param maxBytes   max size of cached shapes and offsets, in bytes
+     */
+    public void setCacheLimits(int maxEntries, long maxBytes) {
+        cache.setLimits(maxEntries, maxBytes);
     }
 
     @Override
@@ -58,7 +74,8 @@ public class CpuTADManager implements TADManager {
         } else {
             TadDescriptor descriptor = new TadDescriptor(array, dimension);
 
-            if (!cache.containsKey(descriptor)) {
+            Pair<DataBuffer, DataBuffer> cached = cache.get(descriptor);
+            if (cached == null) {
                 int dimensionLength = dimension.length;
 
                 // FIXME: this is fast triage, remove it later
@@ -88,21 +105,62 @@ public class CpuTADManager implements TADManager {
                 // If the line below will be uncommented, shapes from JVM will be used on native side
                 //outputBuffer = array.tensorAlongDimension(0, dimension).shapeInfoDataBuffer();
                 Pair<DataBuffer, DataBuffer> pair = new Pair<>(outputBuffer, offsetsBuffer);
-                if (counter.get() < MAX_ENTRIES) {
-                    counter.incrementAndGet();
-                    cache.put(descriptor, pair);
-
-                    bytes.addAndGet((outputBuffer.length() * 4) + (offsetsBuffer.length() * 8));
-                }
-                return pair;
+                return cache.putIfAbsent(descriptor, pair, (outputBuffer.length() * 4) + (offsetsBuffer.length() * 8));
             }
 
-            return cache.get(descriptor);
+            return cached;
         }
     }
 
     @Override
     public long getCachedBytes() {
-        return bytes.get();
+        return cache.getBytes();
+    }
+
+    @Override
+    public void collectMetrics(MetricsCollector collector) {
+        cache.collectMetrics(collector, "tad");
+    }
+
+    /**
+     * This method returns number of TADs served from cache
+     */
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * This method returns number of TADs that had to be calculated
+     */
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * This method returns number of TADs evicted from cache
+     */
+    public long getCacheEvictions() {
+        return cache.getEvictions();
+    }
+
+    /**
+     * This method returns number of cached TADs
+     */
+    public int getCachedEntries() {
+        return cache.size();
+    }
+
+    /**
+     * This method returns up to n cached TAD descriptors with the most cache hits, along with number of hits
+     */
+    public List<Pair<TadDescriptor, Long>> getTopKeys(int n) {
+        return cache.getTopKeys(n);
+    }
+
+    /**
+     * This method resets hit/miss/eviction counters
+     */
+    public void resetCacheStatistics() {
+        cache.resetStatistics();
     }
 }
@@ -1,23 +1,48 @@
 package org.nd4j.linalg.cpu.nativecpu;
 
 import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.cpu.nativecpu.cache.BoundedCache;
 import org.nd4j.linalg.primitives.Pair;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.BaseShapeInfoProvider;
 import org.nd4j.linalg.api.shape.ShapeDescriptor;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+import org.nd4j.linalg.profiler.metrics.MetricsSource;
+import org.nd4j.linalg.profiler.metrics.Nd4jMetricsSource;
+import org.nd4j.linalg.util.StripedCounter;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * ShapeInfoProvider for CPU backend.
+ *
+ * Shape information buffers are cached in bounded LRU cache, so with ever-changing shapes (i.e. variable-length
+ * sequences) cache keeps serving recently used shapes instead of being exhausted.
+ *
+ * Optionally, each thread can have small direct-mapped front cache for the hottest shapes, so those are resolved
+ * without touching shared cache at all. Shape buffers are immutable, so front cache entries stay valid even after
+ * eviction from shared cache. Front caches are referenced weakly from here, so they die together with their threads,
+ * and they're cleared on purgeCache().
+ *
  * @author raver119@gmail.com
  */
 @Slf4j
-public class DirectShapeInfoProvider extends BaseShapeInfoProvider {
-    private Map<ShapeDescriptor, Pair<DataBuffer, int[]>> shapeCache = new ConcurrentHashMap<>();
-    private AtomicInteger counter = new AtomicInteger(0);
-    private static final int MAX_ENTRIES = 1000;
+public class DirectShapeInfoProvider extends BaseShapeInfoProvider implements MetricsSource {
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+
+    private final BoundedCache<ShapeDescriptor, Pair<DataBuffer, int[]>> shapeCache =
+                    new BoundedCache<>(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+
+    // front cache is rebuilt on thread side once generation changes, i.e. after purgeCache()
+    private final AtomicLong generation = new AtomicLong(0);
+    private volatile int threadCacheSize = 0;
+    // strong references are held by ThreadLocal only, so caches of finished threads can be collected
+    private final Map<ThreadCache, Boolean> threadCaches =
+                    Collections.synchronizedMap(new WeakHashMap<ThreadCache, Boolean>());
+    private final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<>();
+    private final StripedCounter threadCacheHits = new StripedCounter();
 
     @Override
     public Pair<DataBuffer, int[]> createShapeInformation(int[] shape, int[] stride, long offset, int elementWiseStride, char order) {
@@ -26,31 +51,191 @@ public class DirectShapeInfoProvider extends BaseShapeInfoProvider {
         offset = 0;
 
         ShapeDescriptor descriptor = new ShapeDescriptor(shape, stride, offset, elementWiseStride, order);
-        if (!shapeCache.containsKey(descriptor)) {
-            if (counter.get() < MAX_ENTRIES) {
-                synchronized (this) {
-                    if (!shapeCache.containsKey(descriptor)) {
-                        counter.incrementAndGet();
-                        Pair<DataBuffer, int[]> buffer =
-                                        super.createShapeInformation(shape, stride, offset, elementWiseStride, order);
-                        shapeCache.put(descriptor, buffer);
-
-                        bytes.addAndGet(buffer.getFirst().length() * 4 * 2);
-
-                        return buffer;
-                    } else
-                        return shapeCache.get(descriptor);
-                }
-            } else {
-                return super.createShapeInformation(shape, stride, offset, elementWiseStride, order);
+
+        ThreadCache front = threadCacheSize > 0 ? getThreadCache() : null;
+        if (front != null) {
+            Pair<DataBuffer, int[]> cached = front.get(descriptor);
+            if (cached != null) {
+                threadCacheHits.increment();
+                return cached;
             }
         }
 
-        return shapeCache.get(descriptor);
+        Pair<DataBuffer, int[]> buffer = shapeCache.get(descriptor);
+        if (buffer == null) {
+            buffer = super.createShapeInformation(shape, stride, offset, elementWiseStride, order);
+            buffer = shapeCache.putIfAbsent(descriptor, buffer, buffer.getFirst().length() * 4 * 2);
+        }
+
+        if (front != null)
+            front.put(descriptor, buffer);
+
+        return buffer;
+    }
+
+    private ThreadCache getThreadCache() {
+        ThreadCache cache = threadCache.get();
+        if (cache == null || cache.size() != threadCacheSize) {
+            if (cache != null)
+                threadCaches.remove(cache);
+
+            cache = new ThreadCache(threadCacheSize);
+            threadCache.set(cache);
+            threadCaches.put(cache, Boolean.TRUE);
+        }
+
+        cache.validate(generation.get());
+        return cache;
+    }
+
+    /**
+     * This method enables per-thread front cache of given size. 0 disables front cache
+     *
+     * @param size number of front cache slots per thread, rounded up to power of 2
+     */
+    public void setThreadCacheSize(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Thread cache size can't be negative");
+
+        int rounded = size == 0 ? 0 : 1;
+        while (rounded < size)
+            rounded <<= 1;
+
+        this.threadCacheSize = rounded;
+    }
+
+    public int getThreadCacheSize() {
+        return threadCacheSize;
+    }
+
+    /**
+     * This method changes bounds of shared shape cache
+     *
+     * @param maxEntries max number of cached shapes
+     * @param maxBytes   max size of cached shapes, in bytes
+     */
+    public void setCacheLimits(int maxEntries, long maxBytes) {
+        shapeCache.setLimits(maxEntries, maxBytes);
     }
 
     @Override
     public void purgeCache() {
-        shapeCache = new ConcurrentHashMap<>();
+        shapeCache.clear();
+        generation.incrementAndGet();
+
+        // idle threads would keep purged buffers alive until their next lookup otherwise
+        synchronized (threadCaches) {
+            for (ThreadCache cache : threadCaches.keySet())
+                cache.clear();
+        }
+    }
+
+    @Override
+    public long getCachedBytes() {
+        return shapeCache.getBytes();
+    }
+
+    @Override
+    public void collectMetrics(MetricsCollector collector) {
+        shapeCache.collectMetrics(collector, "shape");
+        collector.counter("nd4j_cache_thread_hits_total", "Number of hits in per-thread front caches",
+                        Nd4jMetricsSource.labels("cache", "shape"), getThreadCacheHits());
+    }
+
+    /**
+     * This method returns number of shapes served from shared cache
+     */
+    public long getCacheHits() {
+        return shapeCache.getHits();
+    }
+
+    /**
+     * This method returns number of shapes that had to be created
+     */
+    public long getCacheMisses() {
+        return shapeCache.getMisses();
+    }
+
+    /**
+     * This method returns number of shapes evicted from shared cache
+     */
+    public long getCacheEvictions() {
+        return shapeCache.getEvictions();
+    }
+
+    /**
+     * This method returns number of shapes in shared cache
+     */
+    public int getCachedEntries() {
+        return shapeCache.size();
+    }
+
+    /**
+     * This method returns number of shapes served from per-thread front caches, across all threads
+     */
+    public long getThreadCacheHits() {
+        return threadCacheHits.sum();
+    }
+
+    /**
+     * This method returns up to n shape descriptors with the most shared cache hits, along with number of hits
+     */
+    public List<Pair<ShapeDescriptor, Long>> getTopKeys(int n) {
+        return shapeCache.getTopKeys(n);
+    }
+
+    /**
+     * Direct-mapped cache: each descriptor can live in single slot only, newer entry replaces older one.
+     * Accessed by owner thread only, except for clear() on purge: it only writes nulls, and owner treats slot
+     * without value as empty, so racing with it can only cause a miss.
+     */
+    private static class ThreadCache {
+        private final ShapeDescriptor[] keys;
+        private final Object[] values;
+        private final int mask;
+        private long generation = 0;
+
+        private ThreadCache(int size) {
+            this.keys = new ShapeDescriptor[size];
+            this.values = new Object[size];
+            this.mask = size - 1;
+        }
+
+        private int size() {
+            return keys.length;
+        }
+
+        private void validate(long generation) {
+            if (this.generation != generation) {
+                Arrays.fill(keys, null);
+                Arrays.fill(values, null);
+                this.generation = generation;
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Pair<DataBuffer, int[]> get(ShapeDescriptor descriptor) {
+            int slot = slot(descriptor);
+            if (descriptor.equals(keys[slot]))
+                return (Pair<DataBuffer, int[]>) values[slot];
+
+            return null;
+        }
+
+        private void put(ShapeDescriptor descriptor, Pair<DataBuffer, int[]> value) {
+            int slot = slot(descriptor);
+            keys[slot] = descriptor;
+            values[slot] = value;
+        }
+
+        private int slot(ShapeDescriptor descriptor) {
+            int h = descriptor.hashCode();
+            return (h ^ (h >>> 16)) & mask;
+        }
     }
 }
@@ -0,0 +1,308 @@
+package org.nd4j.linalg.cpu.nativecpu.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.primitives.Pair;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+import org.nd4j.linalg.profiler.metrics.Nd4jMetricsSource;
+import org.nd4j.linalg.util.StripedCounter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent cache bounded by number of entries and by total size in bytes, with CLOCK (second chance) eviction,
+ * which approximates LRU.
+ *
+ * Lookups are lock-free and don't touch shared atomics: each hit only sets reference bit of the entry, if it's not
+ * set already, and bumps striped global hit counter. Per-entry hit counters, used to report top keys, are exact for
+ * rarely used entries only: once entry gets hot, its counter is updated for sampled hits, so hot entries aren't
+ * written on every hit.
+ *
+ * Once any bound is exceeded, single thread moves clock hand over entries, evicting entries which weren't
+ * referenced since previous pass, down to 90% of bounds, so eviction cost is amortized over many inserts. If pass can't get below bounds (i.e. most entries aren't
+ * evictable), next eviction attempts are skipped for a while.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+@Slf4j
+public class BoundedCache<K, V> {
+    protected static final double EVICTION_TARGET = 0.9;
+    // per-entry hits are counted exactly up to this number, and sampled afterwards
+    protected static final long EXACT_HITS = 64;
+    // one of this many hits is counted in per-entry hit counter, once entry has more than EXACT_HITS
+    protected static final int HITS_SAMPLING = 16;
+
+    private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private final AtomicInteger entries = new AtomicInteger(0);
+    private final AtomicLong bytes = new AtomicLong(0);
+    // clock hand, guarded by evictionLock
+    private Iterator<Map.Entry<K, Entry<V>>> hand;
+    // number of inserts to skip eviction for, after eviction pass that couldn't get below bounds
+    private final AtomicInteger evictionBackoff = new AtomicInteger(0);
+
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final AtomicLong evictions = new AtomicLong(0);
+
+    private volatile int maxEntries;
+    private volatile long maxBytes;
+
+    /**
+     * @param maxEntries max number of cached entries
+     * @param maxBytes   max total size of cached entries, in bytes
+     */
+    public BoundedCache(int maxEntries, long maxBytes) {
+        setLimits(maxEntries, maxBytes);
+    }
+
+    /**
+     * This method changes cache bounds. If cache is above new bounds, entries are evicted immediately
+     */
+    public void setLimits(int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1)
+            throw new IllegalArgumentException("Cache limits should be positive");
+
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        evictionBackoff.set(0);
+        evictIfNeeded();
+    }
+
+    /**
+     * This method returns cached value for given key, or null if there's no such value
+     */
+    public V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        // flag is written only if it's not set already, so hot entries don't bounce cache lines between threads
+        if (!entry.referenced)
+            entry.referenced = true;
+
+        if (entry.hits < EXACT_HITS)
+            entry.hits++;
+        else if (ThreadLocalRandom.current().nextInt(HITS_SAMPLING) == 0)
+            entry.hits += HITS_SAMPLING;
+
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * This method puts value into cache, unless there's value for this key already
+     *
+     * @param key   key
+     * @param value value to cache
+     * @param size  size of value in bytes
+     * @return value associated with the key after this call: either given value, or previously cached one
+     */
+    public V putIfAbsent(K key, V value, long size) {
+        Entry<V> entry = new Entry<>(value, size);
+        Entry<V> existing = map.putIfAbsent(key, entry);
+        if (existing != null)
+            return existing.value;
+
+        entries.incrementAndGet();
+        bytes.addAndGet(size);
+        evictIfNeeded();
+        return value;
+    }
+
+    /**
+     * This method removes entry for given key
+     *
+     * @return removed value, or null if there was no such entry
+     */
+    public V remove(K key) {
+        Entry<V> entry = map.remove(key);
+        if (entry == null)
+            return null;
+
+        entries.decrementAndGet();
+        bytes.addAndGet(-entry.size);
+        onRemoval(key, entry.value, false);
+        return entry.value;
+    }
+
+    /**
+     * This method removes all entries. Statistics are kept
+     */
+    public void clear() {
+        for (K key : new ArrayList<>(map.keySet()))
+            remove(key);
+    }
+
+    /**
+     * This method is called for each candidate for eviction. Entries for which it returns false are kept,
+     * even if cache is above its bounds.
+     */
+    protected boolean isEvictable(K key, V value) {
+        return true;
+    }
+
+    /**
+     * This method is called after entry was removed from cache
+     *
+     * @param evicted true if entry was evicted due to cache bounds, false if it was removed explicitly
+     */
+    protected void onRemoval(K key, V value, boolean evicted) {
+        //
+    }
+
+    protected void evictIfNeeded() {
+        if (!isAboveLimits(maxEntries, maxBytes))
+            return;
+
+        if (evictionBackoff.get() > 0 && evictionBackoff.decrementAndGet() >= 0)
+            return;
+
+        synchronized (evictionLock) {
+            if (!isAboveLimits(maxEntries, maxBytes))
+                return;
+
+            int targetEntries = (int) (maxEntries * EVICTION_TARGET);
+            long targetBytes = (long) (maxBytes * EVICTION_TARGET);
+
+            // two full turns at most: first one may only clear referenced flags
+            int budget = 2 * map.size() + 1;
+            int evicted = 0;
+            while (budget-- > 0 && isAboveLimits(targetEntries, targetBytes)) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = map.entrySet().iterator();
+                    if (!hand.hasNext())
+                        break;
+                }
+
+                Map.Entry<K, Entry<V>> e = hand.next();
+                Entry<V> entry = e.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    continue;
+                }
+
+                if (!isEvictable(e.getKey(), entry.value))
+                    continue;
+
+                if (map.remove(e.getKey(), entry)) {
+                    entries.decrementAndGet();
+                    bytes.addAndGet(-entry.size);
+                    evictions.incrementAndGet();
+                    evicted++;
+                    onRemoval(e.getKey(), entry.value, true);
+                }
+            }
+
+            if (isAboveLimits(maxEntries, maxBytes)) {
+                // everything left is pinned, so there's no point in scanning again on every insert
+                // pass costs up to 2 x size, so skipping size / 10 inserts keeps amortized cost per insert constant
+                evictionBackoff.set(Math.max(1, entries.get() / 10));
+                log.debug("Evicted {} entries, but cache is still above bounds: {} entries and {} bytes left",
+                                evicted, entries.get(), bytes.get());
+            } else {
+                log.debug("Evicted {} entries, {} entries and {} bytes left", evicted, entries.get(), bytes.get());
+            }
+        }
+    }
+
+    private boolean isAboveLimits(int numEntries, long numBytes) {
+        return entries.get() > numEntries || bytes.get() > numBytes;
+    }
+
+    /**
+     * This method returns up to {@code n} cached keys with the most hits, along with their number of hits.
+     * Hits of hot entries are sampled, so reported numbers above {@link #EXACT_HITS} are estimates
+     */
+    public List<Pair<K, Long>> getTopKeys(int n) {
+        List<Pair<K, Long>> result = new ArrayList<>(map.size());
+        for (Map.Entry<K, Entry<V>> e : map.entrySet())
+            result.add(Pair.of(e.getKey(), e.getValue().hits));
+
+        Collections.sort(result, new Comparator<Pair<K, Long>>() {
+            @Override
+            public int compare(Pair<K, Long> o1, Pair<K, Long> o2) {
+                return Long.compare(o2.getSecond(), o1.getSecond());
+            }
+        });
+
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    public int size() {
+        return entries.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * This method reports size and hit/miss/eviction counters of this cache, labeled with given cache name
+     */
+    public void collectMetrics(MetricsCollector collector, String cacheName) {
+        Map<String, String> labels = Nd4jMetricsSource.labels("cache", cacheName);
+        long h = hits.sum();
+        long m = misses.sum();
+
+        collector.gauge("nd4j_cache_bytes", "Memory used by cache", labels, bytes.get());
+        collector.gauge("nd4j_cache_entries", "Number of cached entries", labels, entries.get());
+        collector.counter("nd4j_cache_hits_total", "Number of cache hits", labels, h);
+        collector.counter("nd4j_cache_misses_total", "Number of cache misses", labels, m);
+        collector.counter("nd4j_cache_evictions_total", "Number of entries evicted due to cache bounds", labels,
+                        evictions.get());
+        collector.gauge("nd4j_cache_hit_ratio", "Ratio of hits to all lookups", labels,
+                        h + m == 0 ? 0.0 : h / (double) (h + m));
+    }
+
+    /**
+     * This method resets hit/miss/eviction counters, including per-key hits
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evictions.set(0);
+        for (Entry<V> entry : map.values())
+            entry.hits = 0;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long size;
+        // sampled relaxed counter: concurrent hits may be lost, it's used only to report top keys
+        private long hits;
+        // CLOCK reference bit. Plain field: eviction pass may see it late, which only delays eviction of the entry
+        private boolean referenced;
+
+        private Entry(V value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -1,91 +1,445 @@
 package org.nd4j.linalg.cpu.nativecpu.cache;
 
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.indexer.HalfIndexer;
 import org.nd4j.linalg.api.buffer.DataBuffer;
-import org.nd4j.linalg.cache.ArrayDescriptor;
 import org.nd4j.linalg.cache.BasicConstantHandler;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+import org.nd4j.linalg.profiler.metrics.MetricsSource;
+import org.nd4j.linalg.profiler.metrics.Nd4jMetricsSource;
 
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Constant buffers cache for CPU backend.
+ *
+ * Buffers are cached in bounded LRU cache, limited by number of entries and by size in bytes. Cache key is
+ * 64-bit hash of array contents. On lookup cached buffer contents are compared with given array, so no host copy
+ * of source array is kept, and size bound accounts for all memory used by cache.
+ *
+ * Evicted (or purged) buffers can still be in use by ops that obtained their pointers earlier. To keep them safe,
+ * removed buffers are retired for grace period before they're released for GC. Retired buffers are released on
+ * cache lookups and purges. Long-living users should lease buffer instead: lease is taken atomically with lookup,
+ * and leased buffers are never evicted until lease is closed.
+ *
  * @author raver119@gmail.com
  */
-public class ConstantBuffersCache extends BasicConstantHandler {
-    protected Map<ArrayDescriptor, DataBuffer> buffersCache = new ConcurrentHashMap<>();
-    private AtomicInteger counter = new AtomicInteger(0);
-    private AtomicLong bytes = new AtomicLong(0);
-    private static final int MAX_ENTRIES = 1000;
+@Slf4j
+public class ConstantBuffersCache extends BasicConstantHandler implements MetricsSource {
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+    public static final long DEFAULT_GRACE_PERIOD_MS = 5000;
+
+    private static final byte KIND_INT = 0;
+    private static final byte KIND_FLOAT = 1;
+    private static final byte KIND_DOUBLE = 2;
+
+    protected final BoundedCache<ConstantKey, ConstantEntry> buffersCache =
+                    new BoundedCache<ConstantKey, ConstantEntry>(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES) {
+                        @Override
+                        protected boolean isEvictable(ConstantKey key, ConstantEntry value) {
+                            // entry is closed for new leases before it's evicted
+                            return value.leases.compareAndSet(0, ConstantEntry.EVICTED);
+                        }
+
+                        @Override
+                        protected void onRemoval(ConstantKey key, ConstantEntry value, boolean evicted) {
+                            typeBytes.get(value.buffer.dataType()).addAndGet(-value.bytes);
+                            retired.add(new Retired(value, System.currentTimeMillis()));
+                        }
+                    };
+
+    private final Map<DataBuffer.Type, AtomicLong> typeBytes = new EnumMap<>(DataBuffer.Type.class);
+    private final ConcurrentLinkedQueue<Retired> retired = new ConcurrentLinkedQueue<>();
+    private final AtomicLong collisions = new AtomicLong(0);
+    private volatile long gracePeriod = DEFAULT_GRACE_PERIOD_MS;
+
+    public ConstantBuffersCache() {
+        for (DataBuffer.Type type : DataBuffer.Type.values())
+            typeBytes.put(type, new AtomicLong(0));
+    }
 
     @Override
     public DataBuffer getConstantBuffer(int[] array) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array);
+        return getEntry(array).buffer;
+    }
+
+    @Override
+    public DataBuffer getConstantBuffer(float[] array) {
+        return getEntry(array).buffer;
+    }
+
+    @Override
+    public DataBuffer getConstantBuffer(double[] array) {
+        return getEntry(array).buffer;
+    }
+
+    /**
+     * This method returns lease for constant buffer with given contents. Buffer won't be evicted until lease is closed
+     */
+    public Lease leaseConstantBuffer(int[] array) {
+        while (true) {
+            // entry might be evicted right after lookup, then it's looked up (and cached) again
+            ConstantEntry entry = getEntry(array);
+            if (entry.tryLease())
+                return new Lease(entry);
+        }
+    }
 
-        if (!buffersCache.containsKey(descriptor)) {
+    /**
+     * This method returns lease for constant buffer with given contents. Buffer won't be evicted until lease is closed
+     */
+    public Lease leaseConstantBuffer(float[] array) {
+        while (true) {
+            // entry might be evicted right after lookup, then it's looked up (and cached) again
+            ConstantEntry entry = getEntry(array);
+            if (entry.tryLease())
+                return new Lease(entry);
+        }
+    }
+
+    /**
+     * This method returns lease for constant buffer with given contents. Buffer won't be evicted until lease is closed
+     */
+    public Lease leaseConstantBuffer(double[] array) {
+        while (true) {
+            // entry might be evicted right after lookup, then it's looked up (and cached) again
+            ConstantEntry entry = getEntry(array);
+            if (entry.tryLease())
+                return new Lease(entry);
+        }
+    }
+
+    private ConstantEntry getEntry(int[] array) {
+        drainRetired();
+
+        ConstantKey key = new ConstantKey(KIND_INT, DataBuffer.Type.INT, array.length, hash(array));
+        ConstantEntry entry = buffersCache.get(key);
+        if (entry == null) {
             DataBuffer buffer = Nd4j.createBufferDetached(array);
+            entry = cache(key, buffer);
+            if (entry.buffer == buffer)
+                return entry;
+        }
 
-            // we always allow int arrays with length < 3. 99.9% it's just dimension array. we don't want to recreate them over and over
-            if (counter.get() < MAX_ENTRIES || array.length < 4) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
-                bytes.addAndGet(array.length * 4);
-            }
-            return buffer;
+        return contentEquals(entry.buffer, array) ? entry : collision(Nd4j.createBufferDetached(array));
+    }
+
+    private ConstantEntry getEntry(float[] array) {
+        drainRetired();
+
+        ConstantKey key = new ConstantKey(KIND_FLOAT, Nd4j.dataType(), array.length, hash(array));
+        ConstantEntry entry = buffersCache.get(key);
+        if (entry == null) {
+            DataBuffer buffer = Nd4j.createBufferDetached(array);
+            entry = cache(key, buffer);
+            if (entry.buffer == buffer)
+                return entry;
+        }
+
+        return contentEquals(entry.buffer, array) ? entry : collision(Nd4j.createBufferDetached(array));
+    }
+
+    private ConstantEntry getEntry(double[] array) {
+        drainRetired();
+
+        ConstantKey key = new ConstantKey(KIND_DOUBLE, Nd4j.dataType(), array.length, hash(array));
+        ConstantEntry entry = buffersCache.get(key);
+        if (entry == null) {
+            DataBuffer buffer = Nd4j.createBufferDetached(array);
+            entry = cache(key, buffer);
+            if (entry.buffer == buffer)
+                return entry;
+        }
+
+        return contentEquals(entry.buffer, array) ? entry : collision(Nd4j.createBufferDetached(array));
+    }
+
+    private ConstantEntry cache(ConstantKey key, DataBuffer buffer) {
+        ConstantEntry entry = new ConstantEntry(buffer, buffer.length() * buffer.getElementSize());
+        ConstantEntry cached = buffersCache.putIfAbsent(key, entry, entry.bytes);
+        if (cached == entry)
+            typeBytes.get(buffer.dataType()).addAndGet(entry.bytes);
+
+        return cached;
+    }
+
+    private ConstantEntry collision(DataBuffer buffer) {
+        // different contents with the same hash: extremely rare, so such buffer just isn't cached
+        collisions.incrementAndGet();
+        log.debug("Hash collision in constant buffers cache, buffer of length {} won't be cached", buffer.length());
+        return new ConstantEntry(buffer, buffer.length() * buffer.getElementSize());
+    }
+
+    private static boolean contentEquals(DataBuffer buffer, int[] array) {
+        for (int i = 0; i < array.length; i++)
+            if (buffer.getInt(i) != array[i])
+                return false;
+
+        return true;
+    }
+
+    private static boolean contentEquals(DataBuffer buffer, float[] array) {
+        DataBuffer.Type type = buffer.dataType();
+        for (int i = 0; i < array.length; i++)
+            if (Float.floatToIntBits(buffer.getFloat(i)) != Float.floatToIntBits(stored(type, array[i])))
+                return false;
+
+        return true;
+    }
+
+    private static boolean contentEquals(DataBuffer buffer, double[] array) {
+        DataBuffer.Type type = buffer.dataType();
+        if (type == DataBuffer.Type.DOUBLE) {
+            for (int i = 0; i < array.length; i++)
+                if (Double.doubleToLongBits(buffer.getDouble(i)) != Double.doubleToLongBits(array[i]))
+                    return false;
+        } else {
+            for (int i = 0; i < array.length; i++)
+                if (Float.floatToIntBits(buffer.getFloat(i)) != Float.floatToIntBits(stored(type, (float) array[i])))
+                    return false;
         }
 
-        return buffersCache.get(descriptor);
+        return true;
+    }
+
+    /**
+     * This method returns value as it's stored in buffer of given type, so it can be compared with buffer contents
+     */
+    private static float stored(DataBuffer.Type type, float value) {
+        return type == DataBuffer.Type.HALF ? HalfIndexer.toFloat(HalfIndexer.fromFloat(value)) : value;
+    }
+
+    /**
+     * This method releases retired buffers, once their grace period is over
+     */
+    private void drainRetired() {
+        // fast path for lookups: nothing is retired usually
+        if (retired.isEmpty())
+            return;
+
+        long threshold = System.currentTimeMillis() - gracePeriod;
+        while (true) {
+            Retired head = retired.peek();
+            if (head == null || head.time > threshold)
+                return;
+
+            retired.remove(head);
+        }
     }
 
     /**
-     * This method removes all cached constants
+     * This method removes all cached constants. Removed buffers are retired for grace period, so they stay valid for
+     * ops that might be using them at the moment
      */
     @Override
     public void purgeConstants() {
-        buffersCache = new ConcurrentHashMap<>();
+        buffersCache.clear();
+        drainRetired();
     }
 
     @Override
-    public DataBuffer getConstantBuffer(float[] array) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array);
+    public long getCachedBytes() {
+        return buffersCache.getBytes();
+    }
 
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createBufferDetached(array);
+    /**
+     * This method returns memory used for cached constants of given data type, in bytes
+     */
+    public long getCachedBytes(DataBuffer.Type type) {
+        return typeBytes.get(type).get();
+    }
 
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
+    @Override
+    public void collectMetrics(MetricsCollector collector) {
+        buffersCache.collectMetrics(collector, "constant");
+        collector.counter("nd4j_cache_collisions_total", "Number of content hash collisions",
+                        Nd4jMetricsSource.labels("cache", "constant"), collisions.get());
+        collector.gauge("nd4j_cache_retired_entries", "Number of removed entries kept alive within grace period",
+                        Nd4jMetricsSource.labels("cache", "constant"), retired.size());
+        for (Map.Entry<DataBuffer.Type, AtomicLong> e : typeBytes.entrySet()) {
+            if (e.getValue().get() > 0)
+                collector.gauge("nd4j_cache_type_bytes", "Memory used by cached constants of given data type",
+                                Nd4jMetricsSource.labels("cache", "constant", "type", e.getKey().name()),
+                                e.getValue().get());
+        }
+    }
 
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType());
-            }
-            return buffer;
+    /**
+     * This method changes bounds of constant cache
+     *
+     * @param maxEntries max number of cached buffers
+     * @param maxBytes   max size of cached buffers, in bytes
+     */
+    public void setCacheLimits(int maxEntries, long maxBytes) {
+        buffersCache.setLimits(maxEntries, maxBytes);
+    }
+
+    /**
+     * This method sets time for which evicted buffers are kept alive, since ops might still be using them
+     */
+    public void setGracePeriod(long milliseconds) {
+        if (milliseconds < 0)
+            throw new IllegalArgumentException("Grace period can't be negative");
+
+        this.gracePeriod = milliseconds;
+    }
+
+    public long getCacheHits() {
+        return buffersCache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return buffersCache.getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return buffersCache.getEvictions();
+    }
+
+    public long getHashCollisions() {
+        return collisions.get();
+    }
+
+    public int getCachedEntries() {
+        return buffersCache.size();
+    }
+
+    /**
+     * This method returns number of removed buffers still kept alive within grace period
+     */
+    public int getRetiredEntries() {
+        return retired.size();
+    }
+
+    private static long mix(long hash, long bits) {
+        hash ^= bits;
+        hash *= 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static long hash(int[] array) {
+        long hash = array.length;
+        for (int value : array)
+            hash = mix(hash, value);
+        return hash;
+    }
+
+    private static long hash(float[] array) {
+        long hash = array.length;
+        for (float value : array)
+            hash = mix(hash, Float.floatToIntBits(value));
+        return hash;
+    }
+
+    private static long hash(double[] array) {
+        long hash = array.length;
+        for (double value : array)
+            hash = mix(hash, Double.doubleToLongBits(value));
+        return hash;
+    }
+
+    protected static class ConstantKey {
+        private final byte kind;
+        private final DataBuffer.Type bufferType;
+        private final int length;
+        private final long hash;
+
+        protected ConstantKey(byte kind, DataBuffer.Type bufferType, int length, long hash) {
+            this.kind = kind;
+            this.bufferType = bufferType;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            ConstantKey that = (ConstantKey) o;
+            return kind == that.kind && length == that.length && hash == that.hash && bufferType == that.bufferType;
         }
 
-        return buffersCache.get(descriptor);
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return "ConstantKey{kind=" + kind + ", bufferType=" + bufferType + ", length=" + length + ", hash="
+                            + Long.toHexString(hash) + "}";
+        }
     }
 
-    @Override
-    public DataBuffer getConstantBuffer(double[] array) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array);
+    protected static class ConstantEntry {
+        // leases counter value of evicted entry, such entry can't be leased anymore
+        private static final int EVICTED = -1;
 
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createBufferDetached(array);
+        private final DataBuffer buffer;
+        private final long bytes;
+        private final AtomicInteger leases = new AtomicInteger(0);
 
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
+        private ConstantEntry(DataBuffer buffer, long bytes) {
+            this.buffer = buffer;
+            this.bytes = bytes;
+        }
 
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType());
+        /**
+         * This method takes lease on this entry, unless it was evicted already
+         */
+        private boolean tryLease() {
+            while (true) {
+                int current = leases.get();
+                if (current == EVICTED)
+                    return false;
+
+                if (leases.compareAndSet(current, current + 1))
+                    return true;
             }
-            return buffer;
         }
+    }
 
-        return buffersCache.get(descriptor);
+    private static class Retired {
+        // strong reference, that keeps buffer alive until grace period is over
+        private final ConstantEntry entry;
+        private final long time;
+
+        private Retired(ConstantEntry entry, long time) {
+            this.entry = entry;
+            this.time = time;
+        }
     }
 
-    @Override
-    public long getCachedBytes() {
-        return bytes.get();
+    /**
+     * Lease of constant buffer. Buffer is protected from eviction until lease is closed
+     */
+    public static class Lease implements AutoCloseable {
+        private final ConstantEntry entry;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        // entry is leased already
+        private Lease(ConstantEntry entry) {
+            this.entry = entry;
+        }
+
+        public DataBuffer getBuffer() {
+            return entry.buffer;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true))
+                entry.leases.decrementAndGet();
+        }
     }
 }
@@ -0,0 +1,90 @@
+package org.nd4j.linalg.cpu.nativecpu;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.primitives.Pair;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DirectShapeInfoProviderTest {
+
+    @Test
+    public void testThreadCache() {
+        DirectShapeInfoProvider provider = new DirectShapeInfoProvider();
+        provider.setThreadCacheSize(10);
+        assertEquals(16, provider.getThreadCacheSize());
+
+        Pair<DataBuffer, int[]> first = provider.createShapeInformation(new int[] {3, 4}, new int[] {4, 1}, 0, 1, 'c');
+        Pair<DataBuffer, int[]> second = provider.createShapeInformation(new int[] {3, 4}, new int[] {4, 1}, 0, 1, 'c');
+
+        assertSame(first, second);
+        assertEquals(1, provider.getThreadCacheHits());
+        assertEquals(1, provider.getCacheMisses());
+        assertEquals(1, provider.getCachedEntries());
+    }
+
+    @Test
+    public void testPurgeInvalidatesThreadCache() {
+        DirectShapeInfoProvider provider = new DirectShapeInfoProvider();
+        provider.setThreadCacheSize(16);
+
+        Pair<DataBuffer, int[]> first = provider.createShapeInformation(new int[] {5, 2}, new int[] {2, 1}, 0, 1, 'c');
+        provider.purgeCache();
+        assertEquals(0, provider.getCachedEntries());
+
+        Pair<DataBuffer, int[]> second = provider.createShapeInformation(new int[] {5, 2}, new int[] {2, 1}, 0, 1, 'c');
+        assertNotSame(first, second);
+        assertEquals(0, provider.getThreadCacheHits());
+        assertEquals(2, provider.getCacheMisses());
+    }
+
+    @Test
+    public void testEviction() {
+        DirectShapeInfoProvider provider = new DirectShapeInfoProvider();
+        provider.setCacheLimits(10, Long.MAX_VALUE);
+
+        for (int i = 1; i <= 50; i++)
+            provider.createShapeInformation(new int[] {i, 3}, new int[] {3, 1}, 0, 1, 'c');
+
+        assertTrue(provider.getCachedEntries() <= 10);
+        assertTrue(provider.getCacheEvictions() > 0);
+        assertEquals(50, provider.getCacheMisses());
+    }
+
+    @Test
+    public void testMetrics() {
+        DirectShapeInfoProvider provider = new DirectShapeInfoProvider();
+        provider.setThreadCacheSize(4);
+
+        for (int i = 0; i < 3; i++)
+            provider.createShapeInformation(new int[] {2, 2}, new int[] {2, 1}, 0, 1, 'c');
+
+        final Map<String, Double> values = new HashMap<>();
+        provider.collectMetrics(new MetricsCollector() {
+            @Override
+            public void gauge(String name, String help, Map<String, String> labels, double value) {
+                values.put(name, value);
+            }
+
+            @Override
+            public void counter(String name, String help, Map<String, String> labels, double value) {
+                values.put(name, value);
+            }
+
+            @Override
+            public void summary(String name, String help, Map<String, String> labels, Map<Double, Double> quantiles,
+                            long count, double sum) {
+                values.put(name + "_count", (double) count);
+            }
+        });
+
+        assertEquals(2.0, values.get("nd4j_cache_thread_hits_total"), 1e-5);
+        assertEquals(1.0, values.get("nd4j_cache_misses_total"), 1e-5);
+        assertEquals(1.0, values.get("nd4j_cache_entries"), 1e-5);
+        assertTrue(values.get("nd4j_cache_bytes") > 0);
+    }
+}
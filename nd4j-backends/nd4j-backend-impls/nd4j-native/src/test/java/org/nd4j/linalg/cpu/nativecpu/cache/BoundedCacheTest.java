@@ -0,0 +1,93 @@
+package org.nd4j.linalg.cpu.nativecpu.cache;
+
+import org.junit.Test;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testEntryBoundEvictsLeastRecentlyUsed() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++)
+            cache.putIfAbsent(i, "value" + i, 1);
+
+        // keys 0 and 1 are used recently, so they should survive eviction
+        assertEquals("value0", cache.get(0));
+        assertEquals("value1", cache.get(1));
+
+        cache.putIfAbsent(10, "value10", 1);
+
+        assertTrue(cache.size() <= 9);
+        assertEquals("value0", cache.get(0));
+        assertEquals("value1", cache.get(1));
+        assertEquals("value10", cache.get(10));
+        assertNull(cache.get(2));
+        assertTrue(cache.getEvictions() >= 2);
+    }
+
+    @Test
+    public void testByteBoundAndStatistics() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(1000, 100);
+        for (int i = 0; i < 20; i++)
+            cache.putIfAbsent(i, "value" + i, 10);
+
+        assertTrue(cache.getBytes() <= 100);
+
+        cache.resetStatistics();
+        for (int i = 0; i < 5; i++)
+            cache.get(19);
+        cache.get(18);
+        cache.get(-1);
+
+        assertEquals(6, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        List<Pair<Integer, Long>> top = cache.getTopKeys(2);
+        assertEquals(2, top.size());
+        assertEquals(19, top.get(0).getFirst().intValue());
+        assertEquals(5L, top.get(0).getSecond().longValue());
+        assertEquals(18, top.get(1).getFirst().intValue());
+    }
+
+    @Test
+    public void testPinnedEntriesAreNotEvicted() {
+        BoundedCache<Integer, String> cache = new BoundedCache<Integer, String>(5, Long.MAX_VALUE) {
+            @Override
+            protected boolean isEvictable(Integer key, String value) {
+                return key != 0;
+            }
+        };
+
+        for (int i = 0; i < 20; i++)
+            cache.putIfAbsent(i, "value" + i, 1);
+
+        assertEquals("value0", cache.get(0));
+        assertTrue(cache.size() <= 5);
+    }
+
+    @Test
+    public void testPinnedEntriesAreNotScannedOnEveryPut() {
+        final AtomicLong checks = new AtomicLong(0);
+        BoundedCache<Integer, String> cache = new BoundedCache<Integer, String>(10, Long.MAX_VALUE) {
+            @Override
+            protected boolean isEvictable(Integer key, String value) {
+                checks.incrementAndGet();
+                return false;
+            }
+        };
+
+        for (int i = 0; i < 1000; i++)
+            cache.putIfAbsent(i, "value" + i, 1);
+
+        assertEquals(1000, cache.size());
+        assertEquals(0, cache.getEvictions());
+
+        // full scan on every put would take about a million checks
+        assertTrue(checks.get() < 100000);
+    }
+}
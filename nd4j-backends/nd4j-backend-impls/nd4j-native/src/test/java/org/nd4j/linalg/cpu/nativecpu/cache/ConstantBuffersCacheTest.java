@@ -0,0 +1,92 @@
+package org.nd4j.linalg.cpu.nativecpu.cache;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+
+import static org.junit.Assert.*;
+
+public class ConstantBuffersCacheTest {
+
+    @Test
+    public void testDeduplicationByContent() {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+
+        int[] dimension = new int[] {1, 2};
+        DataBuffer first = cache.getConstantBuffer(dimension);
+
+        // mutating source array doesn't affect cached entry
+        dimension[0] = 0;
+        assertNotSame(first, cache.getConstantBuffer(dimension));
+        assertSame(first, cache.getConstantBuffer(new int[] {1, 2}));
+
+        DataBuffer floats = cache.getConstantBuffer(new float[] {1.5f, 2.5f});
+        assertSame(floats, cache.getConstantBuffer(new float[] {1.5f, 2.5f}));
+
+        assertEquals(2 * 4 * 2, cache.getCachedBytes(DataBuffer.Type.INT));
+        assertEquals(cache.getCachedBytes(), cache.getCachedBytes(DataBuffer.Type.INT)
+                        + cache.getCachedBytes(floats.dataType()));
+    }
+
+    @Test
+    public void testEvictionKeepsLeasedBuffers() {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+        cache.setCacheLimits(10, Long.MAX_VALUE);
+
+        ConstantBuffersCache.Lease lease = cache.leaseConstantBuffer(new int[] {-1});
+        for (int i = 0; i < 100; i++)
+            cache.getConstantBuffer(new int[] {i, i + 1});
+
+        assertTrue(cache.getCachedEntries() <= 10);
+        assertTrue(cache.getCacheEvictions() > 0);
+        assertTrue(cache.getRetiredEntries() > 0);
+        assertSame(lease.getBuffer(), cache.getConstantBuffer(new int[] {-1}));
+
+        lease.close();
+        cache.purgeConstants();
+        assertEquals(0, cache.getCachedEntries());
+        assertEquals(0, cache.getCachedBytes(DataBuffer.Type.INT));
+    }
+
+    @Test
+    public void testLeaseAfterEviction() {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+        cache.setCacheLimits(10, Long.MAX_VALUE);
+
+        DataBuffer evicted = cache.getConstantBuffer(new int[] {-1});
+        for (int i = 0; i < 100; i++)
+            cache.getConstantBuffer(new int[] {i, i + 1});
+
+        // evicted entry can't be leased, so lease is taken on newly cached buffer
+        ConstantBuffersCache.Lease lease = cache.leaseConstantBuffer(new int[] {-1});
+        assertNotSame(evicted, lease.getBuffer());
+        assertEquals(-1, lease.getBuffer().getInt(0));
+
+        for (int i = 0; i < 100; i++)
+            cache.getConstantBuffer(new int[] {i, i + 2});
+
+        assertSame(lease.getBuffer(), cache.getConstantBuffer(new int[] {-1}));
+        lease.close();
+    }
+
+    @Test
+    public void testRetiredBuffersDrainedWithoutMisses() {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+        cache.setCacheLimits(10, Long.MAX_VALUE);
+        cache.setGracePeriod(0);
+
+        DataBuffer hot = cache.getConstantBuffer(new double[] {0.5, 1.5});
+        for (int i = 0; i < 20; i++) {
+            cache.getConstantBuffer(new int[] {i});
+            cache.getConstantBuffer(new double[] {0.5, 1.5});
+        }
+        assertTrue(cache.getCacheEvictions() > 0);
+
+        // hits release expired buffers as well
+        assertSame(hot, cache.getConstantBuffer(new double[] {0.5, 1.5}));
+        assertEquals(0, cache.getRetiredEntries());
+
+        // and so does purge
+        cache.purgeConstants();
+        assertEquals(0, cache.getRetiredEntries());
+    }
+}
@@ -0,0 +1,151 @@
+package org.nd4j.linalg.dataset;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.AsyncDataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.TestDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class AsyncDataSetIteratorTest extends BaseNd4jTest {
+
+    public AsyncDataSetIteratorTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+
+    private static List<DataSet> buildList(int numExamples) {
+        List<DataSet> list = new ArrayList<>();
+        for (int i = 0; i < numExamples; i++)
+            list.add(new DataSet(Nd4j.create(1, 10).assign(i), Nd4j.create(1, 3).assign(i)));
+
+        return list;
+    }
+
+    @Test
+    public void testOrderPreserved() {
+        for (int threads = 1; threads <= 4; threads++) {
+            for (boolean workspaces : new boolean[] {true, false}) {
+                TestDataSetIterator backing = new TestDataSetIterator(buildList(100), 1);
+                AsyncDataSetIterator iterator = new AsyncDataSetIterator(backing, 4, threads, workspaces);
+
+                int cnt = 0;
+                while (iterator.hasNext()) {
+                    DataSet ds = iterator.next();
+                    assertEquals((double) cnt, ds.getFeatures().getDouble(0), 1e-5);
+                    assertEquals((double) cnt, ds.getLabels().getDouble(2), 1e-5);
+                    cnt++;
+                }
+
+                assertEquals(100, cnt);
+                assertEquals(100, iterator.getNumberOfBatchesConsumed());
+                iterator.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        TestDataSetIterator backing = new TestDataSetIterator(buildList(50), 5);
+        AsyncDataSetIterator iterator = new AsyncDataSetIterator(backing, 2, 2, true);
+
+        for (int epoch = 0; epoch < 3; epoch++) {
+            int cnt = 0;
+            while (iterator.hasNext()) {
+                DataSet ds = iterator.next();
+                assertEquals((double) cnt * 5, ds.getFeatures().getDouble(0), 1e-5);
+                cnt++;
+
+                // partial epoch, to make sure reset works while producers are still active
+                if (epoch == 1 && cnt == 3)
+                    break;
+            }
+
+            if (epoch != 1)
+                assertEquals(10, cnt);
+
+            iterator.reset();
+        }
+
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testNextNum() {
+        TestDataSetIterator backing = new TestDataSetIterator(buildList(20), 2);
+        AsyncDataSetIterator iterator = new AsyncDataSetIterator(backing, 3, 2, true);
+
+        // nothing is prefetched yet, so examples come straight from backing iterator
+        DataSet ds = iterator.next(5);
+        assertEquals(5, ds.numExamples());
+        assertEquals(0.0, ds.getFeatures().getDouble(0), 1e-5);
+
+        assertTrue(iterator.hasNext());
+        try {
+            iterator.next(5);
+            fail("Exception expected");
+        } catch (UnsupportedOperationException e) {
+            //
+        }
+
+        iterator.reset();
+        assertEquals(0.0, iterator.next(3).getFeatures().getDouble(0), 1e-5);
+
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testPreProcessor() {
+        TestDataSetIterator backing = new TestDataSetIterator(buildList(20), 2);
+        AsyncDataSetIterator iterator = new AsyncDataSetIterator(backing, 3, 2, true);
+        iterator.setPreProcessor(new DataSetPreProcessor() {
+            @Override
+            public void preProcess(org.nd4j.linalg.dataset.api.DataSet toPreProcess) {
+                toPreProcess.getFeatures().addi(1000);
+            }
+        });
+
+        int cnt = 0;
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            assertEquals(1000.0 + cnt * 2, ds.getFeatures().getDouble(0), 1e-5);
+            cnt++;
+        }
+
+        assertEquals(10, cnt);
+        assertEquals(0, iterator.getQueueDepth());
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testDetachedBatchSurvives() {
+        TestDataSetIterator backing = new TestDataSetIterator(buildList(30), 3);
+        AsyncDataSetIterator iterator = new AsyncDataSetIterator(backing, 2, 1, true);
+
+        List<DataSet> kept = new ArrayList<>();
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            ds.detach();
+            kept.add(ds);
+        }
+
+        for (int i = 0; i < kept.size(); i++)
+            assertEquals((double) i * 3, kept.get(i).getFeatures().getDouble(0), 1e-5);
+
+        assertTrue(iterator.getWorkspacePoolSize() > 0);
+        iterator.shutdown();
+    }
+}
@@ -13,6 +13,8 @@ import org.nd4j.linalg.dataset.api.iterator.SamplingDataSetIterator;
 import org.nd4j.linalg.dataset.api.iterator.cache.DataSetCache;
 import org.nd4j.linalg.dataset.api.iterator.cache.InFileDataSetCache;
 import org.nd4j.linalg.dataset.api.iterator.cache.InMemoryDataSetCache;
+import org.nd4j.linalg.dataset.api.iterator.cache.MappedDataSetCache;
+import org.nd4j.linalg.dataset.api.iterator.cache.TieredDataSetCache;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 
@@ -54,6 +56,91 @@ public class CachingDataSetIteratorTest extends BaseNd4jTest {
         FileUtils.deleteDirectory(cacheDir.toFile());
     }
 
+    @Test
+    public void testMapped() throws IOException {
+        Path cacheDir = Files.createTempDirectory("nd4j-mapped-data-set-cache-test");
+        MappedDataSetCache cache = new MappedDataSetCache(cacheDir.toFile(), 8 * 1024L);
+
+        runDataSetTest(cache);
+
+        // small segment size forces entries to be spread over several segments
+        assertTrue(cache.getNumberOfSegments() > 1);
+        cache.close();
+
+        // reopened cache should serve the same data from existing segments
+        MappedDataSetCache reopened = new MappedDataSetCache(cacheDir.toFile(), 8 * 1024L);
+        assertTrue(reopened.isComplete("test-namespace"));
+        DataSet ds = reopened.get(String.format("data-set-cache-%s-%06d.bin", "test-namespace", 0));
+        assertNotNull(ds);
+        assertEquals(1000.0, ds.getFeatures().sumNumber().doubleValue(), 1e-5);
+
+        // in-place changes are private to the caller
+        ds.getFeatures().assign(5.0);
+        DataSet ds2 = reopened.get(String.format("data-set-cache-%s-%06d.bin", "test-namespace", 0));
+        assertEquals(1000.0, ds2.getFeatures().sumNumber().doubleValue(), 1e-5);
+        reopened.close();
+
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
+    @Test
+    public void testMappedSegmented() throws IOException {
+        Path cacheDir = Files.createTempDirectory("nd4j-mapped-data-set-cache-test");
+
+        // tiny mapping limit forces arrays to be copied over several mappings, as arrays above 2GB would be
+        MappedDataSetCache cache = new MappedDataSetCache(cacheDir.toFile(), 8 * 1024L) {
+            {
+                maxMappingSize = 100;
+            }
+        };
+
+        DataSet original = new DataSet(Nd4j.linspace(1, 300, 300).reshape(10, 30), Nd4j.linspace(1, 20, 20).reshape(10, 2));
+        cache.put("segmented", original);
+
+        DataSet restored = cache.get("segmented");
+        assertNotNull(restored);
+        assertEquals(original.getFeatures(), restored.getFeatures());
+        assertEquals(original.getLabels(), restored.getLabels());
+        cache.close();
+
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
+    @Test
+    public void testTiered() throws IOException {
+        Path cacheDir = Files.createTempDirectory("nd4j-tiered-data-set-cache-test");
+
+        // each batch takes 4080 bytes, so only two of them fit into memory budget
+        TieredDataSetCache cache = new TieredDataSetCache(new InFileDataSetCache(cacheDir), 10000,
+                        TieredDataSetCache.EvictionPolicy.LRU);
+
+        runDataSetTest(cache);
+
+        assertTrue(cache.getCachedBytes() <= 10000);
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.getFileHits() > 0);
+        assertEquals(0, cache.getMisses());
+
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
+    @Test
+    public void testTieredCompressed() throws IOException {
+        Path cacheDir = Files.createTempDirectory("nd4j-tiered-data-set-cache-test");
+
+        TieredDataSetCache cache = new TieredDataSetCache(new InFileDataSetCache(cacheDir), 10000,
+                        TieredDataSetCache.EvictionPolicy.LFU, 100000, "GZIP");
+
+        runDataSetTest(cache);
+
+        // ones and zeros compress well, so nothing should be spilled to disk
+        assertTrue(cache.getNumberOfCompressedEntries() > 0);
+        assertTrue(cache.getCompressedHits() > 0);
+        assertEquals(0, cache.getDemotions());
+
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
     private void runDataSetTest(DataSetCache cache) {
         int rows = 500;
         int inputColumns = 100;
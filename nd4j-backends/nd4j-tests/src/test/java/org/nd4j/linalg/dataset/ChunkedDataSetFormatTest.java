@@ -0,0 +1,105 @@
+package org.nd4j.linalg.dataset;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.ChunkedDataSetFormat.Component;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class ChunkedDataSetFormatTest extends BaseNd4jTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    public ChunkedDataSetFormatTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+
+    private static DataSet buildDataSet() {
+        INDArray features = Nd4j.linspace(1, 60, 60).reshape(10, 6);
+        INDArray labels = Nd4j.linspace(1, 30, 30).reshape('f', 10, 3);
+        INDArray labelsMask = Nd4j.ones(10, 3);
+        return new DataSet(features, labels, null, labelsMask);
+    }
+
+    @Test
+    public void testDataSetRoundTrip() throws Exception {
+        DataSet ds = buildDataSet();
+
+        for (String compression : new String[] {null, "GZIP"}) {
+            File file = testDir.newFile();
+            ChunkedDataSetFormat.save(ds, file, compression);
+
+            assertTrue(ChunkedDataSetFormat.isChunkedFormat(file));
+
+            DataSet restored = ChunkedDataSetFormat.loadDataSet(file);
+            assertEquals(ds, restored);
+
+            // regular load() should detect chunked format as well
+            DataSet loaded = new DataSet();
+            loaded.load(file);
+            assertEquals(ds, loaded);
+        }
+    }
+
+    @Test
+    public void testPartialLoad() throws Exception {
+        DataSet ds = buildDataSet();
+
+        for (String compression : new String[] {null, "GZIP"}) {
+            File file = testDir.newFile();
+            ChunkedDataSetFormat.save(ds, file, compression);
+
+            DataSet featuresOnly = ChunkedDataSetFormat.loadDataSet(file, Component.FEATURES);
+            assertEquals(ds.getFeatures(), featuresOnly.getFeatures());
+            assertNull(featuresOnly.getLabels());
+            assertNull(featuresOnly.getLabelsMaskArray());
+
+            DataSet rows = ChunkedDataSetFormat.loadDataSet(file, 3, 7);
+            assertArrayEquals(new int[] {4, 6}, rows.getFeatures().shape());
+            assertEquals(ds.getFeatures().get(NDArrayIndex.interval(3, 7), NDArrayIndex.all()), rows.getFeatures());
+            assertEquals(ds.getLabels().get(NDArrayIndex.interval(3, 7), NDArrayIndex.all()), rows.getLabels());
+            assertNull(rows.getFeaturesMaskArray());
+        }
+    }
+
+    @Test
+    public void testMultiDataSetRoundTrip() throws Exception {
+        INDArray[] features = new INDArray[] {Nd4j.rand(5, 4), Nd4j.rand(new int[] {5, 2, 3})};
+        INDArray[] labels = new INDArray[] {Nd4j.rand(5, 2)};
+        INDArray[] featuresMasks = new INDArray[] {null, Nd4j.ones(5, 3)};
+        MultiDataSet mds = new MultiDataSet(features, labels, featuresMasks, null);
+
+        File file = testDir.newFile();
+        ChunkedDataSetFormat.save(mds, file, "GZIP");
+
+        MultiDataSet restored = ChunkedDataSetFormat.loadMultiDataSet(file);
+        assertEquals(mds, restored);
+
+        MultiDataSet rows = ChunkedDataSetFormat.loadMultiDataSet(file, 1, 3, Component.FEATURES);
+        assertEquals(2, rows.getFeatures().length);
+        assertArrayEquals(new int[] {2, 2, 3}, rows.getFeatures(1).shape());
+        assertEquals(features[1].get(NDArrayIndex.interval(1, 3), NDArrayIndex.all(), NDArrayIndex.all()),
+                        rows.getFeatures(1));
+
+        MultiDataSet loaded = new MultiDataSet();
+        loaded.load(file);
+        assertEquals(mds, loaded);
+    }
+}
@@ -24,11 +24,13 @@ import org.junit.runners.Parameterized;
 import org.nd4j.linalg.BaseNd4jTest;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.random.impl.BernoulliDistribution;
+import org.nd4j.linalg.dataset.api.DataSetUtil;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 import org.nd4j.linalg.indexing.INDArrayIndex;
 import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.primitives.Pair;
 import org.nd4j.linalg.util.ArrayUtil;
 import org.nd4j.linalg.util.FeatureUtil;
 
@@ -923,6 +925,53 @@ public class DataSetTest extends BaseNd4jTest {
         assertTrue(allL);
     }
 
+    @Test
+    public void testMergeParallelMatchesSequential() {
+        //Large enough to go through parallel merge path; compare against one-array-at-a-time merge
+        int numExamples = 200;
+        int inSize = 13;
+        int labelSize = 5;
+        int minTSLength = 20;
+
+        Nd4j.getRandom().setSeed(12345);
+        List<DataSet> list = new ArrayList<>(numExamples);
+        INDArray[] in = new INDArray[numExamples];
+        INDArray[] out = new INDArray[numExamples];
+        INDArray[] outMasks = new INDArray[numExamples];
+        for (int i = 0; i < numExamples; i++) {
+            int length = minTSLength + i % 7;
+            in[i] = Nd4j.rand(new int[] {1, inSize, length});
+            out[i] = Nd4j.rand(new int[] {1, labelSize, length});
+            outMasks[i] = (i % 3 == 0 ? null : Nd4j.ones(1, length));
+            list.add(new DataSet(in[i], out[i], null, outMasks[i]));
+        }
+
+        DataSet merged = DataSet.merge(list);
+        Pair<INDArray, INDArray> expF = DataSetUtil.mergeFeatures(in, null);
+        Pair<INDArray, INDArray> expL = DataSetUtil.mergeLabels(out, outMasks);
+
+        assertEquals(expF.getFirst(), merged.getFeatures());
+        assertEquals(expF.getSecond(), merged.getFeaturesMaskArray());
+        assertEquals(expL.getFirst(), merged.getLabels());
+        assertEquals(expL.getSecond(), merged.getLabelsMaskArray());
+
+        //2d, with masks present only for some of examples
+        INDArray[] arr2d = new INDArray[numExamples];
+        INDArray[] masks2d = new INDArray[numExamples];
+        for (int i = 0; i < numExamples; i++) {
+            arr2d[i] = Nd4j.rand(2, inSize);
+            masks2d[i] = (i % 2 == 0 ? null : Nd4j.zeros(2, inSize));
+        }
+
+        Pair<INDArray, INDArray> p = DataSetUtil.mergePreallocated(arr2d, masks2d, false);
+        assertEquals(Nd4j.vstack(arr2d), p.getFirst());
+        for (int i = 0; i < numExamples; i++) {
+            double expected = (i % 2 == 0 ? 1.0 : 0.0);
+            INDArray maskRows = p.getSecond().get(interval(2 * i, 2 * i + 2), all());
+            assertEquals(expected * 2 * inSize, maskRows.sumNumber().doubleValue(), 0.0);
+        }
+    }
+
 
     @Override
     public char ordering() {
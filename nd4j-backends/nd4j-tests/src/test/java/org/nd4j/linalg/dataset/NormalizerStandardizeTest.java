@@ -8,10 +8,15 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.iterator.TestDataSetIterator;
 import org.nd4j.linalg.dataset.api.preprocessor.NormalizerStandardize;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.DistributionStats;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.NormalizerStats;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.ops.transforms.Transforms;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 /**
@@ -181,6 +186,115 @@ public class NormalizerStandardizeTest extends BaseNd4jTest {
         assertEquals(1.70783f, norm4.getStd().getFloat(0), 1e-4);
     }
 
+    @Test
+    public void testParallelFit() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray features = Nd4j.rand(500, 4).muli(10).addi(5);
+        INDArray labels = Nd4j.rand(500, 2).muli(3);
+        DataSet dataSet = new DataSet(features, labels);
+
+        NormalizerStandardize serial = new NormalizerStandardize();
+        serial.fitLabel(true);
+        serial.fit(new TestDataSetIterator(dataSet, 7));
+
+        for (int threads : new int[] {1, 2, 4}) {
+            NormalizerStandardize parallel = new NormalizerStandardize();
+            parallel.fitLabel(true);
+            parallel.fit(new TestDataSetIterator(dataSet, 7), threads);
+
+            assertEquals(serial.getMean(), parallel.getMean());
+            assertEquals(serial.getStd(), parallel.getStd());
+            assertEquals(serial.getLabelMean(), parallel.getLabelMean());
+            assertEquals(serial.getLabelStd(), parallel.getLabelStd());
+        }
+
+        // several iterators, i.e. one per file
+        DataSetIterator first = new TestDataSetIterator(new DataSet(features.get(NDArrayIndex.interval(0, 200),
+                        NDArrayIndex.all()), labels.get(NDArrayIndex.interval(0, 200), NDArrayIndex.all())), 13);
+        DataSetIterator second = new TestDataSetIterator(new DataSet(features.get(NDArrayIndex.interval(200, 500),
+                        NDArrayIndex.all()), labels.get(NDArrayIndex.interval(200, 500), NDArrayIndex.all())), 13);
+
+        NormalizerStandardize split = new NormalizerStandardize();
+        split.fit(Arrays.asList(first, second), 3);
+        assertEquals(serial.getMean(), split.getMean());
+        assertEquals(serial.getStd(), split.getStd());
+    }
+
+    @Test
+    public void testParallelFitReusingIterator() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray features = Nd4j.rand(500, 4).muli(10).addi(5);
+        INDArray labels = Nd4j.rand(500, 2).muli(3);
+        DataSet dataSet = new DataSet(features, labels);
+
+        NormalizerStandardize serial = new NormalizerStandardize();
+        serial.fit(new TestDataSetIterator(dataSet, 10));
+
+        // iterator overwrites arrays of previously returned DataSet on every next() call
+        final DataSet reused = new DataSet(Nd4j.create(10, 4), Nd4j.create(10, 2));
+        DataSetIterator reusing = new TestDataSetIterator(dataSet, 10) {
+            @Override
+            public synchronized DataSet next() {
+                DataSet ds = super.next();
+                reused.getFeatures().assign(ds.getFeatures());
+                reused.getLabels().assign(ds.getLabels());
+                return reused;
+            }
+        };
+
+        NormalizerStandardize parallel = new NormalizerStandardize();
+        parallel.fit(reusing, 4);
+        assertEquals(serial.getMean(), parallel.getMean());
+        assertEquals(serial.getStd(), parallel.getStd());
+    }
+
+    @Test
+    public void testParallelFitNonMergeableBuilder() {
+        Nd4j.getRandom().setSeed(12345);
+        DataSet dataSet = new DataSet(Nd4j.rand(500, 4).muli(10).addi(5), Nd4j.rand(500, 2));
+
+        NormalizerStandardize serial = new NormalizerStandardize();
+        serial.fit(new TestDataSetIterator(dataSet, 7));
+
+        // builder without merge() support: fit falls back to single thread
+        NormalizerStandardize custom = new NormalizerStandardize() {
+            @Override
+            protected NormalizerStats.Builder newBuilder() {
+                final DistributionStats.Builder delegate = new DistributionStats.Builder();
+                return new NormalizerStats.Builder<DistributionStats>() {
+                    @Override
+                    public NormalizerStats.Builder<DistributionStats> addFeatures(
+                                    org.nd4j.linalg.dataset.api.DataSet dataSet) {
+                        delegate.addFeatures(dataSet);
+                        return this;
+                    }
+
+                    @Override
+                    public NormalizerStats.Builder<DistributionStats> addLabels(
+                                    org.nd4j.linalg.dataset.api.DataSet dataSet) {
+                        delegate.addLabels(dataSet);
+                        return this;
+                    }
+
+                    @Override
+                    public NormalizerStats.Builder<DistributionStats> add(INDArray data, INDArray mask) {
+                        delegate.add(data, mask);
+                        return this;
+                    }
+
+                    @Override
+                    public DistributionStats build() {
+                        return delegate.build();
+                    }
+                };
+            }
+        };
+
+        custom.fit(new TestDataSetIterator(dataSet, 7), 4);
+        assertEquals(serial.getMean(), custom.getMean());
+        assertEquals(serial.getStd(), custom.getStd());
+    }
+
     @Test
     public void testUnderOverflow() {
         // This dataset will be basically constant with a small std deviation
@@ -0,0 +1,159 @@
+package org.nd4j.linalg.dataset;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.preprocessor.ImagePreProcessingScaler;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerMinMaxScaler;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerStandardize;
+import org.nd4j.linalg.dataset.api.preprocessor.PreProcessingPipeline;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class PreProcessingPipelineTest extends BaseNd4jTest {
+
+    public PreProcessingPipelineTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+
+    @Test
+    public void testFusedMatchesSequential2d() {
+        Nd4j.getRandom().setSeed(12345);
+        DataSet data = new DataSet(Nd4j.rand(20, 5).muli(255), Nd4j.rand(20, 3).muli(7).addi(2));
+
+        NormalizerMinMaxScaler minMax = new NormalizerMinMaxScaler(-1, 1);
+        minMax.fitLabel(true);
+        minMax.fit(data);
+
+        ImagePreProcessingScaler scaler = new ImagePreProcessingScaler(0, 2, 8);
+
+        NormalizerStandardize standardize = new NormalizerStandardize();
+        standardize.fit(data);
+
+        DataSet expected = data.copy();
+        minMax.preProcess(expected);
+        scaler.preProcess(expected);
+        standardize.preProcess(expected);
+        expected.getLabels().muli(0.5).addi(3);
+
+        PreProcessingPipeline pipeline = new PreProcessingPipeline.Builder().add(minMax).add(scaler)
+                        .add(standardize).affineLabels(0.5, 3).build();
+
+        DataSet actual = data.copy();
+        pipeline.preProcess(actual);
+
+        assertEquals(1, pipeline.getNumberOfStages());
+        assertEquals(expected.getFeatures(), actual.getFeatures());
+        assertEquals(expected.getLabels(), actual.getLabels());
+    }
+
+    @Test
+    public void testTimeSeriesWithMaskAndBarrier() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray features = Nd4j.rand(new int[] {4, 3, 6}).muli(10);
+        INDArray mask = Nd4j.ones(4, 6);
+        mask.putScalar(0, 5, 0.0);
+        mask.putScalar(2, 4, 0.0);
+        DataSet data = new DataSet(features, Nd4j.rand(new int[] {4, 2, 6}), mask, null);
+
+        NormalizerStandardize standardize = new NormalizerStandardize();
+        standardize.fit(data);
+
+        DataSetPreProcessor doubler = new DataSetPreProcessor() {
+            @Override
+            public void preProcess(org.nd4j.linalg.dataset.api.DataSet toPreProcess) {
+                toPreProcess.getFeatures().muli(2);
+            }
+        };
+
+        DataSet expected = data.copy();
+        standardize.preProcess(expected);
+        doubler.preProcess(expected);
+        expected.getFeatures().addi(1);
+
+        PreProcessingPipeline pipeline = new PreProcessingPipeline.Builder().add(standardize).add(doubler)
+                        .affine(1.0, 1.0).build();
+
+        DataSet actual = data.copy();
+        pipeline.preProcess(actual);
+
+        assertEquals(3, pipeline.getNumberOfStages());
+        assertEquals(expected.getFeatures(), actual.getFeatures());
+        assertEquals(expected.getLabels(), actual.getLabels());
+
+        long[] times = pipeline.getLastStageTimes();
+        assertEquals(3, times.length);
+        for (long time : times)
+            assertTrue(time >= 0);
+
+        assertEquals(1, pipeline.getNumberOfBatches());
+        assertEquals(Arrays.asList("NormalizerStandardize", doubler.getClass().getSimpleName(), "affine"),
+                        pipeline.getStageNames());
+    }
+
+    @Test
+    public void testMaskedFusedMatchesSequential() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray mask = Nd4j.ones(4, 6);
+        mask.putScalar(0, 5, 0.0);
+        mask.putScalar(2, 4, 0.0);
+        DataSet data = new DataSet(Nd4j.rand(new int[] {4, 3, 6}).muli(10), Nd4j.rand(new int[] {4, 2, 6}), mask,
+                        mask.dup());
+
+        NormalizerStandardize standardize = new NormalizerStandardize();
+        standardize.fitLabel(true);
+        standardize.fit(data);
+
+        NormalizerMinMaxScaler minMax = new NormalizerMinMaxScaler();
+        minMax.fit(data);
+
+        // neither of these preserves zeros, so masked values have to end up with their shifts
+        ImagePreProcessingScaler scaler = new ImagePreProcessingScaler(0.5, 1.5, 1);
+
+        DataSet expected = data.copy();
+        standardize.preProcess(expected);
+        scaler.preProcess(expected);
+        expected.getFeatures().muli(2);
+        expected.getLabels().addi(3);
+
+        PreProcessingPipeline pipeline = new PreProcessingPipeline.Builder().add(standardize).add(scaler)
+                        .affine(2.0, 0.0).affineLabels(1.0, 3.0).build();
+
+        DataSet actual = data.copy();
+        pipeline.preProcess(actual);
+
+        assertEquals(1, pipeline.getNumberOfStages());
+        assertEquals(expected.getFeatures(), actual.getFeatures());
+        assertEquals(expected.getLabels(), actual.getLabels());
+        assertEquals(1.0, actual.getFeatures().getDouble(0, 1, 5), 1e-5);
+        assertEquals(3.0, actual.getLabels().getDouble(2, 0, 4), 1e-5);
+
+        // masked normalizer at the end sets masked values back to zero
+        expected = data.copy();
+        standardize.preProcess(expected);
+        scaler.preProcess(expected);
+        minMax.preProcess(expected);
+
+        pipeline = new PreProcessingPipeline.Builder().add(standardize).add(scaler).add(minMax).build();
+
+        actual = data.copy();
+        pipeline.preProcess(actual);
+
+        assertEquals(expected.getFeatures(), actual.getFeatures());
+        assertEquals(expected.getLabels(), actual.getLabels());
+        assertEquals(0.0, actual.getFeatures().getDouble(0, 1, 5), 1e-5);
+    }
+}
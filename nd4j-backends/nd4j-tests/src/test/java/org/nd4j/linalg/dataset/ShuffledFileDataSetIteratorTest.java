@@ -0,0 +1,116 @@
+package org.nd4j.linalg.dataset;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class ShuffledFileDataSetIteratorTest extends BaseNd4jTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    public ShuffledFileDataSetIteratorTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+
+    @Test
+    public void testAllExamplesReturnedOnce() throws Exception {
+        File dir = testDir.newFolder();
+        int numFiles = 10;
+        int perFile = 5;
+        int total = numFiles * perFile;
+        for (int f = 0; f < numFiles; f++) {
+            INDArray features = Nd4j.linspace(f * perFile, (f + 1) * perFile - 1, perFile).transpose();
+            INDArray labels = features.mul(10);
+            new DataSet(features, labels).save(new File(dir, "dataset-" + f + ".bin"));
+        }
+
+        ShuffledFileDataSetIterator iterator = new ShuffledFileDataSetIterator(dir, 7, 8, 12345);
+
+        List<List<Integer>> epochs = new ArrayList<>();
+        for (int epoch = 0; epoch < 2; epoch++) {
+            List<Integer> seen = new ArrayList<>();
+            boolean[] found = new boolean[total];
+            while (iterator.hasNext()) {
+                DataSet ds = iterator.next();
+                assertTrue(ds.numExamples() <= 7);
+                for (int i = 0; i < ds.numExamples(); i++) {
+                    int value = (int) ds.getFeatures().getDouble(i, 0);
+                    assertEquals(value * 10.0, ds.getLabels().getDouble(i, 0), 1e-5);
+                    assertFalse(found[value]);
+                    found[value] = true;
+                    seen.add(value);
+                }
+            }
+
+            assertEquals(total, seen.size());
+            assertEquals(total, iterator.cursor());
+            epochs.add(seen);
+            iterator.reset();
+        }
+
+        // order differs between epochs, and from original order
+        assertNotEquals(epochs.get(0), epochs.get(1));
+
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < total; i++)
+            sorted.add(i);
+        assertNotEquals(sorted, epochs.get(0));
+    }
+
+    @Test
+    public void testMetadata() throws Exception {
+        File dir = testDir.newFolder();
+        for (int f = 0; f < 4; f++)
+            new DataSet(Nd4j.rand(6, 3), Nd4j.rand(6, 2)).save(new File(dir, "dataset-" + f + ".bin"));
+
+        ShuffledFileDataSetIterator iterator = new ShuffledFileDataSetIterator(dir, 5, 8, 12345);
+
+        // sizes are available before the first batch is fetched
+        assertEquals(24, iterator.totalExamples());
+        assertEquals(24, iterator.numExamples());
+        assertEquals(3, iterator.inputColumns());
+        assertEquals(2, iterator.totalOutcomes());
+        assertEquals(0, iterator.cursor());
+
+        iterator.next();
+        assertEquals(5, iterator.cursor());
+    }
+
+    @Test
+    public void testTotalExamplesUnevenFiles() throws Exception {
+        File dir = testDir.newFolder();
+        new DataSet(Nd4j.rand(6, 3), Nd4j.rand(6, 2)).save(new File(dir, "dataset-0.bin"));
+        new DataSet(Nd4j.rand(6, 3), Nd4j.rand(6, 2)).save(new File(dir, "dataset-1.bin"));
+        new DataSet(Nd4j.rand(2, 3), Nd4j.rand(2, 2)).save(new File(dir, "dataset-2.bin"));
+
+        ShuffledFileDataSetIterator iterator = new ShuffledFileDataSetIterator(dir, 5, 8, 12345);
+        iterator.next();
+        assertEquals(14, iterator.totalExamples());
+
+        int count = iterator.cursor();
+        while (iterator.hasNext())
+            count += iterator.next().numExamples();
+
+        assertEquals(14, count);
+        assertEquals(14, iterator.numExamples());
+    }
+}
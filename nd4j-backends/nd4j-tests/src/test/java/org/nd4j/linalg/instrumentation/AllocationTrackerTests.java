@@ -0,0 +1,146 @@
+package org.nd4j.linalg.instrumentation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.instrumentation.AllocationEvent;
+import org.nd4j.linalg.api.instrumentation.AllocationStats;
+import org.nd4j.linalg.api.instrumentation.AllocationTracker;
+import org.nd4j.linalg.api.instrumentation.Instrumentation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class AllocationTrackerTests {
+
+    @Test
+    public void testLiveBytes1() {
+        AllocationTracker tracker = new AllocationTracker(0, 16, 16);
+
+        DataBuffer bufferA = Nd4j.createBuffer(new float[100]);
+        DataBuffer bufferB = Nd4j.createBuffer(new int[50]);
+
+        tracker.log(bufferA);
+        tracker.log(bufferB);
+
+        long expected = bufferA.length() * bufferA.getElementSize() + bufferB.length() * bufferB.getElementSize();
+        assertEquals(expected, tracker.getLiveBytes());
+        assertEquals(2, tracker.getLiveCount());
+        assertEquals(bufferB.length() * 4, tracker.getLiveBytes(DataBuffer.Type.INT));
+
+        tracker.log(bufferA, Instrumentation.DESTROYED);
+        assertEquals(bufferB.length() * 4, tracker.getLiveBytes());
+        assertEquals(1, tracker.getLiveCount());
+
+        // allocated totals are cumulative
+        assertEquals(expected, tracker.getAllocatedBytes());
+    }
+
+    @Test
+    public void testDeduplication1() {
+        AllocationTracker tracker = new AllocationTracker(0, 16, 16);
+
+        INDArray array = Nd4j.create(10, 10);
+        tracker.log(array.data());
+        tracker.log(array);
+        tracker.log(array.getRow(1));
+
+        assertEquals(1, tracker.getNumberOfTrackedBuffers());
+        assertEquals(100 * array.data().getElementSize(), tracker.getLiveBytes());
+        assertEquals(2, tracker.getNumberOfArrays());
+    }
+
+    @Test
+    public void testIsDestroyed1() {
+        AllocationTracker tracker = new AllocationTracker(0, 16, 16);
+
+        DataBuffer buffer = Nd4j.createBuffer(new float[100]);
+        tracker.log(buffer);
+
+        String id = tracker.getStillAlive().iterator().next().getId();
+        assertNotNull(id);
+        assertFalse(tracker.isDestroyed(id));
+
+        tracker.log(buffer, Instrumentation.DESTROYED);
+        assertTrue(tracker.isDestroyed(id));
+        assertEquals(id, tracker.getDestroyed().iterator().next().getId());
+
+        // unknown ids aren't errors
+        assertFalse(tracker.isDestroyed("unknown"));
+    }
+
+    @Test
+    public void testSites1() {
+        AllocationTracker tracker = new AllocationTracker(0, 16, 16);
+
+        tracker.log(Nd4j.createBuffer(new float[10]));
+
+        Map<String, AllocationStats> sites = tracker.getTopSites(10);
+        assertEquals(1, sites.size());
+
+        String site = sites.keySet().iterator().next();
+        assertTrue(site, site.contains(AllocationTrackerTests.class.getName()));
+    }
+
+    @Test
+    public void testRingBuffer1() {
+        AllocationTracker tracker = new AllocationTracker(0, 16, 16);
+
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int e = 0; e < 100; e++) {
+            DataBuffer buffer = Nd4j.createBuffer(new float[e + 1]);
+            buffers.add(buffer);
+            tracker.log(buffer);
+        }
+
+        List<AllocationEvent> events = tracker.getRecentEvents();
+        assertEquals(16, events.size());
+        assertEquals(100 * 4, events.get(events.size() - 1).getBytes());
+        assertEquals(100, tracker.getLiveCount());
+    }
+
+    @Test
+    public void testSampling1() {
+        AllocationTracker tracker = new AllocationTracker(64 * 1024, 16, 16);
+
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int e = 0; e < 20000; e++) {
+            DataBuffer buffer = Nd4j.createBuffer(new float[256]);
+            buffers.add(buffer);
+            tracker.log(buffer);
+        }
+
+        long actual = 20000L * 256 * 4;
+        log.info("Estimated: {}; actual: {}; sampled: {}", tracker.getLiveBytes(), actual,
+                        tracker.getNumberOfTrackedBuffers());
+
+        assertTrue(tracker.getNumberOfTrackedBuffers() < 2000);
+        assertEquals(actual, tracker.getLiveBytes(), actual * 0.5);
+        assertEquals(actual, tracker.getAllocatedBytes());
+    }
+
+    @Test
+    public void testRelease1() throws Exception {
+        AllocationTracker tracker = new AllocationTracker(0, 16, 16);
+
+        for (int e = 0; e < 10; e++)
+            tracker.log(Nd4j.createBuffer(new float[100]));
+
+        assertEquals(10, tracker.getLiveCount());
+
+        for (int e = 0; e < 50 && tracker.getLiveCount() > 0; e++) {
+            System.gc();
+            Thread.sleep(100);
+            tracker.drain();
+        }
+
+        assertEquals(0, tracker.getLiveCount());
+        assertEquals(0, tracker.getLiveBytes());
+    }
+}
@@ -0,0 +1,144 @@
+package org.nd4j.linalg.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.memory.stash.*;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+@RunWith(Parameterized.class)
+public class BasicStashTests extends BaseNd4jTest {
+    DataBuffer.Type initialType;
+
+    public BasicStashTests(Nd4jBackend backend) {
+        super(backend);
+        this.initialType = Nd4j.dataType();
+    }
+
+    @Before
+    public void setUp() {
+        Nd4j.setDataType(DataBuffer.Type.DOUBLE);
+    }
+
+    @After
+    public void shutdown() {
+        Nd4j.setDataType(initialType);
+    }
+
+    @Test
+    public void testPutGet1() throws Exception {
+        BasicStash<String> stash = new BasicStash<>();
+
+        INDArray array = Nd4j.linspace(1, 100, 100).reshape(10, 10);
+        INDArray exp = array.dup();
+
+        stash.put("A", array);
+        assertTrue(stash.checkIfExists("A"));
+        assertFalse(stash.checkIfExists("B"));
+
+        // stash keeps its own copy
+        array.addi(1.0);
+        assertEquals(exp, stash.get("A"));
+        assertEquals(StashTier.HOT, stash.getTier("A"));
+        assertEquals(800, stash.getHotBytes(0));
+
+        stash.remove("A");
+        assertNull(stash.get("A"));
+        assertEquals(0, stash.size());
+        assertEquals(0, stash.getHotBytes(0));
+    }
+
+    @Test
+    public void testTiers1() throws Exception {
+        BasicStash<String> stash = new BasicStash<>(
+                        StashConfiguration.builder().hotBudget(8000).compressedBudget(1).build());
+
+        INDArray a = Nd4j.linspace(1, 1000, 1000);
+        INDArray b = Nd4j.linspace(1001, 2000, 1000);
+        INDArray c = Nd4j.linspace(2001, 3000, 1000);
+
+        stash.put("A", a);
+        assertEquals(StashTier.HOT, stash.getTier("A"));
+
+        stash.put("B", b);
+        stash.put("C", c);
+
+        // least recently used entries went all the way down to disk
+        assertEquals(StashTier.DISK, stash.getTier("A"));
+        assertEquals(StashTier.DISK, stash.getTier("B"));
+        assertEquals(StashTier.HOT, stash.getTier("C"));
+        assertEquals(8000, stash.getHotBytes(0));
+        assertTrue(stash.getSpilledBytes() > 0);
+
+        assertEquals(a, stash.get("A"));
+        assertEquals(StashTier.HOT, stash.getTier("A"));
+        assertEquals(StashTier.DISK, stash.getTier("C"));
+
+        assertEquals(b, stash.get("B"));
+        assertEquals(c, stash.get("C"));
+
+        stash.purge();
+        assertEquals(0, stash.size());
+        assertEquals(0, stash.getHotBytes(0));
+        assertEquals(0, stash.getCompressedBytes());
+        assertEquals(0, stash.getSpilledBytes());
+    }
+
+    @Test
+    public void testPrefetch1() throws Exception {
+        BasicStash<String> stash = new BasicStash<>(StashConfiguration.builder().hotBudget(8000).build());
+
+        INDArray a = Nd4j.linspace(1, 1000, 1000);
+        INDArray b = Nd4j.linspace(1001, 2000, 1000);
+
+        stash.put("A", a);
+        stash.put("B", b);
+        assertEquals(StashTier.COMPRESSED, stash.getTier("A"));
+
+        stash.prefetch(Arrays.asList("A"));
+
+        for (int e = 0; e < 100 && stash.getTier("A") != StashTier.HOT; e++)
+            Thread.sleep(50);
+
+        assertEquals(StashTier.HOT, stash.getTier("A"));
+        assertEquals(a, stash.get("A"));
+
+        stash.purge();
+        stash.shutdown();
+    }
+
+    @Test
+    public void testStashManager1() throws Exception {
+        StashManager manager = new BasicStashManager();
+
+        assertFalse(manager.checkIfStashExists("S1"));
+
+        Stash<String> stash = manager.createStashIfNotExists("S1");
+        assertTrue(manager.checkIfStashExists("S1"));
+        assertTrue(stash == manager.getStash("S1"));
+        assertTrue(stash == manager.createStashIfNotExists("S1"));
+
+        stash.put("K1", Nd4j.create(10));
+        manager.destroyStash("S1");
+
+        assertFalse(manager.checkIfStashExists("S1"));
+        assertEquals(0, stash.size());
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -0,0 +1,172 @@
+package org.nd4j.linalg.profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.data.LatencyAggregator;
+import org.nd4j.linalg.profiler.data.primitives.LatencyHistogram;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class LatencyAggregatorTests {
+
+    @Before
+    public void setUp() {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.LATENCY);
+        OpProfiler.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.DISABLED);
+    }
+
+    @Test
+    public void testHistogramPercentiles1() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int e = 1; e <= 1000; e++)
+            histogram.record(e * 1000L);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMaximum());
+        assertEquals(500500L, histogram.getAverage());
+
+        // log-linear buckets keep relative error below 1/32
+        assertEquals(500000.0, histogram.getPercentile(50.0), 500000.0 / 32);
+        assertEquals(990000.0, histogram.getPercentile(99.0), 990000.0 / 32);
+        assertEquals(999000.0, histogram.getPercentile(99.9), 999000.0 / 32);
+        assertEquals(1000000L, histogram.getPercentile(100.0));
+    }
+
+    @Test
+    public void testHistogramSmallValues1() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int e = 0; e < 32; e++)
+            histogram.record(e);
+
+        // values below 32 are recorded exactly
+        assertEquals(15L, histogram.getPercentile(50.0));
+        assertEquals(31L, histogram.getPercentile(100.0));
+    }
+
+    @Test
+    public void testHistogramAddReset1() {
+        LatencyHistogram histogramA = new LatencyHistogram();
+        LatencyHistogram histogramB = new LatencyHistogram();
+
+        histogramA.record(100);
+        histogramB.record(Long.MAX_VALUE);
+
+        histogramA.add(histogramB);
+        assertEquals(2, histogramA.getCount());
+        assertEquals(Long.MAX_VALUE, histogramA.getMaximum());
+
+        histogramA.reset();
+        assertEquals(0, histogramA.getCount());
+        assertEquals(0, histogramA.getPercentile(99.0));
+    }
+
+    @Test
+    public void testShapeClasses1() {
+        LatencyAggregator aggregator = new LatencyAggregator();
+
+        int classA = LatencyAggregator.shapeClassOf(Nd4j.create(10, 10));
+        int classB = LatencyAggregator.shapeClassOf(Nd4j.create(8, 16));
+        int classC = LatencyAggregator.shapeClassOf(Nd4j.create(100, 100));
+
+        assertEquals(classA, classB);
+        assertNotEquals(classA, classC);
+
+        aggregator.record("add", classA, 100);
+        aggregator.record("add", classB, 200);
+        aggregator.record("add", classC, 10000);
+
+        assertEquals(3, aggregator.getHistogram("add").getCount());
+
+        Map<Integer, LatencyHistogram> perClass = aggregator.getShapeClassHistograms("add");
+        assertEquals(2, perClass.size());
+        assertEquals(2, perClass.get(classA).getCount());
+        assertEquals(1, perClass.get(classC).getCount());
+
+        assertNull(aggregator.getHistogram("mul"));
+
+        aggregator.reset();
+        assertTrue(aggregator.getOpNames().isEmpty());
+        assertNull(aggregator.getHistogram("add"));
+    }
+
+    @Test
+    public void testHistogramMultipleThreads1() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long value = (t + 1) * 1000L;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int e = 0; e < 1000; e++)
+                        histogram.record(value);
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        // values recorded by finished threads are kept
+        assertEquals(4001, histogram.getCount());
+        assertEquals(4000L, histogram.getMaximum());
+        assertEquals(5 + 1000L * (1000 + 2000 + 3000 + 4000), histogram.getSum());
+        assertEquals(4001, histogram.getCount());
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(4001, snapshot.getCount());
+        assertEquals(histogram.getPercentile(99.0), snapshot.getPercentile(99.0));
+
+        histogram.reset();
+        assertEquals(4001, snapshot.getCount());
+        assertEquals(0, histogram.getCount());
+
+        histogram.record(7);
+        assertEquals(1, histogram.getCount());
+        assertEquals(7L, histogram.getMaximum());
+    }
+
+    @Test
+    public void testLatencyMode1() {
+        INDArray array = Nd4j.createUninitialized(100);
+
+        for (int e = 0; e < 10; e++)
+            array.addi(1.0);
+
+        LatencyAggregator aggregator = OpProfiler.getInstance().getLatencyAggregator();
+        assertFalse(aggregator.getOpNames().isEmpty());
+
+        // array creation might invoke ops too, so we look for the op invoked within loop
+        LatencyHistogram histogram = null;
+        for (String name : aggregator.getOpNames())
+            if (aggregator.getHistogram(name).getCount() == 10)
+                histogram = aggregator.getHistogram(name);
+
+        assertNotNull(histogram);
+        assertTrue(histogram.getPercentile(99.0) > 0);
+
+        // latency mode doesn't feed regular counters
+        assertEquals(0, OpProfiler.getInstance().getInvocationsCount());
+
+        log.info("Latencies:\n{}", aggregator.asString());
+    }
+}
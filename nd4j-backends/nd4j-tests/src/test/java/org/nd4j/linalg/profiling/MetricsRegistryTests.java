@@ -0,0 +1,179 @@
+package org.nd4j.linalg.profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.metrics.*;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class MetricsRegistryTests {
+
+    @Before
+    public void setUp() {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.LATENCY);
+        OpProfiler.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.DISABLED);
+    }
+
+    private static class FixedSource implements MetricsSource {
+        @Override
+        public void collectMetrics(MetricsCollector collector) {
+            collector.counter("test_requests_total", "Number of requests", Nd4jMetricsSource.labels("path", "/a\"b"),
+                            12);
+            collector.counter("test_requests_total", "Number of requests", Nd4jMetricsSource.labels("path", "/c"), 3);
+            collector.gauge("test_temperature", "Temperature", Nd4jMetricsSource.labels(), 36.6);
+        }
+    }
+
+    @Test
+    public void testPrometheusFormat1() {
+        PrometheusMetricsRegistry registry = new PrometheusMetricsRegistry();
+        registry.register(new FixedSource());
+
+        String text = registry.scrapeAsString();
+        log.info("Scrape:\n{}", text);
+
+        assertTrue(text.contains("# HELP test_requests_total Number of requests\n"));
+        assertTrue(text.contains("# TYPE test_requests_total counter\n"));
+        assertTrue(text.contains("test_requests_total{path=\"/a\\\"b\"} 12\n"));
+        assertTrue(text.contains("test_requests_total{path=\"/c\"} 3\n"));
+        assertTrue(text.contains("# TYPE test_temperature gauge\n"));
+        assertTrue(text.contains("test_temperature 36.6\n"));
+
+        // single HELP/TYPE header per metric
+        assertEquals(text.indexOf("# TYPE test_requests_total"), text.lastIndexOf("# TYPE test_requests_total"));
+    }
+
+    @Test
+    public void testPrometheusSummary1() {
+        PrometheusMetricsRegistry registry = new PrometheusMetricsRegistry();
+        registry.register(new MetricsSource() {
+            @Override
+            public void collectMetrics(MetricsCollector collector) {
+                Map<Double, Double> quantiles = new LinkedHashMap<>();
+                quantiles.put(0.5, 10.0);
+                quantiles.put(0.99, 20.0);
+                collector.summary("test_latency", "Latency", Nd4jMetricsSource.labels("op", "add"), quantiles, 7, 90);
+            }
+        });
+
+        String text = registry.scrapeAsString();
+        log.info("Scrape:\n{}", text);
+
+        assertTrue(text.contains("# TYPE test_latency summary\n"));
+        assertTrue(text.contains("test_latency{op=\"add\",quantile=\"0.5\"} 10\n"));
+        assertTrue(text.contains("test_latency{op=\"add\",quantile=\"0.99\"} 20\n"));
+        assertTrue(text.contains("test_latency_sum{op=\"add\"} 90\n"));
+        assertTrue(text.contains("test_latency_count{op=\"add\"} 7\n"));
+
+        // _sum and _count belong to the same family, without headers of their own
+        assertEquals(text.indexOf("# TYPE"), text.lastIndexOf("# TYPE"));
+        assertFalse(text.contains("# TYPE test_latency_sum"));
+    }
+
+    @Test
+    public void testBrokenSource1() {
+        PrometheusMetricsRegistry registry = new PrometheusMetricsRegistry();
+        registry.register(new MetricsSource() {
+            @Override
+            public void collectMetrics(MetricsCollector collector) {
+                throw new IllegalStateException("broken");
+            }
+        });
+        registry.register(new FixedSource());
+
+        assertEquals(3, registry.scrape().size());
+    }
+
+    @Test
+    public void testDefaultSources1() {
+        WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(1024 * 1024).build();
+
+        try (MemoryWorkspace workspace =
+                        Nd4j.getWorkspaceManager().getAndActivateWorkspace(configuration, "METRICS_WS")) {
+            INDArray array = Nd4j.create(100);
+            array.addi(1.0);
+        }
+
+        PrometheusMetricsRegistry registry = new PrometheusMetricsRegistry();
+        registry.withDefaultSources();
+
+        String text = registry.scrapeAsString();
+        log.info("Scrape:\n{}", text);
+
+        assertTrue(text.contains("nd4j_workspace_current_bytes{workspace=\"METRICS_WS\""));
+        assertTrue(text.contains("nd4j_cache_bytes{cache=\"shape\"}"));
+        assertTrue(text.contains("nd4j_op_invocations_total"));
+        assertTrue(text.contains("# TYPE nd4j_op_latency_nanoseconds summary"));
+        assertTrue(text.contains("nd4j_op_latency_nanoseconds{op="));
+        assertTrue(text.contains("nd4j_op_latency_nanoseconds_count{op="));
+        assertTrue(text.contains("nd4j_memory_bandwidth_bytes_per_microsecond"));
+    }
+
+    @Test
+    public void testJmx1() throws Exception {
+        JmxMetricsRegistry registry = new JmxMetricsRegistry();
+        registry.register(new FixedSource());
+        registry.registerMBean("org.nd4j:type=Metrics,name=test");
+
+        try {
+            ObjectName name = new ObjectName("org.nd4j:type=Metrics,name=test");
+            Object value = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "test_temperature");
+            assertEquals(36.6, (Double) value, 1e-5);
+
+            value = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "test_requests_total{path=/c}");
+            assertEquals(3.0, (Double) value, 1e-5);
+
+            assertEquals(3, ManagementFactory.getPlatformMBeanServer().getMBeanInfo(name).getAttributes().length);
+        } finally {
+            registry.unregisterMBean();
+        }
+
+        List<MetricSample> samples = registry.scrape();
+        assertEquals(MetricType.COUNTER, samples.get(0).getType());
+    }
+
+    @Test
+    public void testJmxScrapeTtl1() throws Exception {
+        final AtomicInteger scrapes = new AtomicInteger(0);
+        JmxMetricsRegistry registry = new JmxMetricsRegistry();
+        registry.register(new MetricsSource() {
+            @Override
+            public void collectMetrics(MetricsCollector collector) {
+                collector.gauge("test_scrapes", "Number of scrapes", Nd4jMetricsSource.labels(),
+                                scrapes.incrementAndGet());
+            }
+        });
+
+        // attribute reads within TTL share single scrape
+        registry.setScrapeTtl(TimeUnit.HOURS.toMillis(1));
+        assertEquals(1.0, (Double) registry.getAttribute("test_scrapes"), 1e-5);
+        registry.getMBeanInfo();
+        assertEquals(1.0, (Double) registry.getAttribute("test_scrapes"), 1e-5);
+        assertEquals(1, scrapes.get());
+
+        registry.setScrapeTtl(0);
+        assertEquals(2.0, (Double) registry.getAttribute("test_scrapes"), 1e-5);
+    }
+}
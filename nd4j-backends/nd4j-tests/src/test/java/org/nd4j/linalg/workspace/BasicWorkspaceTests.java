@@ -19,6 +19,8 @@ import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 
 import static org.junit.Assert.*;
 
@@ -944,6 +946,63 @@ public class BasicWorkspaceTests extends BaseNd4jTest {
         ws.notifyScopeLeft();
     }
 
+    @Test
+    public void testMmap3() throws Exception {
+        // we don't support MMAP on cuda yet
+        if (Nd4j.getExecutioner().getClass().getName().toLowerCase().contains("cuda"))
+            return;
+
+        WorkspaceConfiguration mmap = WorkspaceConfiguration.builder()
+                .initialSize(1000000)
+                .mmapAlignment(2 * 1024 * 1024)
+                .policyLocation(LocationPolicy.MMAP)
+                .build();
+
+        Nd4jWorkspace ws = (Nd4jWorkspace) Nd4j.getWorkspaceManager().getAndActivateWorkspace(mmap, "M4");
+
+        // file length is rounded up to huge page size, and whole file is available to workspace
+        assertEquals(2 * 1024 * 1024, ws.getCurrentSize());
+
+        INDArray mArray = Nd4j.create(100);
+        mArray.assign(10f);
+
+        assertEquals(1000f, mArray.sumNumber().floatValue(), 1e-5);
+
+        ws.close();
+    }
+
+    @Test
+    public void testMmapReuse1() throws Exception {
+        // we don't support MMAP on cuda yet
+        if (Nd4j.getExecutioner().getClass().getName().toLowerCase().contains("cuda"))
+            return;
+
+        File tmp = File.createTempFile("tmp", "mmapReuse");
+        tmp.deleteOnExit();
+        Nd4jWorkspace.fillFile(tmp, 1000);
+
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            fos.write(new byte[] {1, 2, 3, 4});
+        }
+
+        // existing contents are kept, and file is extended sparsely
+        Nd4jWorkspace.preallocateFile(tmp, 100000, true, true);
+        assertEquals(100000, tmp.length());
+
+        try (FileInputStream fis = new FileInputStream(tmp)) {
+            assertEquals(1, fis.read());
+            assertEquals(2, fis.read());
+        }
+
+        // and without reuse file is recreated from scratch
+        Nd4jWorkspace.preallocateFile(tmp, 50000, false, false);
+        assertEquals(50000, tmp.length());
+
+        try (FileInputStream fis = new FileInputStream(tmp)) {
+            assertEquals(0, fis.read());
+        }
+    }
+
 
     @Test
     public void testInvalidLeverageMigrateDetach(){
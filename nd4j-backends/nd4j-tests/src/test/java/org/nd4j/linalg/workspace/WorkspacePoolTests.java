@@ -0,0 +1,176 @@
+package org.nd4j.linalg.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
+import org.nd4j.linalg.memory.pool.BasicWorkspacePool;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+@RunWith(Parameterized.class)
+public class WorkspacePoolTests extends BaseNd4jTest {
+    private static final WorkspaceConfiguration poolConfig = WorkspaceConfiguration.builder().initialSize(0)
+                    .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.FIRST_LOOP)
+                    .policySpill(SpillPolicy.EXTERNAL).build();
+
+    DataBuffer.Type initialType;
+
+    public WorkspacePoolTests(Nd4jBackend backend) {
+        super(backend);
+        this.initialType = Nd4j.dataType();
+    }
+
+    @Before
+    public void setUp() {
+        Nd4j.setDataType(DataBuffer.Type.DOUBLE);
+    }
+
+    @After
+    public void shutdown() {
+        Nd4j.getMemoryManager().setCurrentWorkspace(null);
+        Nd4j.setDataType(initialType);
+    }
+
+    @Test
+    public void testBorrowRelease1() throws Exception {
+        BasicWorkspacePool pool = new BasicWorkspacePool(poolConfig, "POOL_1");
+
+        MemoryWorkspace workspace = pool.borrowAndActivate();
+        assertEquals(1, pool.getBorrowedCount());
+        assertTrue(Nd4j.getWorkspaceManager().checkIfWorkspaceExists(workspace.getId()));
+
+        Nd4j.create(1000);
+
+        // release closes scope on its own
+        pool.release(workspace);
+        assertFalse(workspace.isScopeActive());
+        assertFalse(Nd4j.getWorkspaceManager().checkIfWorkspaceExists(workspace.getId()));
+        assertEquals(0, pool.getBorrowedCount());
+        assertEquals(1, pool.getIdleCount());
+
+        MemoryWorkspace workspace2 = pool.borrow();
+        assertTrue(workspace == workspace2);
+        assertEquals(0, pool.getIdleCount());
+
+        pool.release(workspace2);
+
+        try {
+            pool.release(workspace2);
+            fail("Double release should fail");
+        } catch (Exception e) {
+            // expected
+        }
+
+        pool.clear();
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testBorrowAcrossThreads1() throws Exception {
+        final BasicWorkspacePool pool = new BasicWorkspacePool(poolConfig, "POOL_2");
+        final AtomicReference<MemoryWorkspace> learned = new AtomicReference<>();
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Nd4j.setDataType(DataBuffer.Type.DOUBLE);
+
+                MemoryWorkspace workspace = pool.borrow();
+                try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                    Nd4j.create(1000);
+                }
+                pool.release(workspace);
+
+                learned.set(workspace);
+            }
+        });
+
+        thread.start();
+        thread.join();
+
+        // memory learned by short-lived thread is reused here
+        Nd4jWorkspace workspace = (Nd4jWorkspace) pool.borrow();
+        assertTrue(learned.get() == workspace);
+        assertEquals(8000, workspace.getCurrentSize());
+
+        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+            Nd4j.create(1000);
+            assertEquals(0, workspace.getSpilledSize());
+        }
+
+        pool.release(workspace);
+        pool.clear();
+    }
+
+    @Test
+    public void testBuckets1() throws Exception {
+        BasicWorkspacePool pool = new BasicWorkspacePool(poolConfig, "POOL_3");
+
+        MemoryWorkspace small = pool.borrow();
+        MemoryWorkspace large = pool.borrow();
+
+        try (MemoryWorkspace ws = small.notifyScopeEntered()) {
+            Nd4j.create(1000);
+        }
+
+        try (MemoryWorkspace ws = large.notifyScopeEntered()) {
+            Nd4j.create(10000);
+        }
+
+        pool.release(small);
+        pool.release(large);
+
+        MemoryWorkspace workspace = pool.borrow(5000);
+        assertTrue(small == workspace);
+        pool.release(workspace);
+
+        workspace = pool.borrow(70000);
+        assertTrue(large == workspace);
+        pool.release(workspace);
+
+        // without demand hint, largest workspace is preferred
+        workspace = pool.borrow();
+        assertTrue(large == workspace);
+        pool.release(workspace);
+
+        pool.clear();
+    }
+
+    @Test
+    public void testMaxIdle1() throws Exception {
+        BasicWorkspacePool pool = new BasicWorkspacePool(poolConfig, "POOL_4", 1);
+
+        MemoryWorkspace ws1 = pool.borrow();
+        MemoryWorkspace ws2 = pool.borrow();
+        assertNotEquals(ws1.getId(), ws2.getId());
+
+        pool.release(ws1);
+        pool.release(ws2);
+
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(0, pool.getBorrowedCount());
+
+        pool.clear();
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
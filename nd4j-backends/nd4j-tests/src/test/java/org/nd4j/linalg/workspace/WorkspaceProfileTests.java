@@ -0,0 +1,153 @@
+package org.nd4j.linalg.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.memory.WorkspaceProfile;
+import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+@RunWith(Parameterized.class)
+public class WorkspaceProfileTests extends BaseNd4jTest {
+    DataBuffer.Type initialType;
+
+    public WorkspaceProfileTests(Nd4jBackend backend) {
+        super(backend);
+        this.initialType = Nd4j.dataType();
+    }
+
+    @Before
+    public void setUp() {
+        Nd4j.setDataType(DataBuffer.Type.DOUBLE);
+    }
+
+    @After
+    public void shutdown() {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+        Nd4j.getMemoryManager().setCurrentWorkspace(null);
+
+        Nd4j.setDataType(initialType);
+    }
+
+    @Test
+    public void testLearnedSizePersistence1() throws Exception {
+        File file = File.createTempFile("workspace", ".profile");
+        file.delete();
+        file.deleteOnExit();
+
+        WorkspaceConfiguration conf = WorkspaceConfiguration.builder().initialSize(0)
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.FIRST_LOOP)
+                        .policySpill(SpillPolicy.EXTERNAL).profilePath(file.getAbsolutePath()).build();
+
+        try (Nd4jWorkspace workspace =
+                        (Nd4jWorkspace) Nd4j.getWorkspaceManager().getAndActivateWorkspace(conf, "PROFILED")) {
+            Nd4j.create(1000);
+        }
+
+        // profile is written in background, so we don't wait for it here
+        WorkspaceProfile.forPath(file.getAbsolutePath()).flush();
+        assertTrue(file.exists());
+        assertEquals(8000, new WorkspaceProfile(file).getLearnedSize("PROFILED"));
+
+        // new workspace with the same id starts with learned size, without learning phase
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+
+        Nd4jWorkspace workspace = (Nd4jWorkspace) Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(conf,
+                        "PROFILED");
+        assertEquals(8000, workspace.getCurrentSize());
+
+        try (Nd4jWorkspace ws = (Nd4jWorkspace) workspace.notifyScopeEntered()) {
+            Nd4j.create(1000);
+            assertEquals(0, ws.getSpilledSize());
+        }
+
+        // unrelated workspace isn't affected
+        assertEquals(0, new WorkspaceProfile(file).getLearnedSize("UNKNOWN"));
+    }
+
+    @Test
+    public void testLearnedSizeCircular1() throws Exception {
+        File file = File.createTempFile("workspace", ".profile");
+        file.delete();
+        file.deleteOnExit();
+
+        WorkspaceProfile.forPath(file.getAbsolutePath()).update("CIRCULAR", 8000);
+
+        WorkspaceConfiguration conf = WorkspaceConfiguration.builder().initialSize(0)
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.FIRST_LOOP)
+                        .policyReset(ResetPolicy.ENDOFBUFFER_REACHED).policySpill(SpillPolicy.EXTERNAL)
+                        .profilePath(file.getAbsolutePath()).build();
+
+        Nd4jWorkspace workspace = (Nd4jWorkspace) Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(conf,
+                        "CIRCULAR");
+
+        // learned size is sized the same way as after learning phase: with headroom, and with block size for alignment
+        assertTrue(workspace.getCurrentSize() > 8000);
+        assertEquals(workspace.getCurrentSize(), workspace.getInitialBlockSize());
+    }
+
+    @Test
+    public void testSpillAdaptation1() throws Exception {
+        WorkspaceConfiguration conf = WorkspaceConfiguration.builder().initialSize(10000)
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE)
+                        .policySpill(SpillPolicy.EXTERNAL).spillThreshold(0.1).cyclesBeforeAdaptation(3).build();
+
+        Nd4jWorkspace workspace =
+                        (Nd4jWorkspace) Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(conf, "ADAPTIVE");
+
+        for (int e = 0; e < 3; e++) {
+            assertEquals(10000, workspace.getCurrentSize());
+
+            try (Nd4jWorkspace ws = (Nd4jWorkspace) workspace.notifyScopeEntered()) {
+                Nd4j.create(2000);
+                assertEquals(16000, ws.getSpilledSize());
+            }
+        }
+
+        // 3 cycles in a row spilled more than 10% of workspace size
+        assertEquals(26000, workspace.getCurrentSize());
+
+        try (Nd4jWorkspace ws = (Nd4jWorkspace) workspace.notifyScopeEntered()) {
+            Nd4j.create(2000);
+            assertEquals(0, ws.getSpilledSize());
+        }
+    }
+
+    @Test
+    public void testSpillAdaptation2() throws Exception {
+        WorkspaceConfiguration conf = WorkspaceConfiguration.builder().initialSize(10000).maxSize(12000)
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE)
+                        .policySpill(SpillPolicy.EXTERNAL).spillThreshold(0.1).cyclesBeforeAdaptation(1).build();
+
+        Nd4jWorkspace workspace =
+                        (Nd4jWorkspace) Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(conf, "LIMITED");
+
+        try (Nd4jWorkspace ws = (Nd4jWorkspace) workspace.notifyScopeEntered()) {
+            Nd4j.create(2000);
+        }
+
+        // growth never goes beyond maxSize
+        assertEquals(12000, workspace.getCurrentSize());
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -11,6 +11,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.UUID;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -79,6 +80,52 @@ public class BinarySerdeTest {
         assertArrayEquals(rand.shapeInfoDataBuffer().asInt(), buffer.asInt());
     }
 
+    @Test
+    public void testReadWriteMapped() throws Exception {
+        File tmpFile = new File(System.getProperty("java.io.tmpdir"),
+                        "ndarraytmp-" + UUID.randomUUID().toString() + " .bin");
+        tmpFile.deleteOnExit();
+        INDArray rand = Nd4j.randn(50, 20);
+        BinarySerde.writeArrayToDiskMapped(rand, tmpFile);
+        assertEquals(rand, BinarySerde.readFromDisk(tmpFile));
+
+        INDArray readOnly = BinarySerde.readFromDiskMapped(tmpFile, FileChannel.MapMode.READ_ONLY);
+        assertEquals(rand, readOnly);
+
+        // copy-on-write: changes aren't visible in file
+        INDArray copyOnWrite = BinarySerde.readFromDiskMapped(tmpFile);
+        copyOnWrite.addi(1.0);
+        assertEquals(rand.add(1.0), copyOnWrite);
+        assertEquals(rand, BinarySerde.readFromDisk(tmpFile));
+    }
+
+    @Test
+    public void testReadWriteMappedSegments() throws Exception {
+        File tmpFile = new File(System.getProperty("java.io.tmpdir"),
+                        "ndarraytmp-" + UUID.randomUUID().toString() + " .bin");
+        tmpFile.deleteOnExit();
+        INDArray rand = Nd4j.randn(37, 13);
+
+        // small mapping limit forces segmented write and read
+        BinarySerde.writeArrayToDiskMapped(rand, tmpFile, 64);
+        assertEquals(rand, BinarySerde.readFromDisk(tmpFile));
+        assertEquals(rand, BinarySerde.readFromDiskMapped(tmpFile, FileChannel.MapMode.READ_ONLY, 64));
+    }
+
+    @Test
+    public void testCreateMappedArray() throws Exception {
+        File tmpFile = new File(System.getProperty("java.io.tmpdir"),
+                        "ndarraytmp-" + UUID.randomUUID().toString() + " .bin");
+        tmpFile.deleteOnExit();
+        INDArray mapped = BinarySerde.createMappedArray(tmpFile, Nd4j.dataType(), 10, 4);
+        assertEquals(Nd4j.zeros(10, 4), mapped);
+
+        INDArray rand = Nd4j.rand(10, 4);
+        mapped.assign(rand);
+
+        assertEquals(rand, BinarySerde.readFromDiskMapped(tmpFile, FileChannel.MapMode.READ_ONLY));
+    }
+
     @Test
     public void timeOldVsNew() throws Exception {
         int numTrials = 1000;
@@ -32,6 +32,29 @@ public class WorkspaceConfiguration implements Serializable {
      */
     @Builder.Default protected String tempFilePath = null;
 
+    /**
+     * If true, file to be memory-mapped is preallocated as sparse file, so disk blocks are allocated on first write.
+     * Otherwise file is zero-filled, which is slower, but reserves disk space upfront
+     *
+     * PLEASE NOTE: with sparse file, running out of disk space isn't reported at allocation time, but crashes JVM
+     * with SIGBUS on first write to unbacked page, so this option is off by default
+     */
+    @Builder.Default protected boolean mmapSparse = false;
+
+    /**
+     * If positive, length of file to be memory-mapped is rounded up to multiple of this value, i.e. 2MB for huge pages
+     */
+    @Builder.Default protected long mmapAlignment = 0;
+
+    /**
+     * This option affects existing files at tempFilePath that are shorter than initialSize: if true, such file is
+     * extended, keeping its contents. Otherwise it's truncated and recreated from scratch.
+     *
+     * PLEASE NOTE: existing file that's at least initialSize long is always mapped as is, with its contents and
+     * full length, regardless of this option
+     */
+    @Builder.Default protected boolean mmapReuseFile = false;
+
     /**
      * This variable specifies amount of memory allocated for this workspace during initialization
      */
@@ -61,4 +84,22 @@ public class WorkspaceConfiguration implements Serializable {
      * This value is used only for circular workspaces
      */
     @Builder.Default protected int stepsNumber = 2;
+
+    /**
+     * Path to profile file, where learned size of this workspace is persisted across JVM restarts.
+     * Used only for workspaces with learnable size.
+     */
+    @Builder.Default protected String profilePath = null;
+
+    /**
+     * If positive, workspace is grown to its max cycle size once spilled (or pinned, for circular workspaces)
+     * allocations exceed this fraction of workspace size for cyclesBeforeAdaptation cycles in a row,
+     * regardless of SpillPolicy
+     */
+    @Builder.Default protected double spillThreshold = 0.0;
+
+    /**
+     * Number of consecutive cycles with spills above spillThreshold, before workspace is grown
+     */
+    @Builder.Default protected int cyclesBeforeAdaptation = 3;
 }
@@ -19,9 +19,14 @@
 
 package org.nd4j.instrumentation.server;
 
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.instrumentation.AllocationStats;
+import org.nd4j.linalg.api.instrumentation.AllocationTracker;
+import org.nd4j.linalg.api.instrumentation.Instrumentation;
 import org.nd4j.linalg.api.instrumentation.LogEntry;
 import org.nd4j.linalg.factory.Nd4j;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -29,9 +34,13 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Instrumentation resource
+ * Instrumentation resource.
+ *
+ * If AllocationTracker is used, summaries are served from its running totals, without scanning any entries.
  *
  * @author Adam Gibson
  */
@@ -39,9 +48,63 @@ import java.util.Collection;
 @Produces(MediaType.APPLICATION_JSON)
 public class InstrumentationResource {
 
+    private static AllocationTracker tracker() {
+        Instrumentation instrumentation = Nd4j.getInstrumentation();
+        return instrumentation instanceof AllocationTracker ? (AllocationTracker) instrumentation : null;
+    }
+
+    private static Response trackerRequired() {
+        return Response.status(Response.Status.NOT_IMPLEMENTED)
+                        .entity("Summaries are available with " + AllocationTracker.class.getName() + " only").build();
+    }
+
+    @GET
+    @Path("/summary")
+    public Response getSummary() {
+        AllocationTracker tracker = tracker();
+        if (tracker == null)
+            return trackerRequired();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("samplingInterval", tracker.getSamplingInterval());
+        summary.put("total", tracker.getTotalStats());
+        summary.put("arrays", tracker.getNumberOfArrays());
+
+        Map<String, AllocationStats> types = new LinkedHashMap<>();
+        for (Map.Entry<DataBuffer.Type, AllocationStats> e : tracker.getTypeStats().entrySet())
+            types.put(e.getKey().name(), e.getValue());
+        summary.put("types", types);
+
+        return Response.ok(summary).build();
+    }
+
+    @GET
+    @Path("/sites")
+    public Response getSites(@QueryParam("limit") @DefaultValue("20") int limit) {
+        AllocationTracker tracker = tracker();
+        if (tracker == null)
+            return trackerRequired();
+
+        return Response.ok(tracker.getTopSites(limit)).build();
+    }
+
+    @GET
+    @Path("/recent")
+    public Response getRecent() {
+        AllocationTracker tracker = tracker();
+        if (tracker == null)
+            return trackerRequired();
+
+        return Response.ok(tracker.getRecentEvents()).build();
+    }
+
     @GET
     @Path("/numalive")
     public Response getNumAlive() {
+        AllocationTracker tracker = tracker();
+        if (tracker != null)
+            return Response.ok(tracker.getLiveCount()).build();
+
         Collection<LogEntry> alive = Nd4j.getInstrumentation().getStillAlive();
         return Response.ok(alive.size()).build();
     }
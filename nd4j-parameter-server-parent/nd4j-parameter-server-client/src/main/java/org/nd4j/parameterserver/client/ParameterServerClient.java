@@ -10,9 +10,11 @@ import org.nd4j.aeron.ipc.*;
 import org.nd4j.aeron.ipc.response.HostPortPublisher;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.parameterserver.client.encoding.ResidualUpdateEncoder;
 import org.nd4j.parameterserver.model.MasterStatus;
 import org.nd4j.parameterserver.model.ServerTypeJson;
 import org.nd4j.parameterserver.model.SubscriberState;
+import org.nd4j.parameterserver.model.UpdateEncoding;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
 
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -30,6 +32,10 @@ import java.util.concurrent.atomic.AtomicReference;
  * getArray() is used for retrieving the master ndarray's current
  * state from the parameter server.
  *
+ * Updates pushed via pushNDArray can be threshold or bitmap encoded,
+ * with residual kept on the client. Encoding is either set explicitly,
+ * or picked up from the state of the stream updates are sent to.
+ *
  * @author Adam Gibson
  */
 @Data
@@ -57,6 +63,14 @@ public class ParameterServerClient implements NDArrayCallback {
     private ObjectMapper objectMapper = new ObjectMapper();
     private Aeron aeron;
     private boolean compressArray = true;
+    //encoding of pushed updates, null means it's picked up from the status server
+    private UpdateEncoding updateEncoding;
+    //min magnitude of encoded update elements, smaller ones are accumulated in residual
+    @Builder.Default
+    private double encodingThreshold = 1e-3;
+    //max number of elements in threshold encoded update, null means no limit
+    private Integer encodingBoundary;
+    private ResidualUpdateEncoder updateEncoder;
 
     /**
      * Tracks number of
@@ -194,7 +208,67 @@ public class ParameterServerClient implements NDArrayCallback {
      * @param arr the array to send
      */
     public void pushNDArray(INDArray arr) {
-        pushNDArrayMessage(NDArrayMessage.wholeArrayUpdate(arr));
+        ResidualUpdateEncoder encoder = updateEncoder();
+        if (encoder == null) {
+            pushNDArrayMessage(NDArrayMessage.wholeArrayUpdate(arr));
+            return;
+        }
+
+        pushNDArrayMessage(NDArrayMessage.encodedUpdate(encoder.encode(arr)));
+        log.debug("Pushed {} encoded update, compression ratio so far {}", encoder.getEncoding(),
+                        encoder.getCompressionRatio());
+    }
+
+    /**
+     * Returns encoder of updates, created
+     * once encoding is negotiated.
+     * All threads pushing updates share single
+     * encoder, so residual is kept in one place.
+     * @return the encoder, or null if updates are sent dense
+     */
+    protected synchronized ResidualUpdateEncoder updateEncoder() {
+        UpdateEncoding encoding = negotiateEncoding();
+        if (encoding == UpdateEncoding.NONE)
+            return null;
+
+        if (updateEncoder == null)
+            updateEncoder = new ResidualUpdateEncoder(encoding, encodingThreshold, encodingBoundary);
+
+        return updateEncoder;
+    }
+
+    /**
+     * Returns encoding of updates for the stream
+     * this client sends updates to.
+     * If encoding wasn't set explicitly, it's
+     * read from the stream state on the status server
+     * once, and dense updates are sent if it's not available.
+     * @return the encoding of updates
+     */
+    public synchronized UpdateEncoding negotiateEncoding() {
+        if (updateEncoding != null)
+            return updateEncoding;
+
+        if (objectMapper == null)
+            objectMapper = new ObjectMapper();
+
+        UpdateEncoding negotiated = UpdateEncoding.NONE;
+        if (masterStatusHost != null) {
+            try {
+                int stream = Integer.parseInt(ndarraySendUrl.split(":")[2]);
+                SubscriberState subscriberState = objectMapper.readValue(Unirest
+                                .get(String.format("http://%s:%d/state/%d", masterStatusHost, masterStatusPort, stream))
+                                .asJson().getBody().toString(), SubscriberState.class);
+                if (subscriberState.getUpdateEncoding() != null)
+                    negotiated = UpdateEncoding.valueOf(subscriberState.getUpdateEncoding().toUpperCase());
+            } catch (Exception e) {
+                log.warn("Unable to read update encoding from status server, sending dense updates", e);
+            }
+        }
+
+        log.debug("Using {} encoding for updates sent to {}", negotiated, ndarraySendUrl);
+        updateEncoding = negotiated;
+        return negotiated;
     }
 
 
@@ -0,0 +1,165 @@
+package org.nd4j.parameterserver.client.encoding;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.ThresholdCompression;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+import org.nd4j.linalg.profiler.metrics.MetricsSource;
+import org.nd4j.parameterserver.model.UpdateEncoding;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encodes updates with error feedback.
+ *
+ * Every update is added to residual array first, and residual is encoded then. Encoders subtract encoded
+ * values from residual, so whatever wasn't sent this time stays in residual and is sent later, once it grows
+ * above threshold. This way no update is lost, only delayed.
+ *
+ * PLEASE NOTE: encoded arrays are INT arrays, in format of {@link ThresholdCompression}, so they should be decoded
+ * with {@link org.nd4j.linalg.api.ops.executioner.OpExecutioner#thresholdDecode(INDArray, INDArray)} or
+ * {@link org.nd4j.linalg.api.ops.executioner.OpExecutioner#bitmapDecode(INDArray, INDArray)}
+ */
+@Slf4j
+public class ResidualUpdateEncoder implements MetricsSource {
+    @Getter
+    private final UpdateEncoding encoding;
+    @Getter
+    private final double threshold;
+    // max number of elements in threshold encoded update, null means no limit
+    @Getter
+    private final Integer boundary;
+
+    private INDArray residual;
+
+    private final AtomicLong encodedUpdates = new AtomicLong(0);
+    private final AtomicLong originalBytes = new AtomicLong(0);
+    private final AtomicLong encodedBytes = new AtomicLong(0);
+    private final AtomicLong encodeNanos = new AtomicLong(0);
+
+    public ResidualUpdateEncoder(@NonNull UpdateEncoding encoding, double threshold) {
+        this(encoding, threshold, null);
+    }
+
+    public ResidualUpdateEncoder(@NonNull UpdateEncoding encoding, double threshold, Integer boundary) {
+        if (encoding == UpdateEncoding.NONE)
+            throw new IllegalArgumentException("Encoder can't be created for NONE encoding");
+
+        if (threshold <= 0)
+            throw new IllegalArgumentException("Threshold should be positive");
+
+        this.encoding = encoding;
+        this.threshold = threshold;
+        this.boundary = boundary;
+    }
+
+    /**
+     * This method adds update to residual, and encodes residual
+     *
+     * @param update dense update, it's left intact
+     * @return encoded update, as INT row vector
+     */
+    public synchronized INDArray encode(@NonNull INDArray update) {
+        long time = System.nanoTime();
+
+        if (residual == null) {
+            residual = update.dup(update.ordering());
+        } else {
+            if (residual.lengthLong() != update.lengthLong())
+                throw new IllegalStateException("Update length [" + update.lengthLong()
+                                + "] doesn't match length of previous updates [" + residual.lengthLong() + "]");
+
+            residual.addi(update);
+        }
+
+        INDArray encoded;
+        if (encoding == UpdateEncoding.BITMAP) {
+            encoded = Nd4j.getExecutioner().bitmapEncode(residual, threshold);
+        } else {
+            encoded = Nd4j.getExecutioner().thresholdEncode(residual, threshold, boundary);
+            // nothing is above threshold, so header alone is sent
+            if (encoded == null)
+                encoded = emptyThresholdUpdate(residual.lengthLong());
+        }
+
+        Nd4j.getExecutioner().commit();
+
+        // encoders keep original shape information, so array is re-wrapped to match encoded length
+        DataBuffer buffer = encoded.data();
+        INDArray result = Nd4j.create(buffer, new int[] {1, (int) buffer.length()});
+
+        encodeNanos.addAndGet(System.nanoTime() - time);
+        encodedUpdates.incrementAndGet();
+        originalBytes.addAndGet(update.lengthLong() * Nd4j.sizeOfDataType(update.data().dataType()));
+        encodedBytes.addAndGet(buffer.length() * 4);
+
+        return result;
+    }
+
+    protected INDArray emptyThresholdUpdate(long length) {
+        DataBuffer buffer = Nd4j.getDataBufferFactory().createInt(
+                        new int[] {0, (int) length, Float.floatToIntBits((float) threshold), ThresholdCompression.FLEXIBLE_ENCODING});
+        return Nd4j.create(buffer, new int[] {1, 4});
+    }
+
+    /**
+     * This method returns sum of residual magnitudes, that weren't sent yet
+     */
+    public synchronized double residualNorm1() {
+        return residual == null ? 0.0 : residual.norm1Number().doubleValue();
+    }
+
+    /**
+     * This method drops accumulated residual, i.e. after model parameters were reset
+     */
+    public synchronized void reset() {
+        residual = null;
+    }
+
+    public long getEncodedUpdates() {
+        return encodedUpdates.get();
+    }
+
+    public long getOriginalBytes() {
+        return originalBytes.get();
+    }
+
+    public long getEncodedBytes() {
+        return encodedBytes.get();
+    }
+
+    /**
+     * This method returns total time spent on encoding, in nanoseconds
+     */
+    public long getEncodeNanos() {
+        return encodeNanos.get();
+    }
+
+    /**
+     * This method returns ratio of dense update size to encoded update size, over all updates so far
+     */
+    public double getCompressionRatio() {
+        long encoded = encodedBytes.get();
+        return encoded == 0 ? 1.0 : (double) originalBytes.get() / encoded;
+    }
+
+    @Override
+    public void collectMetrics(MetricsCollector collector) {
+        Map<String, String> labels = Collections.singletonMap("encoding", encoding.name().toLowerCase());
+
+        collector.counter("nd4j_ps_encoded_updates_total", "Number of encoded updates", labels, encodedUpdates.get());
+        collector.counter("nd4j_ps_encoded_original_bytes_total", "Size of updates before encoding", labels,
+                        originalBytes.get());
+        collector.counter("nd4j_ps_encoded_bytes_total", "Size of updates after encoding", labels, encodedBytes.get());
+        collector.counter("nd4j_ps_encode_seconds_total", "Time spent on encoding updates", labels,
+                        encodeNanos.get() / 1e9);
+        collector.gauge("nd4j_ps_compression_ratio", "Ratio of dense to encoded update size", labels,
+                        getCompressionRatio());
+    }
+}
@@ -0,0 +1,115 @@
+package org.nd4j.parameterserver.client.sharding;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Consistent hash ring, mapping keys to nodes.
+ *
+ * Every node is placed on the ring at a number of virtual points, and a key belongs to the first node
+ * found clockwise from the hash of the key. When a node joins or leaves, only keys between its points
+ * and their predecessors change owners, so roughly 1/N of the keys move.
+ *
+ * Hashes are deterministic, so rings built independently from the same set of nodes route keys identically.
+ *
+ * @param <T> node type, its toString() is used as node identity on the ring
+ */
+public class ConsistentHashRing<T> {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    @Getter
+    private final int virtualNodes;
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+    private final Set<T> nodes = new LinkedHashSet<>();
+
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes < 1)
+            throw new IllegalArgumentException("Number of virtual nodes should be positive");
+
+        this.virtualNodes = virtualNodes;
+    }
+
+    public ConsistentHashRing(Collection<T> nodes) {
+        this(DEFAULT_VIRTUAL_NODES);
+        for (T node : nodes)
+            add(node);
+    }
+
+    /**
+     * This method places node on the ring
+     *
+     * @return false if node was already on the ring
+     */
+    public synchronized boolean add(@NonNull T node) {
+        if (!nodes.add(node))
+            return false;
+
+        for (int i = 0; i < virtualNodes; i++)
+            ring.put(hash(node.toString() + "#" + i), node);
+
+        return true;
+    }
+
+    /**
+     * This method removes node from the ring
+     *
+     * @return false if node wasn't on the ring
+     */
+    public synchronized boolean remove(@NonNull T node) {
+        if (!nodes.remove(node))
+            return false;
+
+        for (int i = 0; i < virtualNodes; i++) {
+            long hash = hash(node.toString() + "#" + i);
+            // on hash collision point belongs to another node
+            if (node.equals(ring.get(hash)))
+                ring.remove(hash);
+        }
+
+        return true;
+    }
+
+    /**
+     * This method returns node owning given key
+     */
+    public synchronized T nodeFor(@NonNull String key) {
+        if (ring.isEmpty())
+            throw new IllegalStateException("Hash ring has no nodes");
+
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    public synchronized List<T> getNodes() {
+        return new ArrayList<>(nodes);
+    }
+
+    public synchronized boolean contains(T node) {
+        return nodes.contains(node);
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    protected static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++)
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.nd4j.parameterserver.client.sharding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Named, contiguous range of the parameter vector, that's stored on a single shard
+ */
+@Data
+@AllArgsConstructor
+public class ParameterBlock implements Serializable {
+    //position of the block within layout, it defines the streams used for the block
+    private int index;
+    //name of the block, used as the key on the hash ring
+    private String name;
+    //offset of the block within the parameter vector
+    private long offset;
+    private int length;
+}
@@ -0,0 +1,65 @@
+package org.nd4j.parameterserver.client.sharding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.nd4j.aeron.ipc.AeronConnectionInformation;
+
+import java.io.Serializable;
+
+/**
+ * Address of a shard node.
+ *
+ * Every block hosted by the node is served by its own subscriber:
+ * updates are received on host:port and stream streamBase + block index,
+ * and the block is retrieved from the responder on host:(port + 1)
+ * and stream streamBase + block index + 1
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardAddress implements Serializable {
+    private String host;
+    private int port;
+    private int streamBase;
+
+    /**
+     * Parse an address in the form of:
+     * host:port:streamBase
+     * @param address the address to parse
+     * @return the parsed address
+     */
+    public static ShardAddress fromString(String address) {
+        String[] split = address.split(":");
+        if (split.length != 3)
+            throw new IllegalArgumentException("Shard address should be in the form of host:port:streamBase");
+
+        return new ShardAddress(split[0], Integer.parseInt(split[1]), Integer.parseInt(split[2]));
+    }
+
+    /**
+     * Returns the stream the given block is updated on
+     */
+    public int streamFor(ParameterBlock block) {
+        return streamBase + block.getIndex();
+    }
+
+    /**
+     * Returns the url updates of the given block are sent to
+     */
+    public String updateUrl(ParameterBlock block) {
+        return AeronConnectionInformation.of(host, port, streamFor(block)).toString();
+    }
+
+    /**
+     * Returns the url of the responder for the given block
+     */
+    public String responderUrl(ParameterBlock block) {
+        return AeronConnectionInformation.of(host, port + 1, streamFor(block) + 1).toString();
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port + ":" + streamBase;
+    }
+}
@@ -0,0 +1,85 @@
+package org.nd4j.parameterserver.client.sharding;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Layout of the parameter vector split into {@link ParameterBlock}s.
+ *
+ * Blocks are either of equal length, or named blocks, i.e. one block per layer.
+ * Layout is expected to be the same on all clients and shards.
+ */
+public class ShardLayout implements Serializable {
+    @Getter
+    private final List<ParameterBlock> blocks;
+    @Getter
+    private final long length;
+
+    protected ShardLayout(List<ParameterBlock> blocks) {
+        if (blocks.isEmpty())
+            throw new IllegalArgumentException("Layout should have at least one block");
+
+        this.blocks = Collections.unmodifiableList(blocks);
+        ParameterBlock last = blocks.get(blocks.size() - 1);
+        this.length = last.getOffset() + last.getLength();
+    }
+
+    /**
+     * This method splits parameter vector into blocks of given length. Last block can be shorter
+     *
+     * @param length      length of parameter vector
+     * @param blockLength length of a single block
+     */
+    public static ShardLayout uniform(long length, int blockLength) {
+        if (length < 1 || blockLength < 1)
+            throw new IllegalArgumentException("Length and block length should be positive");
+
+        List<ParameterBlock> blocks = new ArrayList<>();
+        for (long offset = 0; offset < length; offset += blockLength) {
+            int index = blocks.size();
+            blocks.add(new ParameterBlock(index, "block_" + index, offset, (int) Math.min(blockLength, length - offset)));
+        }
+
+        return new ShardLayout(blocks);
+    }
+
+    /**
+     * This method creates layout of named blocks, placed one after another in iteration order
+     *
+     * @param lengths block names and their lengths
+     */
+    public static ShardLayout named(@NonNull LinkedHashMap<String, Integer> lengths) {
+        List<ParameterBlock> blocks = new ArrayList<>();
+        long offset = 0;
+        for (Map.Entry<String, Integer> e : lengths.entrySet()) {
+            if (e.getValue() < 1)
+                throw new IllegalArgumentException("Block [" + e.getKey() + "] should have positive length");
+
+            blocks.add(new ParameterBlock(blocks.size(), e.getKey(), offset, e.getValue()));
+            offset += e.getValue();
+        }
+
+        return new ShardLayout(blocks);
+    }
+
+    public int numBlocks() {
+        return blocks.size();
+    }
+
+    public ParameterBlock getBlock(int index) {
+        return blocks.get(index);
+    }
+
+    /**
+     * This method maps every block to its owner on the given ring
+     */
+    public <T> Map<ParameterBlock, T> assign(@NonNull ConsistentHashRing<T> ring) {
+        Map<ParameterBlock, T> ret = new LinkedHashMap<>();
+        for (ParameterBlock block : blocks)
+            ret.put(block, ring.nodeFor(block.getName()));
+        return ret;
+    }
+}
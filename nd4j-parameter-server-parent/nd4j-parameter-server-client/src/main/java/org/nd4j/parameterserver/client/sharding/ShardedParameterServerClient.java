@@ -0,0 +1,198 @@
+package org.nd4j.parameterserver.client.sharding;
+
+import io.aeron.Aeron;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import org.agrona.CloseHelper;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.parameterserver.client.ParameterServerClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Client for a sharded parameter server.
+ *
+ * Parameter vector is split into blocks as defined by {@link ShardLayout}, and every block is owned by a single
+ * shard node, picked with {@link ConsistentHashRing}. Pushes scatter the blocks to their owners, and pulls gather
+ * them back, with all blocks sent and received in parallel.
+ *
+ * Each block is handled by its own {@link ParameterServerClient}, listening on subscriberHost:subscriberPort and
+ * stream subscriberStreamBase + block index. When shard nodes join or leave, call
+ * {@link #addShard(ShardAddress)} or {@link #removeShard(ShardAddress)}, and blocks are routed to their new owners.
+ */
+public class ShardedParameterServerClient implements AutoCloseable {
+    @Getter
+    private final ShardLayout layout;
+    private final ConsistentHashRing<ShardAddress> ring;
+    private final Aeron aeron;
+    private final String subscriberHost;
+    private final int subscriberPort;
+    private final int subscriberStreamBase;
+    private final ExecutorService executor;
+    private final Map<Integer, ParameterServerClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * @param aeron                aeron instance to use for all blocks
+     * @param layout               layout of the parameter vector, same as used by shards
+     * @param shards               addresses of shard nodes
+     * @param subscriberHost       host to listen on for pulled blocks
+     * @param subscriberPort       port to listen on for pulled blocks
+     * @param subscriberStreamBase stream of the first block, every next block uses next stream
+     * @param threads              number of blocks sent or received at the same time, 0 means one per block
+     */
+    @Builder
+    public ShardedParameterServerClient(Aeron aeron, @NonNull ShardLayout layout, @NonNull Collection<ShardAddress> shards,
+                    String subscriberHost, int subscriberPort, int subscriberStreamBase, int threads) {
+        if (shards.isEmpty())
+            throw new IllegalArgumentException("At least one shard should be specified");
+
+        this.aeron = aeron;
+        this.layout = layout;
+        this.ring = new ConsistentHashRing<>(shards);
+        this.subscriberHost = subscriberHost == null ? "localhost" : subscriberHost;
+        this.subscriberPort = subscriberPort;
+        this.subscriberStreamBase = subscriberStreamBase < 1 ? 1 : subscriberStreamBase;
+
+        int numThreads = threads > 0 ? threads : layout.numBlocks();
+        this.executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(r, "ShardedParameterServerClient");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Push the given parameters (or updates), each block
+     * is sent to the shard owning it
+     * @param arr the array of layout length to send
+     */
+    public void push(@NonNull INDArray arr) {
+        INDArray row = toRow(arr);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (ParameterBlock block : layout.getBlocks()) {
+            INDArray part = blockOf(row, block).dup();
+            futures.add(executor.submit(() -> withClient(block, client -> {
+                client.pushNDArray(part);
+                return null;
+            })));
+        }
+
+        await(futures);
+    }
+
+    /**
+     * Retrieve the current parameters,
+     * each block is pulled from the shard owning it
+     * @return the parameters as row vector of layout length
+     */
+    public INDArray pull() {
+        INDArray result = Nd4j.create(1, (int) layout.getLength());
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (ParameterBlock block : layout.getBlocks()) {
+            futures.add(executor.submit(() -> {
+                INDArray arr = withClient(block, ParameterServerClient::getArray);
+                blockOf(result, block).assign(arr.reshape(1, block.getLength()));
+            }));
+        }
+
+        await(futures);
+        return result;
+    }
+
+    /**
+     * Route blocks to a new shard as well
+     * @return false if the shard was already known
+     */
+    public boolean addShard(@NonNull ShardAddress address) {
+        return ring.add(address);
+    }
+
+    /**
+     * Stop routing blocks to the given shard
+     * @return false if the shard wasn't known
+     */
+    public boolean removeShard(@NonNull ShardAddress address) {
+        if (ring.contains(address) && ring.size() == 1)
+            throw new IllegalStateException("Unable to remove the last shard");
+
+        return ring.remove(address);
+    }
+
+    /**
+     * Returns the shard currently owning the given block
+     */
+    public ShardAddress ownerOf(@NonNull ParameterBlock block) {
+        return ring.nodeFor(block.getName());
+    }
+
+    public List<ShardAddress> getShards() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Run the given action with the client of the given block,
+     * pointed to the current owner of the block
+     */
+    protected <T> T withClient(ParameterBlock block, Function<ParameterServerClient, T> action) {
+        ParameterServerClient client = clients.computeIfAbsent(block.getIndex(),
+                        index -> ParameterServerClient.builder().aeron(aeron).subscriberHost(subscriberHost)
+                                        .subscriberPort(subscriberPort).subscriberStream(subscriberStreamBase + index)
+                                        .build());
+
+        // owner is resolved on every call, so blocks follow their owners after rebalancing. Urls are set under
+        // client lock, so concurrent calls for the same block never use urls set by each other
+        ShardAddress owner = ownerOf(block);
+        synchronized (client) {
+            client.setNdarraySendUrl(owner.updateUrl(block));
+            client.setNdarrayRetrieveUrl(owner.responderUrl(block));
+            return action.apply(client);
+        }
+    }
+
+    protected INDArray toRow(INDArray arr) {
+        if (arr.lengthLong() != layout.getLength())
+            throw new IllegalArgumentException("Array length [" + arr.lengthLong() + "] doesn't match layout length ["
+                            + layout.getLength() + "]");
+
+        return arr.isRowVector() && !arr.isView() ? arr : Nd4j.toFlattened(arr);
+    }
+
+    protected static INDArray blockOf(INDArray row, ParameterBlock block) {
+        int offset = (int) block.getOffset();
+        return row.get(NDArrayIndex.all(), NDArrayIndex.interval(offset, offset + block.getLength()));
+    }
+
+    protected static void await(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (ParameterServerClient client : clients.values()) {
+            if (client.getRunning() != null)
+                client.getRunning().set(false);
+            if (client.getSubscriber() != null)
+                CloseHelper.quietClose(client.getSubscriber());
+        }
+        clients.clear();
+    }
+}
@@ -0,0 +1,108 @@
+package org.nd4j.parameterserver.client.encoding;
+
+import org.junit.Test;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.ThresholdCompression;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.parameterserver.encoding.EncodedUpdateDecoder;
+import org.nd4j.parameterserver.model.UpdateEncoding;
+
+import static org.junit.Assert.*;
+
+public class ResidualUpdateEncoderTest {
+    private static final double THRESHOLD = 1e-3;
+
+    @Test
+    public void testThresholdRoundTrip() {
+        testRoundTrip(UpdateEncoding.THRESHOLD);
+    }
+
+    @Test
+    public void testBitmapRoundTrip() {
+        testRoundTrip(UpdateEncoding.BITMAP);
+    }
+
+    @Test
+    public void testEmptyThresholdUpdate() {
+        ResidualUpdateEncoder encoder = new ResidualUpdateEncoder(UpdateEncoding.THRESHOLD, THRESHOLD);
+        EncodedUpdateDecoder decoder = new EncodedUpdateDecoder(UpdateEncoding.THRESHOLD);
+
+        INDArray update = Nd4j.create(1, 100).assign(1e-4);
+        INDArray encoded = encoder.encode(update);
+        assertEquals(DataBuffer.Type.INT, encoded.data().dataType());
+        assertEquals(4, encoded.length());
+
+        NDArrayMessage message = NDArrayMessage.encodedUpdate(encoded);
+        assertTrue(decoder.isEncoded(message));
+
+        INDArray decoded = decoder.decode(message, new int[] {1, 100}).getArr();
+        assertEquals(Nd4j.create(1, 100), decoded);
+        assertEquals(100 * 1e-4, encoder.residualNorm1(), 1e-5);
+    }
+
+    @Test
+    public void testDenseUpdatesArePassedThrough() {
+        EncodedUpdateDecoder decoder = new EncodedUpdateDecoder(UpdateEncoding.THRESHOLD);
+        assertFalse(decoder.isEncoded(NDArrayMessage.wholeArrayUpdate(Nd4j.create(1, 100))));
+        assertFalse(new EncodedUpdateDecoder(UpdateEncoding.NONE)
+                        .isEncoded(NDArrayMessage.encodedUpdate(Nd4j.create(1, 100))));
+
+        // dense INT update that looks like encoded header isn't decoded
+        INDArray dense = Nd4j.create(Nd4j.getDataBufferFactory().createInt(
+                        new int[] {0, 100, 0, ThresholdCompression.FLEXIBLE_ENCODING}), new int[] {1, 4});
+        assertFalse(decoder.isEncoded(NDArrayMessage.wholeArrayUpdate(dense)));
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testMalformedHeader() {
+        EncodedUpdateDecoder decoder = new EncodedUpdateDecoder(UpdateEncoding.THRESHOLD);
+
+        // header claims 10 encoded elements, while there are none
+        INDArray encoded = Nd4j.create(Nd4j.getDataBufferFactory().createInt(
+                        new int[] {10, 100, 0, ThresholdCompression.FLEXIBLE_ENCODING}), new int[] {1, 4});
+        decoder.decode(NDArrayMessage.encodedUpdate(encoded), new int[] {1, 100});
+    }
+
+    protected void testRoundTrip(UpdateEncoding encoding) {
+        DataBuffer.Type initial = Nd4j.dataType();
+        Nd4j.setDataType(DataBuffer.Type.FLOAT);
+        try {
+            ResidualUpdateEncoder encoder = new ResidualUpdateEncoder(encoding, THRESHOLD);
+            EncodedUpdateDecoder decoder = new EncodedUpdateDecoder(encoding);
+
+            INDArray update = Nd4j.create(1, 1000);
+            update.putScalar(0, 2e-3);
+            update.putScalar(1, -1.5e-3);
+            update.putScalar(2, 4e-4);
+            update.putScalar(3, 6e-4);
+
+            INDArray first = decoder.decode(NDArrayMessage.encodedUpdate(encoder.encode(update)), new int[] {1, 1000})
+                            .getArr();
+            assertEquals(THRESHOLD, first.getDouble(0), 1e-6);
+            assertEquals(-THRESHOLD, first.getDouble(1), 1e-6);
+            assertEquals(0.0, first.getDouble(2), 1e-6);
+            assertEquals(0.0, first.getDouble(3), 1e-6);
+
+            // residual from first update is sent along with second one
+            INDArray second = decoder.decode(NDArrayMessage.encodedUpdate(encoder.encode(update)), new int[] {1, 1000})
+                            .getArr();
+            assertEquals(THRESHOLD, second.getDouble(0), 1e-6);
+            assertEquals(-THRESHOLD, second.getDouble(1), 1e-6);
+            assertEquals(0.0, second.getDouble(2), 1e-6);
+            assertEquals(THRESHOLD, second.getDouble(3), 1e-6);
+
+            // nothing is lost: residual is [2e-3, -1e-3, 8e-4, 2e-4]
+            assertEquals(4e-3, encoder.residualNorm1(), 1e-5);
+
+            assertEquals(2, encoder.getEncodedUpdates());
+            assertEquals(2, decoder.getDecodedUpdates());
+            assertTrue(encoder.getCompressionRatio() > 1.0);
+            assertTrue(encoder.getEncodeNanos() > 0);
+        } finally {
+            Nd4j.setDataType(initial);
+        }
+    }
+}
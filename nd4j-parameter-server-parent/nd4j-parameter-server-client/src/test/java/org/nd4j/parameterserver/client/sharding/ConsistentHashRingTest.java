@@ -0,0 +1,105 @@
+package org.nd4j.parameterserver.client.sharding;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ConsistentHashRingTest {
+
+    @Test
+    public void testBalance() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(Arrays.asList("a", "b", "c", "d"));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            String node = ring.nodeFor("key_" + i);
+            Integer count = counts.get(node);
+            counts.put(node, count == null ? 1 : count + 1);
+        }
+
+        assertEquals(4, counts.size());
+        for (int count : counts.values())
+            assertTrue("Unbalanced ring: " + counts, count > 1500 && count < 3500);
+    }
+
+    @Test
+    public void testMinimalMovement() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(Arrays.asList("a", "b", "c", "d"));
+        Map<String, String> before = assign(ring, 10000);
+
+        ring.add("e");
+        Map<String, String> after = assign(ring, 10000);
+
+        int moved = 0;
+        for (String key : before.keySet()) {
+            if (!before.get(key).equals(after.get(key))) {
+                // keys only move to the new node
+                assertEquals("e", after.get(key));
+                moved++;
+            }
+        }
+        assertTrue("Moved " + moved, moved > 1000 && moved < 3000);
+
+        ring.remove("e");
+        assertEquals(before, assign(ring, 10000));
+
+        ring.remove("a");
+        Map<String, String> removed = assign(ring, 10000);
+        for (String key : before.keySet()) {
+            // only keys of removed node move
+            if (!before.get(key).equals("a"))
+                assertEquals(before.get(key), removed.get(key));
+            else
+                assertNotEquals("a", removed.get(key));
+        }
+    }
+
+    @Test
+    public void testDeterministic() {
+        ConsistentHashRing<ShardAddress> first = new ConsistentHashRing<>(
+                        Arrays.asList(new ShardAddress("localhost", 40000, 10), new ShardAddress("localhost", 40010, 10)));
+        ConsistentHashRing<ShardAddress> second = new ConsistentHashRing<>(
+                        Arrays.asList(new ShardAddress("localhost", 40010, 10), new ShardAddress("localhost", 40000, 10)));
+
+        ShardLayout layout = ShardLayout.uniform(1000, 64);
+        assertEquals(layout.assign(first), layout.assign(second));
+    }
+
+    @Test
+    public void testLayouts() {
+        ShardLayout uniform = ShardLayout.uniform(100, 30);
+        assertEquals(4, uniform.numBlocks());
+        assertEquals(100, uniform.getLength());
+        assertEquals(90, uniform.getBlock(3).getOffset());
+        assertEquals(10, uniform.getBlock(3).getLength());
+
+        LinkedHashMap<String, Integer> lengths = new LinkedHashMap<>();
+        lengths.put("W0", 12);
+        lengths.put("b0", 3);
+        lengths.put("W1", 6);
+        ShardLayout named = ShardLayout.named(lengths);
+        assertEquals(21, named.getLength());
+        assertEquals("b0", named.getBlock(1).getName());
+        assertEquals(12, named.getBlock(1).getOffset());
+        assertEquals(15, named.getBlock(2).getOffset());
+    }
+
+    @Test
+    public void testAddressUrls() {
+        ShardAddress address = ShardAddress.fromString("localhost:40000:10");
+        ParameterBlock block = ShardLayout.uniform(100, 10).getBlock(3);
+
+        assertEquals("localhost:40000:13", address.updateUrl(block));
+        assertEquals("localhost:40001:14", address.responderUrl(block));
+        assertEquals(address, ShardAddress.fromString(address.toString()));
+    }
+
+    private static Map<String, String> assign(ConsistentHashRing<String> ring, int numKeys) {
+        Map<String, String> ret = new HashMap<>();
+        for (int i = 0; i < numKeys; i++)
+            ret.put("key_" + i, ring.nodeFor("key_" + i));
+        return ret;
+    }
+}
@@ -26,6 +26,7 @@ import org.nd4j.parameterserver.distributed.util.NetworkOrganizer;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -255,10 +256,15 @@ public class VoidParameterServer {
 
                 // we launch message processing if we're not in debug mode
                 if (!manualMode.get()) {
-                    processingThreads = new Thread[numThreads];
-                    processingRunnables = new Runnable[numThreads];
+                    // in batching mode each processing thread consumes its own partition of incoming messages
+                    int consumers = transport.numberOfMessageConsumers();
+                    int threads = consumers > 0 ? consumers : numThreads;
 
-                    for (int x = 0; x < numThreads; x++) {
+                    processingThreads = new Thread[threads];
+                    processingRunnables = new Runnable[threads];
+
+                    for (int x = 0; x < threads; x++) {
+                        final int consumer = x;
                         processingThreads[x] = new Thread(() -> {
                             runner.set(true);
                             while (runner.get()) {
@@ -268,7 +274,7 @@ public class VoidParameterServer {
                                     //                                    if (nodeRole == NodeRole.SHARD)
                                     //                                        log.info("Processing message: {}", message.getClass().getSimpleName());
 
-                                    handleMessage(transport.takeMessage());
+                                    handleMessage(transport.takeMessage(consumer));
 
                                 } catch (ND4JIllegalStateException e) {
                                     throw new RuntimeException(e);
@@ -505,6 +511,22 @@ public class VoidParameterServer {
         return response.getPayload();
     }
 
+    /**
+     * This method requests INDArray matching requested storageId value, without waiting for response.
+     * This way multiple lookups can be in flight at the same time
+     *
+     * PLEASE NOTE: This method is NOT blocking. If maxInFlightRequests lookups are in flight already, returned future
+     * is failed with ND4JIllegalStateException
+     *
+     * @param rowIdx
+     * @return
+     */
+    public CompletableFuture<INDArray> getVectorAsync(@NonNull Integer key, int rowIdx) {
+        VectorRequestMessage message = new VectorRequestMessage(key, rowIdx);
+
+        return transport.sendMessageAsync(message).thenApply(MeaningfulMessage::getPayload);
+    }
+
     /**
      * This method sends given message to all Shards
      *
@@ -137,6 +137,48 @@ public class VoidConfiguration implements Serializable {
     @Builder.Default
     private long responseTimeout = 30000;
 
+    /**
+     * This variable defines max number of requests, waiting for responses at the same time.
+     * Once it's reached, new async requests are failed until earlier ones are responded.
+     */
+    @Builder.Default
+    private int maxInFlightRequests = 1024;
+
+    /**
+     * This variable enables batching transport mode: small messages sent to the same node are coalesced into single
+     * frame, and incoming messages are dispatched to partitioned queues, one per processing thread.
+     * Has effect only for RoutedTransport.
+     */
+    @Builder.Default
+    private boolean messageBatching = false;
+
+    /**
+     * This variable defines max size of single batch frame, in bytes. Messages bigger than that are sent as is.
+     */
+    @Builder.Default
+    private int batchSize = 16384;
+
+    /**
+     * This variable defines, how long message can wait in batch for other messages before it's sent.
+     * Measured in microseconds.
+     */
+    @Builder.Default
+    private long batchTimeout = 100;
+
+    /**
+     * This variable defines number of threads processing incoming messages in batching mode.
+     * Messages are assigned to threads by taskId, so messages of the same task are processed in order.
+     * 0 means number of available processors.
+     */
+    @Builder.Default
+    private int dispatchThreads = 0;
+
+    /**
+     * This variable defines capacity of incoming messages queue of each processing thread in batching mode.
+     */
+    @Builder.Default
+    private int dispatchQueueSize = 65536;
+
     /**
      * This optional variable defines IP address of the box which acts as master for gradients training.
      * Leave it null, and Spark Master node will be used as Master for parameter server as well.
@@ -237,6 +279,15 @@ public class VoidConfiguration implements Serializable {
         }
     }
 
+    /**
+     * This method returns number of threads processing incoming messages in batching mode
+     *
+     * @return
+     */
+    public int getDispatchThreads() {
+        return dispatchThreads > 0 ? dispatchThreads : Runtime.getRuntime().availableProcessors();
+    }
+
     public void setExecutionMode(@NonNull ExecutionMode executionMode) {
         this.executionMode = executionMode;
     }
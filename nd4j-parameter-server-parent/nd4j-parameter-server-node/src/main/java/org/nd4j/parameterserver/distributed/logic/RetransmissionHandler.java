@@ -3,6 +3,7 @@ package org.nd4j.parameterserver.distributed.logic;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.parameterserver.distributed.conf.VoidConfiguration;
 import org.nd4j.parameterserver.distributed.messages.TrainingMessage;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
 import org.nd4j.parameterserver.distributed.transport.Transport;
 
 /**
@@ -19,6 +20,14 @@ public interface RetransmissionHandler {
 
     void onBackPressure();
 
+    /**
+     * This method is called when no response for given request was received within responseTimeout
+     *
+     * @param message request waiting for response
+     * @return true if request should be sent again, false to give up on it
+     */
+    boolean onResponseTimeout(VoidMessage message);
+
     static TransmissionStatus getTransmissionStatus(long resp) {
         if (resp >= 0) {
             return TransmissionStatus.MESSAGE_SENT;
@@ -0,0 +1,232 @@
+package org.nd4j.parameterserver.distributed.logic.completion;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.parameterserver.distributed.messages.MeaningfulMessage;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class keeps track of requests waiting for responses.
+ *
+ * Responses are matched to requests by taskId, and complete futures handed out on registration, so nobody has to
+ * poll for them. Number of requests in flight is bounded: {@link #tryRegister(VoidMessage, long)} refuses new
+ * requests once the window is full, and {@link #register(VoidMessage, long)} blocks until some earlier request
+ * completes. TaskIds aren't guaranteed to be unique (i.e. VectorRequestMessage uses row index), so requests sharing
+ * taskId are responded in order of registration.
+ *
+ * PLEASE NOTE: futures are completed on dedicated completion thread, not on the thread which received response, so
+ * stages chained to them can't stall transport. Stages that block for long still delay other completions.
+ */
+@Slf4j
+public class ResponseTracker {
+    private final Map<Long, Deque<PendingRequest>> pending = new HashMap<>();
+    private int inFlight = 0;
+    private final Semaphore window;
+    @Getter
+    private final int maxInFlight;
+    // futures are completed here, in order of responses
+    private final ExecutorService completer;
+
+    /**
+     * @param maxInFlight max number of requests waiting for responses at the same time
+     */
+    public ResponseTracker(int maxInFlight) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("Max number of requests in flight should be positive");
+
+        this.maxInFlight = maxInFlight;
+        this.window = new Semaphore(maxInFlight);
+        this.completer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ResponseTracker completion thread");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * This method registers request, blocking if there are maxInFlight requests waiting already
+     *
+     * PLEASE NOTE: this method shouldn't be called from stages chained to futures of this tracker,
+     * use {@link #tryRegister(VoidMessage, long)} there
+     *
+     * @param message request, its taskId is used to match response
+     * @param timeout time to wait for response before timeout, in nanoseconds
+     * @return registered request, with future to be completed with response
+     */
+    public PendingRequest register(@NonNull VoidMessage message, long timeout)
+                    throws InterruptedException {
+        window.acquire();
+        return add(message, timeout);
+    }
+
+    /**
+     * This method registers request without blocking
+     *
+     * @param message request, its taskId is used to match response
+     * @param timeout time to wait for response before timeout, in nanoseconds
+     * @return registered request, or null if there are maxInFlight requests waiting already
+     */
+    public PendingRequest tryRegister(@NonNull VoidMessage message, long timeout) {
+        if (!window.tryAcquire())
+            return null;
+
+        return add(message, timeout);
+    }
+
+    protected PendingRequest add(VoidMessage message, long timeout) {
+        PendingRequest request = new PendingRequest(message, timeout);
+        synchronized (this) {
+            Deque<PendingRequest> requests = pending.get(message.getTaskId());
+            if (requests == null) {
+                requests = new ArrayDeque<>();
+                pending.put(message.getTaskId(), requests);
+            }
+
+            requests.add(request);
+            inFlight++;
+        }
+
+        return request;
+    }
+
+    /**
+     * This method completes request matching given response
+     *
+     * @return false if nobody waits for this response, i.e. it's a duplicate of retransmitted request
+     */
+    public boolean complete(@NonNull MeaningfulMessage response) {
+        PendingRequest request = remove(response.getTaskId(), null);
+        if (request == null) {
+            log.debug("No request is waiting for response with taskId [{}]", response.getTaskId());
+            return false;
+        }
+
+        window.release();
+        final CompletableFuture<MeaningfulMessage> future = request.getFuture();
+        dispatch(() -> future.complete(response));
+        return true;
+    }
+
+    /**
+     * This method fails given request
+     *
+     * @return false if this request isn't in flight anymore
+     */
+    public boolean fail(@NonNull PendingRequest request, @NonNull Throwable cause) {
+        if (remove(request.getMessage().getTaskId(), request) == null)
+            return false;
+
+        window.release();
+        final CompletableFuture<MeaningfulMessage> future = request.getFuture();
+        dispatch(() -> future.completeExceptionally(cause));
+        return true;
+    }
+
+    /**
+     * This method hands future completion over to completion thread, or runs it in place once tracker is shut down
+     */
+    protected void dispatch(Runnable completion) {
+        try {
+            completer.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    /**
+     * This method stops completion thread, once futures completed before this call are done
+     */
+    public void shutdown() {
+        completer.shutdown();
+    }
+
+    /**
+     * This method fails all requests in flight, i.e. on shutdown
+     */
+    public void failAll(@NonNull Throwable cause) {
+        List<PendingRequest> requests = new ArrayList<>();
+        synchronized (this) {
+            for (Deque<PendingRequest> deque : pending.values())
+                requests.addAll(deque);
+        }
+
+        for (PendingRequest request : requests)
+            fail(request, cause);
+    }
+
+    /**
+     * This method removes given request, or the oldest request with given taskId if request is null
+     */
+    protected synchronized PendingRequest remove(long taskId, PendingRequest request) {
+        Deque<PendingRequest> requests = pending.get(taskId);
+        if (requests == null)
+            return null;
+
+        PendingRequest result = null;
+        if (request == null)
+            result = requests.poll();
+        else if (requests.remove(request))
+            result = request;
+
+        if (requests.isEmpty())
+            pending.remove(taskId);
+
+        if (result != null)
+            inFlight--;
+
+        return result;
+    }
+
+    /**
+     * This method returns requests which wait for response longer than their timeout
+     *
+     * @param now current System.nanoTime()
+     */
+    public synchronized List<PendingRequest> expired(long now) {
+        List<PendingRequest> result = new ArrayList<>();
+        for (Deque<PendingRequest> requests : pending.values())
+            for (PendingRequest request : requests)
+                if (now - request.getDeadline() > 0)
+                    result.add(request);
+
+        return result;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public static class PendingRequest {
+        @Getter
+        private final VoidMessage message;
+        @Getter
+        private final CompletableFuture<MeaningfulMessage> future = new CompletableFuture<>();
+        private final long timeout;
+        private volatile long deadline;
+
+        protected PendingRequest(VoidMessage message, long timeout) {
+            this.message = message;
+            this.timeout = timeout;
+            this.deadline = System.nanoTime() + timeout;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * This method restarts timeout, it's called once request was retransmitted
+         */
+        public void restartTimeout() {
+            deadline = System.nanoTime() + timeout;
+        }
+    }
+}
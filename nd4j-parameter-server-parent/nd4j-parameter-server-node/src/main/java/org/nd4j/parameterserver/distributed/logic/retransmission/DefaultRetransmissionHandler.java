@@ -4,12 +4,16 @@ import lombok.NonNull;
 import org.nd4j.parameterserver.distributed.conf.VoidConfiguration;
 import org.nd4j.parameterserver.distributed.logic.RetransmissionHandler;
 import org.nd4j.parameterserver.distributed.messages.TrainingMessage;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
 import org.nd4j.parameterserver.distributed.transport.Transport;
 
 /**
  * @author raver119@gmail.com
  */
 public class DefaultRetransmissionHandler implements RetransmissionHandler {
+    // TODO: make retransmit threshold configurable
+    protected static final int MAX_RETRANSMITS = 20;
+
     private VoidConfiguration configuration;
 
     @Override
@@ -25,6 +29,12 @@ public class DefaultRetransmissionHandler implements RetransmissionHandler {
         }
     }
 
+    @Override
+    public boolean onResponseTimeout(@NonNull VoidMessage message) {
+        message.incrementRetransmitCount();
+        return message.getRetransmitCount() <= MAX_RETRANSMITS;
+    }
+
     @Override
     public void handleMessage(TrainingMessage message) {
 
@@ -8,23 +8,26 @@ import io.aeron.driver.MediaDriver;
 import io.aeron.logbuffer.Header;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.agrona.CloseHelper;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
 import org.agrona.concurrent.IdleStrategy;
 import org.agrona.concurrent.SleepingIdleStrategy;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.parameterserver.distributed.conf.VoidConfiguration;
 import org.nd4j.parameterserver.distributed.enums.NodeRole;
+import org.nd4j.parameterserver.distributed.logic.RetransmissionHandler;
 import org.nd4j.parameterserver.distributed.logic.completion.Clipboard;
+import org.nd4j.parameterserver.distributed.logic.completion.ResponseTracker;
+import org.nd4j.parameterserver.distributed.logic.retransmission.DefaultRetransmissionHandler;
 import org.nd4j.parameterserver.distributed.messages.Frame;
 import org.nd4j.parameterserver.distributed.messages.MeaningfulMessage;
 import org.nd4j.parameterserver.distributed.messages.VoidMessage;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -56,9 +59,16 @@ public abstract class BaseTransport implements Transport {
     protected FragmentAssembler messageHandlerForShards;
     protected FragmentAssembler messageHandlerForClients;
 
-    protected LinkedBlockingQueue<VoidMessage> messages = new LinkedBlockingQueue<>();
+    protected BlockingQueue<VoidMessage> messages = new LinkedBlockingQueue<>();
 
-    protected Map<Long, MeaningfulMessage> completed = new ConcurrentHashMap<>();
+    // requests waiting for responses, created in init()
+    protected ResponseTracker responses;
+
+    @Getter
+    @Setter
+    protected RetransmissionHandler retransmissionHandler = new DefaultRetransmissionHandler();
+
+    protected ScheduledExecutorService responseWatchdog;
 
     protected AtomicBoolean runner = new AtomicBoolean(true);
 
@@ -72,7 +82,6 @@ public abstract class BaseTransport implements Transport {
 
     // TODO: make this configurable?
     protected IdleStrategy idler = new SleepingIdleStrategy(1000);
-    protected IdleStrategy feedbackIdler = new SleepingIdleStrategy(100000);
 
     protected ThreadingModel threadingModel = ThreadingModel.DEDICATED_THREADS;
 
@@ -89,50 +98,130 @@ public abstract class BaseTransport implements Transport {
         return originatorId;
     }
 
+    /**
+     * This method sends request to Shard, and blocks until it gets responded
+     *
+     * @param message
+     * @return
+     */
     @Override
     public MeaningfulMessage sendMessageAndGetResponse(@NonNull VoidMessage message) {
         long startTime = System.currentTimeMillis();
 
-        long taskId = message.getTaskId();
-        sendCommandToShard(message);
-        AtomicLong cnt = new AtomicLong(0);
+        MeaningfulMessage msg;
+        try {
+            msg = sendMessageAsync(message).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new RuntimeException(e.getCause());
+        }
 
-        //        log.info("Sent message to shard: {}, taskId: {}, originalId: {}", message.getClass().getSimpleName(), message.getTaskId(), taskId);
+        long endTime = System.currentTimeMillis();
+        long timeSpent = endTime - startTime;
+
+        if (message instanceof Frame && frameCount.incrementAndGet() % 1000 == 0)
+            log.info("Frame of {} messages [{}] processed in {} ms", ((Frame) message).size(), message.getTaskId(),
+                            timeSpent);
 
-        long currentTime = System.currentTimeMillis();
 
-        MeaningfulMessage msg;
-        while ((msg = completed.get(taskId)) == null) {
-            try {
-                //Thread.sleep(voidConfiguration.getResponseTimeframe());
-                feedbackIdler.idle();
+        return msg;
+    }
 
-                if (System.currentTimeMillis() - currentTime > voidConfiguration.getResponseTimeout()) {
-                    log.info("Resending request for taskId [{}]", taskId);
-                    message.incrementRetransmitCount();
+    /**
+     * This method sends request to Shard, and returns future to be completed with response.
+     * Requests without response within responseTimeout are retransmitted, or failed, as defined by
+     * {@link RetransmissionHandler#onResponseTimeout(VoidMessage)}.
+     *
+     * PLEASE NOTE: This method never blocks, so it's safe to call it from stages chained to other responses.
+     * If there are maxInFlightRequests requests waiting for responses already, returned future is failed with
+     * {@link ND4JIllegalStateException}, and message isn't sent.
+     *
+     * @param message
+     * @return
+     */
+    @Override
+    public CompletableFuture<MeaningfulMessage> sendMessageAsync(@NonNull VoidMessage message) {
+        ResponseTracker.PendingRequest request = responses.tryRegister(message,
+                        TimeUnit.MILLISECONDS.toNanos(voidConfiguration.getResponseTimeout()));
+
+        if (request == null) {
+            CompletableFuture<MeaningfulMessage> future = new CompletableFuture<>();
+            future.completeExceptionally(new ND4JIllegalStateException("Unable to send message for taskId ["
+                            + message.getTaskId() + "]: " + responses.getMaxInFlight()
+                            + " requests are waiting for responses already"));
+            return future;
+        }
 
-                    // TODO: make retransmit threshold configurable
-                    if (message.getRetransmitCount() > 20)
-                        throw new RuntimeException("Giving up on message delivery...");
+        try {
+            sendCommandToShard(message);
+        } catch (Exception e) {
+            responses.fail(request, e);
+        }
 
-                    return sendMessageAndGetResponse(message);
+        return request.getFuture();
+    }
+
+    /**
+     * This method passes response to the request waiting for it
+     *
+     * @param message
+     */
+    protected void onResponse(MeaningfulMessage message) {
+        responses.complete(message);
+    }
+
+    /**
+     * This method retransmits or fails requests, which weren't responded within responseTimeout
+     */
+    protected void checkResponseTimeouts() {
+        for (ResponseTracker.PendingRequest request : responses.expired(System.nanoTime())) {
+            VoidMessage message = request.getMessage();
+            try {
+                if (retransmissionHandler.onResponseTimeout(message)) {
+                    log.info("Resending request for taskId [{}]", message.getTaskId());
+                    request.restartTimeout();
+                    sendCommandToShard(message);
+                } else {
+                    responses.fail(request, new ND4JIllegalStateException(
+                                    "Giving up on message delivery for taskId [" + message.getTaskId() + "]"));
                 }
             } catch (Exception e) {
-                throw new RuntimeException(e);
+                responses.fail(request, e);
             }
         }
+    }
 
-        completed.remove(taskId);
+    protected void startResponseWatchdog() {
+        responseWatchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "VoidParameterServer response watchdog [" + nodeRole + "]");
+            t.setDaemon(true);
+            return t;
+        });
 
-        long endTime = System.currentTimeMillis();
-        long timeSpent = endTime - startTime;
-
-        if (message instanceof Frame && frameCount.incrementAndGet() % 1000 == 0)
-            log.info("Frame of {} messages [{}] processed in {} ms", ((Frame) message).size(), message.getTaskId(),
-                            timeSpent);
+        // timeouts are checked every responseTimeframe
+        long timeframe = Math.max(1, voidConfiguration.getResponseTimeframe());
+        responseWatchdog.scheduleWithFixedDelay(() -> {
+            try {
+                checkResponseTimeouts();
+            } catch (Exception e) {
+                log.error("Unable to check response timeouts", e);
+            }
+        }, timeframe, timeframe, TimeUnit.MILLISECONDS);
+    }
 
+    protected void stopResponseWatchdog() {
+        if (responseWatchdog != null)
+            responseWatchdog.shutdownNow();
 
-        return msg;
+        if (responses != null) {
+            responses.failAll(new ND4JIllegalStateException("Transport was shut down"));
+            responses.shutdown();
+        }
     }
 
     @Override
@@ -261,7 +350,7 @@ public abstract class BaseTransport implements Transport {
         buffer.getBytes(offset, data);
 
         MeaningfulMessage message = (MeaningfulMessage) VoidMessage.fromBytes(data);
-        completed.put(message.getTaskId(), message);
+        onResponse(message);
     }
 
 
@@ -294,6 +383,8 @@ public abstract class BaseTransport implements Transport {
     public void init(VoidConfiguration voidConfiguration, Clipboard clipboard, NodeRole role, String localIp,
                     int localPort, short shardIndex) {
         //Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdownSilent()));
+        this.responses = new ResponseTracker(voidConfiguration.getMaxInFlightRequests());
+        this.retransmissionHandler.init(voidConfiguration, this);
     }
 
     /**
@@ -303,8 +394,13 @@ public abstract class BaseTransport implements Transport {
      */
     @Override
     public void launch(@NonNull ThreadingModel threading) {
+        if (threading == ThreadingModel.SAME_THREAD && messages instanceof PartitionedMessageQueue)
+            throw new ND4JIllegalStateException("SAME_THREAD model can't be used with message batching");
+
         this.threadingModel = threading;
 
+        startResponseWatchdog();
+
         switch (threading) {
             case SINGLE_THREAD: {
 
@@ -410,6 +506,7 @@ public abstract class BaseTransport implements Transport {
     public void shutdown() {
         // Since Aeron's poll isn't blocking, all we need is just special flag
         runner.set(false);
+        stopResponseWatchdog();
         try {
             threadA.join();
 
@@ -471,6 +568,26 @@ public abstract class BaseTransport implements Transport {
         }
     }
 
+    /**
+     * This method takes 1 message for given consumer from "incoming messages" queue, blocking if there's nothing
+     * for this consumer
+     *
+     * @param consumer index of consumer thread
+     * @return
+     */
+    @Override
+    public VoidMessage takeMessage(int consumer) {
+        if (!(messages instanceof PartitionedMessageQueue))
+            return takeMessage();
+
+        try {
+            return ((PartitionedMessageQueue) messages).take(consumer);
+        } catch (InterruptedException e) {
+            // probably we don't want to do anything here
+            return null;
+        }
+    }
+
     /**
      * This method puts message into processing queue
      *
@@ -515,15 +632,16 @@ public abstract class BaseTransport implements Transport {
 
         long result = publicationForShards.offer(buffer);
 
-        if (result < 0)
-            for (int i = 0; i < 5 && result < 0; i++) {
-                try {
-                    // TODO: make this configurable
-                    Thread.sleep(1000);
-                } catch (Exception e) {
-                }
+        if (result < 0) {
+            // we keep retrying for up to 5 retransmit timeouts, backing off from spinning to parking
+            long deadline = System.nanoTime()
+                            + TimeUnit.MILLISECONDS.toNanos(5 * voidConfiguration.getRetransmitTimeout());
+            IdleStrategy backoff = backPressureIdler();
+            while (result < 0 && System.nanoTime() < deadline) {
+                backoff.idle();
                 result = publicationForShards.offer(buffer);
             }
+        }
 
         // TODO: handle retransmit & backpressure separately
 
@@ -531,6 +649,20 @@ public abstract class BaseTransport implements Transport {
             throw new RuntimeException("Unable to send message over the wire. Error code: " + result);
     }
 
+    /**
+     * This method returns idle strategy to be used while publication is back-pressured: it spins, yields,
+     * and then parks for up to retransmitTimeout, instead of sleeping for full retransmitTimeout right away
+     *
+     * PLEASE NOTE: idle strategies are stateful, so each sending thread should use its own instance
+     *
+     * @return
+     */
+    protected IdleStrategy backPressureIdler() {
+        long maxPark = TimeUnit.MILLISECONDS.toNanos(voidConfiguration.getRetransmitTimeout());
+        return new BackoffIdleStrategy(100, 10, TimeUnit.MICROSECONDS.toNanos(1),
+                        Math.max(maxPark, TimeUnit.MICROSECONDS.toNanos(1)));
+    }
+
     /**
      * This command is possible to issue only from Shard
      *
@@ -568,6 +700,12 @@ public abstract class BaseTransport implements Transport {
         return 0;
     }
 
+    @Override
+    public int numberOfMessageConsumers() {
+        return messages instanceof PartitionedMessageQueue ? ((PartitionedMessageQueue) messages).numberOfPartitions()
+                        : 0;
+    }
+
     @Override
     public void addShard(String ip, int port) {
         // no-op
@@ -7,6 +7,8 @@ import org.nd4j.parameterserver.distributed.logic.completion.Clipboard;
 import org.nd4j.parameterserver.distributed.messages.MeaningfulMessage;
 import org.nd4j.parameterserver.distributed.messages.VoidMessage;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  *
  * @author raver119@gmail.com
@@ -46,6 +48,11 @@ public class LocalTransport implements Transport {
         return 0;
     }
 
+    @Override
+    public int numberOfMessageConsumers() {
+        return 0;
+    }
+
     /**
      * @param message
      */
@@ -74,6 +81,18 @@ public class LocalTransport implements Transport {
         return null;
     }
 
+    /**
+     * This method takes 1 message for given consumer from "incoming messages" queue, blocking if there's nothing
+     * for this consumer
+     *
+     * @param consumer index of consumer thread
+     * @return
+     */
+    @Override
+    public VoidMessage takeMessage(int consumer) {
+        return null;
+    }
+
     /**
      * This method puts message into processing queue
      *
@@ -121,6 +140,11 @@ public class LocalTransport implements Transport {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public CompletableFuture<MeaningfulMessage> sendMessageAsync(@NonNull VoidMessage message) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public short getShardIndex() {
         return 0;
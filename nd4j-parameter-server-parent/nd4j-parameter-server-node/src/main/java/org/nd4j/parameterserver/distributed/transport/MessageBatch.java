@@ -0,0 +1,141 @@
+package org.nd4j.parameterserver.distributed.transport;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffer coalescing multiple serialized messages for the same destination into single frame.
+ *
+ * Frame layout: magic, number of messages, and then length and bytes of each message. Serialized messages always
+ * start with java serialization magic, so batch frames and single messages can be told apart on receiving side.
+ *
+ * PLEASE NOTE: This class isn't thread-safe, callers are expected to hold connection lock
+ */
+public class MessageBatch {
+    // "VBAT", doesn't collide with java serialization magic 0xACED
+    public static final int MAGIC = 0x56424154;
+    protected static final int HEADER_LENGTH = 8;
+    protected static final ByteOrder ORDER = ByteOrder.BIG_ENDIAN;
+
+    private final UnsafeBuffer buffer;
+    private int position = HEADER_LENGTH;
+    @Getter
+    private int size = 0;
+    // System.nanoTime() of first message appended to current batch
+    @Getter
+    private long firstAppendTime = 0L;
+
+    /**
+     * @param maxLength max size of batch frame, in bytes
+     */
+    public MessageBatch(int maxLength) {
+        if (maxLength <= HEADER_LENGTH + 4)
+            throw new IllegalArgumentException("Batch size should be above " + (HEADER_LENGTH + 4) + " bytes");
+
+        this.buffer = new UnsafeBuffer(new byte[maxLength]);
+    }
+
+    /**
+     * This method checks, if message of given length can ever be batched
+     */
+    public boolean isBatchable(int length) {
+        return HEADER_LENGTH + 4 + length <= buffer.capacity();
+    }
+
+    /**
+     * This method checks, if message of given length fits into current batch
+     */
+    public boolean fits(int length) {
+        return position + 4 + length <= buffer.capacity();
+    }
+
+    /**
+     * This method appends serialized message to this batch
+     *
+     * @param data serialized message
+     * @return false if message doesn't fit, batch is left intact then
+     */
+    public boolean append(@NonNull byte[] data) {
+        if (!fits(data.length))
+            return false;
+
+        if (size == 0)
+            firstAppendTime = System.nanoTime();
+
+        buffer.putInt(position, data.length, ORDER);
+        buffer.putBytes(position + 4, data);
+        position += 4 + data.length;
+        size++;
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * This method returns buffer with current batch frame, to be sent with {@link #offset()} and {@link #length()}.
+     * Batch of single message is sent as that message alone.
+     */
+    public DirectBuffer frame() {
+        buffer.putInt(0, MAGIC, ORDER);
+        buffer.putInt(4, size, ORDER);
+        return buffer;
+    }
+
+    public int offset() {
+        return size == 1 ? HEADER_LENGTH + 4 : 0;
+    }
+
+    public int length() {
+        return size == 1 ? position - HEADER_LENGTH - 4 : position;
+    }
+
+    /**
+     * This method drops all messages from this batch, it's called once batch was sent
+     */
+    public void reset() {
+        position = HEADER_LENGTH;
+        size = 0;
+        firstAppendTime = 0L;
+    }
+
+    /**
+     * This method checks, if given frame is batch frame
+     */
+    public static boolean isBatch(@NonNull DirectBuffer buffer, int offset, int length) {
+        return length >= HEADER_LENGTH && buffer.getInt(offset, ORDER) == MAGIC;
+    }
+
+    /**
+     * This method extracts all messages from batch frame
+     */
+    public static List<VoidMessage> unpack(@NonNull DirectBuffer buffer, int offset, int length) {
+        if (!isBatch(buffer, offset, length))
+            throw new IllegalArgumentException("Given frame isn't a batch");
+
+        int count = buffer.getInt(offset + 4, ORDER);
+        List<VoidMessage> result = new ArrayList<>(count);
+
+        int position = offset + HEADER_LENGTH;
+        for (int i = 0; i < count; i++) {
+            int messageLength = buffer.getInt(position, ORDER);
+            if (position + 4 + messageLength > offset + length)
+                throw new IllegalStateException("Batch frame is truncated at message " + i + " of " + count);
+
+            byte[] data = new byte[messageLength];
+            buffer.getBytes(position + 4, data);
+            result.add(VoidMessage.fromBytes(data));
+            position += 4 + messageLength;
+        }
+
+        return result;
+    }
+}
@@ -185,7 +185,7 @@ public class MulticastTransport extends BaseTransport {
         if (nodeRole == NodeRole.SHARD && voidConfiguration.getNumberOfShards() == 1
                         && message instanceof MeaningfulMessage) {
             message.setTargetId((short) -1);
-            completed.put(message.getTaskId(), (MeaningfulMessage) message);
+            onResponse((MeaningfulMessage) message);
             return;
         }
 
@@ -0,0 +1,361 @@
+package org.nd4j.parameterserver.distributed.transport;
+
+import lombok.NonNull;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Incoming messages queue for batching transport mode.
+ *
+ * Queue is split into partitions, each one is lock-free bounded queue. Messages are assigned to partitions by taskId,
+ * so messages of the same task are always processed by the same consumer thread, in order of arrival, as long as
+ * each consumer thread takes messages from its own partition via {@link #take(int)} and {@link #poll(int)}.
+ *
+ * Regular {@link BlockingQueue} methods, i.e. {@link #take()} or {@link #peek()}, look through all partitions, so
+ * single consumer thread (i.e. in manual mode) gets all messages, and any thread can inspect queue at any time.
+ *
+ * Producers and consumers use idle strategies instead of locks when queue is full or empty.
+ */
+public class PartitionedMessageQueue extends AbstractQueue<VoidMessage> implements BlockingQueue<VoidMessage> {
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Queue<VoidMessage>[] partitions;
+    private final AtomicInteger[] sizes;
+    private final IdleStrategy[] consumerIdlers;
+    private final int capacity;
+    // first partition checked by methods looking through all partitions, so no partition is starved
+    private final AtomicInteger cursor = new AtomicInteger(0);
+
+    /**
+     * @param numPartitions number of partitions, and consumer threads
+     * @param capacity      capacity of each partition
+     */
+    @SuppressWarnings("unchecked")
+    public PartitionedMessageQueue(int numPartitions, int capacity) {
+        if (numPartitions < 1)
+            throw new IllegalArgumentException("Number of partitions should be positive");
+
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity should be positive");
+
+        this.capacity = capacity;
+        partitions = new Queue[numPartitions];
+        sizes = new AtomicInteger[numPartitions];
+        consumerIdlers = new IdleStrategy[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            partitions[i] = new ConcurrentLinkedQueue<>();
+            sizes[i] = new AtomicInteger(0);
+            consumerIdlers[i] = newIdler();
+        }
+    }
+
+    protected static IdleStrategy newIdler() {
+        return new BackoffIdleStrategy(100, 10, MIN_PARK_NANOS, MAX_PARK_NANOS);
+    }
+
+    public int numberOfPartitions() {
+        return partitions.length;
+    }
+
+    /**
+     * This method returns partition given message is assigned to
+     */
+    public int partitionOf(@NonNull VoidMessage message) {
+        // taskIds aren't necessarily random, so we mix bits before taking remainder
+        long hash = message.getTaskId() * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 33) % partitions.length);
+    }
+
+    protected void checkPartition(int partition) {
+        if (partition < 0 || partition >= partitions.length)
+            throw new ND4JIllegalStateException("Partition [" + partition + "] is out of range, queue has "
+                            + partitions.length + " partitions");
+    }
+
+    @Override
+    public boolean offer(@NonNull VoidMessage message) {
+        int partition = partitionOf(message);
+        if (sizes[partition].incrementAndGet() > capacity) {
+            sizes[partition].decrementAndGet();
+            return false;
+        }
+
+        partitions[partition].offer(message);
+        return true;
+    }
+
+    /**
+     * This method adds message to the queue, waiting for space if its partition is full.
+     * Unlike {@link AbstractQueue#add(Object)} it never fails on full queue, same as unbounded queue wouldn't.
+     */
+    @Override
+    public boolean add(@NonNull VoidMessage message) {
+        if (!offer(message)) {
+            IdleStrategy idler = newIdler();
+            while (!offer(message))
+                idler.idle();
+        }
+        return true;
+    }
+
+    @Override
+    public void put(@NonNull VoidMessage message) throws InterruptedException {
+        if (!offer(message)) {
+            IdleStrategy idler = newIdler();
+            while (!offer(message)) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+
+                idler.idle();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(@NonNull VoidMessage message, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(message))
+            return true;
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        IdleStrategy idler = newIdler();
+        while (!offer(message)) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (System.nanoTime() > deadline)
+                return false;
+
+            idler.idle();
+        }
+        return true;
+    }
+
+    /**
+     * This method returns next message from given partition, or null if partition is empty
+     */
+    public VoidMessage poll(int partition) {
+        checkPartition(partition);
+
+        VoidMessage message = partitions[partition].poll();
+        if (message != null)
+            sizes[partition].decrementAndGet();
+
+        return message;
+    }
+
+    /**
+     * This method returns next message from given partition, waiting for it if partition is empty
+     */
+    public VoidMessage take(int partition) throws InterruptedException {
+        checkPartition(partition);
+        IdleStrategy idler = consumerIdlers[partition];
+
+        VoidMessage message;
+        while ((message = poll(partition)) == null) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            idler.idle(0);
+        }
+
+        idler.reset();
+        return message;
+    }
+
+    /**
+     * This method returns next message from given partition, waiting up to given timeout if partition is empty
+     */
+    public VoidMessage poll(int partition, long timeout, TimeUnit unit) throws InterruptedException {
+        checkPartition(partition);
+        IdleStrategy idler = consumerIdlers[partition];
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        VoidMessage message;
+        while ((message = poll(partition)) == null) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (System.nanoTime() > deadline)
+                break;
+
+            idler.idle(0);
+        }
+
+        idler.reset();
+        return message;
+    }
+
+    /**
+     * This method moves up to maxElements messages from given partition to given collection
+     */
+    public int drainTo(int partition, @NonNull Collection<? super VoidMessage> c, int maxElements) {
+        checkPartition(partition);
+
+        int cnt = 0;
+        VoidMessage message;
+        while (cnt < maxElements && (message = poll(partition)) != null) {
+            c.add(message);
+            cnt++;
+        }
+        return cnt;
+    }
+
+    /**
+     * This method returns next message from any partition, or null if all partitions are empty
+     */
+    @Override
+    public VoidMessage poll() {
+        int first = Math.abs(cursor.getAndIncrement() % partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            VoidMessage message = poll((first + i) % partitions.length);
+            if (message != null)
+                return message;
+        }
+
+        return null;
+    }
+
+    @Override
+    public VoidMessage take() throws InterruptedException {
+        IdleStrategy idler = newIdler();
+
+        VoidMessage message;
+        while ((message = poll()) == null) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            idler.idle();
+        }
+
+        return message;
+    }
+
+    @Override
+    public VoidMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        IdleStrategy idler = newIdler();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        VoidMessage message;
+        while ((message = poll()) == null) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (System.nanoTime() > deadline)
+                break;
+
+            idler.idle();
+        }
+
+        return message;
+    }
+
+    /**
+     * This method returns next message from any partition without removing it, or null if all partitions are empty
+     */
+    @Override
+    public VoidMessage peek() {
+        for (Queue<VoidMessage> partition : partitions) {
+            VoidMessage message = partition.peek();
+            if (message != null)
+                return message;
+        }
+
+        return null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (AtomicInteger partitionSize : sizes)
+            size += partitionSize.get();
+        return size;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        int remaining = 0;
+        for (AtomicInteger partitionSize : sizes)
+            remaining += Math.max(0, capacity - partitionSize.get());
+        return remaining;
+    }
+
+    @Override
+    public int drainTo(Collection<? super VoidMessage> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(@NonNull Collection<? super VoidMessage> c, int maxElements) {
+        int cnt = 0;
+        for (int i = 0; i < partitions.length && cnt < maxElements; i++)
+            cnt += drainTo(i, c, maxElements - cnt);
+
+        return cnt;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof VoidMessage && partitions[partitionOf((VoidMessage) o)].contains(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof VoidMessage))
+            return false;
+
+        int partition = partitionOf((VoidMessage) o);
+        if (!partitions[partition].remove(o))
+            return false;
+
+        sizes[partition].decrementAndGet();
+        return true;
+    }
+
+    /**
+     * This method returns weakly consistent iterator over all partitions, one partition after another
+     */
+    @Override
+    public Iterator<VoidMessage> iterator() {
+        return new Iterator<VoidMessage>() {
+            private int partition = 0;
+            private Iterator<VoidMessage> current = partitions[0].iterator();
+            private VoidMessage last;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && partition < partitions.length - 1)
+                    current = partitions[++partition].iterator();
+
+                return current.hasNext();
+            }
+
+            @Override
+            public VoidMessage next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                last = current.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null)
+                    throw new IllegalStateException();
+
+                // message might be taken by consumer meanwhile, so partition size is updated only if it's removed here
+                PartitionedMessageQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -9,6 +9,9 @@ import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import org.agrona.CloseHelper;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.io.StringUtils;
@@ -24,7 +27,9 @@ import org.nd4j.parameterserver.distributed.logic.routing.InterleavedRouter;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
@@ -34,17 +39,24 @@ import static java.lang.System.setProperty;
 /**
  * Transport implementation based on UDP unicast, for restricted environments, where multicast isn't available. I.e. AWS or Azure
  *
+ * With {@link VoidConfiguration#isMessageBatching()} enabled, messages for the same node are coalesced into
+ * {@link MessageBatch} frames, sent once batch is full or batchTimeout passed, and incoming messages are
+ * dispatched via {@link PartitionedMessageQueue}. Batch frames are always accepted on receiving side.
+ *
  * @author raver119@gmail.com
  */
 @Slf4j
 public class RoutedTransport extends BaseTransport {
 
-    protected List<RemoteConnection> shards = new ArrayList<>();
+    // batch flusher iterates over shards concurrently with addShard() calls
+    protected List<RemoteConnection> shards = new CopyOnWriteArrayList<>();
     protected Map<Long, RemoteConnection> clients = new ConcurrentHashMap<>();
     @Getter
     @Setter
     protected ClientRouter router;
 
+    protected Thread batchFlusher;
+
     public RoutedTransport() {
         //
     }
@@ -56,7 +68,10 @@ public class RoutedTransport extends BaseTransport {
         this.clipboard = clipboard;
         this.voidConfiguration = voidConfiguration;
         this.shardIndex = shardIndex;
-        this.messages = new LinkedBlockingQueue<>();
+        this.messages = voidConfiguration.isMessageBatching()
+                        ? new PartitionedMessageQueue(voidConfiguration.getDispatchThreads(),
+                                        voidConfiguration.getDispatchQueueSize())
+                        : new LinkedBlockingQueue<VoidMessage>();
         //shutdown hook
         super.init(voidConfiguration, clipboard, role, localIp, localPort, shardIndex);
         setProperty("aeron.client.liveness.timeout", "30000000000");
@@ -118,7 +133,7 @@ public class RoutedTransport extends BaseTransport {
             Publication publication = aeron.addPublication(shardChannelUri, voidConfiguration.getStreamId());
 
             RemoteConnection connection = RemoteConnection.builder().ip(remoteIp).port(remotePort)
-                            .publication(publication).locker(new Object()).build();
+                            .publication(publication).locker(new Object()).batch(newBatch()).build();
 
             shards.add(connection);
         }
@@ -169,6 +184,7 @@ public class RoutedTransport extends BaseTransport {
             throw new ND4JIllegalStateException("Only SHARD allowed to send messages to all Clients");
 
         final DirectBuffer buffer = message.asUnsafeBuffer();
+        final boolean urgent = isUrgent(message);
 
         // no need to search for matches above number of then exclusions
         final AtomicInteger cnt = new AtomicInteger(0);
@@ -197,9 +213,15 @@ public class RoutedTransport extends BaseTransport {
         }).forEach((rc) -> {
             //      log.info("Sending message to {}", rc.getLongHash());
 
+            if (rc.getBatch() != null) {
+                sendBatched(rc, buffer.byteArray(), urgent);
+                return;
+            }
+
             RetransmissionHandler.TransmissionStatus res;
             long retr = 0;
             boolean delivered = false;
+            IdleStrategy backoff = backPressureIdler();
 
             while (!delivered) {
                 // still stupid. maybe use real reentrant lock here?
@@ -229,12 +251,7 @@ public class RoutedTransport extends BaseTransport {
                         break;
                     case ADMIN_ACTION:
                     case BACKPRESSURE: {
-                        try {
-                            //Thread.sleep(voidConfiguration.getRetransmitTimeout());
-                            LockSupport.parkNanos(voidConfiguration.getRetransmitTimeout() * 1000000);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
+                        backoff.idle();
                     }
                         break;
                     case MESSAGE_SENT:
@@ -270,12 +287,14 @@ public class RoutedTransport extends BaseTransport {
         }
 
         final DirectBuffer buffer = message.asUnsafeBuffer();
+        final boolean urgent = isUrgent(message);
 
         // TODO: check which approach is faster, lambda, direct roll through list, or queue approach
         shards.parallelStream().forEach((rc) -> {
             RetransmissionHandler.TransmissionStatus res;
             long retr = 0;
             boolean delivered = false;
+            IdleStrategy backoff = backPressureIdler();
 
             long address = HashUtil.getLongHash(rc.getIp() + ":" + rc.getPort());
             if (originatorId == address) {
@@ -288,6 +307,11 @@ public class RoutedTransport extends BaseTransport {
                 return;
             }
 
+            if (rc.getBatch() != null) {
+                sendBatched(rc, buffer.byteArray(), urgent);
+                return;
+            }
+
             //      log.info("Trying to send [{}] to {}", message.getClass().getSimpleName(), address);
             while (!delivered) {
                 synchronized (rc.locker) {
@@ -314,10 +338,7 @@ public class RoutedTransport extends BaseTransport {
                         break;
                     case ADMIN_ACTION:
                     case BACKPRESSURE: {
-                        try {
-                            Thread.sleep(voidConfiguration.getRetransmitTimeout());
-                        } catch (Exception e) {
-                        }
+                        backoff.idle();
                     }
                         break;
                     case MESSAGE_SENT:
@@ -346,7 +367,7 @@ public class RoutedTransport extends BaseTransport {
         long targetAddress = message.getOriginatorId();
 
         if (targetAddress == originatorId) {
-            completed.put(message.getTaskId(), (MeaningfulMessage) message);
+            onResponse((MeaningfulMessage) message);
             return;
         }
 
@@ -363,6 +384,12 @@ public class RoutedTransport extends BaseTransport {
             throw new RuntimeException();
         }
 
+        if (connection.getBatch() != null) {
+            sendBatched(connection, message.asBytes(), isUrgent(message));
+            return;
+        }
+
+        IdleStrategy backoff = backPressureIdler();
         while (!delivered) {
             synchronized (connection.locker) {
                 result = RetransmissionHandler
@@ -372,10 +399,7 @@ public class RoutedTransport extends BaseTransport {
             switch (result) {
                 case ADMIN_ACTION:
                 case BACKPRESSURE: {
-                    try {
-                        Thread.sleep(voidConfiguration.getRetransmitTimeout());
-                    } catch (Exception e) {
-                    }
+                    backoff.idle();
                 }
                     break;
                 case NOT_CONNECTED: {
@@ -425,7 +449,19 @@ public class RoutedTransport extends BaseTransport {
 
     @Override
     public void shutdown() {
+        if (voidConfiguration != null && voidConfiguration.isMessageBatching()) {
+            try {
+                flushBatches(true);
+            } catch (Exception e) {
+                log.warn("Unable to flush message batches on shutdown", e);
+            }
+        }
+
         runner.set(false);
+        stopResponseWatchdog();
+
+        if (batchFlusher != null)
+            batchFlusher.interrupt();
 
         if (threadB != null)
             threadB.interrupt();
@@ -462,6 +498,12 @@ public class RoutedTransport extends BaseTransport {
         boolean delivered = false;
         RemoteConnection connection = shards.get(targetShard);
 
+        if (connection.getBatch() != null) {
+            sendBatched(connection, message.asBytes(), isUrgent(message));
+            return;
+        }
+
+        IdleStrategy backoff = backPressureIdler();
         while (!delivered) {
             synchronized (connection.locker) {
                 result = RetransmissionHandler
@@ -471,11 +513,8 @@ public class RoutedTransport extends BaseTransport {
             switch (result) {
                 case BACKPRESSURE:
                 case ADMIN_ACTION: {
-                    // we just sleep, and retransmit again later
-                    try {
-                        Thread.sleep(voidConfiguration.getRetransmitTimeout());
-                    } catch (Exception e) {
-                    }
+                    // we just back off, and retransmit again later
+                    backoff.idle();
                 }
                     break;
                 case NOT_CONNECTED:
@@ -516,19 +555,32 @@ public class RoutedTransport extends BaseTransport {
          *  All of them should implement MeaningfulMessage interface
          */
 
+        if (MessageBatch.isBatch(buffer, offset, length)) {
+            for (VoidMessage message : MessageBatch.unpack(buffer, offset, length))
+                processIncomingMessage(message);
+
+            return;
+        }
+
         byte[] data = new byte[length];
         buffer.getBytes(offset, data);
 
-        VoidMessage message = VoidMessage.fromBytes(data);
+        processIncomingMessage(VoidMessage.fromBytes(data));
+    }
 
+    /**
+     * This method dispatches single incoming message, either to request waiting for it, or to processing queue
+     *
+     * @param message
+     */
+    protected void processIncomingMessage(VoidMessage message) {
         //        log.info("sI_{} received message: {}", shardIndex, message.getClass().getSimpleName());
 
         //if (messages.size() > 500)
         //    log.info("sI_{} got {} messages", shardIndex, messages.size());
 
         if (message instanceof MeaningfulMessage) {
-            MeaningfulMessage msg = (MeaningfulMessage) message;
-            completed.put(message.getTaskId(), msg);
+            onResponse((MeaningfulMessage) message);
         } else if (message instanceof RequestMessage) {
             try {
                 messages.put((RequestMessage) message);
@@ -578,6 +630,24 @@ public class RoutedTransport extends BaseTransport {
     public void launch(@NonNull ThreadingModel threading) {
         super.launch(threading);
 
+        if (voidConfiguration.isMessageBatching()) {
+            batchFlusher = new Thread(() -> {
+                IdleStrategy flushIdler = new BackoffIdleStrategy(100, 10, TimeUnit.MICROSECONDS.toNanos(1),
+                                TimeUnit.MICROSECONDS.toNanos(Math.max(1, voidConfiguration.getBatchTimeout())));
+                while (runner.get()) {
+                    try {
+                        flushIdler.idle(flushBatches(false));
+                    } catch (Exception e) {
+                        log.error("Unable to flush message batch", e);
+                    }
+                }
+            });
+
+            batchFlusher.setDaemon(true);
+            batchFlusher.setName("VoidParameterServer batch flusher [" + nodeRole + "]");
+            batchFlusher.start();
+        }
+
         // send introductory message
         //        if (nodeRole == NodeRole.CLIENT) {
         //            shards.parallelStream().forEach((rc) -> {
@@ -589,6 +659,139 @@ public class RoutedTransport extends BaseTransport {
     }
 
 
+    protected MessageBatch newBatch() {
+        return voidConfiguration.isMessageBatching() ? new MessageBatch(voidConfiguration.getBatchSize()) : null;
+    }
+
+    /**
+     * This method checks, if other side waits for this message, so it shouldn't wait in batch
+     */
+    protected boolean isUrgent(VoidMessage message) {
+        return message instanceof MeaningfulMessage || message.isBlockingMessage();
+    }
+
+    /**
+     * This method appends message to the batch of given connection, and sends the batch if it's full.
+     * Urgent messages are sent right away, with everything batched before them.
+     *
+     * @param connection
+     * @param data serialized message
+     * @param urgent
+     */
+    protected void sendBatched(RemoteConnection connection, byte[] data, boolean urgent) {
+        MessageBatch batch = connection.getBatch();
+
+        synchronized (connection.locker) {
+            if (!batch.isBatchable(data.length)) {
+                // message is too big for batching, but it still has to go after messages batched before it
+                flushBatch(connection);
+                offerWithRetransmit(connection, new UnsafeBuffer(data), 0, data.length);
+                return;
+            }
+
+            if (!batch.fits(data.length))
+                flushBatch(connection);
+
+            batch.append(data);
+
+            if (urgent)
+                flushBatch(connection);
+        }
+    }
+
+    /**
+     * This method sends batches, which waited for batchTimeout already
+     *
+     * @param force send all non-empty batches, regardless of their age
+     * @return number of batches sent
+     */
+    protected int flushBatches(boolean force) {
+        long now = System.nanoTime();
+        long timeout = TimeUnit.MICROSECONDS.toNanos(voidConfiguration.getBatchTimeout());
+
+        int cnt = 0;
+        for (RemoteConnection connection : shards)
+            cnt += flushBatch(connection, now, timeout, force);
+
+        for (RemoteConnection connection : clients.values())
+            cnt += flushBatch(connection, now, timeout, force);
+
+        return cnt;
+    }
+
+    protected int flushBatch(RemoteConnection connection, long now, long timeout, boolean force) {
+        MessageBatch batch = connection.getBatch();
+        if (batch == null)
+            return 0;
+
+        synchronized (connection.locker) {
+            if (batch.isEmpty() || (!force && now - batch.getFirstAppendTime() < timeout))
+                return 0;
+
+            flushBatch(connection);
+            return 1;
+        }
+    }
+
+    /**
+     * This method sends batch of given connection.
+     *
+     * PLEASE NOTE: caller should hold connection lock
+     *
+     * @param connection
+     */
+    protected void flushBatch(RemoteConnection connection) {
+        MessageBatch batch = connection.getBatch();
+        if (batch.isEmpty())
+            return;
+
+        try {
+            offerWithRetransmit(connection, batch.frame(), batch.offset(), batch.length());
+        } finally {
+            batch.reset();
+        }
+    }
+
+    /**
+     * This method offers frame to connection, backing off while publication is back-pressured.
+     * If connection was active before and is lost now, frame is discarded, since batch may hold messages
+     * for different purposes, and there's no single way to handle them.
+     *
+     * PLEASE NOTE: caller should hold connection lock
+     */
+    protected void offerWithRetransmit(RemoteConnection connection, DirectBuffer buffer, int offset, int length) {
+        IdleStrategy backoff = backPressureIdler();
+        long retr = 0;
+
+        while (true) {
+            RetransmissionHandler.TransmissionStatus result = RetransmissionHandler
+                            .getTransmissionStatus(connection.getPublication().offer(buffer, offset, length));
+
+            switch (result) {
+                case MESSAGE_SENT:
+                    connection.getActivated().set(true);
+                    return;
+                case ADMIN_ACTION:
+                case BACKPRESSURE:
+                    backoff.idle();
+                    break;
+                case NOT_CONNECTED:
+                    if (connection.getActivated().get()) {
+                        log.warn("Connection to [{}] is lost, discarding {} bytes",
+                                        connection.getPublication().channel(), length);
+                        return;
+                    }
+
+                    if (++retr > 20)
+                        throw new ND4JIllegalStateException(
+                                        "Can't connect to: [" + connection.getPublication().channel() + "]");
+
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(voidConfiguration.getRetransmitTimeout()));
+                    break;
+            }
+        }
+    }
+
     @Override
     public synchronized void addShard(String ip, int port) {
         Long hash = HashUtil.getLongHash(ip + ":" + port);
@@ -596,7 +799,8 @@ public class RoutedTransport extends BaseTransport {
         RemoteConnection connection = RemoteConnection.builder().ip(ip).port(port)
                         .publication(aeron.addPublication("aeron:udp?endpoint=" + ip + ":" + port,
                                         voidConfiguration.getStreamId()))
-                        .longHash(hash).locker(new Object()).activated(new AtomicBoolean(false)).build();
+                        .longHash(hash).locker(new Object()).activated(new AtomicBoolean(false)).batch(newBatch())
+                        .build();
 
         log.info("sI_{} {}: Adding SHARD: [{}] to {}:{}", shardIndex, nodeRole, hash, ip, port);
         shards.add(connection);
@@ -611,7 +815,8 @@ public class RoutedTransport extends BaseTransport {
         RemoteConnection connection = RemoteConnection.builder().ip(ip).port(port)
                         .publication(aeron.addPublication("aeron:udp?endpoint=" + ip + ":" + port,
                                         voidConfiguration.getStreamId()))
-                        .longHash(hash).locker(new Object()).activated(new AtomicBoolean(false)).build();
+                        .longHash(hash).locker(new Object()).activated(new AtomicBoolean(false)).batch(newBatch())
+                        .build();
 
 
         log.info("sI_{} {}: Adding connection: [{}] to {}:{}", shardIndex, nodeRole, hash, ip, port);
@@ -629,6 +834,8 @@ public class RoutedTransport extends BaseTransport {
         private Object locker;
         private AtomicBoolean activated;
         protected long longHash;
+        // null unless message batching is enabled
+        private MessageBatch batch;
 
 
 
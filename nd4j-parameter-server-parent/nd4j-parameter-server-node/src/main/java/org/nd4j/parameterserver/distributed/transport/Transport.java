@@ -6,6 +6,8 @@ import org.nd4j.parameterserver.distributed.logic.completion.Clipboard;
 import org.nd4j.parameterserver.distributed.messages.MeaningfulMessage;
 import org.nd4j.parameterserver.distributed.messages.VoidMessage;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Transport interface describes Client -> Shard, Shard -> Shard, Shard -> Client communication
  *
@@ -59,6 +61,14 @@ public interface Transport {
      */
     MeaningfulMessage sendMessageAndGetResponse(VoidMessage message);
 
+    /**
+     * This method sends message, and returns future to be completed with response, without blocking
+     *
+     * @param message
+     * @return
+     */
+    CompletableFuture<MeaningfulMessage> sendMessageAsync(VoidMessage message);
+
     /**
      *
      * @param message
@@ -85,6 +95,16 @@ public interface Transport {
      */
     VoidMessage takeMessage();
 
+    /**
+     * This method takes 1 message for given consumer from "incoming messages" queue, blocking if there's nothing
+     * for this consumer. Consumer index should be in range [0, numberOfMessageConsumers()), and each consumer thread
+     * should use its own index. If any number of threads can be used, consumer index is ignored
+     *
+     * @param consumer index of consumer thread
+     * @return
+     */
+    VoidMessage takeMessage(int consumer);
+
     /**
      * This method puts message into processing queue
      *
@@ -125,6 +145,13 @@ public interface Transport {
      */
     int numberOfKnownShards();
 
+    /**
+     * This method returns number of threads expected to take messages from this Transport,
+     * or 0 if any number of threads can be used
+     * @return
+     */
+    int numberOfMessageConsumers();
+
     /**
      * This method returns ID of this Transport instance
      * @return
@@ -0,0 +1,127 @@
+package org.nd4j.parameterserver.node.sharding;
+
+import io.aeron.Aeron;
+import io.aeron.driver.MediaDriver;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.parameterserver.ParameterServerSubscriber;
+import org.nd4j.parameterserver.client.sharding.ParameterBlock;
+import org.nd4j.parameterserver.client.sharding.ShardAddress;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shard of a sharded parameter server.
+ *
+ * Every {@link ParameterBlock} owned by this node is held by its own master {@link ParameterServerSubscriber},
+ * with updates received on the stream defined by {@link ShardAddress#streamFor(ParameterBlock)}, so a node
+ * holds only its part of the parameter vector.
+ */
+@Slf4j
+public class ShardNode implements AutoCloseable {
+    @Getter
+    private final ShardAddress address;
+    private final MediaDriver mediaDriver;
+    private final Aeron aeron;
+    private final int updatesPerEpoch;
+    private final int statusServerPort;
+    private final Map<Integer, ParameterServerSubscriber> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * @param address          the address this node listens on
+     * @param mediaDriver      the media driver to use for communication
+     * @param aeron            the aeron instance shared by all blocks of this node
+     * @param updatesPerEpoch  the number of updates per epoch, for every block
+     * @param statusServerPort the port of the status server, heartbeats are sent only if it's running
+     */
+    public ShardNode(@NonNull ShardAddress address, @NonNull MediaDriver mediaDriver, @NonNull Aeron aeron,
+                    int updatesPerEpoch, int statusServerPort) {
+        this.address = address;
+        this.mediaDriver = mediaDriver;
+        this.aeron = aeron;
+        this.updatesPerEpoch = updatesPerEpoch;
+        this.statusServerPort = statusServerPort;
+    }
+
+    /**
+     * Start serving the given block
+     * @param block the block to serve
+     * @param initial the initial value of the block, or null for zeros
+     */
+    public synchronized void hostBlock(@NonNull ParameterBlock block, INDArray initial) {
+        if (subscribers.containsKey(block.getIndex()))
+            throw new IllegalStateException("Block [" + block.getName() + "] is already hosted on " + address);
+
+        ParameterServerSubscriber subscriber = new ParameterServerSubscriber(mediaDriver);
+        subscriber.setAeron(aeron);
+        // blocks are closed by this node, so subscribers of released blocks aren't kept alive by shutdown hooks
+        subscriber.setRegisterShutdownHook(false);
+        subscriber.run(new String[] {"-m", "true", "-s", "1," + block.getLength(), "-p",
+                        String.valueOf(address.getPort()), "-h", address.getHost(), "-id",
+                        String.valueOf(address.streamFor(block)), "-md", mediaDriver.aeronDirectoryName(), "-sp",
+                        String.valueOf(statusServerPort), "-u", String.valueOf(updatesPerEpoch)});
+
+        if (initial != null)
+            subscriber.getMasterArray().assign(initial.reshape(1, block.getLength()));
+
+        subscribers.put(block.getIndex(), subscriber);
+        log.debug("Block [{}] is hosted on {}", block.getName(), address);
+    }
+
+    /**
+     * Stop serving the given block
+     * @param block the block to release
+     * @return the last value of the block
+     */
+    public synchronized INDArray releaseBlock(@NonNull ParameterBlock block) {
+        ParameterServerSubscriber subscriber = subscribers.remove(block.getIndex());
+        if (subscriber == null)
+            throw new IllegalStateException("Block [" + block.getName() + "] isn't hosted on " + address);
+
+        INDArray value = subscriber.getMasterArray().dup();
+        subscriber.close();
+        log.debug("Block [{}] is released from {}", block.getName(), address);
+        return value;
+    }
+
+    /**
+     * Returns the current value of the given block.
+     * Note that this is the live master array
+     */
+    public INDArray getBlock(@NonNull ParameterBlock block) {
+        ParameterServerSubscriber subscriber = subscribers.get(block.getIndex());
+        if (subscriber == null)
+            throw new IllegalStateException("Block [" + block.getName() + "] isn't hosted on " + address);
+
+        return subscriber.getMasterArray();
+    }
+
+    /**
+     * Returns indices of the blocks hosted on this node
+     */
+    public Set<Integer> hostedBlocks() {
+        return new TreeSet<>(subscribers.keySet());
+    }
+
+    /**
+     * Returns true if subscribers of all hosted blocks are launched
+     */
+    public boolean subscriberLaunched() {
+        for (ParameterServerSubscriber subscriber : subscribers.values())
+            if (!subscriber.subscriberLaunched())
+                return false;
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (ParameterServerSubscriber subscriber : subscribers.values())
+            subscriber.close();
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,144 @@
+package org.nd4j.parameterserver.node.sharding;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.parameterserver.client.sharding.ConsistentHashRing;
+import org.nd4j.parameterserver.client.sharding.ParameterBlock;
+import org.nd4j.parameterserver.client.sharding.ShardAddress;
+import org.nd4j.parameterserver.client.sharding.ShardLayout;
+
+import java.util.*;
+
+/**
+ * Sharded parameter server.
+ *
+ * Parameter vector is split into blocks as defined by {@link ShardLayout}, and blocks are spread across
+ * {@link ShardNode}s with {@link ConsistentHashRing}, so no node has to hold the whole vector, and updates
+ * for different blocks go through different nodes.
+ *
+ * When a node joins or leaves, only blocks that change owner on the ring are moved: new owner starts serving
+ * the block with its current value, and old owner releases it then.
+ *
+ * PLEASE NOTE: rebalancing is meant to happen between synchronization rounds: updates that arrive at old owner
+ * while block is moved are lost, and clients have to be told about node changes via
+ * {@link org.nd4j.parameterserver.client.sharding.ShardedParameterServerClient#addShard(ShardAddress)} and
+ * {@link org.nd4j.parameterserver.client.sharding.ShardedParameterServerClient#removeShard(ShardAddress)}
+ */
+@Slf4j
+public class ShardedParameterServer implements AutoCloseable {
+    @Getter
+    private final ShardLayout layout;
+    private final ConsistentHashRing<ShardAddress> ring = new ConsistentHashRing<>();
+    private final Map<ShardAddress, ShardNode> nodes = new LinkedHashMap<>();
+
+    public ShardedParameterServer(@NonNull ShardLayout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * Add a node, blocks it owns on the ring are moved to it
+     * @param node the node to add
+     * @return number of blocks moved to the node
+     */
+    public synchronized int addNode(@NonNull ShardNode node) {
+        if (nodes.containsKey(node.getAddress()))
+            throw new IllegalStateException("Node " + node.getAddress() + " was already added");
+
+        Map<ParameterBlock, ShardAddress> before =
+                        ring.size() == 0 ? Collections.<ParameterBlock, ShardAddress>emptyMap() : layout.assign(ring);
+        nodes.put(node.getAddress(), node);
+        ring.add(node.getAddress());
+
+        return rebalance(before);
+    }
+
+    /**
+     * Remove a node, its blocks are moved to remaining nodes
+     * @param address the address of the node to remove
+     * @return the removed node, it's not closed
+     */
+    public synchronized ShardNode removeNode(@NonNull ShardAddress address) {
+        if (!nodes.containsKey(address))
+            throw new IllegalStateException("Node " + address + " is unknown");
+
+        if (nodes.size() == 1)
+            throw new IllegalStateException("Unable to remove the last node");
+
+        Map<ParameterBlock, ShardAddress> before = layout.assign(ring);
+        ring.remove(address);
+        rebalance(before);
+
+        return nodes.remove(address);
+    }
+
+    protected int rebalance(Map<ParameterBlock, ShardAddress> before) {
+        Map<ParameterBlock, ShardAddress> after = layout.assign(ring);
+
+        int moved = 0;
+        for (ParameterBlock block : layout.getBlocks()) {
+            ShardAddress from = before.get(block);
+            ShardAddress to = after.get(block);
+
+            if (from == null) {
+                nodes.get(to).hostBlock(block, null);
+            } else if (!from.equals(to)) {
+                ShardNode source = nodes.get(from);
+                nodes.get(to).hostBlock(block, source.getBlock(block));
+                source.releaseBlock(block);
+                moved++;
+            }
+        }
+
+        log.info("Rebalanced {} of {} blocks across {} nodes", moved, layout.numBlocks(), nodes.size());
+        return moved;
+    }
+
+    /**
+     * Returns the node currently owning the given block
+     */
+    public synchronized ShardAddress ownerOf(@NonNull ParameterBlock block) {
+        return ring.nodeFor(block.getName());
+    }
+
+    public synchronized List<ShardAddress> getAddresses() {
+        return ring.getNodes();
+    }
+
+    public synchronized ShardNode getNode(@NonNull ShardAddress address) {
+        return nodes.get(address);
+    }
+
+    /**
+     * Returns a copy of the whole parameter vector, gathered from all nodes
+     */
+    public synchronized INDArray getParameters() {
+        INDArray result = Nd4j.create(1, (int) layout.getLength());
+        for (ParameterBlock block : layout.getBlocks()) {
+            int offset = (int) block.getOffset();
+            result.get(NDArrayIndex.all(), NDArrayIndex.interval(offset, offset + block.getLength()))
+                            .assign(nodes.get(ownerOf(block)).getBlock(block));
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if all nodes are launched
+     */
+    public synchronized boolean subscriberLaunched() {
+        for (ShardNode node : nodes.values())
+            if (!node.subscriberLaunched())
+                return false;
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (ShardNode node : nodes.values())
+            node.close();
+        nodes.clear();
+    }
+}
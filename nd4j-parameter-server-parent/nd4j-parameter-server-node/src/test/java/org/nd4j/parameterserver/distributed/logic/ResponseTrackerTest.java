@@ -0,0 +1,148 @@
+package org.nd4j.parameterserver.distributed.logic;
+
+import org.junit.Test;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.parameterserver.distributed.logic.completion.ResponseTracker;
+import org.nd4j.parameterserver.distributed.messages.MeaningfulMessage;
+import org.nd4j.parameterserver.distributed.messages.complete.VectorCompleteMessage;
+import org.nd4j.parameterserver.distributed.messages.requests.VectorRequestMessage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ResponseTrackerTest {
+
+    @Test
+    public void testCompletion1() throws Exception {
+        ResponseTracker tracker = new ResponseTracker(16);
+
+        CompletableFuture<MeaningfulMessage> first =
+                        tracker.register(new VectorRequestMessage(1), TimeUnit.SECONDS.toNanos(10)).getFuture();
+        CompletableFuture<MeaningfulMessage> second =
+                        tracker.register(new VectorRequestMessage(2), TimeUnit.SECONDS.toNanos(10)).getFuture();
+        assertEquals(2, tracker.inFlight());
+
+        assertTrue(tracker.complete(new VectorCompleteMessage(2, Nd4j.create(new float[] {2.0f}))));
+        assertEquals(2.0f, second.get(5, TimeUnit.SECONDS).getPayload().getFloat(0), 1e-5f);
+        assertFalse(first.isDone());
+
+        // duplicate response for retransmitted request is ignored
+        assertFalse(tracker.complete(new VectorCompleteMessage(2, Nd4j.create(new float[] {2.0f}))));
+
+        assertTrue(tracker.complete(new VectorCompleteMessage(1, Nd4j.create(new float[] {1.0f}))));
+        assertEquals(1.0f, first.get().getPayload().getFloat(0), 1e-5f);
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    public void testSharedTaskId1() throws Exception {
+        ResponseTracker tracker = new ResponseTracker(16);
+
+        CompletableFuture<MeaningfulMessage> first =
+                        tracker.register(new VectorRequestMessage(7), TimeUnit.SECONDS.toNanos(10)).getFuture();
+        CompletableFuture<MeaningfulMessage> second =
+                        tracker.register(new VectorRequestMessage(7), TimeUnit.SECONDS.toNanos(10)).getFuture();
+
+        tracker.complete(new VectorCompleteMessage(7, Nd4j.create(new float[] {1.0f})));
+        first.get(5, TimeUnit.SECONDS);
+        assertFalse(second.isDone());
+
+        tracker.complete(new VectorCompleteMessage(7, Nd4j.create(new float[] {1.0f})));
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testWindow1() throws Exception {
+        final ResponseTracker tracker = new ResponseTracker(1);
+        tracker.register(new VectorRequestMessage(1), TimeUnit.SECONDS.toNanos(10));
+
+        final AtomicBoolean registered = new AtomicBoolean(false);
+        Thread thread = new Thread(() -> {
+            try {
+                tracker.register(new VectorRequestMessage(2), TimeUnit.SECONDS.toNanos(10));
+                registered.set(true);
+            } catch (InterruptedException e) {
+                //
+            }
+        });
+        thread.start();
+
+        Thread.sleep(200);
+        assertFalse(registered.get());
+
+        tracker.complete(new VectorCompleteMessage(1, Nd4j.create(new float[] {1.0f})));
+        thread.join(5000);
+        assertTrue(registered.get());
+    }
+
+    @Test
+    public void testTryRegister1() throws Exception {
+        ResponseTracker tracker = new ResponseTracker(1);
+
+        assertNotNull(tracker.tryRegister(new VectorRequestMessage(1), TimeUnit.SECONDS.toNanos(10)));
+
+        // window is full, so request is refused right away
+        assertNull(tracker.tryRegister(new VectorRequestMessage(2), TimeUnit.SECONDS.toNanos(10)));
+        assertEquals(1, tracker.inFlight());
+
+        tracker.complete(new VectorCompleteMessage(1, Nd4j.create(new float[] {1.0f})));
+        assertNotNull(tracker.tryRegister(new VectorRequestMessage(2), TimeUnit.SECONDS.toNanos(10)));
+    }
+
+    @Test
+    public void testChainedRequest1() throws Exception {
+        final ResponseTracker tracker = new ResponseTracker(1);
+        final Thread receiver = Thread.currentThread();
+        final AtomicBoolean completedInPlace = new AtomicBoolean(false);
+
+        CompletableFuture<MeaningfulMessage> first =
+                        tracker.register(new VectorRequestMessage(1), TimeUnit.SECONDS.toNanos(10)).getFuture();
+
+        // next request is sent from response callback, while window is full until first response arrives
+        CompletableFuture<MeaningfulMessage> chained = first.thenCompose(response -> {
+            if (Thread.currentThread() == receiver)
+                completedInPlace.set(true);
+
+            return tracker.tryRegister(new VectorRequestMessage(2), TimeUnit.SECONDS.toNanos(10)).getFuture();
+        });
+
+        // this thread plays transport receiver here, so it has to be free to deliver second response
+        assertTrue(tracker.complete(new VectorCompleteMessage(1, Nd4j.create(new float[] {1.0f}))));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!tracker.complete(new VectorCompleteMessage(2, Nd4j.create(new float[] {2.0f})))) {
+            assertTrue("Chained request wasn't registered", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+
+        assertEquals(2.0f, chained.get(5, TimeUnit.SECONDS).getPayload().getFloat(0), 1e-5f);
+        assertFalse(completedInPlace.get());
+        assertEquals(0, tracker.inFlight());
+
+        tracker.shutdown();
+    }
+
+    @Test
+    public void testTimeout1() throws Exception {
+        ResponseTracker tracker = new ResponseTracker(16);
+
+        ResponseTracker.PendingRequest request = tracker.register(new VectorRequestMessage(1), 0L);
+        Thread.sleep(10);
+
+        assertEquals(1, tracker.expired(System.nanoTime()).size());
+
+        assertTrue(tracker.fail(request, new RuntimeException("timeout")));
+        assertEquals(0, tracker.inFlight());
+
+        try {
+            request.getFuture().get();
+            fail("Exception expected");
+        } catch (ExecutionException e) {
+            assertEquals("timeout", e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.nd4j.parameterserver.distributed.transport;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.messages.requests.IntroductionRequestMessage;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageBatchTest {
+
+    @Test
+    public void testPackUnpack1() throws Exception {
+        MessageBatch batch = new MessageBatch(16384);
+
+        for (int i = 0; i < 10; i++) {
+            IntroductionRequestMessage message = new IntroductionRequestMessage("127.0.0.1", 40000 + i);
+            message.setTaskId(i);
+            assertTrue(batch.append(message.asBytes()));
+        }
+
+        assertEquals(10, batch.getSize());
+        assertTrue(MessageBatch.isBatch(batch.frame(), batch.offset(), batch.length()));
+
+        List<VoidMessage> messages = MessageBatch.unpack(batch.frame(), batch.offset(), batch.length());
+        assertEquals(10, messages.size());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(messages.get(i) instanceof IntroductionRequestMessage);
+            assertEquals(i, messages.get(i).getTaskId());
+        }
+
+        batch.reset();
+        assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    public void testSingleMessage1() throws Exception {
+        MessageBatch batch = new MessageBatch(16384);
+
+        IntroductionRequestMessage message = new IntroductionRequestMessage("127.0.0.1", 40000);
+        message.setTaskId(119);
+        byte[] bytes = message.asBytes();
+        batch.append(bytes);
+
+        // single message goes as is, so receiver doesn't need batch support for it
+        assertFalse(MessageBatch.isBatch(batch.frame(), batch.offset(), batch.length()));
+        assertEquals(bytes.length, batch.length());
+
+        byte[] sent = new byte[batch.length()];
+        batch.frame().getBytes(batch.offset(), sent);
+        assertArrayEquals(bytes, sent);
+
+        assertFalse(MessageBatch.isBatch(new UnsafeBuffer(bytes), 0, bytes.length));
+    }
+
+    @Test
+    public void testOverflow1() throws Exception {
+        byte[] bytes = new IntroductionRequestMessage("127.0.0.1", 40000).asBytes();
+        MessageBatch batch = new MessageBatch(8 + 2 * (4 + bytes.length));
+
+        assertTrue(batch.append(bytes));
+        assertTrue(batch.append(bytes));
+        assertFalse(batch.fits(bytes.length));
+        assertFalse(batch.append(bytes));
+        assertEquals(2, batch.getSize());
+
+        assertTrue(batch.isBatchable(bytes.length));
+        assertFalse(batch.isBatchable(2 * bytes.length + 8));
+    }
+}
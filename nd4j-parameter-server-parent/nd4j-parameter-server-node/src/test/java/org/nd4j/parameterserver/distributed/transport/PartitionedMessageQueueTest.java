@@ -0,0 +1,139 @@
+package org.nd4j.parameterserver.distributed.transport;
+
+import org.junit.Test;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.messages.requests.IntroductionRequestMessage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PartitionedMessageQueueTest {
+
+    protected static VoidMessage message(long taskId) {
+        IntroductionRequestMessage message = new IntroductionRequestMessage("127.0.0.1", 40000);
+        message.setTaskId(taskId);
+        return message;
+    }
+
+    @Test
+    public void testPartitioning1() throws Exception {
+        final PartitionedMessageQueue queue = new PartitionedMessageQueue(4, 1024);
+
+        for (int i = 0; i < 1000; i++)
+            queue.put(message(i % 50));
+
+        assertEquals(1000, queue.size());
+
+        final AtomicInteger failures = new AtomicInteger(0);
+        final AtomicInteger received = new AtomicInteger(0);
+        List<Thread> consumers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int partition = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    VoidMessage message;
+                    while ((message = queue.poll(partition, 100, TimeUnit.MILLISECONDS)) != null) {
+                        // all messages taken by this thread should belong to its own partition
+                        if (queue.partitionOf(message) != partition)
+                            failures.incrementAndGet();
+
+                        received.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+            thread.start();
+            consumers.add(thread);
+        }
+
+        for (Thread thread : consumers)
+            thread.join();
+
+        assertEquals(0, failures.get());
+        assertEquals(1000, received.get());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testOrdering1() throws Exception {
+        PartitionedMessageQueue queue = new PartitionedMessageQueue(1, 16);
+
+        for (int i = 0; i < 10; i++)
+            queue.add(message(i));
+
+        for (int i = 0; i < 10; i++)
+            assertEquals(i, queue.take().getTaskId());
+
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testSingleConsumer1() throws Exception {
+        PartitionedMessageQueue queue = new PartitionedMessageQueue(4, 1024);
+
+        for (int i = 0; i < 100; i++)
+            queue.put(message(i));
+
+        // peek doesn't bind anything, and single consumer gets messages from all partitions
+        assertNotNull(queue.peek());
+        assertNotNull(queue.peek());
+
+        int received = 0;
+        while (queue.poll(10, TimeUnit.MILLISECONDS) != null)
+            received++;
+
+        assertEquals(100, received);
+        assertEquals(0, queue.size());
+
+        // indexed consumer still works after that
+        queue.put(message(7));
+        assertEquals(7, queue.take(queue.partitionOf(message(7))).getTaskId());
+    }
+
+    @Test
+    public void testCollectionContract1() throws Exception {
+        PartitionedMessageQueue queue = new PartitionedMessageQueue(4, 1024);
+
+        List<VoidMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            VoidMessage message = message(i);
+            messages.add(message);
+            queue.put(message);
+        }
+
+        int cnt = 0;
+        for (VoidMessage message : queue) {
+            assertTrue(messages.contains(message));
+            cnt++;
+        }
+        assertEquals(20, cnt);
+
+        assertTrue(queue.contains(messages.get(5)));
+        assertTrue(queue.remove(messages.get(5)));
+        assertFalse(queue.contains(messages.get(5)));
+        assertFalse(queue.remove(messages.get(5)));
+        assertEquals(19, queue.size());
+
+        Iterator<VoidMessage> iterator = queue.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(18, queue.size());
+
+        assertNotNull(queue.toString());
+        assertEquals(18, queue.toArray().length);
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testPartitionOutOfRange1() throws Exception {
+        PartitionedMessageQueue queue = new PartitionedMessageQueue(1, 16);
+
+        queue.take(1);
+    }
+}
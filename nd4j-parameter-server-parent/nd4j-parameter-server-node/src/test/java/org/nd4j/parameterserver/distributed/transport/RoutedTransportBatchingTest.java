@@ -0,0 +1,121 @@
+package org.nd4j.parameterserver.distributed.transport;
+
+import org.agrona.DirectBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.parameterserver.distributed.conf.VoidConfiguration;
+import org.nd4j.parameterserver.distributed.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.messages.intercom.DistributedShutdownMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for batching path of RoutedTransport, with frames captured instead of being sent via Aeron
+ */
+public class RoutedTransportBatchingTest {
+    private CapturingTransport transport;
+    private RoutedTransport.RemoteConnection connection;
+
+    private static class CapturingTransport extends RoutedTransport {
+        // each element is list of messages delivered within single frame
+        private final List<List<VoidMessage>> frames = new ArrayList<>();
+
+        private CapturingTransport(VoidConfiguration configuration) {
+            this.voidConfiguration = configuration;
+        }
+
+        @Override
+        protected void offerWithRetransmit(RemoteConnection connection, DirectBuffer buffer, int offset, int length) {
+            if (MessageBatch.isBatch(buffer, offset, length)) {
+                frames.add(MessageBatch.unpack(buffer, offset, length));
+            } else {
+                byte[] data = new byte[length];
+                buffer.getBytes(offset, data);
+                frames.add(Collections.<VoidMessage>singletonList(VoidMessage.fromBytes(data)));
+            }
+        }
+    }
+
+    protected static VoidMessage message(long taskId) {
+        DistributedShutdownMessage message = new DistributedShutdownMessage();
+        message.setTaskId(taskId);
+        return message;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // timeout is long enough, so batches are sent only when forced, full or urgent
+        VoidConfiguration configuration = VoidConfiguration.builder().messageBatching(true).batchSize(16384)
+                        .batchTimeout(TimeUnit.HOURS.toMicros(1)).build();
+
+        transport = new CapturingTransport(configuration);
+        connection = RoutedTransport.RemoteConnection.builder().ip("127.0.0.1").port(40123)
+                        .batch(new MessageBatch(configuration.getBatchSize())).build();
+        transport.shards.add(connection);
+    }
+
+    @Test
+    public void testForcedFlush1() throws Exception {
+        for (int i = 0; i < 5; i++)
+            transport.sendBatched(connection, message(i).asBytes(), false);
+
+        assertTrue(transport.frames.isEmpty());
+
+        // batch didn't wait for timeout yet
+        assertEquals(0, transport.flushBatches(false));
+        assertTrue(transport.frames.isEmpty());
+
+        assertEquals(1, transport.flushBatches(true));
+        assertEquals(1, transport.frames.size());
+
+        List<VoidMessage> frame = transport.frames.get(0);
+        assertEquals(5, frame.size());
+        for (int i = 0; i < 5; i++)
+            assertEquals(i, frame.get(i).getTaskId());
+
+        // nothing left to flush
+        assertEquals(0, transport.flushBatches(true));
+        assertEquals(1, transport.frames.size());
+    }
+
+    @Test
+    public void testUrgentFlush1() throws Exception {
+        transport.sendBatched(connection, message(1).asBytes(), false);
+        transport.sendBatched(connection, message(2).asBytes(), false);
+        assertTrue(transport.frames.isEmpty());
+
+        // urgent message is sent right away, along with messages batched before it
+        transport.sendBatched(connection, message(3).asBytes(), true);
+        assertEquals(1, transport.frames.size());
+
+        List<VoidMessage> frame = transport.frames.get(0);
+        assertEquals(3, frame.size());
+        assertEquals(1, frame.get(0).getTaskId());
+        assertEquals(3, frame.get(2).getTaskId());
+    }
+
+    @Test
+    public void testFullBatch1() throws Exception {
+        byte[] data = message(0).asBytes();
+        int perBatch = 0;
+        MessageBatch probe = new MessageBatch(16384);
+        while (probe.append(data))
+            perBatch++;
+
+        for (int i = 0; i <= perBatch; i++)
+            transport.sendBatched(connection, message(i).asBytes(), false);
+
+        // full batch is sent once next message doesn't fit, and that message starts new batch
+        assertEquals(1, transport.frames.size());
+        assertEquals(perBatch, transport.frames.get(0).size());
+
+        transport.flushBatches(true);
+        assertEquals(2, transport.frames.size());
+        assertEquals(perBatch, transport.frames.get(1).get(0).getTaskId());
+    }
+}
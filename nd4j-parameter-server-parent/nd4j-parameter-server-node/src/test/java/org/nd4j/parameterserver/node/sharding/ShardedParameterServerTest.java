@@ -0,0 +1,113 @@
+package org.nd4j.parameterserver.node.sharding;
+
+import io.aeron.Aeron;
+import io.aeron.driver.MediaDriver;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.CloseHelper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.nd4j.aeron.ipc.AeronUtil;
+import org.nd4j.aeron.ipc.LowLatencyMediaDriver;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.parameterserver.client.sharding.ParameterBlock;
+import org.nd4j.parameterserver.client.sharding.ShardAddress;
+import org.nd4j.parameterserver.client.sharding.ShardLayout;
+import org.nd4j.parameterserver.client.sharding.ShardedParameterServerClient;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class ShardedParameterServerTest {
+    private static MediaDriver mediaDriver;
+    private static Aeron aeron;
+    private static int basePort = 41000 + new java.util.Random().nextInt(10000);
+    private static int statusPort = 30000 + new java.util.Random().nextInt(1000);
+    private static ShardLayout layout = ShardLayout.uniform(64, 4);
+
+    @BeforeClass
+    public static void before() {
+        mediaDriver = LowLatencyMediaDriver.launchEmbedded();
+        aeron = Aeron.connect(getContext());
+    }
+
+    @AfterClass
+    public static void after() {
+        CloseHelper.quietClose(aeron);
+        CloseHelper.quietClose(mediaDriver);
+    }
+
+    @Test
+    public void testScatterGatherAndRebalance() throws Exception {
+        ShardAddress first = new ShardAddress("localhost", basePort, 10);
+        ShardAddress second = new ShardAddress("localhost", basePort + 10, 10);
+        ShardAddress third = new ShardAddress("localhost", basePort + 20, 10);
+
+        try (ShardedParameterServer server = new ShardedParameterServer(layout);
+                        ShardedParameterServerClient client = ShardedParameterServerClient.builder().aeron(aeron)
+                                        .layout(layout).shards(Arrays.asList(first, second))
+                                        .subscriberHost("localhost").subscriberPort(basePort + 100)
+                                        .subscriberStreamBase(100).build()) {
+            server.addNode(node(first));
+            server.addNode(node(second));
+            assertOwnership(server);
+
+            // every node holds its own part of the vector only
+            assertEquals(layout.numBlocks(), server.getNode(first).hostedBlocks().size()
+                            + server.getNode(second).hostedBlocks().size());
+
+            INDArray update = Nd4j.linspace(1, 64, 64);
+            client.push(update);
+            Thread.sleep(5000);
+
+            assertEquals(update, server.getParameters());
+            assertEquals(update, client.pull());
+
+            // joining node takes over its blocks along with their values
+            int moved = server.addNode(node(third));
+            client.addShard(third);
+            assertOwnership(server);
+            assertEquals(moved, server.getNode(third).hostedBlocks().size());
+            for (ParameterBlock block : layout.getBlocks())
+                assertEquals(server.ownerOf(block), client.ownerOf(block));
+
+            assertEquals(update, server.getParameters());
+            assertEquals(update, client.pull());
+
+            // leaving node hands its blocks over to the remaining ones
+            server.removeNode(first).close();
+            client.removeShard(first);
+            assertOwnership(server);
+
+            client.push(update);
+            Thread.sleep(5000);
+
+            assertEquals(update.mul(2), server.getParameters());
+            assertEquals(update.mul(2), client.pull());
+        }
+    }
+
+    private static void assertOwnership(ShardedParameterServer server) {
+        for (ParameterBlock block : layout.getBlocks()) {
+            ShardAddress owner = server.ownerOf(block);
+            for (ShardAddress address : server.getAddresses())
+                assertEquals(address.equals(owner),
+                                server.getNode(address).hostedBlocks().contains(block.getIndex()));
+        }
+    }
+
+    private static ShardNode node(ShardAddress address) {
+        return new ShardNode(address, mediaDriver, aeron, 1, statusPort);
+    }
+
+    private static Aeron.Context getContext() {
+        return new Aeron.Context().publicationConnectionTimeout(-1)
+                        .availableImageHandler(AeronUtil::printAvailableImage)
+                        .unavailableImageHandler(AeronUtil::printUnavailableImage)
+                        .aeronDirectoryName(mediaDriver.aeronDirectoryName()).keepAliveInterval(1000)
+                        .errorHandler(e -> log.error(e.toString(), e));
+    }
+}
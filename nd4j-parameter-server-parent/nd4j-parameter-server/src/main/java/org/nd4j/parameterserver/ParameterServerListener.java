@@ -5,6 +5,8 @@ import org.nd4j.aeron.ipc.NDArrayCallback;
 import org.nd4j.aeron.ipc.NDArrayMessage;
 import org.nd4j.aeron.ndarrayholder.InMemoryNDArrayHolder;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.parameterserver.encoding.EncodedUpdateDecoder;
 import org.nd4j.parameterserver.updater.ParameterServerUpdater;
 import org.nd4j.parameterserver.updater.SynchronousParameterUpdater;
 import org.nd4j.parameterserver.updater.storage.NoUpdateStorage;
@@ -24,6 +26,8 @@ public class ParameterServerListener implements NDArrayCallback {
     private ParameterServerUpdater updater;
     private boolean master;
     private int[] shape;
+    //decodes encoded updates, if encoding is enabled for this stream
+    private EncodedUpdateDecoder updateDecoder;
 
     /**
      * Shape of the ndarray
@@ -63,6 +67,14 @@ public class ParameterServerListener implements NDArrayCallback {
      */
     @Override
     public void onNDArrayMessage(NDArrayMessage message) {
+        if (NDArrayMessage.isEncodedUpdate(message)) {
+            if (updateDecoder == null || !updateDecoder.isEncoded(message))
+                throw new ND4JIllegalStateException(
+                                "Received encoded update, but update encoding isn't enabled for this stream");
+
+            message = updateDecoder.decode(message, updater.ndArrayHolder().get().shape());
+        }
+
         updater.update(message);
     }
 
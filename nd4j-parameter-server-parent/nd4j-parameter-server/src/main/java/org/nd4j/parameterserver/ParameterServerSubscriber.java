@@ -24,10 +24,12 @@ import org.nd4j.aeron.ndarrayholder.InMemoryNDArrayHolder;
 import org.nd4j.base.Preconditions;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.util.ArrayUtil;
+import org.nd4j.parameterserver.encoding.EncodedUpdateDecoder;
 import org.nd4j.parameterserver.model.MasterConnectionInfo;
 import org.nd4j.parameterserver.model.ServerState;
 import org.nd4j.parameterserver.model.SlaveConnectionInfo;
 import org.nd4j.parameterserver.model.SubscriberState;
+import org.nd4j.parameterserver.model.UpdateEncoding;
 import org.nd4j.parameterserver.updater.ParameterServerUpdater;
 import org.nd4j.parameterserver.updater.SoftSyncParameterUpdater;
 import org.nd4j.parameterserver.updater.SynchronousParameterUpdater;
@@ -39,7 +41,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -93,12 +97,22 @@ public class ParameterServerSubscriber implements AutoCloseable {
 
     private UpdateType updateType = UpdateType.SYNC;
 
+    @Parameter(names = {"-ue", "--updateEncoding"},
+                    description = "Encoding of updates expected on this stream: none, threshold or bitmap. Defaults to none. Clients pick it up from the status server.",
+                    arity = 1)
+    private String updateEncodingString = UpdateEncoding.NONE.toString().toLowerCase();
+
+    private UpdateEncoding updateEncoding = UpdateEncoding.NONE;
+
     @Parameter(names = {"-s", "--shape"}, description = "The shape of the ndarray", arity = 1)
     private List<Integer> shape;
     @Parameter(names = {"-hbi", "--heartbeatinterval"}, description = "Heartbeat interval in ms", arity = 1)
     private int heartbeatMs = 1000;
     private ObjectMapper objectMapper = new ObjectMapper();
     private ScheduledExecutorService scheduledExecutorService;
+    //embedded subscribers (i.e. blocks of a shard node) are closed by their owner, so they don't need the hook
+    private boolean registerShutdownHook = true;
+    private Thread shutdownHook;
     @Parameter(names = {"-u", "--updatesPerEpoch"}, description = "The number of updates per epoch", arity = 1,
                     required = true)
     private int updatesPerEpoch;
@@ -149,9 +163,16 @@ public class ParameterServerSubscriber implements AutoCloseable {
      * @return the current state of this subscriber
      */
     public SubscriberState asState() {
+        Map<String, Number> updaterStatus = parameterServerListener == null ? Collections.emptyMap()
+                        : parameterServerListener.getUpdater().status();
+        if (parameterServerListener != null && parameterServerListener.getUpdateDecoder() != null) {
+            updaterStatus = updaterStatus == null ? new HashMap<>() : new HashMap<>(updaterStatus);
+            updaterStatus.putAll(parameterServerListener.getUpdateDecoder().status());
+        }
+
         return SubscriberState.builder()
-                        .parameterUpdaterStatus(parameterServerListener == null ? Collections.emptyMap()
-                                        : parameterServerListener.getUpdater().status())
+                        .parameterUpdaterStatus(updaterStatus)
+                        .updateEncoding(updateEncoding.name().toLowerCase())
                         .isMaster(isMaster())
                         .connectionInfo(isMaster() ? masterConnectionInfo().toString()
                                         : slaveConnectionInfo().toString())
@@ -218,12 +239,17 @@ public class ParameterServerSubscriber implements AutoCloseable {
 
         //ensure that the update opType is configured from the command line args
         updateType = UpdateType.valueOf(updateTypeString.toUpperCase());
+        updateEncoding = UpdateEncoding.valueOf(updateEncodingString.toUpperCase());
 
 
 
         if (publishMasterUrl == null && !master)
             throw new IllegalStateException("Please specify a master url or set master to true");
 
+        //updates are decoded on master only, so non-master nodes would forward encoded updates as is
+        if (updateEncoding != UpdateEncoding.NONE && !master)
+            throw new IllegalStateException("Update encoding can be enabled on master node only");
+
         //allows passing in a media driver for things like unit tests
         //also ensure we don't use a media driver when a directory is specified
         //for a remote one
@@ -287,6 +313,9 @@ public class ParameterServerSubscriber implements AutoCloseable {
             }
             //start an extra daemon for responding to get queries
             ParameterServerListener cast = (ParameterServerListener) callback;
+            if (updateEncoding != UpdateEncoding.NONE && cast.getUpdateDecoder() == null)
+                cast.setUpdateDecoder(new EncodedUpdateDecoder(updateEncoding));
+
             responder = AeronNDArrayResponder.startSubscriber(aeron, host, port + 1, cast.getUpdater().ndArrayHolder(),
                             streamId + 1);
             log.info("Started responder on master node " + responder.connectionUrl());
@@ -340,10 +369,13 @@ public class ParameterServerSubscriber implements AutoCloseable {
         }
 
 
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            close();
+        if (registerShutdownHook) {
+            shutdownHook = new Thread(() -> {
+                close();
 
-        }));
+            });
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
 
         //set the server for the status of the master and slave nodes
     }
@@ -357,6 +389,16 @@ public class ParameterServerSubscriber implements AutoCloseable {
             CloseHelper.quietClose(responder);
         if (scheduledExecutorService != null)
             scheduledExecutorService.shutdown();
+
+        //closed subscriber shouldn't be kept alive by the hook until jvm exits
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                //jvm is shutting down already
+            }
+            shutdownHook = null;
+        }
     }
 
 
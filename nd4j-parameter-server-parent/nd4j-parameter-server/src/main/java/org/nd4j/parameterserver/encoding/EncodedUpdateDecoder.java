@@ -0,0 +1,155 @@
+package org.nd4j.parameterserver.encoding;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.ThresholdCompression;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.metrics.MetricsCollector;
+import org.nd4j.linalg.profiler.metrics.MetricsSource;
+import org.nd4j.parameterserver.model.UpdateEncoding;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes threshold and bitmap encoded updates back into dense arrays, on the server side.
+ *
+ * Encoded updates are sent as messages marked via {@link NDArrayMessage#encodedUpdate(INDArray)}, so dense updates,
+ * including INT ones, are never mistaken for encoded ones. Encoded arrays are INT arrays, with header in format of
+ * {@link ThresholdCompression}, so the format of every update is read from its header, and stream encoding only
+ * tells that encoded updates are expected.
+ */
+public class EncodedUpdateDecoder implements MetricsSource {
+    // encoded length, original length, threshold, format id
+    protected static final int HEADER_LENGTH = 4;
+
+    @Getter
+    private final UpdateEncoding encoding;
+
+    private final AtomicLong decodedUpdates = new AtomicLong(0);
+    private final AtomicLong encodedBytes = new AtomicLong(0);
+    private final AtomicLong decodeNanos = new AtomicLong(0);
+
+    public EncodedUpdateDecoder(@NonNull UpdateEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * This method checks, if given message carries encoded update
+     */
+    public boolean isEncoded(NDArrayMessage message) {
+        return encoding != UpdateEncoding.NONE && NDArrayMessage.isEncodedUpdate(message) && message.getArr() != null;
+    }
+
+    /**
+     * This method validates header of encoded array, so malformed updates are rejected before decoding
+     */
+    protected static void validateHeader(DataBuffer buffer) {
+        if (buffer.dataType() != DataBuffer.Type.INT || buffer.length() < HEADER_LENGTH)
+            throw new ND4JIllegalStateException("Encoded update should be INT array with header of " + HEADER_LENGTH
+                            + " elements");
+
+        long length = buffer.length();
+        int encodedLength = buffer.getInt(0);
+        int originalLength = buffer.getInt(1);
+        int format = buffer.getInt(3);
+
+        if (format == ThresholdCompression.FLEXIBLE_ENCODING) {
+            if (encodedLength < 0 || encodedLength != length - HEADER_LENGTH)
+                throw new ND4JIllegalStateException("Threshold encoded update has [" + (length - HEADER_LENGTH)
+                                + "] elements, but its header says [" + encodedLength + "]");
+        } else if (format == ThresholdCompression.BITMAP_ENCODING) {
+            if (encodedLength != originalLength || length != originalLength / 16 + 5)
+                throw new ND4JIllegalStateException("Bitmap encoded update of length [" + length
+                                + "] doesn't match original length [" + originalLength + "] in its header");
+        } else {
+            throw new ND4JIllegalStateException("Unknown update encoding format [" + format + "]");
+        }
+    }
+
+    /**
+     * This method decodes update carried by given message, into dense array of given shape
+     *
+     * @param message message with encoded update
+     * @param shape   shape of dense update
+     * @return message with dense update, and the rest of fields from original message
+     */
+    public NDArrayMessage decode(@NonNull NDArrayMessage message, @NonNull int[] shape) {
+        long time = System.nanoTime();
+
+        INDArray encoded = message.getArr();
+        DataBuffer buffer = encoded.data();
+        validateHeader(buffer);
+
+        INDArray target = Nd4j.create(shape);
+
+        long originalLength = buffer.getInt(1);
+        if (target.lengthLong() != originalLength)
+            throw new ND4JIllegalStateException("Encoded update of length [" + originalLength
+                            + "] doesn't match target length [" + target.lengthLong() + "]");
+
+        int format = buffer.getInt(3);
+        if (format == ThresholdCompression.BITMAP_ENCODING) {
+            if (target.data().dataType() != DataBuffer.Type.FLOAT)
+                throw new ND4JIllegalStateException("Bitmap encoded updates can be decoded into FLOAT arrays only");
+
+            Nd4j.getExecutioner().bitmapDecode(encoded, target);
+        } else if (buffer.getInt(0) > 0) {
+            Nd4j.getExecutioner().thresholdDecode(encoded, target);
+        }
+
+        Nd4j.getExecutioner().commit();
+
+        decodeNanos.addAndGet(System.nanoTime() - time);
+        decodedUpdates.incrementAndGet();
+        encodedBytes.addAndGet(buffer.length() * 4);
+
+        // decoded update is plain whole array update
+        return NDArrayMessage.builder().arr(target).sent(message.getSent()).index(-1)
+                        .dimensions(message.getDimensions()).build();
+    }
+
+    public long getDecodedUpdates() {
+        return decodedUpdates.get();
+    }
+
+    public long getEncodedBytes() {
+        return encodedBytes.get();
+    }
+
+    /**
+     * This method returns total time spent on decoding, in nanoseconds
+     */
+    public long getDecodeNanos() {
+        return decodeNanos.get();
+    }
+
+    /**
+     * This method returns decoder counters, in format of
+     * {@link org.nd4j.parameterserver.updater.ParameterServerUpdater#status()}
+     */
+    public Map<String, Number> status() {
+        Map<String, Number> ret = new HashMap<>();
+        ret.put("decodedUpdates", decodedUpdates.get());
+        ret.put("encodedBytes", encodedBytes.get());
+        ret.put("decodeMillis", decodeNanos.get() / 1000000L);
+        return ret;
+    }
+
+    @Override
+    public void collectMetrics(MetricsCollector collector) {
+        Map<String, String> labels = Collections.singletonMap("encoding", encoding.name().toLowerCase());
+
+        collector.counter("nd4j_ps_decoded_updates_total", "Number of decoded updates", labels, decodedUpdates.get());
+        collector.counter("nd4j_ps_decoded_bytes_total", "Size of updates before decoding", labels,
+                        encodedBytes.get());
+        collector.counter("nd4j_ps_decode_seconds_total", "Time spent on decoding updates", labels,
+                        decodeNanos.get() / 1e9);
+    }
+}
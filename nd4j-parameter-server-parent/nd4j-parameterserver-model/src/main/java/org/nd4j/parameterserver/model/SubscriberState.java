@@ -30,6 +30,8 @@ public class SubscriberState implements Serializable, Comparable<SubscriberState
     private Map<String, Number> parameterUpdaterStatus;
     private boolean isAsync;
     private boolean isReady;
+    //encoding of updates expected on this stream, see UpdateEncoding
+    private String updateEncoding;
 
 
 
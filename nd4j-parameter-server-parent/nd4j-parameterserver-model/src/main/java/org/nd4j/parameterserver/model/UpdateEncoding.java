@@ -0,0 +1,14 @@
+package org.nd4j.parameterserver.model;
+
+/**
+ * Encoding of updates sent to a parameter server stream.
+ *
+ * NONE: dense arrays are sent as is
+ * THRESHOLD: only elements above threshold are sent, as sparse indices
+ * BITMAP: every element is sent as 2 bits: zero, +threshold or -threshold
+ *
+ * Encoding is announced by the master for its stream, and picked up by clients.
+ */
+public enum UpdateEncoding {
+    NONE, THRESHOLD, BITMAP
+}
@@ -3,13 +3,14 @@ package org.nd4j.aeron.ipc;
 import io.aeron.Aeron;
 import io.aeron.Publication;
 import io.aeron.exceptions.DriverTimeoutException;
+import io.aeron.logbuffer.BufferClaim;
 import lombok.Builder;
 import lombok.Data;
 import org.agrona.CloseHelper;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.BusySpinIdleStrategy;
 import org.agrona.concurrent.UnsafeBuffer;
-import org.nd4j.aeron.ipc.chunk.NDArrayMessageChunk;
+import org.nd4j.aeron.ipc.chunk.NDArrayMessageChunkWriter;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
@@ -17,6 +18,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.nio.ByteBuffer;
+import java.util.UUID;
 
 /**
  * NDArray publisher
@@ -41,6 +43,11 @@ public class AeronNDArrayPublisher implements AutoCloseable {
     private boolean compress = true;
     private static final BusySpinIdleStrategy busySpinIdleStrategy = new BusySpinIdleStrategy();
     private int publishRetryTimeOut = 3000;
+    // payload size of single chunk for large messages, 0 means chunks are sized to fit into single frame
+    private int chunkSize;
+    private BufferClaim bufferClaim;
+    // reused for chunks that don't fit into single frame, and can't be claimed
+    private UnsafeBuffer chunkBuffer;
 
     private void init() {
         channel = channel == null ? "aeron:udp?endpoint=localhost:40123" : channel;
@@ -110,13 +117,7 @@ public class AeronNDArrayPublisher implements AutoCloseable {
 
         //array is large, need to segment
         if (NDArrayMessage.byteBufferSizeForMessage(message) >= publication.maxMessageLength()) {
-            NDArrayMessageChunk[] chunks = NDArrayMessage.chunks(message, publication.maxMessageLength() / 128);
-            for (int i = 0; i < chunks.length; i++) {
-                ByteBuffer sendBuff = NDArrayMessageChunk.toBuffer(chunks[i]);
-                sendBuff.rewind();
-                DirectBuffer buffer = new UnsafeBuffer(sendBuff);
-                sendBuffer(buffer);
-            }
+            sendChunks(message);
         } else {
             //send whole array
             DirectBuffer buffer = NDArrayMessage.toBuffer(message);
@@ -126,14 +127,72 @@ public class AeronNDArrayPublisher implements AutoCloseable {
 
     }
 
+    /**
+     * Chunks are written straight from array memory: each chunk that fits into single frame
+     * is written into claimed term buffer, everything else goes through single reused buffer.
+     * Whole message is never serialized.
+     */
+    private void sendChunks(NDArrayMessage message) throws Exception {
+        String id = UUID.randomUUID().toString();
+        int size = chunkSize > 0 ? chunkSize
+                        : NDArrayMessageChunkWriter.chunkSizeForFrame(publication.maxPayloadLength(), id.length());
+        NDArrayMessageChunkWriter writer = new NDArrayMessageChunkWriter(message, size, id);
+        if (writer.chunkLength(0) > publication.maxMessageLength())
+            throw new IllegalArgumentException("Chunk size " + size + " exceeds max message length "
+                            + publication.maxMessageLength() + " on channel " + channel);
+
+        for (int i = 0; i < writer.getNumChunks(); i++) {
+            int length = writer.chunkLength(i);
+            if (length <= publication.maxPayloadLength()) {
+                claimAndWrite(writer, i, length);
+            } else {
+                if (chunkBuffer == null || chunkBuffer.capacity() < length)
+                    chunkBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(length));
+
+                writer.writeChunk(i, chunkBuffer, 0);
+                sendBuffer(chunkBuffer, length);
+            }
+        }
+    }
+
+    private void claimAndWrite(NDArrayMessageChunkWriter writer, int chunkIndex, int length) {
+        if (bufferClaim == null)
+            bufferClaim = new BufferClaim();
+
+        long deadline = System.currentTimeMillis() + publishRetryTimeOut;
+        long result;
+        while ((result = publication.tryClaim(length, bufferClaim)) < 0L) {
+            if (result == Publication.CLOSED)
+                throw new IllegalStateException("Publication is closed on channel " + channel + " and stream " + streamId);
+
+            if (System.currentTimeMillis() > deadline)
+                throw new IllegalStateException("Failed to send chunk " + chunkIndex + " of message " + writer.getId()
+                                + " on channel " + channel + " and stream " + streamId);
+
+            busySpinIdleStrategy.idle();
+        }
+
+        try {
+            writer.writeChunk(chunkIndex, bufferClaim.buffer(), bufferClaim.offset());
+            bufferClaim.commit();
+        } catch (RuntimeException e) {
+            bufferClaim.abort();
+            throw e;
+        }
+    }
+
 
 
     private void sendBuffer(DirectBuffer buffer) throws Exception {
+        sendBuffer(buffer, buffer.capacity());
+    }
+
+    private void sendBuffer(DirectBuffer buffer, int length) throws Exception {
         // Try to publish the buffer. 'offer' is a non-blocking call.
         // If it returns less than 0, the message was not sent, and the offer should be retried.
         long result;
         int tries = 0;
-        while ((result = publication.offer(buffer, 0, buffer.capacity())) < 0L && tries < 5) {
+        while ((result = publication.offer(buffer, 0, length)) < 0L && tries < 5) {
             if (result == Publication.BACK_PRESSURED) {
                 log.info("Offer failed due to back pressure");
             } else if (result == Publication.NOT_CONNECTED) {
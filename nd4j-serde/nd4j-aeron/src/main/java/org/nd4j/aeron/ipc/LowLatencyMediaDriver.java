@@ -19,22 +19,40 @@ public class LowLatencyMediaDriver {
     public static void main(final String... args) {
         MediaDriver.loadPropertiesFiles(args);
 
+        try (MediaDriver ignored = MediaDriver.launch(context())) {
+            new SigIntBarrier().await();
+
+        }
+    }
+
+    /**
+     * Launch an embedded low latency media driver,
+     * with its own temporary aeron directory.
+     * This is meant for running several nodes
+     * within a single process, i.e. in tests
+     * @return the launched media driver
+     */
+    public static MediaDriver launchEmbedded() {
+        return MediaDriver.launchEmbedded(context());
+    }
+
+    /**
+     * Media driver context with low latency settings.
+     * Note that the settings are set as system properties
+     * before the context is created, so they're picked up by it.
+     * @return the media driver context
+     */
+    public static MediaDriver.Context context() {
         setProperty(DISABLE_BOUNDS_CHECKS_PROP_NAME, "true");
         setProperty("aeron.mtu.length", "16384");
         setProperty("aeron.socket.so_sndbuf", "2097152");
         setProperty("aeron.socket.so_rcvbuf", "2097152");
         setProperty("aeron.rcv.initial.window.length", "2097152");
 
-        final MediaDriver.Context ctx =
-                        new MediaDriver.Context().threadingMode(ThreadingMode.DEDICATED).dirsDeleteOnStart(true)
-                                        .termBufferSparseFile(false).conductorIdleStrategy(new BusySpinIdleStrategy())
-                                        .receiverIdleStrategy(new BusySpinIdleStrategy())
-                                        .senderIdleStrategy(new BusySpinIdleStrategy());
-
-        try (MediaDriver ignored = MediaDriver.launch(ctx)) {
-            new SigIntBarrier().await();
-
-        }
+        return new MediaDriver.Context().threadingMode(ThreadingMode.DEDICATED).dirsDeleteOnStart(true)
+                        .termBufferSparseFile(false).conductorIdleStrategy(new BusySpinIdleStrategy())
+                        .receiverIdleStrategy(new BusySpinIdleStrategy())
+                        .senderIdleStrategy(new BusySpinIdleStrategy());
     }
 
 }
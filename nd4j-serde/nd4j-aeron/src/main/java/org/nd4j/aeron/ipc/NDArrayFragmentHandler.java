@@ -5,7 +5,7 @@ import io.aeron.logbuffer.Header;
 import lombok.extern.slf4j.Slf4j;
 import org.agrona.DirectBuffer;
 import org.nd4j.aeron.ipc.chunk.ChunkAccumulator;
-import org.nd4j.aeron.ipc.chunk.InMemoryChunkAccumulator;
+import org.nd4j.aeron.ipc.chunk.DirectChunkAccumulator;
 import org.nd4j.aeron.ipc.chunk.NDArrayMessageChunk;
 
 import java.nio.ByteBuffer;
@@ -21,10 +21,15 @@ import java.nio.ByteOrder;
 @Slf4j
 public class NDArrayFragmentHandler implements FragmentHandler {
     private NDArrayCallback ndArrayCallback;
-    private ChunkAccumulator chunkAccumulator = new InMemoryChunkAccumulator();
+    private ChunkAccumulator chunkAccumulator;
 
     public NDArrayFragmentHandler(NDArrayCallback ndArrayCallback) {
+        this(ndArrayCallback, new DirectChunkAccumulator());
+    }
+
+    public NDArrayFragmentHandler(NDArrayCallback ndArrayCallback, ChunkAccumulator chunkAccumulator) {
         this.ndArrayCallback = ndArrayCallback;
+        this.chunkAccumulator = chunkAccumulator;
     }
 
     /**
@@ -50,7 +55,10 @@ public class NDArrayFragmentHandler implements FragmentHandler {
 
 
         //only applicable for direct buffers where we don't wrap the array
+        //the duplicate is limited to this fragment, so chunk data never spans into following fragments
         if (!byteArrayInput) {
+            byteBuffer = byteBuffer.duplicate();
+            byteBuffer.limit(offset + length);
             byteBuffer.position(offset);
             byteBuffer.order(ByteOrder.nativeOrder());
         }
@@ -68,7 +76,7 @@ public class NDArrayFragmentHandler implements FragmentHandler {
                 throw new IllegalStateException("Found invalid number of chunks " + chunk.getNumChunks()
                                 + " on chunk index " + chunk.getChunkIndex());
             chunkAccumulator.accumulateChunk(chunk);
-            log.info("Number of chunks " + chunk.getNumChunks() + " and number of chunks " + chunk.getNumChunks()
+            log.debug("Number of chunks " + chunk.getNumChunks() + " and number of chunks " + chunk.getNumChunks()
                             + " for id " + chunk.getId() + " is " + chunkAccumulator.numChunksSoFar(chunk.getId()));
 
             if (chunkAccumulator.allPresent(chunk.getId())) {
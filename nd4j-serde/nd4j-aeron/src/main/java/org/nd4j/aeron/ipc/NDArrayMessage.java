@@ -51,6 +51,8 @@ public class NDArrayMessage implements Serializable {
     private static int[] WHOLE_ARRAY_UPDATE = {-1};
     //represents the constant for indicating using the whole array for an update (-1)
     private static int WHOLE_ARRAY_INDEX = -1;
+    //index of whole array updates carrying encoded array, instead of dense one
+    public static final long ENCODED_UPDATE_INDEX = -2;
 
     public enum MessageValidity {
         VALID, NULL_VALUE, INCONSISTENT_DIMENSIONS
@@ -109,6 +111,30 @@ public class NDArrayMessage implements Serializable {
                         .sent(getCurrentTimeUtc()).build();
     }
 
+    /**
+     * Prepare a whole array update
+     * carrying encoded array (i.e. threshold or bitmap encoded),
+     * which has to be decoded before being applied.
+     * Such messages are marked with {@link #ENCODED_UPDATE_INDEX}
+     * as index, so they're never confused with dense updates.
+     * @param encoded the encoded array
+     * @return the message with encoded update
+     */
+    public static NDArrayMessage encodedUpdate(INDArray encoded) {
+        return NDArrayMessage.builder().arr(encoded).dimensions(WHOLE_ARRAY_UPDATE).index(ENCODED_UPDATE_INDEX)
+                        .sent(getCurrentTimeUtc()).build();
+    }
+
+    /**
+     * Returns true if given message
+     * was created via {@link #encodedUpdate(INDArray)}
+     * @param message the message to check
+     * @return true if message carries encoded update
+     */
+    public static boolean isEncodedUpdate(NDArrayMessage message) {
+        return message != null && message.getIndex() == ENCODED_UPDATE_INDEX;
+    }
+
     /**
      * Factory method for creating an array
      * to send now (uses now in utc for the timestamp).
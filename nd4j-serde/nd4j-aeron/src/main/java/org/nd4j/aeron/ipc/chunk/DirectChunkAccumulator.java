@@ -0,0 +1,309 @@
+package org.nd4j.aeron.ipc.chunk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.bytedeco.javacpp.BytePointer;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.compression.CompressedDataBuffer;
+import org.nd4j.linalg.compression.CompressionDescriptor;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.serde.binary.BinarySerde;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chunk accumulator that reassembles messages in place.
+ *
+ * As soon as chunks with message head (shape information and codec) are received, target array is allocated, and
+ * every chunk is copied straight into it, exactly once. Chunks may arrive in any order: received chunks are
+ * tracked with bitmap, and chunks received before message head are kept aside until target array is allocated.
+ * Messages without new chunks for longer than expiry timeout are dropped, so lost chunks don't leak memory.
+ */
+@Slf4j
+public class DirectChunkAccumulator implements ChunkAccumulator {
+    public static final long DEFAULT_EXPIRY_MILLIS = 30000L;
+
+    // max length of message head: message type, rank, data type, shape information for max rank, and codec
+    protected static final int HEAD_LIMIT = 1024;
+
+    private final Map<String, Assembly> assemblies = new ConcurrentHashMap<>();
+    private final long expiryMillis;
+    private volatile long lastExpiryCheck = System.currentTimeMillis();
+
+    public DirectChunkAccumulator() {
+        this(DEFAULT_EXPIRY_MILLIS);
+    }
+
+    /**
+     * @param expiryMillis incomplete messages without new chunks for this long are dropped
+     */
+    public DirectChunkAccumulator(long expiryMillis) {
+        if (expiryMillis <= 0)
+            throw new IllegalArgumentException("Expiry timeout should be positive");
+
+        this.expiryMillis = expiryMillis;
+    }
+
+    @Override
+    public int numChunksSoFar(String id) {
+        Assembly assembly = assemblies.get(id);
+        return assembly == null ? 0 : assembly.getReceivedCount();
+    }
+
+    @Override
+    public boolean allPresent(String id) {
+        Assembly assembly = assemblies.get(id);
+        return assembly != null && assembly.isComplete();
+    }
+
+    @Override
+    public NDArrayMessage reassemble(String id) {
+        Assembly assembly = assemblies.get(id);
+        if (assembly == null)
+            throw new IllegalStateException("No chunks found for message " + id);
+
+        if (!assembly.isComplete())
+            throw new IllegalStateException("Unable to reassemble message chunk " + id + " missing "
+                            + (assembly.numChunks - assembly.getReceivedCount()) + " chunks");
+
+        assemblies.remove(id);
+        return assembly.toMessage();
+    }
+
+    @Override
+    public void accumulateChunk(NDArrayMessageChunk chunk) {
+        long now = System.currentTimeMillis();
+        if (now - lastExpiryCheck > expiryMillis / 4)
+            expireStale(now);
+
+        String id = chunk.getId();
+        Assembly assembly = assemblies.get(id);
+        if (assembly == null) {
+            Assembly created = new Assembly(id, chunk.getNumChunks(), chunk.getChunkSize());
+            assembly = ((ConcurrentHashMap<String, Assembly>) assemblies).putIfAbsent(id, created);
+            if (assembly == null)
+                assembly = created;
+        }
+
+        try {
+            assembly.accept(chunk.getChunkIndex(), chunk.getData(), now);
+        } catch (RuntimeException e) {
+            // corrupt message can't be completed anyway
+            assemblies.remove(id);
+            throw e;
+        }
+    }
+
+    /**
+     * This method drops incomplete messages that received no chunks for longer than expiry timeout
+     *
+     * @return number of dropped messages
+     */
+    public int expireStale(long now) {
+        lastExpiryCheck = now;
+
+        int dropped = 0;
+        Iterator<Map.Entry<String, Assembly>> iterator = assemblies.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Assembly assembly = iterator.next().getValue();
+            if (!assembly.isComplete() && now - assembly.lastUpdate > expiryMillis) {
+                iterator.remove();
+                dropped++;
+                log.warn("Dropping stale message {}: {} of {} chunks received", assembly.id,
+                                assembly.getReceivedCount(), assembly.numChunks);
+            }
+        }
+
+        return dropped;
+    }
+
+    /**
+     * This method returns number of messages being reassembled at the moment
+     */
+    public int getPendingCount() {
+        return assemblies.size();
+    }
+
+    protected static class Assembly {
+        protected final String id;
+        protected final int numChunks;
+        protected final int chunkSize;
+        protected final long capacity;
+        protected final BitSet received;
+        protected volatile long lastUpdate;
+
+        private int receivedCount = 0;
+
+        // message head is collected separately, until it can be parsed
+        private final byte[] head;
+        private final int headChunks;
+        private Map<Integer, ByteBuffer> early = new HashMap<>();
+
+        // known once head is parsed
+        private int headLength;
+        private long dataLength;
+        private DataBuffer shapeInfo;
+        private DataBuffer target;
+        private UnsafeBuffer targetView;
+        private byte[] tail;
+        private UnsafeBuffer tailView;
+
+        protected Assembly(String id, int numChunks, int chunkSize) {
+            if (numChunks < 1 || chunkSize < 1)
+                throw new IllegalStateException("Invalid chunk layout for message " + id + ": " + numChunks
+                                + " chunks of " + chunkSize + " bytes");
+
+            this.id = id;
+            this.numChunks = numChunks;
+            this.chunkSize = chunkSize;
+            this.capacity = (long) numChunks * chunkSize;
+            this.received = new BitSet(numChunks);
+            this.lastUpdate = System.currentTimeMillis();
+
+            this.head = new byte[(int) Math.min(HEAD_LIMIT, capacity)];
+            this.headChunks = (head.length + chunkSize - 1) / chunkSize;
+        }
+
+        protected synchronized int getReceivedCount() {
+            return receivedCount;
+        }
+
+        protected synchronized boolean isComplete() {
+            return receivedCount == numChunks && target != null;
+        }
+
+        protected synchronized void accept(int index, ByteBuffer data, long now) {
+            if (index < 0 || index >= numChunks)
+                throw new IllegalStateException("Chunk index " + index + " is out of [0, " + numChunks
+                                + ") for message " + id);
+
+            if (received.get(index)) {
+                log.debug("Skipping duplicate chunk {} of message {}", index, id);
+                return;
+            }
+
+            received.set(index);
+            receivedCount++;
+            lastUpdate = now;
+
+            long start = (long) index * chunkSize;
+            // chunk data may be backed by larger buffer, so we never read more than one chunk
+            int length = Math.min(data.remaining(), chunkSize);
+
+            if (start < head.length) {
+                ByteBuffer source = data.duplicate();
+                source.get(head, (int) start, (int) Math.min(length, head.length - start));
+            }
+
+            if (target != null) {
+                write(start, data, length);
+                return;
+            }
+
+            // target isn't allocated yet, so chunk is copied aside
+            ByteBuffer copy = ByteBuffer.allocateDirect(length);
+            ByteBuffer source = data.duplicate();
+            source.limit(source.position() + length);
+            copy.put(source);
+            copy.flip();
+            early.put(index, copy);
+
+            if (received.nextClearBit(0) >= headChunks) {
+                allocate();
+
+                for (Map.Entry<Integer, ByteBuffer> e : early.entrySet())
+                    write((long) e.getKey() * chunkSize, e.getValue(), e.getValue().remaining());
+
+                early = null;
+            }
+        }
+
+        private void allocate() {
+            ByteBuffer buffer = ByteBuffer.wrap(head).order(ByteOrder.nativeOrder());
+            // skipping message type
+            buffer.getInt();
+
+            int rank = buffer.getInt();
+            int typeOrdinal = buffer.getInt();
+            if (rank < 0 || rank > 32 || typeOrdinal < 0 || typeOrdinal >= DataBuffer.Type.values().length)
+                throw new IllegalStateException("Corrupt head of message " + id);
+
+            int[] shapeInfoInts = new int[Shape.shapeInfoLength(rank)];
+            for (int i = 0; i < shapeInfoInts.length; i++)
+                shapeInfoInts[i] = buffer.getInt();
+            shapeInfo = Nd4j.createBufferDetached(shapeInfoInts);
+
+            DataBuffer.Type type = DataBuffer.Type.values()[typeOrdinal];
+            long address;
+            if (type == DataBuffer.Type.COMPRESSED) {
+                CompressionDescriptor descriptor = CompressionDescriptor.fromByteBuffer(buffer);
+                dataLength = descriptor.getCompressedLength();
+
+                BytePointer pointer = new BytePointer(dataLength);
+                target = new CompressedDataBuffer(pointer, descriptor);
+                address = pointer.address();
+            } else {
+                long length = Shape.length(shapeInfo);
+                target = BinarySerde.allocateDetached(type, length);
+                dataLength = length * target.getElementSize();
+                address = target.addressPointer().address();
+            }
+
+            headLength = buffer.position();
+            if (headLength + dataLength > capacity)
+                throw new IllegalStateException("Message " + id + " of " + capacity + " bytes can't hold array of "
+                                + dataLength + " bytes");
+
+            targetView = new UnsafeBuffer(address, (int) dataLength);
+            tail = new byte[(int) (capacity - headLength - dataLength)];
+            tailView = new UnsafeBuffer(tail);
+        }
+
+        /**
+         * This method copies chunk payload, starting at given message position, into target array and message tail
+         */
+        private void write(long start, ByteBuffer data, int length) {
+            long end = start + length;
+            int offset = data.position();
+
+            long tailStart = headLength + dataLength;
+            long from = Math.max(start, headLength);
+            long to = Math.min(end, tailStart);
+            if (from < to)
+                targetView.putBytes((int) (from - headLength), data, offset + (int) (from - start), (int) (to - from));
+
+            from = Math.max(start, tailStart);
+            to = Math.min(end, capacity);
+            if (from < to)
+                tailView.putBytes((int) (from - tailStart), data, offset + (int) (from - start), (int) (to - from));
+        }
+
+        protected synchronized NDArrayMessage toMessage() {
+            ByteBuffer buffer = ByteBuffer.wrap(tail).order(ByteOrder.nativeOrder());
+
+            long sent = buffer.getLong();
+            long index = buffer.getLong();
+            int dimensionLength = buffer.getInt();
+            if (dimensionLength <= 0)
+                throw new IllegalArgumentException("Invalid dimension length " + dimensionLength);
+
+            int[] dimensions = new int[dimensionLength];
+            for (int i = 0; i < dimensionLength; i++)
+                dimensions[i] = buffer.getInt();
+
+            INDArray arr = Nd4j.createArrayFromShapeBuffer(target, shapeInfo);
+            Nd4j.getCompressor().decompressi(arr);
+
+            return NDArrayMessage.builder().sent(sent).arr(arr).index(index).dimensions(dimensions).build();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.nd4j.aeron.ipc.chunk;
+
+import lombok.Getter;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.CompressedDataBuffer;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Writes {@link NDArrayMessageChunk}s of a large {@link NDArrayMessage} straight from the source DataBuffer.
+ *
+ * Message is never serialized as a whole: only its small header (shape information and codec) and trailer
+ * (timestamp, index and dimensions) are, and chunk payloads are copied from those and from array memory directly
+ * into target buffer, i.e. buffer claimed in Aeron term via tryClaim(). Chunks are byte-compatible with
+ * {@link NDArrayMessage#chunks(NDArrayMessage, int)}, so any {@link ChunkAccumulator} can reassemble them.
+ */
+public class NDArrayMessageChunkWriter {
+    // messageType + numChunks + chunkSize + idLength + chunkIndex
+    public static final int CHUNK_HEADER_INTS = 5 * 4;
+
+    @Getter
+    private final String id;
+    @Getter
+    private final int chunkSize;
+    @Getter
+    private final int numChunks;
+    @Getter
+    private final int messageLength;
+
+    private final byte[] idBytes;
+    // keeps array memory alive, while it's referenced by raw address
+    private final INDArray source;
+    // serialized message is: head | array data | tail
+    private final DirectBuffer[] segments;
+    private final int[] segmentOffsets;
+
+    public NDArrayMessageChunkWriter(NDArrayMessage message, int chunkSize) {
+        this(message, chunkSize, UUID.randomUUID().toString());
+    }
+
+    public NDArrayMessageChunkWriter(NDArrayMessage message, int chunkSize, String id) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size should be positive");
+
+        INDArray arr = message.getArr();
+        if (arr.isView())
+            arr = arr.dup();
+
+        this.source = arr;
+        this.id = id;
+        this.idBytes = id.getBytes(StandardCharsets.UTF_8);
+        this.chunkSize = chunkSize;
+
+        ByteBuffer shapeBuffer = arr.shapeInfoDataBuffer().pointer().asByteBuffer().order(ByteOrder.nativeOrder());
+        ByteBuffer codecBuffer = null;
+        long dataLength;
+        if (arr.isCompressed()) {
+            CompressedDataBuffer compressed = (CompressedDataBuffer) arr.data();
+            codecBuffer = compressed.getCompressionDescriptor().toByteBuffer();
+            dataLength = compressed.getCompressionDescriptor().getCompressedLength();
+        } else {
+            // ensure we send data from host memory
+            Nd4j.getExecutioner().commit();
+            Nd4j.getAffinityManager().ensureLocation(arr, AffinityManager.Location.HOST);
+            dataLength = arr.length() * arr.data().getElementSize();
+        }
+
+        if (dataLength > Integer.MAX_VALUE - 4096)
+            throw new IllegalArgumentException("Arrays above 2GB can't be sent as single message");
+
+        ByteBuffer head = ByteBuffer.allocateDirect(12 + shapeBuffer.limit() + (codecBuffer == null ? 0 : codecBuffer.limit()))
+                        .order(ByteOrder.nativeOrder());
+        head.putInt(NDArrayMessage.MessageType.WHOLE.ordinal());
+        head.putInt(arr.rank());
+        head.putInt(arr.data().dataType().ordinal());
+        head.put(shapeBuffer);
+        if (codecBuffer != null)
+            head.put(codecBuffer);
+        head.rewind();
+
+        int[] dimensions = message.getDimensions();
+        ByteBuffer tail = ByteBuffer.allocateDirect(20 + 4 * dimensions.length).order(ByteOrder.nativeOrder());
+        tail.putLong(message.getSent());
+        tail.putLong(message.getIndex());
+        tail.putInt(dimensions.length);
+        for (int dimension : dimensions)
+            tail.putInt(dimension);
+        tail.rewind();
+
+        // array memory itself is wrapped, not copied
+        DirectBuffer data = new UnsafeBuffer(arr.data().addressPointer().address(), (int) dataLength);
+
+        this.segments = new DirectBuffer[] {new UnsafeBuffer(head), data, new UnsafeBuffer(tail)};
+        this.segmentOffsets = new int[] {0, head.capacity(), head.capacity() + (int) dataLength};
+        this.messageLength = segmentOffsets[2] + tail.capacity();
+
+        int chunks = messageLength / chunkSize;
+        if (chunks * chunkSize < messageLength)
+            chunks++;
+        this.numChunks = chunks;
+    }
+
+    /**
+     * This method returns largest chunk size, for which whole chunk with given id length fits into given frame length
+     *
+     * @param frameLength max length of single frame, i.e. Publication.maxPayloadLength()
+     * @param idLength    length of message id, in bytes
+     * @return
+     */
+    public static int chunkSizeForFrame(int frameLength, int idLength) {
+        return frameLength - CHUNK_HEADER_INTS - idLength;
+    }
+
+    /**
+     * This method returns length of payload carried by chunk with given index
+     */
+    public int payloadLength(int chunkIndex) {
+        return Math.min(chunkSize, messageLength - chunkIndex * chunkSize);
+    }
+
+    /**
+     * This method returns length of serialized chunk with given index, including its header
+     */
+    public int chunkLength(int chunkIndex) {
+        return CHUNK_HEADER_INTS + idBytes.length + payloadLength(chunkIndex);
+    }
+
+    /**
+     * This method writes chunk with given index into target buffer, in format used by
+     * {@link NDArrayMessageChunk#toBuffer(NDArrayMessageChunk)}
+     *
+     * @param chunkIndex index of the chunk
+     * @param target     buffer to write to, should have at least chunkLength(chunkIndex) bytes after offset
+     * @param offset     offset within target buffer
+     * @return number of bytes written
+     */
+    public int writeChunk(int chunkIndex, MutableDirectBuffer target, int offset) {
+        if (chunkIndex < 0 || chunkIndex >= numChunks)
+            throw new IndexOutOfBoundsException("Chunk index " + chunkIndex + " is out of [0, " + numChunks + ")");
+
+        int position = offset;
+        target.putInt(position, NDArrayMessage.MessageType.CHUNKED.ordinal(), ByteOrder.nativeOrder());
+        target.putInt(position + 4, numChunks, ByteOrder.nativeOrder());
+        target.putInt(position + 8, chunkSize, ByteOrder.nativeOrder());
+        target.putInt(position + 12, idBytes.length, ByteOrder.nativeOrder());
+        target.putBytes(position + 16, idBytes);
+        position += 16 + idBytes.length;
+        target.putInt(position, chunkIndex, ByteOrder.nativeOrder());
+        position += 4;
+
+        // payload is a range of serialized message, that may span several segments
+        int start = chunkIndex * chunkSize;
+        int end = start + payloadLength(chunkIndex);
+        for (int s = 0; s < segments.length; s++) {
+            int segmentStart = segmentOffsets[s];
+            int segmentEnd = segmentStart + segments[s].capacity();
+            int from = Math.max(start, segmentStart);
+            int to = Math.min(end, segmentEnd);
+            if (from >= to)
+                continue;
+
+            target.putBytes(position, segments[s], from - segmentStart, to - from);
+            position += to - from;
+        }
+
+        return position - offset;
+    }
+}
@@ -0,0 +1,121 @@
+package org.nd4j.aeron.ipc.chunk;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DirectChunkAccumulatorTests {
+
+    @Test
+    public void testWriterMatchesChunks() {
+        NDArrayMessage message = NDArrayMessage.wholeArrayUpdate(Nd4j.linspace(1, 1000, 1000));
+        int chunkSize = 128;
+        NDArrayMessageChunk[] chunks = NDArrayMessage.chunks(message, chunkSize);
+        NDArrayMessageChunkWriter writer = new NDArrayMessageChunkWriter(message, chunkSize, chunks[0].getId());
+
+        assertEquals(chunks.length, writer.getNumChunks());
+        assertEquals(NDArrayMessage.byteBufferSizeForMessage(message), writer.getMessageLength());
+
+        UnsafeBuffer target = new UnsafeBuffer(ByteBuffer.allocateDirect(writer.chunkLength(0) + 16));
+        for (int i = 0; i < chunks.length; i++) {
+            ByteBuffer expected = NDArrayMessageChunk.toBuffer(chunks[i]);
+            chunks[i].getData().rewind();
+
+            int length = writer.writeChunk(i, target, 16);
+            assertEquals(expected.capacity(), length);
+            assertEquals(length, writer.chunkLength(i));
+
+            byte[] exp = new byte[length];
+            byte[] act = new byte[length];
+            expected.rewind();
+            expected.get(exp);
+            target.getBytes(16, act);
+            assertArrayEquals("Chunk " + i + " differs", exp, act);
+        }
+    }
+
+    @Test
+    public void testOutOfOrderReassembly() {
+        INDArray arr = Nd4j.linspace(1, 1000, 1000);
+        NDArrayMessage message = NDArrayMessage.of(arr, new int[] {1}, 17);
+        NDArrayMessageChunkWriter writer = new NDArrayMessageChunkWriter(message, 64);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < writer.getNumChunks(); i++)
+            order.add(i);
+        Collections.shuffle(order, new Random(119));
+        // head chunk goes last, so all other chunks are kept aside till then
+        order.remove(Integer.valueOf(0));
+        order.add(0);
+
+        DirectChunkAccumulator accumulator = new DirectChunkAccumulator();
+        for (int i = 0; i < order.size(); i++) {
+            assertFalse(accumulator.allPresent(writer.getId()));
+            accumulator.accumulateChunk(toChunk(writer, order.get(i)));
+            // duplicates are ignored
+            accumulator.accumulateChunk(toChunk(writer, order.get(i)));
+            assertEquals(i + 1, accumulator.numChunksSoFar(writer.getId()));
+        }
+
+        assertTrue(accumulator.allPresent(writer.getId()));
+        NDArrayMessage restored = accumulator.reassemble(writer.getId());
+        assertEquals(arr, restored.getArr());
+        assertEquals(17, restored.getIndex());
+        assertEquals(message.getSent(), restored.getSent());
+        assertArrayEquals(new int[] {1}, restored.getDimensions());
+        assertEquals(0, accumulator.getPendingCount());
+    }
+
+    @Test
+    public void testCompressedReassembly() {
+        INDArray arr = Nd4j.linspace(1, 1000, 1000);
+        INDArray compressed = Nd4j.getCompressor().compress(arr, "GZIP");
+        NDArrayMessageChunkWriter writer = new NDArrayMessageChunkWriter(NDArrayMessage.wholeArrayUpdate(compressed), 100);
+
+        DirectChunkAccumulator accumulator = new DirectChunkAccumulator();
+        for (int i = writer.getNumChunks() - 1; i >= 0; i--)
+            accumulator.accumulateChunk(toChunk(writer, i));
+
+        assertTrue(accumulator.allPresent(writer.getId()));
+        assertEquals(arr, accumulator.reassemble(writer.getId()).getArr());
+    }
+
+    @Test
+    public void testStaleExpiry() throws Exception {
+        NDArrayMessageChunkWriter writer =
+                        new NDArrayMessageChunkWriter(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(1000)), 128);
+
+        DirectChunkAccumulator accumulator = new DirectChunkAccumulator(50);
+        accumulator.accumulateChunk(toChunk(writer, 0));
+        accumulator.accumulateChunk(toChunk(writer, 1));
+
+        assertEquals(0, accumulator.expireStale(System.currentTimeMillis()));
+        assertEquals(1, accumulator.getPendingCount());
+
+        Thread.sleep(100);
+
+        assertEquals(1, accumulator.expireStale(System.currentTimeMillis()));
+        assertEquals(0, accumulator.getPendingCount());
+        assertEquals(0, accumulator.numChunksSoFar(writer.getId()));
+    }
+
+    protected static NDArrayMessageChunk toChunk(NDArrayMessageChunkWriter writer, int index) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(writer.chunkLength(index)).order(ByteOrder.nativeOrder());
+        writer.writeChunk(index, new UnsafeBuffer(buffer), 0);
+
+        NDArrayMessage.MessageType type = NDArrayMessage.MessageType.values()[buffer.getInt()];
+        assertEquals(NDArrayMessage.MessageType.CHUNKED, type);
+        return NDArrayMessageChunk.fromBuffer(buffer, type);
+    }
+}
@@ -0,0 +1,319 @@
+package org.nd4j.arrow;
+
+import io.netty.buffer.ArrowBuf;
+import lombok.NonNull;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Reader for {@link DataSet} and {@link MultiDataSet} batches in Arrow IPC form, stream or file format.
+ *
+ * Columns written by {@link ArrowDataSetWriter} are restored using role, index and shape from field metadata.
+ * Columns without such metadata (i.e. produced by pyarrow) are treated as features, in schema order:
+ * FixedSizeList column becomes [rows, listSize] array, and primitive numeric column becomes [rows, 1] array.
+ *
+ * By default all columns are copied into nd4j memory, with null values replaced by 0.
+ *
+ * In zero-copy mode, float/double columns without nulls, and matching Nd4j.dataType(), are wrapped as
+ * nd4j DataBuffers directly over Arrow off-heap memory. Such arrays are valid only until next batch is loaded
+ * (i.e. next call to hasNext() after consuming the batch), or reader is closed: use {@link INDArray#dup()} if they
+ * need to be kept longer.
+ *
+ * PLEASE NOTE: zero-copy mode can't be used behind iterators which fetch batches ahead of consumer
+ * (i.e. AsyncDataSetIterator), since prefetching next batch frees memory of batch being consumed.
+ * Such adapters should check {@link #isZeroCopy()}.
+ */
+public class ArrowDataSetReader implements Closeable {
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+    private final ArrowReader reader;
+    private final boolean zeroCopy;
+    private final List<ArrowBlock> blocks;
+
+    private boolean pending = false;
+    private boolean exhausted = false;
+    private long wrappedArrays = 0;
+    private long copiedArrays = 0;
+
+    /**
+     * Creates copying reader over Arrow IPC stream
+     */
+    public ArrowDataSetReader(@NonNull InputStream in) {
+        this(in, false);
+    }
+
+    /**
+     * Creates reader over Arrow IPC stream
+     *
+     * @param in       stream to read from. It'll be closed together with this reader
+     * @param zeroCopy if true, arrays will be wrapped over Arrow memory whenever possible. Such arrays are valid
+     *                 only until next batch is loaded
+     */
+    public ArrowDataSetReader(@NonNull InputStream in, boolean zeroCopy) {
+        this.reader = new ArrowStreamReader(in, allocator);
+        this.zeroCopy = zeroCopy;
+        this.blocks = null;
+    }
+
+    /**
+     * Creates copying reader over Arrow IPC file
+     */
+    public ArrowDataSetReader(@NonNull File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Creates reader over Arrow IPC file, which also allows random access to batches
+     *
+     * @param file     file to read from
+     * @param zeroCopy if true, arrays will be wrapped over Arrow memory whenever possible. Such arrays are valid
+     *                 only until next batch is loaded
+     */
+    public ArrowDataSetReader(@NonNull File file, boolean zeroCopy) throws IOException {
+        ArrowFileReader fileReader = new ArrowFileReader(FileChannel.open(file.toPath(), StandardOpenOption.READ),
+                        allocator);
+        this.reader = fileReader;
+        this.zeroCopy = zeroCopy;
+        this.blocks = fileReader.getRecordBlocks();
+    }
+
+    /**
+     * This method checks if there's one more batch available, loading it if required.
+     * Loading invalidates zero-copy arrays returned for previous batch.
+     */
+    public boolean hasNext() throws IOException {
+        if (!pending && !exhausted) {
+            pending = reader.loadNextBatch();
+            exhausted = !pending;
+        }
+
+        return pending;
+    }
+
+    /**
+     * This method returns next batch as MultiDataSet
+     */
+    public MultiDataSet nextMultiDataSet() throws IOException {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        pending = false;
+        return convert(reader.getVectorSchemaRoot());
+    }
+
+    /**
+     * This method returns next batch as DataSet. Batch should contain at most single features and labels array
+     */
+    public DataSet next() throws IOException {
+        return toDataSet(nextMultiDataSet());
+    }
+
+    /**
+     * This method returns number of record batches in file. Stream format isn't supported
+     */
+    public int getNumberOfBatches() {
+        if (blocks == null)
+            throw new UnsupportedOperationException("Random access is supported for Arrow file format only");
+
+        return blocks.size();
+    }
+
+    /**
+     * This method loads specific batch of Arrow file as MultiDataSet. Stream format isn't supported.
+     * Loading invalidates zero-copy arrays returned for previous batch.
+     */
+    public MultiDataSet loadMultiDataSet(int batch) throws IOException {
+        if (batch < 0 || batch >= getNumberOfBatches())
+            throw new IndexOutOfBoundsException("Batch " + batch + " requested, but file has " + blocks.size());
+
+        pending = false;
+        ((ArrowFileReader) reader).loadRecordBatch(blocks.get(batch));
+        return convert(reader.getVectorSchemaRoot());
+    }
+
+    /**
+     * This method loads specific batch of Arrow file as DataSet. Stream format isn't supported
+     */
+    public DataSet loadDataSet(int batch) throws IOException {
+        return toDataSet(loadMultiDataSet(batch));
+    }
+
+    /**
+     * This method checks, if returned arrays may point to Arrow memory, which is reused for next batch
+     */
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    /**
+     * This method returns number of arrays wrapped over Arrow memory without copying
+     */
+    public long getNumberOfWrappedArrays() {
+        return wrappedArrays;
+    }
+
+    /**
+     * This method returns number of arrays that had to be copied
+     */
+    public long getNumberOfCopiedArrays() {
+        return copiedArrays;
+    }
+
+    private static DataSet toDataSet(MultiDataSet mds) {
+        if (mds.numFeatureArrays() > 1 || mds.numLabelsArrays() > 1)
+            throw new IllegalStateException("Can't convert batch with " + mds.numFeatureArrays() + " features and "
+                            + mds.numLabelsArrays() + " labels arrays to DataSet, use nextMultiDataSet() instead");
+
+        return new DataSet(first(mds.getFeatures()), first(mds.getLabels()), first(mds.getFeaturesMaskArrays()),
+                        first(mds.getLabelsMaskArrays()));
+    }
+
+    private static INDArray first(INDArray[] arrays) {
+        return arrays == null || arrays.length == 0 ? null : arrays[0];
+    }
+
+    private MultiDataSet convert(VectorSchemaRoot root) {
+        int rows = root.getRowCount();
+
+        Map<String, SortedMap<Integer, INDArray>> roles = new HashMap<>();
+        for (String role : new String[] {ArrowDataSetWriter.FEATURES, ArrowDataSetWriter.LABELS,
+                        ArrowDataSetWriter.FEATURES_MASK, ArrowDataSetWriter.LABELS_MASK})
+            roles.put(role, new TreeMap<Integer, INDArray>());
+
+        for (FieldVector vector : root.getFieldVectors()) {
+            Field field = vector.getField();
+            Map<String, String> metadata = field.getMetadata();
+
+            String role = metadata == null ? null : metadata.get(ArrowDataSetWriter.ROLE_KEY);
+            SortedMap<Integer, INDArray> arrays = roles.get(role == null ? ArrowDataSetWriter.FEATURES : role);
+            if (arrays == null)
+                throw new IllegalStateException("Unknown role [" + role + "] of column [" + field.getName() + "]");
+
+            int index = role == null || !metadata.containsKey(ArrowDataSetWriter.INDEX_KEY) ? arrays.size()
+                            : Integer.parseInt(metadata.get(ArrowDataSetWriter.INDEX_KEY));
+
+            String shape = metadata == null ? null : metadata.get(ArrowDataSetWriter.SHAPE_KEY);
+            arrays.put(index, toArray(vector, rows, shape));
+        }
+
+        return new MultiDataSet(toArray(roles.get(ArrowDataSetWriter.FEATURES)),
+                        toArray(roles.get(ArrowDataSetWriter.LABELS)),
+                        toArray(roles.get(ArrowDataSetWriter.FEATURES_MASK)),
+                        toArray(roles.get(ArrowDataSetWriter.LABELS_MASK)));
+    }
+
+    private static INDArray[] toArray(SortedMap<Integer, INDArray> arrays) {
+        if (arrays.isEmpty())
+            return null;
+
+        INDArray[] result = new INDArray[arrays.lastKey() + 1];
+        for (Map.Entry<Integer, INDArray> entry : arrays.entrySet())
+            result[entry.getKey()] = entry.getValue();
+        return result;
+    }
+
+    private INDArray toArray(FieldVector vector, int rows, String exampleShape) {
+        FieldVector values;
+        int listSize;
+        boolean hasNulls;
+        if (vector instanceof FixedSizeListVector) {
+            FixedSizeListVector list = (FixedSizeListVector) vector;
+            values = list.getDataVector();
+            listSize = list.getListSize();
+            hasNulls = list.getNullCount() > 0 || values.getNullCount() > 0;
+        } else {
+            values = vector;
+            listSize = 1;
+            hasNulls = values.getNullCount() > 0;
+        }
+
+        int[] shape = ArrayUtil.combine(new int[] {rows},
+                        exampleShape == null ? new int[] {listSize} : ArrowDataSetWriter.shapeFromString(exampleShape));
+        int length = rows * listSize;
+        if (ArrayUtil.prod(shape) != length)
+            throw new IllegalStateException("Shape " + Arrays.toString(shape) + " doesn't match column ["
+                            + vector.getField().getName() + "] with " + length + " values");
+
+        if (length == 0)
+            return Nd4j.create(shape, 'c');
+
+        if (!hasNulls && (values instanceof Float4Vector || values instanceof Float8Vector)) {
+            boolean isDouble = values instanceof Float8Vector;
+            DataBuffer.Type type = isDouble ? DataBuffer.Type.DOUBLE : DataBuffer.Type.FLOAT;
+            ArrowBuf arrowBuf = values.getDataBuffer();
+            ByteBuffer data = arrowBuf.nioBuffer(0, length * (isDouble ? 8 : 4)).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (zeroCopy && type == Nd4j.dataType() && data.isDirect()
+                            && ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+                wrappedArrays++;
+                DataBuffer buffer = Nd4j.createBuffer(data, type, length);
+                return Nd4j.create(buffer, shape, Nd4j.getStrides(shape, 'c'), 0, 'c');
+            }
+
+            copiedArrays++;
+            if (isDouble) {
+                double[] array = new double[length];
+                data.asDoubleBuffer().get(array);
+                return Nd4j.create(array, shape, 'c');
+            } else {
+                float[] array = new float[length];
+                data.asFloatBuffer().get(array);
+                return Nd4j.create(array, shape, 'c');
+            }
+        }
+
+        // generic path: any numeric type, nulls become 0
+        copiedArrays++;
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            if (vector != values && vector.isNull(i / listSize))
+                continue;
+
+            Object value = values.getObject(i);
+            if (value == null)
+                continue;
+
+            if (!(value instanceof Number))
+                throw new UnsupportedOperationException("Column [" + vector.getField().getName()
+                                + "] has non-numeric values of type " + value.getClass().getSimpleName());
+
+            array[i] = ((Number) value).doubleValue();
+        }
+
+        return Nd4j.create(array, shape, 'c');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } finally {
+            allocator.close();
+        }
+    }
+}
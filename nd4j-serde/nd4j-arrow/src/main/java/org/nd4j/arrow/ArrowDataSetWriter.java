@@ -0,0 +1,348 @@
+package org.nd4j.arrow;
+
+import io.netty.buffer.ArrowBuf;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.bytedeco.javacpp.BytePointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Writer for {@link DataSet} and {@link MultiDataSet} batches in Arrow IPC form: either stream format,
+ * or file (random access) format.
+ *
+ * Each array of the dataset becomes single column with one row per example. Row is FixedSizeList of float/double
+ * values, holding single example in 'c' order. Role of the array (features, labels or masks), its index and
+ * per-example shape are stored in field metadata, so other Arrow consumers (i.e. pyarrow) can restore original
+ * arrays. Column names are role + "_" + index, i.e. "features_0" or "labels_mask_1".
+ *
+ * Schema is defined by first written batch: all subsequent batches should have the same arrays, with the same
+ * data types and per-example shapes. Only FLOAT and DOUBLE arrays are supported.
+ */
+@Slf4j
+public class ArrowDataSetWriter implements Closeable {
+    public static final String KIND_KEY = "nd4j.kind";
+    public static final String ROLE_KEY = "nd4j.role";
+    public static final String INDEX_KEY = "nd4j.index";
+    public static final String SHAPE_KEY = "nd4j.shape";
+
+    public static final String KIND_DATASET = "DataSet";
+    public static final String KIND_MULTIDATASET = "MultiDataSet";
+
+    public static final String FEATURES = "features";
+    public static final String LABELS = "labels";
+    public static final String FEATURES_MASK = "features_mask";
+    public static final String LABELS_MASK = "labels_mask";
+
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+
+    private VectorSchemaRoot root;
+    private ArrowWriter writer;
+    private List<Column> schemaColumns;
+    private String kind;
+    private int batches = 0;
+
+    /**
+     * Creates writer producing Arrow IPC stream format
+     *
+     * @param out stream to write to. It'll be closed together with this writer
+     */
+    public ArrowDataSetWriter(@NonNull OutputStream out) {
+        this.stream = out;
+        this.channel = null;
+    }
+
+    /**
+     * Creates writer producing Arrow IPC file format, which allows random access to batches
+     *
+     * @param file file to write to. Existing file will be overwritten
+     */
+    public ArrowDataSetWriter(@NonNull File file) throws IOException {
+        this.stream = null;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * This method writes given DataSet as single record batch
+     */
+    public void write(@NonNull DataSet dataSet) throws IOException {
+        List<Column> columns = new ArrayList<>(4);
+        addColumn(columns, FEATURES, 0, dataSet.getFeatures());
+        addColumn(columns, LABELS, 0, dataSet.getLabels());
+        addColumn(columns, FEATURES_MASK, 0, dataSet.getFeaturesMaskArray());
+        addColumn(columns, LABELS_MASK, 0, dataSet.getLabelsMaskArray());
+
+        write(KIND_DATASET, columns);
+    }
+
+    /**
+     * This method writes given MultiDataSet as single record batch
+     */
+    public void write(@NonNull MultiDataSet dataSet) throws IOException {
+        List<Column> columns = new ArrayList<>();
+        addColumns(columns, FEATURES, dataSet.getFeatures());
+        addColumns(columns, LABELS, dataSet.getLabels());
+        addColumns(columns, FEATURES_MASK, dataSet.getFeaturesMaskArrays());
+        addColumns(columns, LABELS_MASK, dataSet.getLabelsMaskArrays());
+
+        write(KIND_MULTIDATASET, columns);
+    }
+
+    /**
+     * This method returns number of record batches written so far
+     */
+    public int getNumberOfBatches() {
+        return batches;
+    }
+
+    private static void addColumns(List<Column> columns, String role, INDArray[] arrays) {
+        if (arrays == null)
+            return;
+
+        for (int i = 0; i < arrays.length; i++)
+            addColumn(columns, role, i, arrays[i]);
+    }
+
+    private static void addColumn(List<Column> columns, String role, int index, INDArray array) {
+        if (array == null)
+            return;
+
+        if (array.rank() < 2)
+            throw new IllegalArgumentException("Array [" + role + "_" + index + "] should have rank 2 or above, but has "
+                            + Arrays.toString(array.shape()));
+
+        DataBuffer.Type type = array.data().dataType();
+        if (type != DataBuffer.Type.FLOAT && type != DataBuffer.Type.DOUBLE)
+            throw new UnsupportedOperationException("Array [" + role + "_" + index + "] has data type " + type
+                            + ", only FLOAT and DOUBLE are supported");
+
+        columns.add(new Column(role, index, array));
+    }
+
+    private void write(String kind, List<Column> columns) throws IOException {
+        if (columns.isEmpty())
+            throw new IllegalArgumentException("Can't write empty dataset");
+
+        int rows = columns.get(0).array.size(0);
+        for (Column column : columns)
+            if (column.array.size(0) != rows)
+                throw new IllegalArgumentException("All arrays should have the same number of examples: expected "
+                                + rows + " but [" + column.name() + "] has " + column.array.size(0));
+
+        if (writer == null)
+            start(kind, columns);
+        else
+            validate(kind, columns);
+
+        List<FieldVector> vectors = root.getFieldVectors();
+        for (int i = 0; i < columns.size(); i++)
+            fill((FixedSizeListVector) vectors.get(i), columns.get(i).array, rows);
+
+        root.setRowCount(rows);
+        writer.writeBatch();
+        batches++;
+    }
+
+    private void start(String kind, List<Column> columns) throws IOException {
+        List<Field> fields = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            ArrowType elementType = new ArrowType.FloatingPoint(column.type() == DataBuffer.Type.DOUBLE
+                            ? FloatingPointPrecision.DOUBLE : FloatingPointPrecision.SINGLE);
+
+            int[] exampleShape = column.exampleShape();
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put(ROLE_KEY, column.role);
+            metadata.put(INDEX_KEY, String.valueOf(column.index));
+            metadata.put(SHAPE_KEY, shapeToString(exampleShape));
+
+            Field values = new Field("values", new FieldType(false, elementType, null), Collections.<Field>emptyList());
+            FieldType listType = new FieldType(false, new ArrowType.FixedSizeList(ArrayUtil.prod(exampleShape)), null,
+                            metadata);
+            fields.add(new Field(column.name(), listType, Collections.singletonList(values)));
+        }
+
+        Schema schema = new Schema(fields, Collections.singletonMap(KIND_KEY, kind));
+        root = VectorSchemaRoot.create(schema, allocator);
+
+        DictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+        writer = stream != null ? new ArrowStreamWriter(root, provider, stream)
+                        : new ArrowFileWriter(root, provider, channel);
+        writer.start();
+
+        this.kind = kind;
+        this.schemaColumns = columns;
+
+        log.debug("Started Arrow {} output with schema {}", kind, schema);
+    }
+
+    private void validate(String kind, List<Column> columns) {
+        if (!this.kind.equals(kind))
+            throw new IllegalStateException("Writer was started with " + this.kind + ", can't write " + kind);
+
+        boolean matches = columns.size() == schemaColumns.size();
+        for (int i = 0; matches && i < columns.size(); i++) {
+            Column expected = schemaColumns.get(i);
+            Column actual = columns.get(i);
+            matches = expected.name().equals(actual.name()) && expected.type() == actual.type()
+                            && Arrays.equals(expected.exampleShape(), actual.exampleShape());
+        }
+
+        if (!matches)
+            throw new IllegalStateException("Batch doesn't match schema of the first batch: expected "
+                            + describe(schemaColumns) + " but got " + describe(columns));
+    }
+
+    /**
+     * This method copies array contents into Arrow vector, as 'c' ordered little-endian values
+     */
+    private static void fill(FixedSizeListVector vector, INDArray array, int rows) {
+        INDArray source = array.isView() || array.ordering() != 'c' ? array.dup('c') : array;
+        Nd4j.getAffinityManager().ensureLocation(source, AffinityManager.Location.HOST);
+
+        int length = (int) source.length();
+        int bytes = length * source.data().getElementSize();
+
+        vector.clear();
+        vector.setInitialCapacity(rows);
+        vector.allocateNew();
+
+        BaseFixedWidthVector values = (BaseFixedWidthVector) vector.getDataVector();
+        while (values.getValueCapacity() < length)
+            values.reAlloc();
+
+        BytePointer pointer = new BytePointer(source.data().addressPointer());
+        pointer.position(0);
+        pointer.capacity(bytes);
+        pointer.limit(bytes);
+        ByteBuffer data = pointer.asByteBuffer().order(ByteOrder.nativeOrder());
+
+        if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+            values.getDataBuffer().setBytes(0, data);
+        } else if (source.data().dataType() == DataBuffer.Type.DOUBLE) {
+            ArrowBuf target = values.getDataBuffer();
+            for (int i = 0; i < length; i++)
+                target.setDouble(i * 8, data.getDouble(i * 8));
+        } else {
+            ArrowBuf target = values.getDataBuffer();
+            for (int i = 0; i < length; i++)
+                target.setFloat(i * 4, data.getFloat(i * 4));
+        }
+
+        setAllValid(vector.getValidityBuffer(), rows);
+        setAllValid(values.getValidityBuffer(), length);
+    }
+
+    private static void setAllValid(ArrowBuf validity, int count) {
+        int full = count / 8;
+        for (int i = 0; i < full; i++)
+            validity.setByte(i, 0xFF);
+
+        int rem = count % 8;
+        if (rem > 0)
+            validity.setByte(full, (1 << rem) - 1);
+    }
+
+    protected static String shapeToString(int[] shape) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < shape.length; i++) {
+            if (i > 0)
+                builder.append(',');
+            builder.append(shape[i]);
+        }
+        return builder.toString();
+    }
+
+    protected static int[] shapeFromString(String shape) {
+        String[] split = shape.split(",");
+        int[] result = new int[split.length];
+        for (int i = 0; i < split.length; i++)
+            result[i] = Integer.parseInt(split[i].trim());
+        return result;
+    }
+
+    private static String describe(List<Column> columns) {
+        List<String> result = new ArrayList<>(columns.size());
+        for (Column column : columns)
+            result.add(column.name() + ":" + column.type() + Arrays.toString(column.exampleShape()));
+        return result.toString();
+    }
+
+    /**
+     * This method finishes Arrow output (writing file footer, if applicable), and releases all resources
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writer != null) {
+                writer.end();
+                writer.close();
+            } else if (stream != null) {
+                stream.close();
+            } else {
+                channel.close();
+            }
+        } finally {
+            if (root != null)
+                root.close();
+            allocator.close();
+        }
+    }
+
+    private static class Column {
+        private final String role;
+        private final int index;
+        private final INDArray array;
+
+        private Column(String role, int index, INDArray array) {
+            this.role = role;
+            this.index = index;
+            this.array = array;
+        }
+
+        private String name() {
+            return role + "_" + index;
+        }
+
+        private DataBuffer.Type type() {
+            return array.data().dataType();
+        }
+
+        private int[] exampleShape() {
+            return Arrays.copyOfRange(array.shape(), 1, array.rank());
+        }
+    }
+}
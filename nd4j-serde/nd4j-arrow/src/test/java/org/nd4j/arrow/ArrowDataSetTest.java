@@ -0,0 +1,104 @@
+package org.nd4j.arrow;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class ArrowDataSetTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testStreamDataSet() throws Exception {
+        DataSet first = new DataSet(Nd4j.rand(new int[] {4, 3, 5}), Nd4j.rand(4, 2), Nd4j.ones(4, 5), null);
+        DataSet second = new DataSet(Nd4j.rand(new int[] {2, 3, 5}), Nd4j.rand(2, 2), Nd4j.zeros(2, 5), null);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ArrowDataSetWriter writer = new ArrowDataSetWriter(bos)) {
+            writer.write(first);
+            writer.write(second);
+            assertEquals(2, writer.getNumberOfBatches());
+        }
+
+        try (ArrowDataSetReader reader = new ArrowDataSetReader(new ByteArrayInputStream(bos.toByteArray()), true)) {
+            assertTrue(reader.isZeroCopy());
+            assertTrue(reader.hasNext());
+            DataSet restored = reader.next();
+            assertEquals(first.getFeatures(), restored.getFeatures());
+            assertEquals(first.getLabels(), restored.getLabels());
+            assertEquals(first.getFeaturesMaskArray(), restored.getFeaturesMaskArray());
+            assertNull(restored.getLabelsMaskArray());
+
+            // zero-copy arrays are valid until next batch is loaded
+            INDArray detached = restored.getFeatures().dup();
+
+            assertTrue(reader.hasNext());
+            restored = reader.next();
+            assertEquals(second.getFeatures(), restored.getFeatures());
+            assertEquals(second.getFeaturesMaskArray(), restored.getFeaturesMaskArray());
+            assertEquals(first.getFeatures(), detached);
+
+            assertFalse(reader.hasNext());
+            assertEquals(6, reader.getNumberOfWrappedArrays());
+            assertEquals(0, reader.getNumberOfCopiedArrays());
+        }
+
+        // arrays are copied by default, so they stay valid after next batch is loaded
+        try (ArrowDataSetReader reader = new ArrowDataSetReader(new ByteArrayInputStream(bos.toByteArray()))) {
+            assertFalse(reader.isZeroCopy());
+            DataSet restored = reader.next();
+            assertTrue(reader.hasNext());
+            reader.next();
+            assertEquals(first.getFeatures(), restored.getFeatures());
+            assertEquals(0, reader.getNumberOfWrappedArrays());
+        }
+    }
+
+    @Test
+    public void testFileMultiDataSet() throws Exception {
+        File file = new File(testDir.newFolder(), "batches.arrow");
+
+        MultiDataSet[] batches = new MultiDataSet[3];
+        try (ArrowDataSetWriter writer = new ArrowDataSetWriter(file)) {
+            for (int i = 0; i < batches.length; i++) {
+                batches[i] = new MultiDataSet(new INDArray[] {Nd4j.rand(5, 3), Nd4j.rand(new int[] {5, 2, 2})},
+                                new INDArray[] {Nd4j.rand(5, 4)});
+                writer.write(batches[i]);
+            }
+        }
+
+        try (ArrowDataSetReader reader = new ArrowDataSetReader(file, false)) {
+            assertEquals(3, reader.getNumberOfBatches());
+
+            MultiDataSet restored = reader.loadMultiDataSet(2);
+            assertEquals(2, restored.numFeatureArrays());
+            assertEquals(batches[2].getFeatures(0), restored.getFeatures(0));
+            assertEquals(batches[2].getFeatures(1), restored.getFeatures(1));
+            assertEquals(batches[2].getLabels(0), restored.getLabels(0));
+            assertNull(restored.getFeaturesMaskArrays());
+
+            restored = reader.loadMultiDataSet(0);
+            assertEquals(batches[0].getFeatures(1), restored.getFeatures(1));
+            assertEquals(0, reader.getNumberOfWrappedArrays());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSchemaMismatch() throws Exception {
+        try (ArrowDataSetWriter writer = new ArrowDataSetWriter(new ByteArrayOutputStream())) {
+            writer.write(new DataSet(Nd4j.rand(3, 4), Nd4j.rand(3, 2)));
+            writer.write(new DataSet(Nd4j.rand(3, 5), Nd4j.rand(3, 2)));
+        }
+    }
+}